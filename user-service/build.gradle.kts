@@ -69,6 +69,8 @@ dependencies {
 	testImplementation("org.springframework.boot:spring-boot-starter-test")
 	testImplementation("org.springframework.security:spring-security-test")
 	testImplementation("org.springframework.boot:spring-boot-testcontainers")
+	testImplementation("org.openjdk.jmh:jmh-core:1.37")
+	testAnnotationProcessor("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 
 	testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
@@ -76,3 +78,21 @@ dependencies {
 tasks.withType<Test> {
 	useJUnitPlatform()
 }
+
+tasks.test {
+	useJUnitPlatform {
+		excludeTags("benchmark")
+	}
+}
+
+/* Slow benchmarks on multi-million row tables.  Run explicitly with ./gradlew benchmark.  */
+tasks.register<Test>("benchmark") {
+	description = "Runs tests tagged as benchmarks."
+	group = "verification"
+	testClassesDirs = sourceSets.test.get().output.classesDirs
+	classpath = sourceSets.test.get().runtimeClasspath
+	useJUnitPlatform {
+		includeTags("benchmark")
+	}
+	testLogging.showStandardStreams = true
+}
@@ -12,6 +12,8 @@ public class RabbitMqConfig {
     public static final String EXCHANGE_NAME = "notification-queue";
     public static final String QUEUE_NAME = "notification-queue";
     public static final String ROUTING_KEY = "notification-queue";
+    /* Fanout to every user-service instance; each one binds its own anonymous queue.  */
+    public static final String REFERENCE_RATE_EXCHANGE = "user-service.reference-rates";
 
     @Bean
     public TopicExchange notificationExchange() {
@@ -30,6 +32,21 @@ public class RabbitMqConfig {
                 .with(ROUTING_KEY);
     }
 
+    @Bean
+    public FanoutExchange referenceRateExchange() {
+        return new FanoutExchange(REFERENCE_RATE_EXCHANGE);
+    }
+
+    @Bean
+    public Queue referenceRateQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding referenceRateBinding(Queue referenceRateQueue, FanoutExchange referenceRateExchange) {
+        return BindingBuilder.bind(referenceRateQueue).to(referenceRateExchange);
+    }
+
     @Bean
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
@@ -14,6 +14,7 @@ import rs.banka4.user_service.domain.loan.db.LoanType;
 import rs.banka4.user_service.domain.loan.dtos.LoanApplicationDto;
 import rs.banka4.user_service.domain.loan.dtos.LoanFilterDto;
 import rs.banka4.user_service.domain.loan.dtos.LoanInformationDto;
+import rs.banka4.user_service.domain.loan.dtos.LoanScheduleDto;
 import rs.banka4.user_service.service.abstraction.LoanService;
 
 @RestController
@@ -72,4 +73,10 @@ public class LoanController implements LoanDocumentation {
         loanService.rejectLoan(loanNumber, (String) auth.getCredentials());
         return ResponseEntity.ok().build();
     }
+
+    @Override
+    @GetMapping("/{loanNumber}/schedule")
+    public ResponseEntity<LoanScheduleDto> getLoanSchedule(@PathVariable Long loanNumber, Authentication auth) {
+        return loanService.getLoanSchedule(loanNumber, (String) auth.getCredentials());
+    }
 }
@@ -4,18 +4,27 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import rs.banka4.user_service.controller.docs.TransactionApiDocumentation;
+import rs.banka4.user_service.domain.transaction.dtos.BulkPaymentResultDto;
+import rs.banka4.user_service.domain.transaction.dtos.CreateBulkPaymentDto;
 import rs.banka4.user_service.domain.transaction.dtos.CreatePaymentDto;
 import rs.banka4.user_service.domain.transaction.db.TransactionStatus;
 import rs.banka4.user_service.domain.transaction.dtos.CreateTransferDto;
 import rs.banka4.user_service.domain.transaction.dtos.TransactionDto;
+import rs.banka4.user_service.domain.transaction.dtos.TransactionExportFormat;
+import rs.banka4.user_service.domain.transaction.dtos.TransactionSliceDto;
+import rs.banka4.user_service.service.abstraction.IdempotencyService;
+import rs.banka4.user_service.service.abstraction.TransactionExportService;
 import rs.banka4.user_service.service.abstraction.TransactionService;
 
 import java.math.BigDecimal;
+import java.net.URI;
 import java.time.LocalDate;
 import java.util.UUID;
 
@@ -24,19 +33,55 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class TransactionController implements TransactionApiDocumentation {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final TransactionService transactionService;
+    private final IdempotencyService idempotencyService;
+    private final TransactionExportService transactionExportService;
 
     @Override
     @PostMapping("/payment")
-    public ResponseEntity<TransactionDto> createTransaction(Authentication authentication, @RequestBody @Valid CreatePaymentDto createPaymentDto) {
-       TransactionDto transactionDto = transactionService.createTransaction(authentication, createPaymentDto);
+    public ResponseEntity<TransactionDto> createTransaction(
+            Authentication authentication,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestBody @Valid CreatePaymentDto createPaymentDto) {
+        TransactionDto transactionDto = idempotencyService.execute(authentication, idempotencyKey, createPaymentDto,
+                TransactionDto.class, () -> transactionService.createTransaction(authentication, createPaymentDto));
         return ResponseEntity.status(HttpStatus.CREATED).body(transactionDto);
     }
 
+    @Override
+    @PostMapping("/payment/async")
+    public ResponseEntity<TransactionDto> createTransactionAsync(
+            Authentication authentication,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestBody @Valid CreatePaymentDto createPaymentDto) {
+        TransactionDto transactionDto = idempotencyService.execute(authentication, idempotencyKey, createPaymentDto,
+                TransactionDto.class, () -> transactionService.createTransactionAsync(authentication, createPaymentDto));
+        return ResponseEntity.accepted()
+                .location(URI.create("/transaction/" + transactionDto.id()))
+                .body(transactionDto);
+    }
+
+    @Override
+    @PostMapping("/payment/bulk")
+    public ResponseEntity<BulkPaymentResultDto> createBulkPayment(
+            Authentication authentication,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestBody @Valid CreateBulkPaymentDto createBulkPaymentDto) {
+        BulkPaymentResultDto result = idempotencyService.execute(authentication, idempotencyKey, createBulkPaymentDto,
+                BulkPaymentResultDto.class, () -> transactionService.createBulkPayment(authentication, createBulkPaymentDto));
+        return ResponseEntity.ok(result);
+    }
+
     @Override
     @PostMapping("/transfer")
-    public ResponseEntity<TransactionDto> createTransfer(Authentication authentication, @RequestBody @Valid CreateTransferDto createTransferDto) {
-        TransactionDto transactionDto = transactionService.createTransfer(authentication, createTransferDto);
+    public ResponseEntity<TransactionDto> createTransfer(
+            Authentication authentication,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestBody @Valid CreateTransferDto createTransferDto) {
+        TransactionDto transactionDto = idempotencyService.execute(authentication, idempotencyKey, createTransferDto,
+                TransactionDto.class, () -> transactionService.createTransfer(authentication, createTransferDto));
         return ResponseEntity.ok(transactionDto);
     }
 
@@ -55,6 +100,38 @@ public class TransactionController implements TransactionApiDocumentation {
         return ResponseEntity.ok(transactions);
     }
 
+    @Override
+    @GetMapping("/search/cursor")
+    public ResponseEntity<TransactionSliceDto> getTransactionsForClientByCursor(
+            Authentication auth,
+            @RequestParam(required = false) TransactionStatus status,
+            @RequestParam(required = false) BigDecimal amount,
+            @RequestParam(required = false) LocalDate date,
+            @RequestParam(required = false) String accountNumber,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size) {
+        TransactionSliceDto transactions = transactionService.getTransactionsForClientByCursor(auth.getCredentials().toString(),
+                status, amount, date, accountNumber, cursor, Math.clamp(size, 1, 100));
+        return ResponseEntity.ok(transactions);
+    }
+
+    @Override
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            Authentication auth,
+            @RequestParam String accountNumber,
+            @RequestParam LocalDate from,
+            @RequestParam LocalDate to,
+            @RequestParam(defaultValue = "CSV") TransactionExportFormat format) {
+        StreamingResponseBody body = transactionExportService.exportTransactions(auth.getCredentials().toString(),
+                accountNumber, from, to, format);
+        String filename = "transactions-%s-%s-%s.%s".formatted(accountNumber, from, to, format.getExtension());
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
     @Override
     @GetMapping("/{id}")
     public ResponseEntity<TransactionDto> getTransactionById(Authentication auth, @PathVariable UUID id) {
@@ -15,6 +15,8 @@ import rs.banka4.user_service.domain.loan.db.LoanStatus;
 import rs.banka4.user_service.domain.loan.db.LoanType;
 import rs.banka4.user_service.domain.loan.dtos.LoanApplicationDto;
 import rs.banka4.user_service.domain.loan.dtos.LoanInformationDto;
+import rs.banka4.user_service.domain.loan.dtos.LoanScheduleDto;
+import rs.banka4.user_service.exceptions.account.NotAccountOwner;
 import rs.banka4.user_service.exceptions.loan.LoanNotFound;
 
 @Tag(name = "LoanDocumentation", description = "Endpoints for loan functionalities")
@@ -94,4 +96,21 @@ public interface LoanDocumentation {
     )
     ResponseEntity<Void> rejectLoan(@Parameter(description = "Number of the loan") Long loanNumber, Authentication auth);
 
+    @Operation(
+            summary = "Loan Repayment Schedule",
+            description = "Returns the full repayment schedule of a loan: principal, interest and remaining balance " +
+                    "for every installment. Employees can view any loan, clients only their own.",
+            security = @SecurityRequirement(name = "bearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Schedule computed successfully",
+                            content = @Content(schema = @Schema(implementation = LoanScheduleDto.class))),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing token"),
+                    @ApiResponse(responseCode = "403", description = "Forbidden: Loan belongs to another client",
+                            content = @Content(schema = @Schema(implementation = NotAccountOwner.class))),
+                    @ApiResponse(responseCode = "404", description = "Loan Not Found - Loan Number not found",
+                            content = @Content(schema = @Schema(implementation = LoanNotFound.class))),
+            }
+    )
+    ResponseEntity<LoanScheduleDto> getLoanSchedule(@Parameter(description = "Number of the loan") Long loanNumber, Authentication auth);
+
 }
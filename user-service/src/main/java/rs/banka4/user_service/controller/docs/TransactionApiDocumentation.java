@@ -11,14 +11,24 @@ import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import rs.banka4.user_service.domain.transaction.dtos.BulkPaymentResultDto;
+import rs.banka4.user_service.domain.transaction.dtos.CreateBulkPaymentDto;
 import rs.banka4.user_service.domain.transaction.dtos.CreatePaymentDto;
 import rs.banka4.user_service.domain.transaction.db.TransactionStatus;
 import rs.banka4.user_service.domain.transaction.dtos.CreateTransferDto;
 import rs.banka4.user_service.domain.transaction.dtos.TransactionDto;
+import rs.banka4.user_service.domain.transaction.dtos.TransactionExportFormat;
+import rs.banka4.user_service.domain.transaction.dtos.TransactionSliceDto;
+import rs.banka4.user_service.exceptions.InvalidData;
 import rs.banka4.user_service.exceptions.account.AccountNotFound;
 import rs.banka4.user_service.exceptions.user.client.ClientNotFound;
 import rs.banka4.user_service.exceptions.transaction.InsufficientFunds;
 import rs.banka4.user_service.exceptions.account.NotAccountOwner;
+import rs.banka4.user_service.exceptions.account.NotBusinessAccount;
+import rs.banka4.user_service.exceptions.transaction.IdempotencyKeyInProgress;
+import rs.banka4.user_service.exceptions.transaction.IdempotencyKeyReused;
+import rs.banka4.user_service.exceptions.transaction.InvalidCursor;
 import rs.banka4.user_service.exceptions.transaction.TransactionNotFound;
 
 import java.math.BigDecimal;
@@ -30,8 +40,13 @@ public interface TransactionApiDocumentation {
 
     @Operation(
             summary = "Create a new Transaction",
-            description = "Creates a new payment with the provided details.",
+            description = "Creates a new payment with the provided details. Requests carrying an Idempotency-Key " +
+                    "header are executed at most once; a retry with the same key returns the original response.",
             responses = {
+                    @ApiResponse(responseCode = "409", description = "A request with this Idempotency-Key is still being processed",
+                            content = @Content(schema = @Schema(implementation = IdempotencyKeyInProgress.class))),
+                    @ApiResponse(responseCode = "422", description = "Idempotency-Key was already used for a different request",
+                            content = @Content(schema = @Schema(implementation = IdempotencyKeyReused.class))),
                     @ApiResponse(responseCode = "201", description = "Successfully created new transaction"),
                     @ApiResponse(responseCode = "400", description = "Bad request - Invalid data or Insufficient funds",
                             content = @Content(schema = @Schema(implementation = InsufficientFunds.class))),
@@ -43,12 +58,59 @@ public interface TransactionApiDocumentation {
     )
     ResponseEntity<TransactionDto> createTransaction(
             Authentication authentication,
+            @Parameter(description = "Client-chosen key; retrying with the same key returns the original result") String idempotencyKey,
             @Valid CreatePaymentDto createPaymentDto);
 
+    @Operation(
+            summary = "Create a new Transaction asynchronously",
+            description = "Accepts a payment for settlement in the background. The amount and fee are reserved on the " +
+                    "sender's available balance and the transaction is returned with status PENDING. Poll " +
+                    "GET /transaction/{id} (also sent in the Location header) until it becomes REALIZED or REJECTED.",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Payment accepted for settlement"),
+                    @ApiResponse(responseCode = "400", description = "Bad request - Invalid data or Insufficient funds",
+                            content = @Content(schema = @Schema(implementation = InsufficientFunds.class))),
+                    @ApiResponse(responseCode = "404", description = "Client not found",
+                            content = @Content(schema = @Schema(implementation = ClientNotFound.class))),
+                    @ApiResponse(responseCode = "404", description = "Account not found",
+                            content = @Content(schema = @Schema(implementation = AccountNotFound.class)))
+            }
+    )
+    ResponseEntity<TransactionDto> createTransactionAsync(
+            Authentication authentication,
+            @Parameter(description = "Client-chosen key; retrying with the same key returns the original result") String idempotencyKey,
+            @Valid CreatePaymentDto createPaymentDto);
+
+    @Operation(
+            summary = "Create a bulk payment",
+            description = "Pays many recipients from one business account, e.g. a payroll, with a single TOTP check. " +
+                    "Each payment is realized or rejected on its own; the response lists the outcome of every item " +
+                    "in request order. Supports the Idempotency-Key header.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Bulk payment processed",
+                            content = @Content(schema = @Schema(implementation = BulkPaymentResultDto.class))),
+                    @ApiResponse(responseCode = "403", description = "Not account owner",
+                            content = @Content(schema = @Schema(implementation = NotAccountOwner.class))),
+                    @ApiResponse(responseCode = "403", description = "Source account is not a business account",
+                            content = @Content(schema = @Schema(implementation = NotBusinessAccount.class))),
+                    @ApiResponse(responseCode = "404", description = "Source account not found",
+                            content = @Content(schema = @Schema(implementation = AccountNotFound.class)))
+            }
+    )
+    ResponseEntity<BulkPaymentResultDto> createBulkPayment(
+            Authentication authentication,
+            @Parameter(description = "Client-chosen key; retrying with the same key returns the original result") String idempotencyKey,
+            @Valid CreateBulkPaymentDto createBulkPaymentDto);
+
     @Operation(
             summary = "Create a new Transfer",
-            description = "Creates a new transfer. The client can only transfer using their own account.",
+            description = "Creates a new transfer. The client can only transfer using their own account. Supports the " +
+                    "Idempotency-Key header like payment creation.",
             responses = {
+                    @ApiResponse(responseCode = "409", description = "A request with this Idempotency-Key is still being processed",
+                            content = @Content(schema = @Schema(implementation = IdempotencyKeyInProgress.class))),
+                    @ApiResponse(responseCode = "422", description = "Idempotency-Key was already used for a different request",
+                            content = @Content(schema = @Schema(implementation = IdempotencyKeyReused.class))),
                     @ApiResponse(responseCode = "201", description = "Successfully created new payment"),
                     @ApiResponse(responseCode = "400", description = "Bad request - Invalid data or Insufficient funds",
                             content = @Content(schema = @Schema(implementation = InsufficientFunds.class))),
@@ -62,6 +124,7 @@ public interface TransactionApiDocumentation {
     )
     ResponseEntity<TransactionDto> createTransfer(
             Authentication authentication,
+            @Parameter(description = "Client-chosen key; retrying with the same key returns the original result") String idempotencyKey,
             @Valid CreateTransferDto createTransferDto);
 
     @Operation(
@@ -84,9 +147,55 @@ public interface TransactionApiDocumentation {
             @Parameter(description = "Page number") int page,
             @Parameter(description = "Number of employees per page") int size);
 
+    @Operation(
+            summary = "Get Client Payments (cursor pagination)",
+            description = "Retrieves the authenticated client's payments newest first, using keyset pagination. " +
+                    "Pass the nextCursor of a response as cursor to get the following page; no total count is computed.",
+            security = @SecurityRequirement(name = "bearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Successfully retrieved payments",
+                            content = @Content(schema = @Schema(implementation = TransactionSliceDto.class))),
+                    @ApiResponse(responseCode = "400", description = "Bad request - Malformed cursor",
+                            content = @Content(schema = @Schema(implementation = InvalidCursor.class))),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized - Token errors"),
+                    @ApiResponse(responseCode = "403", description = "Forbidden - Access denied")
+            }
+    )
+    ResponseEntity<TransactionSliceDto> getTransactionsForClientByCursor(
+            Authentication auth,
+            @Parameter(description = "Payment status") TransactionStatus status,
+            @Parameter(description = "Payment amount") BigDecimal amount,
+            @Parameter(description = "Payments on date") LocalDate date,
+            @Parameter(description = "Account number") String accountNumber,
+            @Parameter(description = "Cursor returned by the previous page; omit for the first page") String cursor,
+            @Parameter(description = "Number of payments per page (1-100)") int size);
+
+    @Operation(
+            summary = "Export account statement",
+            description = "Streams every transaction of the account between the given dates (inclusive), oldest first, " +
+                    "as CSV or newline-delimited JSON. Clients may only export their own accounts.",
+            security = @SecurityRequirement(name = "bearerAuth"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Statement stream"),
+                    @ApiResponse(responseCode = "400", description = "Bad request - from is after to",
+                            content = @Content(schema = @Schema(implementation = InvalidData.class))),
+                    @ApiResponse(responseCode = "403", description = "Not account owner",
+                            content = @Content(schema = @Schema(implementation = NotAccountOwner.class))),
+                    @ApiResponse(responseCode = "404", description = "Account not found",
+                            content = @Content(schema = @Schema(implementation = AccountNotFound.class)))
+            }
+    )
+    ResponseEntity<StreamingResponseBody> exportTransactions(
+            Authentication auth,
+            @Parameter(description = "Account number") String accountNumber,
+            @Parameter(description = "First day of the statement") LocalDate from,
+            @Parameter(description = "Last day of the statement") LocalDate to,
+            @Parameter(description = "CSV or NDJSON") TransactionExportFormat format);
+
     @Operation(
             summary = "Get Transaction by ID",
-            description = "Retrieves the transaction with the provided ID.",
+            description = "Retrieves the transaction with the provided ID. Also used to poll the status of an " +
+                    "asynchronously created payment.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Successfully retrieved transaction",
                             content = @Content(schema = @Schema(implementation = TransactionDto.class))),
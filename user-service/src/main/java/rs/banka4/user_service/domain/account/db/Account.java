@@ -7,6 +7,7 @@ import rs.banka4.user_service.domain.user.client.db.Client;
 import rs.banka4.user_service.domain.user.employee.db.Employee;
 import rs.banka4.user_service.domain.company.db.Company;
 import rs.banka4.user_service.domain.currency.db.Currency;
+import rs.banka4.user_service.utils.accounts.AccountOverviewListener;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -21,12 +22,16 @@ import java.util.UUID;
 @Setter
 @RequiredArgsConstructor
 @Table(name = "accounts")
+@EntityListeners(AccountOverviewListener.class)
 public class Account {
 
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
     private UUID id;
 
+    @Version
+    private Long version;
+
     @Column(nullable = false, unique = true)
     private String accountNumber;
 
@@ -0,0 +1,20 @@
+package rs.banka4.user_service.domain.currency.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+
+/**
+ * One row of the exchange office table: how many units of {@code quote} (always RSD) one unit
+ * of {@code base} is worth, from the bank's point of view.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ExchangeRateDto(
+        @JsonProperty("Base") String base,
+        @JsonProperty("Quote") String quote,
+        @JsonProperty("Buy") BigDecimal buy,
+        @JsonProperty("Neutral") BigDecimal neutral,
+        @JsonProperty("Sell") BigDecimal sell
+) {
+}
@@ -0,0 +1,16 @@
+package rs.banka4.user_service.domain.currency.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.Map;
+
+/**
+ * Body of the exchange office {@code GET /exchange-rate} response, keyed by base currency code.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ExchangeRateTableDto(
+        long lastUpdatedUnix,
+        long nextUpdateUnix,
+        Map<String, ExchangeRateDto> exchanges
+) {
+}
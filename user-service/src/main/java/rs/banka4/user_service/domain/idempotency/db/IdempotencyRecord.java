@@ -0,0 +1,64 @@
+package rs.banka4.user_service.domain.idempotency.db;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.proxy.HibernateProxy;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * A request made with an {@code Idempotency-Key} header.  The row is written in the same
+ * transaction as the request's work, together with its {@code response}, so other transactions
+ * only see completed requests.
+ */
+@Entity
+@Builder
+@AllArgsConstructor
+@Getter
+@Setter
+@RequiredArgsConstructor
+@Table(name = "idempotency_keys")
+public class IdempotencyRecord {
+
+    /** Caller and key, as {@code <caller>:<key>}.  */
+    @Id
+    @Column(length = 512)
+    private String id;
+
+    /** SHA-256 of the request body, to detect a key being reused for a different request.  */
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    /** Response body as JSON.  */
+    @Column(columnDefinition = "TEXT")
+    private String response;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null) return false;
+        Class<?> oEffectiveClass = o instanceof HibernateProxy ? ((HibernateProxy) o).getHibernateLazyInitializer().getPersistentClass() : o.getClass();
+        Class<?> thisEffectiveClass = this instanceof HibernateProxy ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass() : this.getClass();
+        if (thisEffectiveClass != oEffectiveClass) return false;
+        IdempotencyRecord that = (IdempotencyRecord) o;
+        return getId() != null && Objects.equals(getId(), that.getId());
+    }
+
+    @Override
+    public final int hashCode() {
+        return this instanceof HibernateProxy ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass().hashCode() : getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "IdempotencyRecord{" +
+                "id='" + id + '\'' +
+                ", createdAt=" + createdAt +
+                ", completed=" + (response != null) +
+                '}';
+    }
+}
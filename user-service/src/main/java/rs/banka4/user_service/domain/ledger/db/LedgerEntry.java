@@ -0,0 +1,79 @@
+package rs.banka4.user_service.domain.ledger.db;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.proxy.HibernateProxy;
+import rs.banka4.user_service.domain.currency.db.Currency;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * One leg of a double-entry posting.  A {@code null} account id denotes the bank's own book
+ * (fee income, loan repayments, opening balances).
+ */
+@Entity
+@Immutable
+@Builder
+@AllArgsConstructor
+@Getter
+@RequiredArgsConstructor
+@Table(name = "ledger_entries")
+public class LedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    private UUID accountId;
+
+    private UUID referenceId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private LedgerEntryKind kind;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private LedgerEntryDirection direction;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Currency.Code currency;
+
+    /* Set by the database as the row is inserted (see BalanceSnapshotRepository#commitSafeCutoff).  */
+    @Column(nullable = false, insertable = false, updatable = false)
+    private LocalDateTime postedAt;
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null) return false;
+        Class<?> oEffectiveClass = o instanceof HibernateProxy ? ((HibernateProxy) o).getHibernateLazyInitializer().getPersistentClass() : o.getClass();
+        Class<?> thisEffectiveClass = this instanceof HibernateProxy ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass() : this.getClass();
+        if (thisEffectiveClass != oEffectiveClass) return false;
+        LedgerEntry that = (LedgerEntry) o;
+        return getId() != null && Objects.equals(getId(), that.getId());
+    }
+
+    @Override
+    public final int hashCode() {
+        return this instanceof HibernateProxy ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass().hashCode() : getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "LedgerEntry{" +
+                "id=" + id +
+                ", accountId=" + accountId +
+                ", direction=" + direction +
+                ", amount=" + amount +
+                '}';
+    }
+}
@@ -0,0 +1,5 @@
+package rs.banka4.user_service.domain.ledger.db;
+
+public enum LedgerEntryDirection {
+    DEBIT, CREDIT
+}
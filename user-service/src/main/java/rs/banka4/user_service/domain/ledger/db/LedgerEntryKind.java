@@ -0,0 +1,5 @@
+package rs.banka4.user_service.domain.ledger.db;
+
+public enum LedgerEntryKind {
+    OPENING_BALANCE, TRANSACTION, FEE, LOAN_INSTALLMENT, MAINTENANCE_FEE
+}
@@ -2,6 +2,7 @@ package rs.banka4.user_service.domain.loan.db;
 
 import jakarta.persistence.*;
 import lombok.*;
+import rs.banka4.user_service.utils.loans.PricingReferenceListener;
 
 import java.math.BigDecimal;
 import java.util.UUID;
@@ -13,6 +14,7 @@ import java.util.UUID;
 @AllArgsConstructor
 @Builder
 @Table(name = "bank_margins")
+@EntityListeners(PricingReferenceListener.class)
 public class BankMargin {
     @Id
     @GeneratedValue(strategy = GenerationType.AUTO)
@@ -3,6 +3,7 @@ package rs.banka4.user_service.domain.loan.db;
 
 import jakarta.persistence.*;
 import lombok.*;
+import rs.banka4.user_service.utils.loans.PricingReferenceListener;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -15,6 +16,7 @@ import java.util.UUID;
 @AllArgsConstructor
 @Builder
 @Table(name = "interest_rates")
+@EntityListeners(PricingReferenceListener.class)
 public class InterestRate {
 
     @Id
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.proxy.HibernateProxy;
 import rs.banka4.user_service.domain.account.db.Account;
+import rs.banka4.user_service.utils.ids.TimeOrderedId;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -20,7 +21,7 @@ import java.util.UUID;
 public class Loan {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @TimeOrderedId
     private UUID id;
 
     @Column(nullable = false, unique = true)
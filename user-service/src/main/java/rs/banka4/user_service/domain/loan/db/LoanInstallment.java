@@ -3,6 +3,7 @@ package rs.banka4.user_service.domain.loan.db;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.proxy.HibernateProxy;
+import rs.banka4.user_service.utils.ids.TimeOrderedId;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -19,7 +20,7 @@ import java.util.UUID;
 public class LoanInstallment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @TimeOrderedId
     private UUID id;
 
     @ManyToOne
@@ -27,6 +28,9 @@ public class LoanInstallment {
 
     private BigDecimal installmentAmount;
     private BigDecimal interestRateAmount;
+    private BigDecimal principalAmount;
+    private BigDecimal interestAmount;
+    private BigDecimal remainingBalance;
     private LocalDate expectedDueDate;
     private LocalDate actualDueDate;
 
@@ -0,0 +1,29 @@
+package rs.banka4.user_service.domain.loan.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import rs.banka4.user_service.domain.currency.dtos.CurrencyDto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Schema(description = "Full repayment schedule of a loan")
+public record LoanScheduleDto(
+
+        @Schema(description = "Unique identifier for the loan", example = "1234567")
+        Long loanNumber,
+
+        @Schema(description = "Monthly interest rate of the next installment", example = "0.0041666667")
+        BigDecimal monthlyInterestRate,
+
+        @Schema(description = "Amount of the next installment", example = "1887.12")
+        BigDecimal monthlyInstallment,
+
+        @Schema(description = "Sum of the interest over all installments", example = "13227.40")
+        BigDecimal totalInterest,
+
+        @Schema(description = "Currency of the loan", example = "EUR")
+        CurrencyDto currency,
+
+        @Schema(description = "Installments in due date order")
+        List<LoanSchedulePeriodDto> periods
+) { }
@@ -0,0 +1,32 @@
+package rs.banka4.user_service.domain.loan.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import rs.banka4.user_service.domain.loan.db.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Schema(description = "One month of a loan repayment schedule")
+public record LoanSchedulePeriodDto(
+
+        @Schema(description = "Number of the installment, starting at 1", example = "1")
+        int period,
+
+        @Schema(description = "Date the installment is due", example = "2025-05-01")
+        LocalDate dueDate,
+
+        @Schema(description = "Amount of the installment", example = "1887.12")
+        BigDecimal installment,
+
+        @Schema(description = "Part of the installment that repays principal", example = "1470.45")
+        BigDecimal principal,
+
+        @Schema(description = "Part of the installment that pays interest", example = "416.67")
+        BigDecimal interest,
+
+        @Schema(description = "Principal still owed after the installment", example = "98529.55")
+        BigDecimal remainingBalance,
+
+        @Schema(description = "Whether the installment was paid", example = "UNPAID")
+        PaymentStatus paymentStatus
+) { }
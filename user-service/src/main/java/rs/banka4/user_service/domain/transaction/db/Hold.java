@@ -0,0 +1,83 @@
+package rs.banka4.user_service.domain.transaction.db;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.proxy.HibernateProxy;
+import rs.banka4.user_service.domain.account.db.Account;
+import rs.banka4.user_service.utils.ids.TimeOrderedId;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Funds set aside on an account for a payment that has been authorized but not settled yet.  The
+ * amount is already missing from {@code Account.availableBalance}, but still part of
+ * {@code Account.balance}.
+ */
+@Entity
+@Builder
+@AllArgsConstructor
+@Getter
+@Setter
+@RequiredArgsConstructor
+@Table(name = "holds")
+public class Hold {
+
+    @Id
+    @TimeOrderedId
+    private UUID id;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+
+    @OneToOne(optional = false)
+    @JoinColumn(name = "transaction_id", nullable = false, unique = true)
+    private Transaction transaction;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private HoldStatus status;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Settlement skips the hold until then, e.g. while one of the accounts is blocked.
+     */
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Override
+    public final boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null) return false;
+        Class<?> oEffectiveClass = o instanceof HibernateProxy ? ((HibernateProxy) o).getHibernateLazyInitializer().getPersistentClass() : o.getClass();
+        Class<?> thisEffectiveClass = this instanceof HibernateProxy ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass() : this.getClass();
+        if (thisEffectiveClass != oEffectiveClass) return false;
+        Hold hold = (Hold) o;
+        return getId() != null && Objects.equals(getId(), hold.getId());
+    }
+
+    @Override
+    public final int hashCode() {
+        return this instanceof HibernateProxy ? ((HibernateProxy) this).getHibernateLazyInitializer().getPersistentClass().hashCode() : getClass().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "Hold{" +
+                "id=" + id +
+                ", amount=" + amount +
+                ", status=" + status +
+                '}';
+    }
+}
@@ -0,0 +1,18 @@
+package rs.banka4.user_service.domain.transaction.db;
+
+public enum HoldStatus {
+    /**
+     * Counted against the account's available balance, not yet against its booked balance.
+     */
+    ACTIVE,
+
+    /**
+     * Posted to the booked balance; the payment went through.
+     */
+    SETTLED,
+
+    /**
+     * Returned to the available balance; the payment was rejected or the hold expired.
+     */
+    RELEASED
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.proxy.HibernateProxy;
 import rs.banka4.user_service.domain.account.db.Account;
+import rs.banka4.user_service.utils.ids.TimeOrderedId;
 
 import java.time.LocalDateTime;
 import java.util.Objects;
@@ -19,10 +20,10 @@ import java.util.UUID;
 public class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @TimeOrderedId
     private UUID id;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false, unique = true, length = 36)
     private String transactionNumber;
 
     @ManyToOne(optional = false)
@@ -1,5 +1,5 @@
 package rs.banka4.user_service.domain.transaction.db;
 
 public enum TransactionStatus {
-    REALIZED, REJECTED, IN_PROGRESS
+    REALIZED, REJECTED, IN_PROGRESS, PENDING
 }
@@ -0,0 +1,27 @@
+package rs.banka4.user_service.domain.transaction.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.math.BigDecimal;
+
+@Schema(description = "A single payment within a bulk payment")
+public record BulkPaymentItemDto(
+        @Schema(description = "To account number", example = "444000112345678910")
+        @NotBlank(message = "Recipient account is required")
+        String toAccount,
+        @Schema(description = "Amount", example = "85000.00")
+        @NotNull(message = "Amount is required")
+        @Positive(message = "Amount must be positive")
+        BigDecimal amount,
+        @Schema(description = "Recipient name", example = "Pera Perić")
+        String recipient,
+        @Schema(description = "Payment code (3-digit, e.g., 2xx)", example = "240")
+        String paymentCode,
+        @Schema(description = "Reference number", example = "2025-03")
+        String referenceNumber,
+        @Schema(description = "Payment purpose (optional)", example = "Zarada za mart")
+        String paymentPurpose
+) { }
@@ -0,0 +1,20 @@
+package rs.banka4.user_service.domain.transaction.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import rs.banka4.user_service.domain.transaction.db.TransactionStatus;
+
+import java.util.UUID;
+
+@Schema(description = "Outcome of a single payment within a bulk payment")
+public record BulkPaymentItemResultDto(
+        @Schema(description = "Position of the payment in the request", example = "0")
+        int index,
+        @Schema(description = "To account number", example = "444000112345678910")
+        String toAccount,
+        @Schema(description = "REALIZED or REJECTED", example = "REALIZED")
+        TransactionStatus status,
+        @Schema(description = "ID of the created transaction, if realized", example = "e2a1f6f3-9f74-4b8a-bc9a-2f3a5c6d7e8f")
+        UUID transactionId,
+        @Schema(description = "Why the payment was rejected, if it was", example = "ACCOUNT_NOT_FOUND")
+        BulkPaymentRejectionReason reason
+) { }
@@ -0,0 +1,9 @@
+package rs.banka4.user_service.domain.transaction.dtos;
+
+public enum BulkPaymentRejectionReason {
+    ACCOUNT_NOT_FOUND,
+    ACCOUNT_NOT_ACTIVE,
+    SAME_ACCOUNT,
+    INSUFFICIENT_FUNDS,
+    LIMIT_EXCEEDED
+}
@@ -0,0 +1,18 @@
+package rs.banka4.user_service.domain.transaction.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Schema(description = "Outcome of a bulk payment")
+public record BulkPaymentResultDto(
+        @Schema(description = "Number of realized payments", example = "998")
+        int realized,
+        @Schema(description = "Number of rejected payments", example = "2")
+        int rejected,
+        @Schema(description = "Total debited from the source account, fees included", example = "84830998.00")
+        BigDecimal totalDebited,
+        @Schema(description = "Per-payment results, in request order")
+        List<BulkPaymentItemResultDto> items
+) { }
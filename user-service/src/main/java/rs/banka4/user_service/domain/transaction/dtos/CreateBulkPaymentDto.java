@@ -0,0 +1,24 @@
+package rs.banka4.user_service.domain.transaction.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+@Schema(description = "DTO for paying many recipients from one business account, e.g. a payroll")
+public record CreateBulkPaymentDto(
+        @Schema(description = "From account number (must be a business account)", example = "444000100000000120")
+        @NotBlank(message = "Source account is required")
+        String fromAccount,
+        @Schema(description = "Payments to make")
+        @NotEmpty(message = "At least one payment is required")
+        @Size(max = 5000, message = "At most 5000 payments can be submitted at once")
+        List<@Valid BulkPaymentItemDto> payments,
+        @NotBlank(message = "TOTP code content is required")
+        @NotNull(message = "TOTP code cannot be null")
+        String otpCode
+) { }
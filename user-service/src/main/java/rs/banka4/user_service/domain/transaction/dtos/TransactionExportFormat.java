@@ -0,0 +1,15 @@
+package rs.banka4.user_service.domain.transaction.dtos;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+
+@Getter
+@RequiredArgsConstructor
+public enum TransactionExportFormat {
+    CSV(new MediaType("text", "csv"), "csv"),
+    NDJSON(new MediaType("application", "x-ndjson"), "ndjson");
+
+    private final MediaType mediaType;
+    private final String extension;
+}
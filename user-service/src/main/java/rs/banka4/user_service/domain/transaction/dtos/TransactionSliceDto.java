@@ -0,0 +1,15 @@
+package rs.banka4.user_service.domain.transaction.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "One page of a cursor-paginated transaction history")
+public record TransactionSliceDto(
+    @Schema(description = "Transactions on this page, newest first")
+    List<TransactionDto> content,
+
+    @Schema(description = "Opaque token for the next page, or null if this is the last page",
+            example = "MjAyNS0wMy0xNVQxMjozMDowMHxlMmExZjZmMy05Zjc0LTRiOGEtYmM5YS0yZjNhNWM2ZDdlOGY")
+    String nextCursor
+) { }
@@ -0,0 +1,12 @@
+package rs.banka4.user_service.exceptions.account;
+
+import org.springframework.http.HttpStatus;
+import rs.banka4.user_service.exceptions.BaseApiException;
+
+import java.util.Map;
+
+public class NotBusinessAccount extends BaseApiException {
+    public NotBusinessAccount(String accountNumber) {
+        super(HttpStatus.FORBIDDEN, Map.of("accountNumber", accountNumber));
+    }
+}
@@ -0,0 +1,12 @@
+package rs.banka4.user_service.exceptions.transaction;
+
+import org.springframework.http.HttpStatus;
+import rs.banka4.user_service.exceptions.BaseApiException;
+
+import java.util.Map;
+
+public class ExchangeRatesUnavailable extends BaseApiException {
+    public ExchangeRatesUnavailable(String currency) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, Map.of("currency", currency));
+    }
+}
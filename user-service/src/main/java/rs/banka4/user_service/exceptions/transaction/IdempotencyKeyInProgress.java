@@ -0,0 +1,12 @@
+package rs.banka4.user_service.exceptions.transaction;
+
+import org.springframework.http.HttpStatus;
+import rs.banka4.user_service.exceptions.BaseApiException;
+
+import java.util.Map;
+
+public class IdempotencyKeyInProgress extends BaseApiException {
+    public IdempotencyKeyInProgress(String key) {
+        super(HttpStatus.CONFLICT, Map.of("idempotencyKey", key));
+    }
+}
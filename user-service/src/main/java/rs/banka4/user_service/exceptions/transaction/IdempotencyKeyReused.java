@@ -0,0 +1,12 @@
+package rs.banka4.user_service.exceptions.transaction;
+
+import org.springframework.http.HttpStatus;
+import rs.banka4.user_service.exceptions.BaseApiException;
+
+import java.util.Map;
+
+public class IdempotencyKeyReused extends BaseApiException {
+    public IdempotencyKeyReused(String key) {
+        super(HttpStatus.UNPROCESSABLE_ENTITY, Map.of("idempotencyKey", key));
+    }
+}
@@ -0,0 +1,12 @@
+package rs.banka4.user_service.exceptions.transaction;
+
+import org.springframework.http.HttpStatus;
+import rs.banka4.user_service.exceptions.BaseApiException;
+
+import java.util.Map;
+
+public class InvalidCursor extends BaseApiException {
+    public InvalidCursor(String cursor) {
+        super(HttpStatus.BAD_REQUEST, Map.of("cursor", cursor));
+    }
+}
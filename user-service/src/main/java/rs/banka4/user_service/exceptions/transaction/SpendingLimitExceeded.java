@@ -0,0 +1,13 @@
+package rs.banka4.user_service.exceptions.transaction;
+
+import org.springframework.http.HttpStatus;
+import rs.banka4.user_service.exceptions.BaseApiException;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+public class SpendingLimitExceeded extends BaseApiException {
+    public SpendingLimitExceeded(String window, BigDecimal limit) {
+        super(HttpStatus.FORBIDDEN, Map.of("window", window, "limit", limit));
+    }
+}
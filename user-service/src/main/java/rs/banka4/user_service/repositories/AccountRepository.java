@@ -2,10 +2,16 @@ package rs.banka4.user_service.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import rs.banka4.user_service.domain.account.db.Account;
 import rs.banka4.user_service.domain.user.client.db.Client;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -16,7 +22,40 @@ public interface AccountRepository extends JpaRepository<Account, UUID>, JpaSpec
 
     boolean existsByAccountNumber(String accountNumber);
 
+    boolean existsByAccountNumberLike(String pattern);
+
     Set<Account> findAllByClient(Client client);
 
     Optional<Account> getAccountByAccountNumber(String accountNumber);
+
+    /**
+     * Everything the account overview of a client shows, in one round trip.  Every to-one
+     * association that {@code AccountMapper} touches is fetched in the same query.
+     */
+    @Query("SELECT a FROM Account a JOIN FETCH a.client c LEFT JOIN FETCH a.currency " +
+            "LEFT JOIN FETCH a.employee LEFT JOIN FETCH a.company co LEFT JOIN FETCH co.activityCode " +
+            "LEFT JOIN FETCH co.majorityOwner WHERE c.id = :clientId")
+    List<Account> findOverviewByClientId(@Param("clientId") UUID clientId);
+
+    /**
+     * Loads many accounts in one round trip, together with the to-one associations that would
+     * otherwise be fetched eagerly one account at a time.
+     */
+    @Query("SELECT a FROM Account a LEFT JOIN FETCH a.client LEFT JOIN FETCH a.company " +
+            "LEFT JOIN FETCH a.currency LEFT JOIN FETCH a.employee WHERE a.accountNumber IN :accountNumbers")
+    List<Account> findAllByAccountNumberIn(@Param("accountNumbers") Collection<String> accountNumbers);
+
+    /**
+     * Takes {@code amount} off the available balance if, and only if, enough of it is left.  This
+     * single statement is the whole authorization check, so it needs no prior row lock.  Returns
+     * the number of updated rows: 1 on success, 0 if the funds are not there.
+     *
+     * <p>Bumps the version, so a concurrent optimistic writer of the same account fails instead of
+     * overwriting the reservation.  Accounts already loaded in the persistence context are not
+     * refreshed.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Account a SET a.availableBalance = a.availableBalance - :amount, a.version = a.version + 1 " +
+            "WHERE a.id = :id AND a.availableBalance >= :amount")
+    int reserveAvailableBalance(@Param("id") UUID id, @Param("amount") BigDecimal amount);
 }
@@ -0,0 +1,57 @@
+package rs.banka4.user_service.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import rs.banka4.user_service.domain.ledger.db.BalanceSnapshot;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, UUID> {
+
+    Optional<BalanceSnapshot> findFirstByAccountIdAndTakenAtLessThanEqualOrderByTakenAtDesc(UUID accountId, LocalDateTime takenAt);
+
+    /**
+     * The latest cutoff, no later than {@code cutoff}, before which every ledger entry is already
+     * committed.  Entries are stamped with the database clock as they are inserted, so an entry
+     * not committed yet belongs to a transaction that is still writing and was stamped after that
+     * transaction started; the cutoff is kept at or before the start of the oldest such
+     * transaction.  It has to be read in a statement of its own, before the entries are summed.
+     */
+    @Query(value = """
+            SELECT LEAST(CAST(:cutoff AS TIMESTAMP), CAST(MIN(xact_start) AS TIMESTAMP))
+            FROM pg_stat_activity
+            WHERE datname = current_database() AND backend_xid IS NOT NULL AND pid <> pg_backend_pid()
+            """, nativeQuery = true)
+    LocalDateTime commitSafeCutoff(@Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Rolls every account forward from its latest snapshot to {@code cutoff} in one statement.
+     * {@code cutoff} must come from {@link #commitSafeCutoff}, or an entry committed later with
+     * an earlier stamp would be left out of this and every later snapshot.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO balance_snapshots (id, account_id, balance, taken_at)
+            SELECT gen_random_uuid(), a.id, COALESCE(s.balance, 0) + COALESCE(d.delta, 0), :cutoff
+            FROM accounts a
+            LEFT JOIN LATERAL (
+                SELECT bs.balance, bs.taken_at FROM balance_snapshots bs
+                WHERE bs.account_id = a.id ORDER BY bs.taken_at DESC LIMIT 1
+            ) s ON TRUE
+            LEFT JOIN LATERAL (
+                SELECT SUM(CASE WHEN e.direction = 'CREDIT' THEN e.amount ELSE -e.amount END) AS delta
+                FROM ledger_entries e
+                WHERE e.account_id = a.id
+                  AND (s.taken_at IS NULL OR e.posted_at >= s.taken_at)
+                  AND e.posted_at < :cutoff
+            ) d ON TRUE
+            WHERE s.taken_at IS NULL OR s.taken_at < :cutoff
+            """, nativeQuery = true)
+    int snapshotAll(@Param("cutoff") LocalDateTime cutoff);
+}
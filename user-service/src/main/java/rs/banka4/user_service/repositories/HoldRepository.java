@@ -0,0 +1,29 @@
+package rs.banka4.user_service.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import rs.banka4.user_service.domain.transaction.db.Hold;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface HoldRepository extends JpaRepository<Hold, UUID> {
+    /**
+     * Claims the oldest active holds that are due for settlement.  Rows claimed by another worker
+     * are skipped rather than waited on, so several settlement workers can drain the queue at once.
+     */
+    @Query(value = "SELECT * FROM holds WHERE status = 'ACTIVE' AND next_attempt_at <= :now AND expires_at > :now " +
+            "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Hold> claimDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Claims active holds that were not settled before they expired.
+     */
+    @Query(value = "SELECT * FROM holds WHERE status = 'ACTIVE' AND expires_at <= :now " +
+            "ORDER BY expires_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Hold> claimExpired(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
@@ -0,0 +1,42 @@
+package rs.banka4.user_service.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import rs.banka4.user_service.domain.idempotency.db.IdempotencyRecord;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Claims {@code id} for a new request, in the caller's transaction.  While that transaction
+     * is open, another claim of the same key waits for it.  A row left without a response (by
+     * nothing that committed work) is taken over.
+     *
+     * @return 1 if the key was claimed, 0 if a completed request already holds it
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (id, request_hash, created_at) VALUES (:id, :requestHash, :createdAt) " +
+            "ON CONFLICT (id) DO UPDATE SET request_hash = EXCLUDED.request_hash, created_at = EXCLUDED.created_at " +
+            "WHERE idempotency_keys.response IS NULL", nativeQuery = true)
+    int reserve(@Param("id") String id, @Param("requestHash") String requestHash, @Param("createdAt") LocalDateTime createdAt);
+
+    /**
+     * Stores the response of the request that claimed {@code id}, in the caller's transaction.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.response = :response WHERE r.id = :id")
+    int complete(@Param("id") String id, @Param("response") String response);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
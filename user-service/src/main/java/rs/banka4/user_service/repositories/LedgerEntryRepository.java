@@ -0,0 +1,23 @@
+package rs.banka4.user_service.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import rs.banka4.user_service.domain.ledger.db.LedgerEntry;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, UUID> {
+
+    @Query(value = "SELECT COALESCE(SUM(CASE WHEN e.direction = 'CREDIT' THEN e.amount ELSE -e.amount END), 0) " +
+            "FROM ledger_entries e WHERE e.account_id = :accountId AND e.posted_at < :to", nativeQuery = true)
+    BigDecimal sumBefore(@Param("accountId") UUID accountId, @Param("to") LocalDateTime to);
+
+    @Query(value = "SELECT COALESCE(SUM(CASE WHEN e.direction = 'CREDIT' THEN e.amount ELSE -e.amount END), 0) " +
+            "FROM ledger_entries e WHERE e.account_id = :accountId AND e.posted_at >= :from AND e.posted_at < :to", nativeQuery = true)
+    BigDecimal sumBetween(@Param("accountId") UUID accountId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -1,5 +1,6 @@
 package rs.banka4.user_service.repositories;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -8,6 +9,7 @@ import rs.banka4.user_service.domain.loan.db.LoanInstallment;
 import rs.banka4.user_service.domain.loan.db.PaymentStatus;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -17,8 +19,56 @@ public interface LoanInstallmentRepository extends JpaRepository<rs.banka4.user_
     List<LoanInstallment> findByPaymentStatusAndExpectedDueDate(PaymentStatus status, LocalDate date);
     List<LoanInstallment> findByPaymentStatusAndExpectedDueDateIsLessThan(PaymentStatus status, LocalDate date);
 
+    /**
+     * The installments of one loan, in the order they fall due.
+     */
+    List<LoanInstallment> findByLoanIdOrderByExpectedDueDateAsc(UUID loanId);
+
     @Query("SELECT li FROM LoanInstallment li WHERE li.paymentStatus = :status AND li.expectedDueDate > :threshold")
     List<LoanInstallment> findRecentDelayedInstallments(
             @Param("status") PaymentStatus status,
             @Param("threshold") LocalDate threshold);
+
+    /**
+     * One keyset page of the ids of installments in {@code status} that are due on or before
+     * {@code dueBy}, starting after {@code lastId}, limited to shard {@code shard} of
+     * {@code shards}.  Installments are assigned to shards by the last byte of their id, which is
+     * random in both time-ordered and random UUIDs, so at most 256 shards are useful.
+     */
+    @Query(value = "SELECT id FROM loan_installments WHERE payment_status = :status AND expected_due_date <= :dueBy " +
+            "AND id > :lastId AND get_byte(uuid_send(id), 15) % :shards = :shard ORDER BY id", nativeQuery = true)
+    List<UUID> findIdsDueBy(@Param("status") String status,
+                            @Param("dueBy") LocalDate dueBy,
+                            @Param("lastId") UUID lastId,
+                            @Param("shard") int shard,
+                            @Param("shards") int shards,
+                            Pageable page);
+
+    /**
+     * One keyset page of the ids of installments in {@code status} that are due after
+     * {@code dueAfter}, starting after {@code lastId}.
+     */
+    @Query("SELECT li.id FROM LoanInstallment li WHERE li.paymentStatus = :status AND li.expectedDueDate > :dueAfter " +
+            "AND li.id > :lastId ORDER BY li.id")
+    List<UUID> findIdsDueAfter(@Param("status") PaymentStatus status,
+                               @Param("dueAfter") LocalDate dueAfter,
+                               @Param("lastId") UUID lastId,
+                               Pageable page);
+
+    /**
+     * Row-locks those of {@code ids} that are still in {@code status}, skipping rows another
+     * worker holds, and returns their ids.
+     */
+    @Query(value = "SELECT id FROM loan_installments WHERE id IN (:ids) AND payment_status = :status " +
+            "ORDER BY id FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<UUID> lockWithStatus(@Param("ids") Collection<UUID> ids, @Param("status") String status);
+
+    /**
+     * Loads installments with everything paying them touches, in one query.
+     */
+    @Query("SELECT li FROM LoanInstallment li JOIN FETCH li.loan l JOIN FETCH l.interestRate " +
+            "JOIN FETCH l.account a JOIN FETCH a.client JOIN FETCH a.currency LEFT JOIN FETCH a.employee " +
+            "LEFT JOIN FETCH a.company co LEFT JOIN FETCH co.activityCode LEFT JOIN FETCH co.majorityOwner " +
+            "WHERE li.id IN :ids ORDER BY li.id")
+    List<LoanInstallment> findAllWithLoanGraph(@Param("ids") Collection<UUID> ids);
 }
@@ -1,12 +1,18 @@
 package rs.banka4.user_service.repositories;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import rs.banka4.user_service.domain.loan.db.Loan;
 import rs.banka4.user_service.domain.loan.db.LoanStatus;
 
-import java.util.List;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -15,5 +21,24 @@ public interface LoanRepository extends JpaRepository<Loan, UUID>, JpaSpecificat
     Optional<Loan> findByLoanNumber(Long loanNum);
 
     Optional<Loan> findLoanByLoanNumber(Long loanNumber);
-    Optional<List<Loan>> findByInterestTypeAndStatus(Loan.InterestType interestType, LoanStatus status);
+
+    /**
+     * Like {@link #findByLoanNumber}, with the row locked until the transaction ends, so that a
+     * concurrent approval or rejection of the same loan waits and then sees its new status.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM Loan l WHERE l.loanNumber = :loanNumber")
+    Optional<Loan> findByLoanNumberForUpdate(@Param("loanNumber") Long loanNumber);
+
+    /**
+     * Loans on any of the client's accounts whose status is one of {@code statuses}.  The account
+     * and its currency are fetched along, since every listed loan shows its currency.
+     */
+    @Query(value = "SELECT l FROM Loan l JOIN FETCH l.account a JOIN FETCH a.currency " +
+            "WHERE a.client.id = :clientId AND l.status IN :statuses",
+            countQuery = "SELECT count(l) FROM Loan l JOIN l.account a " +
+                    "WHERE a.client.id = :clientId AND l.status IN :statuses")
+    Page<Loan> findByClientAndStatusIn(@Param("clientId") UUID clientId,
+                                       @Param("statuses") Collection<LoanStatus> statuses,
+                                       Pageable pageable);
 }
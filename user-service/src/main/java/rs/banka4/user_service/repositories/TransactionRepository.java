@@ -1,12 +1,35 @@
 package rs.banka4.user_service.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import rs.banka4.user_service.domain.account.db.Account;
 import rs.banka4.user_service.domain.transaction.db.Transaction;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface TransactionRepository extends JpaRepository<Transaction, UUID>, JpaSpecificationExecutor<Transaction> {
     Optional<Transaction> findByTransactionNumber(String transactionNumber);
+
+    /**
+     * Streams the history of {@code account} in {@code [from, to)}, oldest first.  Must be consumed
+     * inside a transaction (PostgreSQL only honours the fetch size with auto-commit off) and closed
+     * afterwards.
+     */
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.fromAccount JOIN FETCH t.toAccount " +
+            "WHERE (t.fromAccount = :account OR t.toAccount = :account) " +
+            "AND t.paymentDateTime >= :from AND t.paymentDateTime < :to " +
+            "ORDER BY t.paymentDateTime, t.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Transaction> streamHistory(@Param("account") Account account, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
@@ -28,6 +28,9 @@ import rs.banka4.user_service.domain.user.client.db.Client;
 import rs.banka4.user_service.domain.user.client.db.ClientContact;
 import rs.banka4.user_service.domain.user.employee.db.Employee;
 import rs.banka4.user_service.repositories.*;
+import rs.banka4.user_service.service.abstraction.LedgerService;
+import rs.banka4.user_service.utils.ids.Mod97;
+import rs.banka4.user_service.utils.ids.NumberBlockAllocator;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -56,6 +59,8 @@ public class TestDataRunner implements CommandLineRunner {
     private final BankMarginRepository bankMarginRepository;
     private final InterestRateRepository interestRateRepository;
     private final CardRepository cardRepository;
+    private final LedgerService ledgerService;
+    private final NumberBlockAllocator numberBlockAllocator;
 
 
     @Override
@@ -156,8 +161,9 @@ public class TestDataRunner implements CommandLineRunner {
     }
 
     private Long generateRandomLoanNumber() {
-        Random random = new Random();
-        return (long) (random.nextInt(100000) + 100000);
+        /* Seeded loans must come from the same sequence, or later applications collide with them.  */
+        String serial = String.valueOf(numberBlockAllocator.next("loan_number_seq"));
+        return Long.valueOf(serial + Mod97.checkDigits(serial));
     }
 
     private BigDecimal generateRandomAmount() {
@@ -950,6 +956,7 @@ public class TestDataRunner implements CommandLineRunner {
                         .build();
 
                 accountRepository.save(personalAccount);
+                ledgerService.openAccount(personalAccount);
             }
 
             if (company != null && currency != null) {
@@ -970,6 +977,7 @@ public class TestDataRunner implements CommandLineRunner {
                         .build();
 
                 accountRepository.save(businessAccount);
+                ledgerService.openAccount(businessAccount);
             }
         }
     }
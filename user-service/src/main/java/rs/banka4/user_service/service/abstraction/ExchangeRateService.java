@@ -0,0 +1,17 @@
+package rs.banka4.user_service.service.abstraction;
+
+import rs.banka4.user_service.domain.currency.db.Currency;
+
+import java.math.BigDecimal;
+
+public interface ExchangeRateService {
+    /**
+     * Converts {@code amount} of {@code from} into {@code to} using the cached exchange office
+     * rates.  The bank buys the source currency and sells the target one; conversions between two
+     * foreign currencies go through RSD.
+     *
+     * @throws rs.banka4.user_service.exceptions.transaction.ExchangeRatesUnavailable if no rate
+     *         for either currency has been loaded yet
+     */
+    BigDecimal convert(BigDecimal amount, Currency.Code from, Currency.Code to);
+}
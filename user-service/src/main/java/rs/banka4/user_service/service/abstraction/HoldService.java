@@ -0,0 +1,20 @@
+package rs.banka4.user_service.service.abstraction;
+
+import rs.banka4.user_service.domain.account.db.Account;
+import rs.banka4.user_service.domain.transaction.db.Hold;
+import rs.banka4.user_service.domain.transaction.db.Transaction;
+
+import java.math.BigDecimal;
+
+public interface HoldService {
+    /**
+     * Authorizes {@code transaction} by taking {@code amount} off the available balance of
+     * {@code account} and recording a hold for it.  The booked balance is only changed when the
+     * hold is settled by {@code PaymentSettlementScheduler}.  {@code transaction} must already be
+     * persisted.
+     *
+     * @throws rs.banka4.user_service.exceptions.transaction.InsufficientFunds if the available
+     *         balance does not cover {@code amount}
+     */
+    Hold place(Account account, Transaction transaction, BigDecimal amount);
+}
@@ -0,0 +1,27 @@
+package rs.banka4.user_service.service.abstraction;
+
+import org.springframework.security.core.Authentication;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+    /**
+     * Runs {@code work} at most once per caller and {@code idempotencyKey}.  A repeated call with
+     * the same key and request returns the stored response without running {@code work}; a
+     * call with the same key but a different request is rejected.  One made while the first is
+     * still running waits for it and gets its response.  {@code work} must run its transactional
+     * part through {@link #recordInTransaction}.  If {@code work} throws, nothing is stored and the
+     * request can be retried.
+     * A null key runs {@code work} unconditionally.
+     */
+    <T> T execute(Authentication authentication, String idempotencyKey, Object request, Class<T> responseType, Supplier<T> work);
+
+    /**
+     * Runs the transactional part of the work passed to {@link #execute}, on the same thread and
+     * inside its transaction.  Claims the key before running {@code work} and stores the response
+     * before returning, so both commit with the work.  If a request with the same key has
+     * committed in the meantime, returns its response without running {@code work}.  Outside
+     * {@link #execute}, or without a key, just runs {@code work}.
+     */
+    <T> T recordInTransaction(Class<T> responseType, Supplier<T> work);
+}
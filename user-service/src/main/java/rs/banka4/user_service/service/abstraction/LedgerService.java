@@ -0,0 +1,60 @@
+package rs.banka4.user_service.service.abstraction;
+
+import rs.banka4.user_service.domain.account.db.Account;
+import rs.banka4.user_service.domain.loan.db.LoanInstallment;
+import rs.banka4.user_service.domain.transaction.db.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Append-only double-entry ledger.  Every balance change is posted here as a pair of entries
+ * (and a fee pair, if any).  The ledger is the history: balances as of any past moment are
+ * rebuilt from the latest snapshot plus the entries after it.
+ *
+ * <p>{@code Account.balance} is still kept in step as a read-side copy, in the same transaction
+ * as the payment.  Posting therefore does not take payments off the account row: the entries are
+ * inserted next to a row update the payment makes anyway, since the available balance is
+ * authorized on that row (see {@code AccountRepository.reserveAvailableBalance}).
+ */
+public interface LedgerService {
+    /**
+     * Records the current balance of a freshly created account as its opening balance.
+     */
+    void openAccount(Account account);
+
+    /**
+     * Posts a realized transaction: a debit on the sender, a credit on the recipient, and a
+     * fee debit on the sender credited to the bank.
+     */
+    void postTransaction(Transaction transaction);
+
+    /**
+     * Posts several realized transactions at once.  Entries are written in one batch and each
+     * account's balance copy is updated once with its net change, so an account paid many times
+     * in one batch takes one row update, not one per payment.
+     */
+    void postTransactions(List<Transaction> transactions);
+
+    /**
+     * Posts a loan installment paid from the loan's account to the bank.
+     */
+    void postLoanInstallment(LoanInstallment installment);
+
+    BigDecimal getBalance(Account account);
+
+    /**
+     * Rebuilds the balance of {@code account} over all entries posted before {@code asOf}.
+     */
+    BigDecimal getBalanceAsOf(Account account, LocalDateTime asOf);
+
+    /**
+     * Rolls all account snapshots forward to {@code cutoff}, or to the start of the oldest
+     * transaction still writing if that is earlier, so no snapshot misses an entry committed
+     * after it was taken.
+     *
+     * @return number of snapshots written
+     */
+    int takeSnapshots(LocalDateTime cutoff);
+}
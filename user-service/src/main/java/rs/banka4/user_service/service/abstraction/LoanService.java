@@ -6,6 +6,7 @@ import org.springframework.http.ResponseEntity;
 import rs.banka4.user_service.domain.loan.dtos.LoanApplicationDto;
 import rs.banka4.user_service.domain.loan.dtos.LoanFilterDto;
 import rs.banka4.user_service.domain.loan.dtos.LoanInformationDto;
+import rs.banka4.user_service.domain.loan.dtos.LoanScheduleDto;
 
 import java.math.BigDecimal;
 
@@ -15,4 +16,5 @@ public interface LoanService {
     ResponseEntity<Page<LoanInformationDto>> getMyLoans(String token, PageRequest pageRequest);
     void approveLoan(Long loanNumber, String auth);
     void rejectLoan(Long loanNumber, String auth);
+    ResponseEntity<LoanScheduleDto> getLoanSchedule(Long loanNumber, String auth);
 }
@@ -0,0 +1,16 @@
+package rs.banka4.user_service.service.abstraction;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import rs.banka4.user_service.domain.transaction.dtos.TransactionExportFormat;
+
+import java.time.LocalDate;
+
+public interface TransactionExportService {
+    /**
+     * Checks that the caller may read {@code accountNumber} and returns a body that streams every
+     * transaction of that account between {@code from} and {@code to} (inclusive), oldest first.
+     * Rows are read through a forward-only cursor and written as they arrive, so memory use does
+     * not depend on the size of the history.
+     */
+    StreamingResponseBody exportTransactions(String token, String accountNumber, LocalDate from, LocalDate to, TransactionExportFormat format);
+}
@@ -3,8 +3,11 @@ package rs.banka4.user_service.service.abstraction;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
+import rs.banka4.user_service.domain.transaction.dtos.BulkPaymentResultDto;
+import rs.banka4.user_service.domain.transaction.dtos.CreateBulkPaymentDto;
 import rs.banka4.user_service.domain.transaction.dtos.CreateTransferDto;
 import rs.banka4.user_service.domain.transaction.dtos.TransactionDto;
+import rs.banka4.user_service.domain.transaction.dtos.TransactionSliceDto;
 import rs.banka4.user_service.domain.transaction.db.TransactionStatus;
 import rs.banka4.user_service.domain.transaction.dtos.CreatePaymentDto;
 
@@ -14,7 +17,27 @@ import java.util.UUID;
 
 public interface TransactionService {
     TransactionDto createTransaction(Authentication authentication, CreatePaymentDto createPaymentDto);
+
+    /**
+     * Accepts a payment for later settlement: the amount and fee are reserved on the sender's
+     * available balance and the transaction is stored as {@link TransactionStatus#PENDING}.
+     */
+    TransactionDto createTransactionAsync(Authentication authentication, CreatePaymentDto createPaymentDto);
+    /**
+     * Pays every item of {@code createBulkPaymentDto} from one business account.  Items that cannot
+     * be paid are rejected individually; the rest are realized together.
+     */
+    BulkPaymentResultDto createBulkPayment(Authentication authentication, CreateBulkPaymentDto createBulkPaymentDto);
+
     TransactionDto createTransfer(Authentication authentication, CreateTransferDto createTransferDto);
     Page<TransactionDto> getAllTransactionsForClient(String token, TransactionStatus paymentStatus, BigDecimal amount, LocalDate paymentDate, String accountNumber, PageRequest pageRequest);
+
+    /**
+     * Keyset-paginated variant of {@link #getAllTransactionsForClient}: returns up to {@code size}
+     * transactions after {@code cursor} (newest first) and the cursor for the next page.  No total
+     * count is computed.
+     */
+    TransactionSliceDto getTransactionsForClientByCursor(String token, TransactionStatus paymentStatus, BigDecimal amount, LocalDate paymentDate, String accountNumber, String cursor, int size);
+
     TransactionDto getTransactionById(String token, UUID transactionId);
 }
@@ -2,9 +2,6 @@ package rs.banka4.user_service.service.impl;
 
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
@@ -33,20 +30,19 @@ import rs.banka4.user_service.service.abstraction.AccountService;
 import rs.banka4.user_service.service.abstraction.ClientService;
 import rs.banka4.user_service.service.abstraction.CompanyService;
 import rs.banka4.user_service.service.abstraction.EmployeeService;
+import rs.banka4.user_service.service.abstraction.LedgerService;
 import rs.banka4.user_service.utils.JwtUtil;
+import rs.banka4.user_service.utils.accounts.AccountOverviewCache;
+import rs.banka4.user_service.utils.ids.AccountNumberAllocator;
 import rs.banka4.user_service.utils.specification.AccountSpecification;
 import rs.banka4.user_service.utils.specification.SpecificationCombinator;
 
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class AccountServiceImpl implements AccountService {
-    private static final Logger LOGGER
-            = LoggerFactory.getLogger(AccountServiceImpl.class);
-
     private final ClientService clientService;
     private final CompanyService companyService;
     private final CurrencyRepository currencyRepository;
@@ -55,18 +51,22 @@ public class AccountServiceImpl implements AccountService {
     private final ClientRepository clientRepository;
     private final JwtUtil jwtUtil;
     private final EmployeeService employeeService;
+    private final LedgerService ledgerService;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final AccountOverviewCache accountOverviewCache;
 
     @Override
     public Set<AccountDto> getAccountsForClient(String token) {
         String email = jwtUtil.extractUsername(token);
+        UUID clientId = clientIdFromToken(token, email);
 
-        Optional<Client> client = clientService.getClientByEmail(email);
-        if (client.isEmpty()) {
-            throw new ClientNotFound(email);
-        }
-
-        Set<Account> accounts = accountRepository.findAllByClient(client.get());
-        return accounts.stream().map(AccountMapper.INSTANCE::toDto).collect(Collectors.toSet());
+        return accountOverviewCache.get(clientId, () -> {
+            List<Account> accounts = accountRepository.findOverviewByClientId(clientId);
+            if (accounts.isEmpty() && !clientRepository.existsById(clientId)) {
+                throw new ClientNotFound(email);
+            }
+            return accounts.stream().map(AccountMapper.INSTANCE::toDto).collect(Collectors.toSet());
+        });
     }
 
     @Override
@@ -101,7 +101,7 @@ public class AccountServiceImpl implements AccountService {
         connectEmployeeToAccount(account, auth);
         account.setAvailableBalance(createAccountDto.availableBalance());
         account.setBalance(createAccountDto.availableBalance());
-        makeAnAccountNumber(createAccountDto.currency(), account);
+        makeAnAccountNumber(account);
     }
 
     @Override
@@ -134,6 +134,15 @@ public class AccountServiceImpl implements AccountService {
         return accountRepository.findAccountByAccountNumber(accountNumber).orElseThrow(AccountNotFound::new);
     }
 
+    private UUID clientIdFromToken(String token, String email) {
+        /* Access tokens carry the id; only fall back to a lookup for tokens that do not.  */
+        String id = jwtUtil.extractClaim(token, claims -> claims.get("id", String.class));
+        if (id != null) {
+            return UUID.fromString(id);
+        }
+        return clientService.getClientByEmail(email).map(Client::getId).orElseThrow(() -> new ClientNotFound(email));
+    }
+
     private void connectCompanyToAccount(Account account, CreateAccountDto createAccountDto) {
         if (createAccountDto.company() == null) return;
 
@@ -196,26 +205,10 @@ public class AccountServiceImpl implements AccountService {
         }
     }
 
-    private void makeAnAccountNumber(Currency.Code currency,Account account){
-        String accountNumber = "";
-        while(true) {
-            try {
-                long random = ThreadLocalRandom.current().nextLong(0,(long) 1e10-1);
-                accountNumber = String.format("4440001%09d", random);
-
-                if(currency.equals(Currency.Code.RSD)) {
-                    accountNumber += "10";
-                } else {
-                    accountNumber += "20";
-                }
-                account.setAccountNumber(accountNumber);
-                account.setActive(true);
-                accountRepository.save(account);
-
-                break;
-            } catch (DataIntegrityViolationException ex) {
-                LOGGER.warn("Account with this account number already exists: {}", accountNumber);
-            }
-        }
+    private void makeAnAccountNumber(Account account) {
+        account.setAccountNumber(accountNumberAllocator.next());
+        account.setActive(true);
+        accountRepository.save(account);
+        ledgerService.openAccount(account);
     }
 }
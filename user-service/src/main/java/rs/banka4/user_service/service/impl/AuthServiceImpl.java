@@ -1,9 +1,8 @@
 package rs.banka4.user_service.service.impl;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Service;
-import rs.banka4.user_service.config.RabbitMqConfig;
+import org.springframework.transaction.annotation.Transactional;
 import rs.banka4.user_service.domain.auth.dtos.LogoutDto;
 import rs.banka4.user_service.domain.auth.dtos.NotificationTransferDto;
 import rs.banka4.user_service.domain.auth.dtos.RefreshTokenResponseDto;
@@ -20,6 +19,7 @@ import rs.banka4.user_service.service.abstraction.ClientService;
 import rs.banka4.user_service.service.abstraction.EmployeeService;
 import rs.banka4.user_service.utils.JwtUtil;
 import rs.banka4.user_service.utils.MessageHelper;
+import rs.banka4.user_service.utils.notifications.NotificationOutbox;
 
 import java.util.Optional;
 
@@ -29,7 +29,7 @@ public class AuthServiceImpl implements AuthService {
 
     private final JwtUtil jwtUtil;
     private final VerificationCodeService verificationCodeService;
-    private final RabbitTemplate rabbitTemplate;
+    private final NotificationOutbox notificationOutbox;
     private final EmployeeService employeeService;
     private final ClientService clientService;
 
@@ -94,6 +94,7 @@ public class AuthServiceImpl implements AuthService {
     }
 
     @Override
+    @Transactional
     public void forgotPassword(String email) {
         VerificationCode verificationCode = verificationCodeService.createVerificationCode(email);
 
@@ -103,11 +104,7 @@ public class AuthServiceImpl implements AuthService {
                 user.getFirstName(),
                 verificationCode.getCode());
 
-        rabbitTemplate.convertAndSend(
-                RabbitMqConfig.EXCHANGE_NAME,
-                RabbitMqConfig.ROUTING_KEY,
-                message
-        );
+        notificationOutbox.enqueue(message);
     }
 
 }
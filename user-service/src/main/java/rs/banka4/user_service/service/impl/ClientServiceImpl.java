@@ -28,6 +28,7 @@ import rs.banka4.user_service.repositories.ClientRepository;
 import rs.banka4.user_service.repositories.UserTotpSecretRepository;
 import rs.banka4.user_service.service.abstraction.ClientService;
 import rs.banka4.user_service.utils.JwtUtil;
+import rs.banka4.user_service.utils.accounts.AccountOverviewCache;
 import rs.banka4.user_service.utils.specification.ClientSpecification;
 import rs.banka4.user_service.utils.specification.SpecificationCombinator;
 
@@ -44,6 +45,7 @@ public class ClientServiceImpl implements ClientService {
     private final CustomUserDetailsService userDetailsService;
     private final PasswordEncoder passwordEncoder;
     private final UserTotpSecretRepository userTotpSecretRepository;
+    private final AccountOverviewCache accountOverviewCache;
 
     @Override
     public ResponseEntity<Page<ClientDto>> getClients(String firstName, String lastName, String email, String phone,
@@ -180,6 +182,8 @@ public class ClientServiceImpl implements ClientService {
         }
 
         clientRepository.save(client);
+        /* Account overviews embed the owner.  */
+        accountOverviewCache.evict(client.getId());
     }
 
     @Override
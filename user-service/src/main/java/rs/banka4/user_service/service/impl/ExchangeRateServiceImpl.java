@@ -0,0 +1,125 @@
+package rs.banka4.user_service.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import rs.banka4.user_service.domain.currency.db.Currency;
+import rs.banka4.user_service.domain.currency.dtos.ExchangeRateDto;
+import rs.banka4.user_service.domain.currency.dtos.ExchangeRateTableDto;
+import rs.banka4.user_service.exceptions.transaction.ExchangeRatesUnavailable;
+import rs.banka4.user_service.service.abstraction.ExchangeRateService;
+import rs.banka4.user_service.utils.exchange.ExchangeRateClient;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Keeps the exchange office rate table in memory and converts against it.
+ *
+ * <p>The table is fetched once at startup and then again
+ * {@code exchange-office.refresh-lag-seconds} after the time the exchange office announces for its
+ * next update ({@code nextUpdateUnix}).  The exchange office only regenerates its table once a
+ * request arrives more than five minutes past that time, so the lag must be longer than that; an
+ * earlier fetch gets the old table back.  If a refresh fails, the previous table stays in use and
+ * the fetch is retried after {@code exchange-office.retry-seconds}.  Conversions only read the
+ * current table, so a payment never waits on the exchange office.
+ */
+@Service
+public class ExchangeRateServiceImpl implements ExchangeRateService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExchangeRateServiceImpl.class);
+
+    private record RateTable(Map<Currency.Code, ExchangeRateDto> rates, Instant lastUpdated) {
+    }
+
+    private final ExchangeRateClient exchangeRateClient;
+    private final TaskScheduler taskScheduler;
+    private final Duration refreshLag;
+    private final Duration retryDelay;
+
+    private volatile RateTable table = new RateTable(Map.of(), Instant.EPOCH);
+
+    public ExchangeRateServiceImpl(ExchangeRateClient exchangeRateClient,
+                                   TaskScheduler taskScheduler,
+                                   @Value("${exchange-office.refresh-lag-seconds:330}") long refreshLagSeconds,
+                                   @Value("${exchange-office.retry-seconds:60}") long retrySeconds) {
+        this.exchangeRateClient = exchangeRateClient;
+        this.taskScheduler = taskScheduler;
+        this.refreshLag = Duration.ofSeconds(refreshLagSeconds);
+        this.retryDelay = Duration.ofSeconds(retrySeconds);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        taskScheduler.schedule(this::refresh, Instant.now());
+    }
+
+    /**
+     * Fetches a fresh table and schedules the next fetch.  On failure the current table is kept.
+     */
+    public void refresh() {
+        Instant now = Instant.now();
+        Instant next = now.plus(retryDelay);
+        try {
+            ExchangeRateTableDto response = exchangeRateClient.fetchRates();
+            table = new RateTable(toRates(response), Instant.ofEpochSecond(response.lastUpdatedUnix()));
+
+            Instant announced = Instant.ofEpochSecond(response.nextUpdateUnix()).plus(refreshLag);
+            if (announced.isAfter(now)) {
+                next = announced;
+            }
+            LOGGER.info("Loaded exchange rates for {}, next refresh at {}", table.rates().keySet(), next);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not refresh exchange rates, keeping rates from {}", table.lastUpdated(), e);
+        }
+        taskScheduler.schedule(this::refresh, next);
+    }
+
+    @Override
+    public BigDecimal convert(BigDecimal amount, Currency.Code from, Currency.Code to) {
+        if (from == to) {
+            return amount;
+        }
+
+        RateTable current = table;
+        BigDecimal dinars = from == Currency.Code.RSD
+                ? amount
+                : amount.multiply(rate(current, from).buy(), MathContext.DECIMAL64);
+        if (to == Currency.Code.RSD) {
+            return dinars.setScale(2, RoundingMode.HALF_EVEN);
+        }
+        return dinars.divide(rate(current, to).sell(), 2, RoundingMode.HALF_EVEN);
+    }
+
+    private static ExchangeRateDto rate(RateTable table, Currency.Code code) {
+        ExchangeRateDto rate = table.rates().get(code);
+        if (rate == null) {
+            throw new ExchangeRatesUnavailable(code.name());
+        }
+        return rate;
+    }
+
+    private static Map<Currency.Code, ExchangeRateDto> toRates(ExchangeRateTableDto response) {
+        Map<Currency.Code, ExchangeRateDto> rates = new EnumMap<>(Currency.Code.class);
+        if (response.exchanges() == null) {
+            return Collections.unmodifiableMap(rates);
+        }
+        /* The exchange office quotes some currencies we do not hold accounts in; skip those.  */
+        for (Currency.Code code : Currency.Code.values()) {
+            ExchangeRateDto rate = response.exchanges().get(code.name());
+            if (rate != null && Currency.Code.RSD.name().equals(rate.quote())) {
+                rates.put(code, rate);
+            }
+        }
+        return Collections.unmodifiableMap(rates);
+    }
+}
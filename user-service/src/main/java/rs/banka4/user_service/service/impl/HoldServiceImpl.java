@@ -0,0 +1,60 @@
+package rs.banka4.user_service.service.impl;
+
+import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import rs.banka4.user_service.domain.account.db.Account;
+import rs.banka4.user_service.domain.transaction.db.Hold;
+import rs.banka4.user_service.domain.transaction.db.HoldStatus;
+import rs.banka4.user_service.domain.transaction.db.Transaction;
+import rs.banka4.user_service.exceptions.transaction.InsufficientFunds;
+import rs.banka4.user_service.repositories.AccountRepository;
+import rs.banka4.user_service.repositories.HoldRepository;
+import rs.banka4.user_service.service.abstraction.HoldService;
+import rs.banka4.user_service.utils.accounts.AccountOverviewCache;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Service
+public class HoldServiceImpl implements HoldService {
+
+    private final AccountRepository accountRepository;
+    private final HoldRepository holdRepository;
+    private final AccountOverviewCache accountOverviewCache;
+    private final Duration ttl;
+
+    public HoldServiceImpl(AccountRepository accountRepository,
+                           HoldRepository holdRepository,
+                           AccountOverviewCache accountOverviewCache,
+                           @Value("${transaction.holds.ttl-hours:168}") long ttlHours) {
+        this.accountRepository = accountRepository;
+        this.holdRepository = holdRepository;
+        this.accountOverviewCache = accountOverviewCache;
+        this.ttl = Duration.ofHours(ttlHours);
+    }
+
+    @Override
+    @Transactional
+    public Hold place(Account account, Transaction transaction, BigDecimal amount) {
+        if (accountRepository.reserveAvailableBalance(account.getId(), amount) == 0) {
+            throw new InsufficientFunds();
+        }
+        /* The bulk update bypasses the entity listener.  */
+        accountOverviewCache.evict(account.getClient().getId());
+
+        LocalDateTime now = LocalDateTime.now();
+        Hold hold = Hold.builder()
+                .account(account)
+                .transaction(transaction)
+                .amount(amount)
+                .status(HoldStatus.ACTIVE)
+                .createdAt(now)
+                .nextAttemptAt(now)
+                .expiresAt(now.plus(ttl))
+                .build();
+
+        return holdRepository.save(hold);
+    }
+}
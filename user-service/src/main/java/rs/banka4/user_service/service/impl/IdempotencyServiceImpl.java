@@ -0,0 +1,177 @@
+package rs.banka4.user_service.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import rs.banka4.user_service.domain.idempotency.db.IdempotencyRecord;
+import rs.banka4.user_service.exceptions.transaction.IdempotencyKeyInProgress;
+import rs.banka4.user_service.exceptions.transaction.IdempotencyKeyReused;
+import rs.banka4.user_service.repositories.IdempotencyRecordRepository;
+import rs.banka4.user_service.service.abstraction.IdempotencyService;
+import rs.banka4.user_service.utils.JwtUtil;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency keys are claimed in {@code idempotency_keys} inside the transaction that does the
+ * work, and the response is written to the same row before that transaction commits.  The work
+ * and its stored response therefore commit or roll back together: a key without a response never
+ * belongs to work that went through, and a request that fails or dies simply leaves the key free.
+ * A concurrent request with the same key waits on the uncommitted row and then replays what the
+ * first one stored.  Completed responses are also kept in a bounded in-memory cache, so a retry
+ * storm is answered without touching the database at all.
+ *
+ * <p>{@link #execute} only remembers the key for the calling thread; the work claims it by
+ * running its transactional part through {@link #recordInTransaction}.
+ */
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdempotencyServiceImpl.class);
+
+    private record CompletedRequest(String requestHash, String response) {
+    }
+
+    /** The key of the request running on this thread, and its response once recorded.  */
+    private static final class PendingRequest {
+        private final String id;
+        private final String idempotencyKey;
+        private final String requestHash;
+        private String response;
+
+        private PendingRequest(String id, String idempotencyKey, String requestHash) {
+            this.id = id;
+            this.idempotencyKey = idempotencyKey;
+            this.requestHash = requestHash;
+        }
+    }
+
+    private static final ThreadLocal<PendingRequest> PENDING = new ThreadLocal<>();
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final JwtUtil jwtUtil;
+    private final Duration retention;
+    private final Cache<String, CompletedRequest> completed;
+
+    public IdempotencyServiceImpl(IdempotencyRecordRepository idempotencyRecordRepository,
+                                  ObjectMapper objectMapper,
+                                  JwtUtil jwtUtil,
+                                  @Value("${idempotency.retention-hours:24}") long retentionHours,
+                                  @Value("${idempotency.cache-size:10000}") long cacheSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.jwtUtil = jwtUtil;
+        this.retention = Duration.ofHours(retentionHours);
+        this.completed = CacheBuilder.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(retention)
+                .build();
+    }
+
+    @Override
+    public <T> T execute(Authentication authentication, String idempotencyKey, Object request, Class<T> responseType, Supplier<T> work) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return work.get();
+        }
+
+        String id = jwtUtil.extractUsername(authentication.getCredentials().toString()) + ":" + idempotencyKey;
+        String requestHash = Hashing.sha256().hashBytes(toJson(request).getBytes(StandardCharsets.UTF_8)).toString();
+
+        Optional<CompletedRequest> previous = findCompleted(id);
+        if (previous.isPresent()) {
+            return replay(idempotencyKey, requestHash, previous.get(), responseType);
+        }
+
+        PendingRequest pending = new PendingRequest(id, idempotencyKey, requestHash);
+        PENDING.set(pending);
+        try {
+            T response = work.get();
+            if (pending.response != null) {
+                /* Committed by now: the work's transaction has returned.  */
+                completed.put(id, new CompletedRequest(requestHash, pending.response));
+            }
+            return response;
+        } finally {
+            PENDING.remove();
+        }
+    }
+
+    @Override
+    public <T> T recordInTransaction(Class<T> responseType, Supplier<T> work) {
+        PendingRequest pending = PENDING.get();
+        if (pending == null) {
+            return work.get();
+        }
+
+        if (idempotencyRecordRepository.reserve(pending.id, pending.requestHash, LocalDateTime.now()) == 0) {
+            /* Another request with this key committed while we were getting here.  */
+            IdempotencyRecord record = idempotencyRecordRepository.findById(pending.id)
+                    .filter(stored -> stored.getResponse() != null)
+                    .orElseThrow(() -> new IdempotencyKeyInProgress(pending.idempotencyKey));
+            CompletedRequest stored = new CompletedRequest(record.getRequestHash(), record.getResponse());
+            T replayed = replay(pending.idempotencyKey, pending.requestHash, stored, responseType);
+            pending.response = stored.response();
+            return replayed;
+        }
+
+        T response = work.get();
+        String json = toJson(response);
+        idempotencyRecordRepository.complete(pending.id, json);
+        pending.response = json;
+        return response;
+    }
+
+    /**
+     * Hourly: forget keys older than {@code idempotency.retention-hours}.
+     */
+    @Scheduled(cron = "0 0 * * * ?")
+    public void purgeExpiredKeys() {
+        int deleted = idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minus(retention));
+        LOGGER.debug("Purged {} expired idempotency keys", deleted);
+    }
+
+    private Optional<CompletedRequest> findCompleted(String id) {
+        CompletedRequest cached = completed.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<CompletedRequest> stored = idempotencyRecordRepository.findById(id)
+                .filter(record -> record.getResponse() != null)
+                .map(record -> new CompletedRequest(record.getRequestHash(), record.getResponse()));
+        stored.ifPresent(request -> completed.put(id, request));
+        return stored;
+    }
+
+    private <T> T replay(String idempotencyKey, String requestHash, CompletedRequest previous, Class<T> responseType) {
+        if (!previous.requestHash().equals(requestHash)) {
+            throw new IdempotencyKeyReused(idempotencyKey);
+        }
+        try {
+            return objectMapper.readValue(previous.response(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package rs.banka4.user_service.service.impl;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import rs.banka4.user_service.domain.account.db.Account;
+import rs.banka4.user_service.domain.currency.db.Currency;
+import rs.banka4.user_service.domain.ledger.db.BalanceSnapshot;
+import rs.banka4.user_service.domain.ledger.db.LedgerEntry;
+import rs.banka4.user_service.domain.ledger.db.LedgerEntryDirection;
+import rs.banka4.user_service.domain.ledger.db.LedgerEntryKind;
+import rs.banka4.user_service.domain.loan.db.LoanInstallment;
+import rs.banka4.user_service.domain.transaction.db.MonetaryAmount;
+import rs.banka4.user_service.domain.transaction.db.Transaction;
+import rs.banka4.user_service.repositories.AccountRepository;
+import rs.banka4.user_service.repositories.BalanceSnapshotRepository;
+import rs.banka4.user_service.repositories.LedgerEntryRepository;
+import rs.banka4.user_service.service.abstraction.LedgerService;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+public class LedgerServiceImpl implements LedgerService {
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+    private final AccountRepository accountRepository;
+
+    @Override
+    @Transactional
+    public void openAccount(Account account) {
+        if (account.getBalance() == null || account.getBalance().signum() == 0) {
+            return;
+        }
+
+        Currency.Code currency = account.getCurrency().getCode();
+        ledgerEntryRepository.saveAll(List.of(
+                entry(null, account.getId(), LedgerEntryKind.OPENING_BALANCE, LedgerEntryDirection.DEBIT, account.getBalance(), currency),
+                entry(account.getId(), account.getId(), LedgerEntryKind.OPENING_BALANCE, LedgerEntryDirection.CREDIT, account.getBalance(), currency)
+        ));
+    }
+
+    @Override
+    @Transactional
+    public void postTransaction(Transaction transaction) {
+        postTransactions(List.of(transaction));
+    }
+
+    @Override
+    @Transactional
+    public void postTransactions(List<Transaction> transactions) {
+        List<LedgerEntry> entries = new ArrayList<>(transactions.size() * 4);
+        Map<Account, BigDecimal> deltas = new LinkedHashMap<>();
+
+        for (Transaction transaction : transactions) {
+            Account fromAccount = transaction.getFromAccount();
+            Account toAccount = transaction.getToAccount();
+            UUID reference = transaction.getId();
+
+            entries.add(entry(fromAccount.getId(), reference, LedgerEntryKind.TRANSACTION, LedgerEntryDirection.DEBIT,
+                    transaction.getFrom().getAmount(), transaction.getFrom().getCurrency().getCode()));
+            entries.add(entry(toAccount.getId(), reference, LedgerEntryKind.TRANSACTION, LedgerEntryDirection.CREDIT,
+                    transaction.getTo().getAmount(), transaction.getTo().getCurrency().getCode()));
+
+            BigDecimal fee = feeAmount(transaction.getFee());
+            if (fee.signum() > 0) {
+                Currency.Code feeCurrency = transaction.getFee().getCurrency().getCode();
+                entries.add(entry(fromAccount.getId(), reference, LedgerEntryKind.FEE, LedgerEntryDirection.DEBIT, fee, feeCurrency));
+                entries.add(entry(null, reference, LedgerEntryKind.FEE, LedgerEntryDirection.CREDIT, fee, feeCurrency));
+            }
+
+            deltas.merge(fromAccount, transaction.getFrom().getAmount().add(fee).negate(), BigDecimal::add);
+            deltas.merge(toAccount, transaction.getTo().getAmount(), BigDecimal::add);
+        }
+
+        ledgerEntryRepository.saveAll(entries);
+
+        /* The read-side copy, written with the payment's own update of these rows.  */
+        deltas.forEach((account, delta) -> account.setBalance(account.getBalance().add(delta)));
+        accountRepository.saveAll(deltas.keySet());
+    }
+
+    @Override
+    @Transactional
+    public void postLoanInstallment(LoanInstallment installment) {
+        Account account = installment.getLoan().getAccount();
+        BigDecimal amount = installment.getInstallmentAmount();
+        Currency.Code currency = account.getCurrency().getCode();
+
+        ledgerEntryRepository.saveAll(List.of(
+                entry(account.getId(), installment.getId(), LedgerEntryKind.LOAN_INSTALLMENT, LedgerEntryDirection.DEBIT, amount, currency),
+                entry(null, installment.getId(), LedgerEntryKind.LOAN_INSTALLMENT, LedgerEntryDirection.CREDIT, amount, currency)
+        ));
+
+        account.setBalance(account.getBalance().subtract(amount));
+    }
+
+    @Override
+    public BigDecimal getBalance(Account account) {
+        return getBalanceAsOf(account, LocalDateTime.now());
+    }
+
+    @Override
+    public BigDecimal getBalanceAsOf(Account account, LocalDateTime asOf) {
+        Optional<BalanceSnapshot> snapshot = balanceSnapshotRepository
+                .findFirstByAccountIdAndTakenAtLessThanEqualOrderByTakenAtDesc(account.getId(), asOf);
+
+        if (snapshot.isEmpty()) {
+            return ledgerEntryRepository.sumBefore(account.getId(), asOf);
+        }
+
+        return snapshot.get().getBalance()
+                .add(ledgerEntryRepository.sumBetween(account.getId(), snapshot.get().getTakenAt(), asOf));
+    }
+
+    @Override
+    @Transactional
+    public int takeSnapshots(LocalDateTime cutoff) {
+        /* Read first, so the roll-forward below sees every transaction that started before it.  */
+        LocalDateTime committedBefore = balanceSnapshotRepository.commitSafeCutoff(cutoff);
+        return balanceSnapshotRepository.snapshotAll(committedBefore);
+    }
+
+    private BigDecimal feeAmount(MonetaryAmount fee) {
+        return fee == null || fee.getAmount() == null ? BigDecimal.ZERO : fee.getAmount();
+    }
+
+    private LedgerEntry entry(UUID accountId, UUID referenceId, LedgerEntryKind kind, LedgerEntryDirection direction,
+                              BigDecimal amount, Currency.Code currency) {
+        return LedgerEntry.builder()
+                .accountId(accountId)
+                .referenceId(referenceId)
+                .kind(kind)
+                .direction(direction)
+                .amount(amount)
+                .currency(currency)
+                .build();
+    }
+}
@@ -3,9 +3,7 @@ package rs.banka4.user_service.service.impl;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Primary;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
@@ -14,46 +12,52 @@ import rs.banka4.user_service.domain.currency.mapper.CurrencyMapper;
 import rs.banka4.user_service.domain.loan.db.LoanRequest;
 import rs.banka4.user_service.domain.loan.db.LoanStatus;
 import rs.banka4.user_service.domain.loan.db.Loan;
+import rs.banka4.user_service.domain.loan.db.LoanInstallment;
+import rs.banka4.user_service.domain.loan.db.PaymentStatus;
 import rs.banka4.user_service.domain.account.db.Account;
-import rs.banka4.user_service.domain.account.dtos.AccountDto;
 import rs.banka4.user_service.domain.loan.dtos.LoanApplicationDto;
 import rs.banka4.user_service.domain.loan.dtos.LoanFilterDto;
 import rs.banka4.user_service.domain.loan.dtos.LoanInformationDto;
+import rs.banka4.user_service.domain.loan.dtos.LoanScheduleDto;
+import rs.banka4.user_service.domain.loan.dtos.LoanSchedulePeriodDto;
 import rs.banka4.user_service.domain.loan.mapper.LoanMapper;
 import rs.banka4.user_service.domain.user.client.db.Client;
 import rs.banka4.user_service.exceptions.NullPageRequest;
 import rs.banka4.user_service.exceptions.account.AccountNotActive;
 import rs.banka4.user_service.exceptions.account.NotAccountOwner;
-import rs.banka4.user_service.exceptions.loan.NoLoansOnAccount;
 import rs.banka4.user_service.exceptions.user.client.ClientNotFound;
-import rs.banka4.user_service.repositories.InterestRateRepository;
+import rs.banka4.user_service.repositories.LoanInstallmentRepository;
 import rs.banka4.user_service.repositories.LoanRepository;
 import rs.banka4.user_service.repositories.LoanRequestRepository;
 import rs.banka4.user_service.service.abstraction.AccountService;
 import rs.banka4.user_service.service.abstraction.ClientService;
-import rs.banka4.user_service.utils.loans.LoanRateScheduler;
-import rs.banka4.user_service.utils.loans.LoanRateUtil;
+import rs.banka4.user_service.utils.loans.AmortizationEngine;
+import rs.banka4.user_service.utils.loans.LoanScheduleGenerator;
+import rs.banka4.user_service.utils.loans.PricingReferenceCache;
+import rs.banka4.user_service.utils.loans.ReferenceRateRegistry;
 import rs.banka4.user_service.exceptions.jwt.Unauthorized;
 import rs.banka4.user_service.exceptions.loan.InvalidLoanStatus;
 import rs.banka4.user_service.exceptions.loan.LoanNotFound;
 import rs.banka4.user_service.domain.loan.specification.LoanSpecification;
 import rs.banka4.user_service.service.abstraction.LoanService;
 import rs.banka4.user_service.utils.JwtUtil;
-import rs.banka4.user_service.utils.specification.SpecificationCombinator;
+import rs.banka4.user_service.utils.ids.Mod97;
+import rs.banka4.user_service.utils.ids.NumberBlockAllocator;
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 
 @RequiredArgsConstructor
 @Service
 @Primary
 public class LoanServiceImpl implements LoanService {
-    private final LoanRateUtil loanRateUtil;
+    /* Applications still being processed are not shown to the client as loans.  */
+    private static final Set<LoanStatus> LISTED_STATUSES = EnumSet.complementOf(EnumSet.of(LoanStatus.PROCESSING));
 
     private final ClientService clientService;
 
@@ -61,12 +65,20 @@ public class LoanServiceImpl implements LoanService {
 
     private final LoanRepository loanRepository;
 
+    private final LoanInstallmentRepository loanInstallmentRepository;
+
     private final LoanRequestRepository loanRequestRepository;
 
-    private final InterestRateRepository interestRateRepository;
+    private final PricingReferenceCache pricingReferenceCache;
+
+    private final ReferenceRateRegistry referenceRateRegistry;
+
+    private final LoanScheduleGenerator loanScheduleGenerator;
 
     private final JwtUtil jwtUtil;
 
+    private final NumberBlockAllocator numberBlockAllocator;
+
 
     @Transactional
     @Override
@@ -94,10 +106,10 @@ public class LoanServiceImpl implements LoanService {
 
     private void setLoanInterestRate(Loan newLoan,LoanApplicationDto loanApplicationDto) {
         if(loanApplicationDto.interestType() == Loan.InterestType.FIXED)
-            newLoan.setBaseInterestRate(interestRateRepository.findByAmountAndDate(newLoan.getAmount(),LocalDate.now()).orElseThrow().getFixedRate());
+            newLoan.setBaseInterestRate(pricingReferenceCache.fixedRate(newLoan.getAmount(),LocalDate.now()).orElseThrow());
         else{
             newLoan.setBaseInterestRate(
-                    interestRateRepository.findByAmountAndDate(newLoan.getAmount(),LocalDate.now()).orElseThrow().getFixedRate().add(LoanRateScheduler.getInterestRateVariant())
+                    pricingReferenceCache.fixedRate(newLoan.getAmount(),LocalDate.now()).orElseThrow().add(referenceRateRegistry.variantOn(LocalDate.now()))
             );
         }
     }
@@ -130,30 +142,12 @@ public class LoanServiceImpl implements LoanService {
         if(client.isEmpty())
             throw new ClientNotFound(username);
 
-        Set<AccountDto> accounts = accountService.getAccountsForClient(token);
-
-        if(accounts.isEmpty())
-            throw new NoLoansOnAccount(username);
-
-        Set<String> accountNumbers = accounts.stream().map(AccountDto::accountNumber).collect(Collectors.toSet());
-
-        SpecificationCombinator<Loan> combinator = new SpecificationCombinator<>();
-
-        for(String accountNumber : accountNumbers) {
-            combinator.or(LoanSpecification.hasAccountNumber(accountNumber));
-        }
-
-        Sort sort = Sort.by(Sort.Direction.DESC, "amount");
+        /* Largest loans first; the id keeps the order stable across pages for loans of equal amount.  */
         PageRequest pageRequestWithSort = PageRequest.of(pageRequest.getPageNumber(),
                 pageRequest.getPageSize(),
-                sort);
-
-        Page<Loan> loansPage = loanRepository.findAll(combinator.build(),pageRequestWithSort);
-        List<Loan> listOfLoans = loansPage.toList();
-        Stream<Loan> streamOfLoans = listOfLoans.stream().filter(loan -> loan.getStatus() != LoanStatus.PROCESSING);
-        listOfLoans = streamOfLoans.toList();
-        loansPage = new PageImpl<>(listOfLoans);
+                Sort.by(Sort.Direction.DESC, "amount").and(Sort.by(Sort.Direction.ASC, "id")));
 
+        Page<Loan> loansPage = loanRepository.findByClientAndStatusIn(client.get().getId(), LISTED_STATUSES, pageRequestWithSort);
 
         Page<LoanInformationDto> loanDtoPage = loansPage.map(loan ->
                 LoanMapper.INSTANCE.toDto(loan,CurrencyMapper.INSTANCE)
@@ -169,7 +163,9 @@ public class LoanServiceImpl implements LoanService {
         if (!role.equals("employee"))
             throw new Unauthorized(auth);
 
-        var loan = loanRepository.findByLoanNumber(loanNumber);
+        /* Locked, so a second approval waits for this one and then fails the status check
+           instead of writing the plan again.  */
+        var loan = loanRepository.findByLoanNumberForUpdate(loanNumber);
 
         if (loan.isEmpty())
             throw new LoanNotFound();
@@ -177,11 +173,15 @@ public class LoanServiceImpl implements LoanService {
         if(!loan.get().getStatus().equals(LoanStatus.PROCESSING))
             throw new InvalidLoanStatus(loan.get().getStatus().name());
 
-        loan.get().setNextInstallmentDate(LocalDate.now().plusMonths(1));
         loan.get().setDueDate(LocalDate.now().plusMonths(loan.get().getRepaymentPeriod()));
         loan.get().setStatus(LoanStatus.APPROVED);
         loan.get().setAgreementDate(LocalDate.now());
 
+        /* The whole plan is written now; the installment job only collects it.  */
+        List<AmortizationEngine.AmortizationPeriod> schedule = loanScheduleGenerator.generate(loan.get());
+        loan.get().setNextInstallmentDate(schedule.getFirst().dueDate());
+        loan.get().setRemainingDebt(LoanScheduleGenerator.totalRepayable(schedule));
+
         loanRepository.save(loan.get());
     }
 
@@ -192,7 +192,7 @@ public class LoanServiceImpl implements LoanService {
         if (!role.equals("employee"))
             throw new Unauthorized(auth);
 
-        var loan = loanRepository.findByLoanNumber(loanNumber);
+        var loan = loanRepository.findByLoanNumberForUpdate(loanNumber);
 
         if (loan.isEmpty())
             throw new LoanNotFound();
@@ -206,6 +206,43 @@ public class LoanServiceImpl implements LoanService {
 
     }
 
+    @Override
+    public ResponseEntity<LoanScheduleDto> getLoanSchedule(Long loanNumber, String auth) {
+        Loan loan = loanRepository.findByLoanNumber(loanNumber).orElseThrow(LoanNotFound::new);
+
+        if (!"employee".equals(jwtUtil.extractRole(auth))
+                && !loan.getAccount().getClient().getEmail().equals(jwtUtil.extractUsername(auth)))
+            throw new NotAccountOwner();
+
+        /* The plan as written at approval and rewritten by repricing, which is what is charged.  */
+        List<LoanInstallment> installments = loanInstallmentRepository.findByLoanIdOrderByExpectedDueDateAsc(loan.getId());
+
+        List<LoanSchedulePeriodDto> periods = new ArrayList<>(installments.size());
+        BigDecimal totalInterest = BigDecimal.ZERO;
+        for (LoanInstallment installment : installments) {
+            periods.add(new LoanSchedulePeriodDto(periods.size() + 1, installment.getExpectedDueDate(),
+                    installment.getInstallmentAmount(), installment.getPrincipalAmount(),
+                    installment.getInterestAmount(), installment.getRemainingBalance(), installment.getPaymentStatus()));
+            if (installment.getInterestAmount() != null) {
+                totalInterest = totalInterest.add(installment.getInterestAmount());
+            }
+        }
+        /* The installment charged next, or the last one once everything is paid.  */
+        Optional<LoanInstallment> next = installments.stream()
+                .filter(installment -> installment.getPaymentStatus() != PaymentStatus.PAID)
+                .findFirst()
+                .or(() -> installments.isEmpty() ? Optional.empty() : Optional.of(installments.getLast()));
+
+        return ResponseEntity.ok(new LoanScheduleDto(
+                loan.getLoanNumber(),
+                next.map(LoanInstallment::getInterestRateAmount).orElse(null),
+                next.map(LoanInstallment::getInstallmentAmount).orElse(null),
+                totalInterest,
+                CurrencyMapper.INSTANCE.toDto(loan.getAccount().getCurrency()),
+                periods
+        ));
+    }
+
     private void connectAccountToLoan(LoanApplicationDto loanApplicationDto, Loan newLoan,String clientEmail) {
 
         Account account = accountService.getAccountByAccountNumber(loanApplicationDto.accountNumber());
@@ -220,29 +257,11 @@ public class LoanServiceImpl implements LoanService {
     }
 
     private void generateLoanNumber(Loan newLoan){
-        String comb;
+        String serial = String.valueOf(numberBlockAllocator.next("loan_number_seq"));
 
-        LocalDate dayOfLoanRequest = LocalDate.now();
+        newLoan.setLoanNumber(Long.valueOf(serial + Mod97.checkDigits(serial)));
 
-        if(dayOfLoanRequest.getMonthValue() < 10)
-             comb = dayOfLoanRequest.getYear() + "0" + dayOfLoanRequest.getMonthValue();
-        else
-            comb = dayOfLoanRequest.getYear() + "" + dayOfLoanRequest.getMonthValue();
-
-        while(true){
-            try{
-                long random = ThreadLocalRandom.current().nextLong(0,100000);
-                String loanNumber = String.format("%06d",Integer.parseInt(comb) + random);
-
-                newLoan.setLoanNumber(Long.valueOf(loanNumber));
-
-                loanRepository.save(newLoan);
-
-                break;
-            }catch (DataIntegrityViolationException e){
-                System.out.println("Loan with this loan number already exists!");
-            }
-        }
+        loanRepository.save(newLoan);
     }
     private void makeLoanRequest(Loan loan,LoanApplicationDto loanApplicationDto) {
         LoanRequest loanRequest = LoanMapper.INSTANCE.toLoanRequest(loanApplicationDto);
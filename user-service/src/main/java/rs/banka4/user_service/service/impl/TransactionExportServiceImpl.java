@@ -0,0 +1,125 @@
+package rs.banka4.user_service.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import rs.banka4.user_service.domain.account.db.Account;
+import rs.banka4.user_service.domain.transaction.db.Transaction;
+import rs.banka4.user_service.domain.transaction.dtos.TransactionDto;
+import rs.banka4.user_service.domain.transaction.dtos.TransactionExportFormat;
+import rs.banka4.user_service.domain.transaction.mapper.TransactionMapper;
+import rs.banka4.user_service.exceptions.InvalidData;
+import rs.banka4.user_service.exceptions.account.AccountNotFound;
+import rs.banka4.user_service.exceptions.account.NotAccountOwner;
+import rs.banka4.user_service.repositories.AccountRepository;
+import rs.banka4.user_service.repositories.TransactionRepository;
+import rs.banka4.user_service.service.abstraction.TransactionExportService;
+import rs.banka4.user_service.utils.JwtUtil;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class TransactionExportServiceImpl implements TransactionExportService {
+
+    private static final String CSV_HEADER = "id,transactionNumber,fromAccount,toAccount,fromAmount,fromCurrency," +
+            "toAmount,toCurrency,feeAmount,feeCurrency,recipient,paymentCode,referenceNumber,paymentPurpose," +
+            "paymentDateTime,status";
+
+    /** Rows between flushes; also how often the persistence context is cleared.  */
+    private static final int FLUSH_INTERVAL = 500;
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final JwtUtil jwtUtil;
+
+    @Override
+    public StreamingResponseBody exportTransactions(String token, String accountNumber, LocalDate from, LocalDate to, TransactionExportFormat format) {
+        if (from.isAfter(to)) {
+            throw new InvalidData();
+        }
+
+        Account account = accountRepository.findAccountByAccountNumber(accountNumber)
+                .orElseThrow(AccountNotFound::new);
+        if ("client".equals(jwtUtil.extractRole(token))
+                && !account.getClient().getEmail().equals(jwtUtil.extractUsername(token))) {
+            throw new NotAccountOwner();
+        }
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        return outputStream -> readOnly.executeWithoutResult(status -> {
+            try (Stream<Transaction> rows = transactionRepository.streamHistory(account, from.atStartOfDay(), to.plusDays(1).atStartOfDay())) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+                if (format == TransactionExportFormat.CSV) {
+                    writer.write(CSV_HEADER);
+                    writer.write('\n');
+                }
+
+                int written = 0;
+                for (Iterator<Transaction> iterator = rows.iterator(); iterator.hasNext(); ) {
+                    Transaction transaction = iterator.next();
+                    TransactionDto dto = TransactionMapper.INSTANCE.toDto(transaction);
+                    if (format == TransactionExportFormat.CSV) {
+                        writeCsvRow(writer, dto);
+                    } else {
+                        writer.write(objectMapper.writeValueAsString(dto));
+                        writer.write('\n');
+                    }
+
+                    /* Flush the first row right away so the client sees data immediately.  */
+                    if (++written % FLUSH_INTERVAL == 0 || written == 1) {
+                        writer.flush();
+                        entityManager.clear();
+                    }
+                }
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void writeCsvRow(Writer writer, TransactionDto dto) throws IOException {
+        Object[] values = {
+                dto.id(), dto.transactionNumber(), dto.fromAccount(), dto.toAccount(),
+                dto.fromAmount(), dto.fromCurrency(), dto.toAmount(), dto.toCurrency(),
+                dto.feeAmount(), dto.feeCurrency(), dto.recipient(), dto.paymentCode(),
+                dto.referenceNumber(), dto.paymentPurpose(), dto.paymentDateTime(), dto.status()
+        };
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escapeCsv(values[i]));
+        }
+        writer.write('\n');
+    }
+
+    private static String escapeCsv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
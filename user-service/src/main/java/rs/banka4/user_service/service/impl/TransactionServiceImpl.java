@@ -1,24 +1,33 @@
 package rs.banka4.user_service.service.impl;
 
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import rs.banka4.user_service.domain.account.db.Account;
+import rs.banka4.user_service.domain.currency.db.Currency;
 import rs.banka4.user_service.domain.transaction.db.MonetaryAmount;
 import rs.banka4.user_service.domain.transaction.db.Transaction;
 import rs.banka4.user_service.domain.transaction.db.TransactionStatus;
+import rs.banka4.user_service.domain.transaction.dtos.BulkPaymentItemDto;
+import rs.banka4.user_service.domain.transaction.dtos.BulkPaymentItemResultDto;
+import rs.banka4.user_service.domain.transaction.dtos.BulkPaymentRejectionReason;
+import rs.banka4.user_service.domain.transaction.dtos.BulkPaymentResultDto;
+import rs.banka4.user_service.domain.transaction.dtos.CreateBulkPaymentDto;
 import rs.banka4.user_service.domain.transaction.dtos.CreatePaymentDto;
 import rs.banka4.user_service.domain.transaction.dtos.CreateTransferDto;
 import rs.banka4.user_service.domain.transaction.dtos.TransactionDto;
+import rs.banka4.user_service.domain.transaction.dtos.TransactionSliceDto;
 import rs.banka4.user_service.domain.transaction.mapper.TransactionMapper;
 import rs.banka4.user_service.domain.user.client.db.Client;
 import rs.banka4.user_service.domain.user.client.db.ClientContact;
 import rs.banka4.user_service.exceptions.account.AccountNotActive;
 import rs.banka4.user_service.exceptions.account.AccountNotFound;
 import rs.banka4.user_service.exceptions.account.NotAccountOwner;
+import rs.banka4.user_service.exceptions.account.NotBusinessAccount;
 import rs.banka4.user_service.exceptions.authenticator.NotValidTotpException;
 import rs.banka4.user_service.exceptions.transaction.InsufficientFunds;
 import rs.banka4.user_service.exceptions.transaction.TransactionNotFound;
@@ -27,15 +36,31 @@ import rs.banka4.user_service.repositories.AccountRepository;
 import rs.banka4.user_service.repositories.ClientContactRepository;
 import rs.banka4.user_service.repositories.ClientRepository;
 import rs.banka4.user_service.repositories.TransactionRepository;
+import rs.banka4.user_service.service.abstraction.ExchangeRateService;
+import rs.banka4.user_service.service.abstraction.HoldService;
+import rs.banka4.user_service.service.abstraction.IdempotencyService;
+import rs.banka4.user_service.service.abstraction.LedgerService;
 import rs.banka4.user_service.service.abstraction.TransactionService;
 import rs.banka4.user_service.utils.JwtUtil;
+import rs.banka4.user_service.utils.ids.TimeOrderedIds;
+import rs.banka4.user_service.utils.transactions.AccountLockManager;
+import rs.banka4.user_service.utils.transactions.SpendTracker;
+import rs.banka4.user_service.utils.transactions.TransactionCursor;
 import rs.banka4.user_service.utils.specification.PaymentSpecification;
 import rs.banka4.user_service.utils.specification.SpecificationCombinator;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -47,87 +72,253 @@ public class TransactionServiceImpl implements TransactionService {
     private final ClientContactRepository clientContactRepository;
     private final TotpService totpService;
     private final JwtUtil jwtUtil;
+    private final AccountLockManager accountLockManager;
+    private final TransactionTemplate transactionTemplate;
+    private final LedgerService ledgerService;
+    private final SpendTracker spendTracker;
+    private final ExchangeRateService exchangeRateService;
+    private final HoldService holdService;
+    private final IdempotencyService idempotencyService;
 
     @Override
-    @Transactional
     public TransactionDto createTransaction(Authentication authentication, CreatePaymentDto createPaymentDto) {
-        Client client = getClient(authentication);
+        if (!veifyClient(authentication, createPaymentDto.otpCode())) {
+            throw new NotValidTotpException();
+        }
 
+        return accountLockManager.execute(
+                List.of(createPaymentDto.fromAccount(), createPaymentDto.toAccount()),
+                () -> transactionTemplate.execute(status -> idempotencyService.recordInTransaction(TransactionDto.class,
+                        () -> executePayment(authentication, createPaymentDto)))
+        );
+    }
+
+    @Override
+    public TransactionDto createTransactionAsync(Authentication authentication, CreatePaymentDto createPaymentDto) {
         if (!veifyClient(authentication, createPaymentDto.otpCode())) {
             throw new NotValidTotpException();
         }
 
+        return accountLockManager.execute(
+                List.of(createPaymentDto.fromAccount(), createPaymentDto.toAccount()),
+                () -> transactionTemplate.execute(status -> idempotencyService.recordInTransaction(TransactionDto.class,
+                        () -> acceptPayment(authentication, createPaymentDto)))
+        );
+    }
+
+    @Override
+    public BulkPaymentResultDto createBulkPayment(Authentication authentication, CreateBulkPaymentDto createBulkPaymentDto) {
+        if (!veifyClient(authentication, createBulkPaymentDto.otpCode())) {
+            throw new NotValidTotpException();
+        }
+
+        Set<String> accountNumbers = new HashSet<>();
+        accountNumbers.add(createBulkPaymentDto.fromAccount());
+        createBulkPaymentDto.payments().forEach(item -> accountNumbers.add(item.toAccount()));
+
+        return accountLockManager.execute(
+                accountNumbers,
+                () -> transactionTemplate.execute(status -> idempotencyService.recordInTransaction(BulkPaymentResultDto.class,
+                        () -> executeBulkPayment(authentication, createBulkPaymentDto, accountNumbers)))
+        );
+    }
+
+    @Override
+    public TransactionDto createTransfer(Authentication authentication, CreateTransferDto createTransferDto) {
+        if (!veifyClient(authentication, createTransferDto.otpCode())) {
+            throw new NotValidTotpException();
+        }
+
+        return accountLockManager.execute(
+                List.of(createTransferDto.fromAccount(), createTransferDto.toAccount()),
+                () -> transactionTemplate.execute(status -> idempotencyService.recordInTransaction(TransactionDto.class,
+                        () -> executeTransfer(authentication, createTransferDto)))
+        );
+    }
+
+    private TransactionDto executePayment(Authentication authentication, CreatePaymentDto createPaymentDto) {
+        Client client = getClient(authentication);
+
         Account fromAccount = getAccount(createPaymentDto.fromAccount());
         Account toAccount = getAccount(createPaymentDto.toAccount());
 
         validateAccountActive(fromAccount);
         validateClientAccountOwnership(client, fromAccount);
+        accountLockManager.lockRows(fromAccount, toAccount);
         validateSufficientFunds(fromAccount, createPaymentDto.fromAmount().add(BigDecimal.ONE));
-
-        processTransaction(fromAccount, toAccount, createPaymentDto.fromAmount(), BigDecimal.ONE);
+        boolean limited = countsTowardLimits(fromAccount, toAccount);
+        if (limited) {
+            spendTracker.checkLimits(fromAccount, createPaymentDto.fromAmount(), LocalDateTime.now());
+        }
 
         Transaction transaction = buildTransaction(fromAccount, toAccount, createPaymentDto, BigDecimal.ONE, TransactionStatus.REALIZED);
 
-        if (createPaymentDto.saveRecipient()) {
-            ClientContact clientContact = ClientContact.builder()
-                    .client(client)
-                    .accountNumber(toAccount.getAccountNumber())
-                    .nickname(createPaymentDto.recipient())
-                    .build();
+        saveRecipientIfRequested(client, toAccount, createPaymentDto);
 
-            clientContactRepository.save(clientContact);
+        transactionRepository.save(transaction);
+        ledgerService.postTransaction(transaction);
+        applyToAvailableBalances(transaction);
+        if (limited) {
+            spendTracker.recordSpend(fromAccount, createPaymentDto.fromAmount(), transaction.getPaymentDateTime());
         }
 
+        return TransactionMapper.INSTANCE.toDto(transaction);
+    }
+
+    private TransactionDto acceptPayment(Authentication authentication, CreatePaymentDto createPaymentDto) {
+        Client client = getClient(authentication);
+
+        Account fromAccount = getAccount(createPaymentDto.fromAccount());
+        Account toAccount = getAccount(createPaymentDto.toAccount());
+
+        validateAccountActive(fromAccount);
+        validateClientAccountOwnership(client, fromAccount);
+
+        /* Cheap early exit; the conditional update in holdService.place is what actually decides.  */
+        BigDecimal reserved = createPaymentDto.fromAmount().add(BigDecimal.ONE);
+        if (fromAccount.getAvailableBalance().compareTo(reserved) < 0) {
+            throw new InsufficientFunds();
+        }
+        boolean limited = countsTowardLimits(fromAccount, toAccount);
+        if (limited) {
+            spendTracker.checkLimits(fromAccount, createPaymentDto.fromAmount(), LocalDateTime.now());
+        }
+
+        Transaction transaction = buildTransaction(fromAccount, toAccount, createPaymentDto, BigDecimal.ONE, TransactionStatus.PENDING);
+
+        saveRecipientIfRequested(client, toAccount, createPaymentDto);
+
         transactionRepository.save(transaction);
+        holdService.place(fromAccount, transaction, reserved);
+        if (limited) {
+            spendTracker.recordSpend(fromAccount, createPaymentDto.fromAmount(), transaction.getPaymentDateTime());
+        }
 
         return TransactionMapper.INSTANCE.toDto(transaction);
     }
 
-    @Override
-    @Transactional
-    public TransactionDto createTransfer(Authentication authentication, CreateTransferDto createTransferDto) {
+    private BulkPaymentResultDto executeBulkPayment(Authentication authentication, CreateBulkPaymentDto createBulkPaymentDto, Set<String> accountNumbers) {
         Client client = getClient(authentication);
 
-        if (!veifyClient(authentication, createTransferDto.otpCode())) {
-            throw new NotValidTotpException();
+        Map<String, Account> accounts = accountRepository.findAllByAccountNumberIn(accountNumbers).stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+
+        Account fromAccount = accounts.get(createBulkPaymentDto.fromAccount());
+        if (fromAccount == null) {
+            throw new AccountNotFound(createBulkPaymentDto.fromAccount());
         }
+        validateAccountActive(fromAccount);
+        validateClientAccountOwnership(client, fromAccount);
+        if (!fromAccount.getAccountType().isBusiness()) {
+            throw new NotBusinessAccount(fromAccount.getAccountNumber());
+        }
+        accountLockManager.lockRows(accounts.values().toArray(Account[]::new));
+
+        BigDecimal remaining = fromAccount.getBalance().min(fromAccount.getAvailableBalance());
+        BigDecimal totalDebited = BigDecimal.ZERO;
+        LocalDateTime now = LocalDateTime.now();
+        BigDecimal allowance = spendTracker.remainingAllowance(fromAccount, now);
+        BigDecimal counted = BigDecimal.ZERO;
+        List<BulkPaymentItemDto> payments = createBulkPaymentDto.payments();
+        BulkPaymentRejectionReason[] rejections = new BulkPaymentRejectionReason[payments.size()];
+        Transaction[] realized = new Transaction[payments.size()];
+        List<Transaction> transactions = new ArrayList<>();
+
+        for (int i = 0; i < payments.size(); i++) {
+            BulkPaymentItemDto item = payments.get(i);
+            Account toAccount = accounts.get(item.toAccount());
+            BigDecimal debit = item.amount().add(BigDecimal.ONE);
+
+            if (toAccount == null) {
+                rejections[i] = BulkPaymentRejectionReason.ACCOUNT_NOT_FOUND;
+            } else if (!toAccount.isActive()) {
+                rejections[i] = BulkPaymentRejectionReason.ACCOUNT_NOT_ACTIVE;
+            } else if (toAccount.equals(fromAccount)) {
+                rejections[i] = BulkPaymentRejectionReason.SAME_ACCOUNT;
+            } else if (remaining.compareTo(debit) < 0) {
+                rejections[i] = BulkPaymentRejectionReason.INSUFFICIENT_FUNDS;
+            } else if (allowance != null && countsTowardLimits(fromAccount, toAccount)
+                    && allowance.subtract(counted).compareTo(item.amount()) < 0) {
+                rejections[i] = BulkPaymentRejectionReason.LIMIT_EXCEEDED;
+            } else {
+                remaining = remaining.subtract(debit);
+                totalDebited = totalDebited.add(debit);
+                if (countsTowardLimits(fromAccount, toAccount)) {
+                    counted = counted.add(item.amount());
+                }
+                realized[i] = buildBulkTransaction(fromAccount, toAccount, item, now);
+                transactions.add(realized[i]);
+            }
+        }
+
+        /* Inserted in JDBC batches of hibernate.jdbc.batch_size; the debit is applied once.  */
+        transactionRepository.saveAll(transactions);
+        ledgerService.postTransactions(transactions);
+        transactions.forEach(this::applyToAvailableBalances);
+        if (counted.signum() > 0) {
+            spendTracker.recordSpend(fromAccount, counted, now);
+        }
+
+        List<BulkPaymentItemResultDto> items = new ArrayList<>(payments.size());
+        for (int i = 0; i < payments.size(); i++) {
+            items.add(realized[i] != null
+                    ? new BulkPaymentItemResultDto(i, payments.get(i).toAccount(), TransactionStatus.REALIZED, realized[i].getId(), null)
+                    : new BulkPaymentItemResultDto(i, payments.get(i).toAccount(), TransactionStatus.REJECTED, null, rejections[i]));
+        }
+
+        return new BulkPaymentResultDto(transactions.size(), payments.size() - transactions.size(), totalDebited, items);
+    }
+
+    private TransactionDto executeTransfer(Authentication authentication, CreateTransferDto createTransferDto) {
+        Client client = getClient(authentication);
 
         Account fromAccount = getAccount(createTransferDto.fromAccount());
         Account toAccount = getAccount(createTransferDto.toAccount());
 
         validateAccountActive(fromAccount);
         validateClientAccountOwnership(client, fromAccount, toAccount);
+        accountLockManager.lockRows(fromAccount, toAccount);
         validateSufficientFunds(fromAccount, createTransferDto.fromAmount());
 
-        processTransaction(fromAccount, toAccount, createTransferDto.fromAmount(), BigDecimal.ZERO);
-
         Transaction transaction = buildTransfer(fromAccount, toAccount, createTransferDto, BigDecimal.ZERO, TransactionStatus.REALIZED);
 
         transactionRepository.save(transaction);
+        ledgerService.postTransaction(transaction);
+        applyToAvailableBalances(transaction);
 
         return TransactionMapper.INSTANCE.toDto(transaction);
     }
 
     @Override
     public Page<TransactionDto> getAllTransactionsForClient(String token, TransactionStatus paymentStatus, BigDecimal amount, LocalDate paymentDate, String accountNumber, PageRequest pageRequest) {
-        SpecificationCombinator<Transaction> combinator = new SpecificationCombinator<>();
+        SpecificationCombinator<Transaction> combinator = filterTransactions(paymentStatus, amount, paymentDate, accountNumber);
 
-        if (paymentStatus != null) combinator.and(PaymentSpecification.hasStatus(paymentStatus));
-        if (amount != null) combinator.and(PaymentSpecification.hasAmount(amount));
-        if (paymentDate != null) combinator.and(PaymentSpecification.hasDate(paymentDate));
+        Page<Transaction> transactions = transactionRepository.findAll(combinator.build(), pageRequest);
 
-        if (accountNumber != null && !accountNumber.isEmpty()) {
-            Account fromAccount = accountRepository.findAccountByAccountNumber(accountNumber)
-                    .orElseThrow(AccountNotFound::new);
 
-            combinator.or(PaymentSpecification.hasFromAccount(fromAccount));
-            combinator.or(PaymentSpecification.hasToAccount(fromAccount));
+        return transactions.map(TransactionMapper.INSTANCE::toDto);
+    }
+
+    @Override
+    public TransactionSliceDto getTransactionsForClientByCursor(String token, TransactionStatus paymentStatus, BigDecimal amount, LocalDate paymentDate, String accountNumber, String cursor, int size) {
+        SpecificationCombinator<Transaction> combinator = filterTransactions(paymentStatus, amount, paymentDate, accountNumber);
+
+        if (cursor != null && !cursor.isEmpty()) {
+            TransactionCursor after = TransactionCursor.decode(cursor);
+            combinator.and(PaymentSpecification.isBefore(after.paymentDateTime(), after.id()));
         }
 
-        Page<Transaction> transactions = transactionRepository.findAll(combinator.build(), pageRequest);
+        /* One extra row tells us whether another page exists, without a count query.  */
+        List<Transaction> transactions = transactionRepository.findBy(combinator.build(), query -> query
+                .sortBy(Sort.by(Sort.Direction.DESC, "paymentDateTime", "id"))
+                .limit(size + 1)
+                .all());
 
+        boolean hasNext = transactions.size() > size;
+        List<Transaction> page = hasNext ? transactions.subList(0, size) : transactions;
+        String nextCursor = hasNext ? TransactionCursor.of(page.get(page.size() - 1)).encode() : null;
 
-        return transactions.map(TransactionMapper.INSTANCE::toDto);
+        return new TransactionSliceDto(page.stream().map(TransactionMapper.INSTANCE::toDto).toList(), nextCursor);
     }
 
     @Override
@@ -140,6 +331,53 @@ public class TransactionServiceImpl implements TransactionService {
         return TransactionMapper.INSTANCE.toDto(transaction);
     }
 
+    private SpecificationCombinator<Transaction> filterTransactions(TransactionStatus paymentStatus, BigDecimal amount, LocalDate paymentDate, String accountNumber) {
+        SpecificationCombinator<Transaction> combinator = new SpecificationCombinator<>();
+
+        if (paymentStatus != null) combinator.and(PaymentSpecification.hasStatus(paymentStatus));
+        if (amount != null) combinator.and(PaymentSpecification.hasAmount(amount));
+        if (paymentDate != null) combinator.and(PaymentSpecification.hasDate(paymentDate));
+
+        if (accountNumber != null && !accountNumber.isEmpty()) {
+            Account account = accountRepository.findAccountByAccountNumber(accountNumber)
+                    .orElseThrow(AccountNotFound::new);
+
+            combinator.and(PaymentSpecification.hasFromAccount(account).or(PaymentSpecification.hasToAccount(account)));
+        }
+
+        return combinator;
+    }
+
+    /**
+     * Daily and monthly limits apply to money leaving the client, not to moves between their own
+     * accounts.
+     */
+    private boolean countsTowardLimits(Account fromAccount, Account toAccount) {
+        return !Objects.equals(fromAccount.getClient(), toAccount.getClient());
+    }
+
+    /**
+     * The amount credited to {@code toAccount} for {@code amount} leaving {@code fromAccount}.
+     * Rates come from the in-memory exchange office table, never from a remote call.
+     */
+    private BigDecimal convert(BigDecimal amount, Account fromAccount, Account toAccount) {
+        Currency.Code from = fromAccount.getCurrency().getCode();
+        Currency.Code to = toAccount.getCurrency().getCode();
+        return from == to ? amount : exchangeRateService.convert(amount, from, to);
+    }
+
+    private void saveRecipientIfRequested(Client client, Account toAccount, CreatePaymentDto createPaymentDto) {
+        if (createPaymentDto.saveRecipient()) {
+            ClientContact clientContact = ClientContact.builder()
+                    .client(client)
+                    .accountNumber(toAccount.getAccountNumber())
+                    .nickname(createPaymentDto.recipient())
+                    .build();
+
+            clientContactRepository.save(clientContact);
+        }
+    }
+
     private Client getClient(Authentication authentication) {
         String email = jwtUtil.extractUsername(authentication.getCredentials().toString());
         return clientRepository.findByEmail(email).orElseThrow(() -> new UserNotFound(email));
@@ -157,12 +395,29 @@ public class TransactionServiceImpl implements TransactionService {
         }
     }
 
+    /**
+     * Money under a hold is still part of the booked balance, so immediate payments must also fit
+     * in the available balance.
+     */
     private void validateSufficientFunds(Account fromAccount, BigDecimal amount) {
-        if (fromAccount.getBalance().subtract(amount).compareTo(BigDecimal.ZERO) < 0) {
+        if (fromAccount.getBalance().compareTo(amount) < 0 || fromAccount.getAvailableBalance().compareTo(amount) < 0) {
             throw new InsufficientFunds();
         }
     }
 
+    /**
+     * Immediate payments skip the hold, so the available balances move together with the booked
+     * ones that {@link LedgerService} just updated.
+     */
+    private void applyToAvailableBalances(Transaction transaction) {
+        Account fromAccount = transaction.getFromAccount();
+        Account toAccount = transaction.getToAccount();
+        fromAccount.setAvailableBalance(fromAccount.getAvailableBalance()
+                .subtract(transaction.getFrom().getAmount())
+                .subtract(transaction.getFee().getAmount()));
+        toAccount.setAvailableBalance(toAccount.getAvailableBalance().add(transaction.getTo().getAmount()));
+    }
+
     private boolean veifyClient(Authentication authentication, String otpCode) {
         return totpService.validate(authentication.getCredentials().toString(), otpCode);
     }
@@ -174,18 +429,13 @@ public class TransactionServiceImpl implements TransactionService {
         }
     }
 
-    private void processTransaction(Account fromAccount, Account toAccount, BigDecimal amount, BigDecimal fee) {
-        fromAccount.setBalance(fromAccount.getBalance().subtract(amount).subtract(fee));
-        toAccount.setBalance(toAccount.getBalance().add(amount));
-    }
-
     private Transaction buildTransaction(Account fromAccount, Account toAccount, CreatePaymentDto createPaymentDto, BigDecimal fee, TransactionStatus status) {
         return Transaction.builder()
-                .transactionNumber(UUID.randomUUID().toString())
+                .transactionNumber(TimeOrderedIds.compactNumber())
                 .fromAccount(fromAccount)
                 .toAccount(toAccount)
                 .from(new MonetaryAmount(createPaymentDto.fromAmount(), fromAccount.getCurrency()))
-                .to(new MonetaryAmount(createPaymentDto.fromAmount(), toAccount.getCurrency()))
+                .to(new MonetaryAmount(convert(createPaymentDto.fromAmount(), fromAccount, toAccount), toAccount.getCurrency()))
                 .fee(new MonetaryAmount(fee, fromAccount.getCurrency()))
                 .recipient(createPaymentDto.recipient())
                 .paymentCode(createPaymentDto.paymentCode())
@@ -196,13 +446,30 @@ public class TransactionServiceImpl implements TransactionService {
                 .build();
     }
 
+    private Transaction buildBulkTransaction(Account fromAccount, Account toAccount, BulkPaymentItemDto item, LocalDateTime paymentDateTime) {
+        return Transaction.builder()
+                .transactionNumber(TimeOrderedIds.compactNumber())
+                .fromAccount(fromAccount)
+                .toAccount(toAccount)
+                .from(new MonetaryAmount(item.amount(), fromAccount.getCurrency()))
+                .to(new MonetaryAmount(convert(item.amount(), fromAccount, toAccount), toAccount.getCurrency()))
+                .fee(new MonetaryAmount(BigDecimal.ONE, fromAccount.getCurrency()))
+                .recipient(item.recipient())
+                .paymentCode(item.paymentCode())
+                .referenceNumber(item.referenceNumber())
+                .paymentPurpose(item.paymentPurpose())
+                .paymentDateTime(paymentDateTime)
+                .status(TransactionStatus.REALIZED)
+                .build();
+    }
+
     private Transaction buildTransfer(Account fromAccount, Account toAccount, CreateTransferDto createTransferDto, BigDecimal fee, TransactionStatus status) {
         return Transaction.builder()
-                .transactionNumber(UUID.randomUUID().toString())
+                .transactionNumber(TimeOrderedIds.compactNumber())
                 .fromAccount(fromAccount)
                 .toAccount(toAccount)
                 .from(new MonetaryAmount(createTransferDto.fromAmount(), fromAccount.getCurrency()))
-                .to(new MonetaryAmount(createTransferDto.fromAmount(), toAccount.getCurrency()))
+                .to(new MonetaryAmount(convert(createTransferDto.fromAmount(), fromAccount, toAccount), toAccount.getCurrency()))
                 .fee(new MonetaryAmount(fee, fromAccount.getCurrency()))
                 .recipient(toAccount.getClient().firstName)
                 .paymentCode("101")
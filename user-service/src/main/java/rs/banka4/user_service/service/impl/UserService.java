@@ -2,13 +2,13 @@ package rs.banka4.user_service.service.impl;
 
 import org.springframework.stereotype.Service;
 import lombok.RequiredArgsConstructor;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import rs.banka4.user_service.config.RabbitMqConfig;
+import org.springframework.transaction.annotation.Transactional;
 import rs.banka4.user_service.domain.auth.dtos.NotificationTransferDto;
 import rs.banka4.user_service.domain.auth.db.VerificationCode;
 import rs.banka4.user_service.repositories.ClientRepository;
 import rs.banka4.user_service.repositories.EmployeeRepository;
 import rs.banka4.user_service.utils.MessageHelper;
+import rs.banka4.user_service.utils.notifications.NotificationOutbox;
 
 @Service
 @RequiredArgsConstructor
@@ -17,12 +17,13 @@ public class UserService {
     private final EmployeeRepository employeeRepository;
     private final ClientRepository clientRepository;
     private final VerificationCodeService verificationCodeService;
-    private final RabbitTemplate rabbitTemplate;
+    private final NotificationOutbox notificationOutbox;
 
     public boolean existsByEmail(String email) {
         return employeeRepository.existsByEmail(email) || clientRepository.existsByEmail(email);
     }
 
+    @Transactional
     public void sendVerificationEmail(String firstName, String email) {
         VerificationCode verificationCode = verificationCodeService.createVerificationCode(email);
 
@@ -34,11 +35,7 @@ public class UserService {
                 firstName,
                 verificationCode.getCode());
 
-        rabbitTemplate.convertAndSend(
-                RabbitMqConfig.EXCHANGE_NAME,
-                RabbitMqConfig.ROUTING_KEY,
-                message
-        );
+        notificationOutbox.enqueue(message);
     }
 
 }
@@ -0,0 +1,94 @@
+package rs.banka4.user_service.utils.accounts;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import rs.banka4.user_service.domain.account.dtos.AccountDto;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Caches the account overview ({@code GET /account}) per client id.
+ *
+ * <p>Anything that changes what the overview shows must call {@link #evict(UUID)}: account
+ * creation, balance changes and deactivation are covered by {@link AccountOverviewListener}, bulk
+ * JPQL updates have to do it themselves.  Entries are dropped right away and again once the
+ * surrounding transaction commits, so a request reading in between cannot put pre-commit state
+ * back for long.  A load that raced with an eviction is returned but not cached.
+ *
+ * <p>The cache is per instance, so other instances may show an old overview for up to
+ * {@code accounts.overview-cache.expire-seconds}.
+ */
+@Component
+public class AccountOverviewCache {
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final Cache<UUID, Set<AccountDto>> overviews;
+    /* Bumped on every eviction; a load only stores its result if its stripe did not move.  */
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public AccountOverviewCache(@Value("${accounts.overview-cache.size:10000}") long size,
+                                @Value("${accounts.overview-cache.expire-seconds:300}") long expireSeconds) {
+        this.overviews = CacheBuilder.newBuilder()
+                .maximumSize(size)
+                .expireAfterWrite(Duration.ofSeconds(expireSeconds))
+                .build();
+    }
+
+    public Set<AccountDto> get(UUID clientId, Supplier<Set<AccountDto>> loader) {
+        Set<AccountDto> cached = overviews.getIfPresent(clientId);
+        if (cached != null) {
+            return cached;
+        }
+
+        int stripe = stripe(clientId);
+        long generation = generations.get(stripe);
+        Set<AccountDto> loaded = Set.copyOf(loader.get());
+        if (generations.get(stripe) == generation) {
+            overviews.put(clientId, loaded);
+        }
+        return loaded;
+    }
+
+    public void evict(UUID clientId) {
+        if (clientId == null) {
+            return;
+        }
+
+        invalidate(clientId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(clientId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops every overview, for bulk jobs that change many accounts in set-based statements.
+     */
+    public void evictAll() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        overviews.invalidateAll();
+    }
+
+    private void invalidate(UUID clientId) {
+        generations.incrementAndGet(stripe(clientId));
+        overviews.invalidate(clientId);
+    }
+
+    private static int stripe(UUID clientId) {
+        return Math.floorMod(clientId.hashCode(), GENERATION_STRIPES);
+    }
+}
@@ -0,0 +1,29 @@
+package rs.banka4.user_service.utils.accounts;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+import rs.banka4.user_service.domain.account.db.Account;
+
+/**
+ * Evicts the owner's cached account overview whenever an account row is inserted, updated
+ * (balances, limits, deactivation) or deleted through the persistence context.
+ */
+@Component
+public class AccountOverviewListener {
+    private final AccountOverviewCache accountOverviewCache;
+
+    public AccountOverviewListener(AccountOverviewCache accountOverviewCache) {
+        this.accountOverviewCache = accountOverviewCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void accountChanged(Account account) {
+        if (account.getClient() != null) {
+            accountOverviewCache.evict(account.getClient().getId());
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package rs.banka4.user_service.utils.accounts;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import rs.banka4.user_service.utils.ids.TimeOrderedIds;
+import rs.banka4.user_service.utils.scheduling.SchedulerLeases;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Charges the monthly account maintenance fee ({@code Account.accountMaintenance}).
+ *
+ * <p>When a month is first charged, the account id space is split into chunks of
+ * {@code accounts.maintenance-fee.chunk-size} accounts, recorded in
+ * {@code maintenance_fee_chunks}.  Chunks are then charged in parallel on a pool of
+ * {@code accounts.maintenance-fee.threads} threads.  Each chunk is a single transaction: one
+ * {@code UPDATE} over its id range that takes the fee off both balances, the matching ledger
+ * entries inserted from the updated rows, and the chunk marked {@code DONE}.  A chunk is claimed
+ * with {@code SKIP LOCKED}, so several instances can share a run.  A run left unfinished by a
+ * crash or a failed chunk is resumed with only the chunks that did not commit, on the next start
+ * and by a sweep every {@code accounts.maintenance-fee.retry-cron}.
+ *
+ * <p>Fees are charged whether or not the balance covers them; an overdrawn account simply cannot
+ * pay until it is topped up.
+ */
+@Service
+public class MaintenanceFeeJob {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MaintenanceFeeJob.class);
+
+    private static final String START_RUN = "INSERT INTO maintenance_fee_runs (id, period, status, started_at) " +
+            "VALUES (?, ?, 'RUNNING', ?) ON CONFLICT (period) DO NOTHING";
+    private static final String FIND_RUN = "SELECT id FROM maintenance_fee_runs WHERE period = ? AND status = 'RUNNING'";
+    private static final String UNFINISHED_RUNS = "SELECT period FROM maintenance_fee_runs WHERE status = 'RUNNING' ORDER BY period";
+
+    /* Every chunk-size-th account id starts a new chunk.  */
+    private static final String CHUNK_BOUNDARIES = """
+            SELECT id FROM (
+                SELECT id, row_number() OVER (ORDER BY id) AS rn FROM accounts
+            ) numbered
+            WHERE rn > 1 AND rn % ? = 1
+            ORDER BY id
+            """;
+    private static final String INSERT_CHUNK = "INSERT INTO maintenance_fee_chunks (run_id, chunk_no, lower_id, upper_id, status) " +
+            "VALUES (?, ?, ?, ?, 'PENDING')";
+    private static final String PENDING_CHUNKS = "SELECT chunk_no FROM maintenance_fee_chunks " +
+            "WHERE run_id = ? AND status = 'PENDING' ORDER BY chunk_no";
+    private static final String CLAIM_CHUNK = "SELECT lower_id, upper_id FROM maintenance_fee_chunks " +
+            "WHERE run_id = ? AND chunk_no = ? AND status = 'PENDING' FOR UPDATE SKIP LOCKED";
+
+    /* Debits every charged account and credits the bank once per currency.  The chunk's rows
+       are locked in id order first, the order payments lock accounts in (AccountLockManager), so
+       a chunk and a payment never wait on each other's rows in a cycle; an UPDATE joined to
+       currencies would lock them in whatever order the join produces.  The entries are stamped
+       by the database as they are inserted, so a chunk committing after a balance snapshot is
+       never stamped before that snapshot's cutoff.  */
+    private static final String CHARGE_CHUNK = """
+            WITH locked AS MATERIALIZED (
+                SELECT a.id FROM accounts a
+                WHERE a.active AND a.account_maintenance > 0 AND a.created_date < ?
+                  AND (?::UUID IS NULL OR a.id >= ?::UUID)
+                  AND (?::UUID IS NULL OR a.id < ?::UUID)
+                ORDER BY a.id
+                FOR UPDATE
+            ), charged AS (
+                UPDATE accounts a
+                SET balance = a.balance - a.account_maintenance,
+                    available_balance = a.available_balance - a.account_maintenance,
+                    version = a.version + 1
+                FROM locked l, currencies c
+                WHERE a.id = l.id AND c.id = a.currency_id
+                RETURNING a.id, a.account_maintenance, c.code
+            ), posted AS (
+                INSERT INTO ledger_entries (id, account_id, reference_id, kind, direction, amount, currency)
+                SELECT uuid_generate_v7(), charged.id, ?, 'MAINTENANCE_FEE', 'DEBIT', charged.account_maintenance, charged.code
+                FROM charged
+                UNION ALL
+                SELECT uuid_generate_v7(), NULL, ?, 'MAINTENANCE_FEE', 'CREDIT', SUM(charged.account_maintenance), charged.code
+                FROM charged
+                GROUP BY charged.code
+                RETURNING direction
+            )
+            SELECT count(*) FROM posted WHERE direction = 'DEBIT'
+            """;
+    private static final String COMPLETE_CHUNK = "UPDATE maintenance_fee_chunks SET status = 'DONE', accounts_charged = ?, completed_at = ? " +
+            "WHERE run_id = ? AND chunk_no = ?";
+    private static final String COMPLETE_RUN = """
+            UPDATE maintenance_fee_runs r
+            SET status = 'COMPLETED', finished_at = ?,
+                accounts_charged = (SELECT COALESCE(SUM(c.accounts_charged), 0) FROM maintenance_fee_chunks c WHERE c.run_id = r.id)
+            WHERE r.id = ?
+              AND NOT EXISTS (SELECT 1 FROM maintenance_fee_chunks c WHERE c.run_id = r.id AND c.status = 'PENDING')
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AccountOverviewCache accountOverviewCache;
+    private final SchedulerLeases schedulerLeases;
+    private final int chunkSize;
+    private final int threads;
+
+    public MaintenanceFeeJob(JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             AccountOverviewCache accountOverviewCache,
+                             SchedulerLeases schedulerLeases,
+                             @Value("${accounts.maintenance-fee.chunk-size:5000}") int chunkSize,
+                             @Value("${accounts.maintenance-fee.threads:4}") int threads) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.accountOverviewCache = accountOverviewCache;
+        this.schedulerLeases = schedulerLeases;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Runs on the first of the month and charges the month that just ended.
+     */
+    @Scheduled(cron = "${accounts.maintenance-fee.cron:0 0 1 1 * ?}")
+    public void chargeLastMonth() {
+        charge(YearMonth.now().minusMonths(1));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedRuns() {
+        for (Date period : jdbcTemplate.queryForList(UNFINISHED_RUNS, Date.class)) {
+            LOGGER.info("Resuming maintenance fee run for {}", YearMonth.from(period.toLocalDate()));
+            charge(YearMonth.from(period.toLocalDate()));
+        }
+    }
+
+    /**
+     * Retries the chunks a transient error (a deadlock, a timeout) left pending, without waiting
+     * for a restart.  Runs on one instance at a time; the others would only find the chunks
+     * claimed.
+     */
+    @Scheduled(cron = "${accounts.maintenance-fee.retry-cron:0 30 * * * ?}")
+    public void retryUnfinishedRuns() {
+        schedulerLeases.runExclusively("accounts.maintenance-fee.retry", Duration.ofHours(1), this::resumeUnfinishedRuns);
+    }
+
+    /**
+     * Charges every active account that existed before the end of {@code period}, unless that was
+     * already done.  Safe to call repeatedly and from several instances at once.
+     */
+    public MaintenanceFeeReport charge(YearMonth period) {
+        long start = System.nanoTime();
+        UUID runId = transactionTemplate.execute(status -> startRun(period));
+        if (runId == null) {
+            LOGGER.debug("Maintenance fees for {} were already charged", period);
+            return new MaintenanceFeeReport(period, 0, 0, Duration.ZERO, true);
+        }
+
+        List<Integer> pending = jdbcTemplate.queryForList(PENDING_CHUNKS, Integer.class, runId);
+        LocalDate periodEnd = period.plusMonths(1).atDay(1);
+
+        long charged = 0;
+        boolean failed = false;
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, pending.size())));
+        try {
+            List<Future<Long>> futures = new ArrayList<>(pending.size());
+            for (Integer chunk : pending) {
+                futures.add(pool.submit(() -> chargeChunk(runId, chunk, periodEnd)));
+            }
+            for (Future<Long> future : futures) {
+                try {
+                    charged += future.get();
+                } catch (ExecutionException e) {
+                    /* The chunk rolled back and stays PENDING for the next attempt.  */
+                    failed = true;
+                    LOGGER.error("Maintenance fee chunk of {} failed", period, e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed = true;
+        } finally {
+            pool.shutdownNow();
+            accountOverviewCache.evictAll();
+        }
+
+        boolean completed = !failed && jdbcTemplate.update(COMPLETE_RUN, LocalDateTime.now(), runId) == 1;
+        MaintenanceFeeReport report = new MaintenanceFeeReport(period, pending.size(), charged,
+                Duration.ofNanos(System.nanoTime() - start), completed);
+        LOGGER.info("{}", report);
+        return report;
+    }
+
+    private UUID startRun(YearMonth period) {
+        LocalDate month = period.atDay(1);
+        UUID runId = TimeOrderedIds.uuidV7();
+        if (jdbcTemplate.update(START_RUN, runId, month, LocalDateTime.now()) == 1) {
+            List<UUID> boundaries = jdbcTemplate.queryForList(CHUNK_BOUNDARIES, UUID.class, chunkSize);
+            List<Object[]> chunks = new ArrayList<>(boundaries.size() + 1);
+            for (int i = 0; i <= boundaries.size(); i++) {
+                UUID lower = i == 0 ? null : boundaries.get(i - 1);
+                UUID upper = i == boundaries.size() ? null : boundaries.get(i);
+                chunks.add(new Object[]{runId, i, lower, upper});
+            }
+            jdbcTemplate.batchUpdate(INSERT_CHUNK, chunks);
+            return runId;
+        }
+
+        /* Someone else started this month; join in if it is still running.  */
+        List<UUID> running = jdbcTemplate.queryForList(FIND_RUN, UUID.class, month);
+        return running.isEmpty() ? null : running.getFirst();
+    }
+
+    private long chargeChunk(UUID runId, int chunk, LocalDate periodEnd) {
+        Long charged = transactionTemplate.execute(status -> {
+            List<Map<String, Object>> claimed = jdbcTemplate.queryForList(CLAIM_CHUNK, runId, chunk);
+            if (claimed.isEmpty()) {
+                /* Done by, or being done by, another instance.  */
+                return 0L;
+            }
+
+            Object lower = claimed.getFirst().get("lower_id");
+            Object upper = claimed.getFirst().get("upper_id");
+            Long accounts = jdbcTemplate.queryForObject(CHARGE_CHUNK, Long.class,
+                    periodEnd, lower, lower, upper, upper, runId, runId);
+            jdbcTemplate.update(COMPLETE_CHUNK, accounts, LocalDateTime.now(), runId, chunk);
+            return accounts;
+        });
+        return charged == null ? 0 : charged;
+    }
+}
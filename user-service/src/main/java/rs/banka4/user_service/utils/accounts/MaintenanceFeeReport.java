@@ -0,0 +1,23 @@
+package rs.banka4.user_service.utils.accounts;
+
+import java.time.Duration;
+import java.time.YearMonth;
+
+/**
+ * Outcome of one {@link MaintenanceFeeJob#charge(YearMonth)} call.  {@code chunks} and
+ * {@code accountsCharged} only count the work done by that call, not by earlier attempts or other
+ * instances.
+ */
+public record MaintenanceFeeReport(YearMonth period, int chunks, long accountsCharged, Duration elapsed, boolean completed) {
+
+    public double accountsPerSecond() {
+        return elapsed.isZero() ? 0 : accountsCharged * 1e9 / elapsed.toNanos();
+    }
+
+    @Override
+    public String toString() {
+        return "Maintenance fees for %s: %,d accounts in %d chunks, %.1f s (%,.0f accounts/s)%s"
+                .formatted(period, accountsCharged, chunks, elapsed.toMillis() / 1000.0, accountsPerSecond(),
+                        completed ? "" : ", incomplete");
+    }
+}
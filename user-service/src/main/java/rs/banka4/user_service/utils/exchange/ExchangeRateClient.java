@@ -0,0 +1,41 @@
+package rs.banka4.user_service.utils.exchange;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import rs.banka4.user_service.domain.currency.dtos.ExchangeRateTableDto;
+
+import java.time.Duration;
+
+/**
+ * Fetches the rate table from the exchange office service.  Only called from the background
+ * refresh in {@code ExchangeRateServiceImpl}, never while handling a payment.
+ */
+@Component
+public class ExchangeRateClient {
+    private final RestClient restClient;
+
+    public ExchangeRateClient(@Value("${exchange-office.url:http://exchange_office:8000}") String baseUrl,
+                              @Value("${exchange-office.timeout-ms:5000}") long timeoutMs) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofMillis(timeoutMs));
+        requestFactory.setReadTimeout(Duration.ofMillis(timeoutMs));
+
+        this.restClient = RestClient.builder()
+                .baseUrl(baseUrl)
+                .requestFactory(requestFactory)
+                .build();
+    }
+
+    /**
+     * @throws org.springframework.web.client.RestClientException if the exchange office is down
+     *         or answers with an error
+     */
+    public ExchangeRateTableDto fetchRates() {
+        return restClient.get()
+                .uri("/exchange-rate")
+                .retrieve()
+                .body(ExchangeRateTableDto.class);
+    }
+}
@@ -0,0 +1,42 @@
+package rs.banka4.user_service.utils.ids;
+
+import org.springframework.stereotype.Component;
+import rs.banka4.user_service.repositories.AccountRepository;
+
+/**
+ * Hands out new account numbers: 444 0001 <9 digit serial> <2 mod-97 control digits>.
+ *
+ * <p>Serials come from {@code account_number_seq}, which starts low (see
+ * {@code V38__restart_account_number_seq.sql}).  Accounts opened before the sequence existed got
+ * random serials scattered over the whole range, so a serial some account already uses is skipped
+ * instead of being given out again with different control digits.  Such serials are rare, and the
+ * check is one lookup on the trigram index of {@code account_number}.
+ */
+@Component
+public class AccountNumberAllocator {
+    private static final String SEQUENCE = "account_number_seq";
+    private static final String PREFIX = "4440001";
+    private static final long MAX_SERIAL = 999_999_999L;
+
+    private final NumberBlockAllocator numberBlockAllocator;
+    private final AccountRepository accountRepository;
+
+    public AccountNumberAllocator(NumberBlockAllocator numberBlockAllocator, AccountRepository accountRepository) {
+        this.numberBlockAllocator = numberBlockAllocator;
+        this.accountRepository = accountRepository;
+    }
+
+    public String next() {
+        while (true) {
+            long serial = numberBlockAllocator.next(SEQUENCE);
+            if (serial > MAX_SERIAL) {
+                throw new IllegalStateException("Account number space is exhausted");
+            }
+
+            String number = PREFIX + "%09d".formatted(serial);
+            if (!accountRepository.existsByAccountNumberLike(number + "__")) {
+                return number + Mod97.checkDigits(number);
+            }
+        }
+    }
+}
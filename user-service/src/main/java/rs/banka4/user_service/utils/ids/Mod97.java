@@ -0,0 +1,26 @@
+package rs.banka4.user_service.utils.ids;
+
+/**
+ * ISO 7064 MOD 97-10 control numbers, as used for the last two digits of Serbian account numbers
+ * (and of IBANs).  A number followed by its control number leaves a remainder of 1 modulo 97.
+ */
+public final class Mod97 {
+    private Mod97() {
+    }
+
+    public static String checkDigits(String digits) {
+        return "%02d".formatted(98 - remainder(digits + "00"));
+    }
+
+    public static boolean isValid(String number) {
+        return number.length() > 2 && number.chars().allMatch(Character::isDigit) && remainder(number) == 1;
+    }
+
+    private static int remainder(String digits) {
+        int remainder = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            remainder = (remainder * 10 + Character.digit(digits.charAt(i), 10)) % 97;
+        }
+        return remainder;
+    }
+}
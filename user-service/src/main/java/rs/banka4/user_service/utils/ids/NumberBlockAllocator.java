@@ -0,0 +1,59 @@
+package rs.banka4.user_service.utils.ids;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out unique serial numbers from database sequences without a round trip per number.
+ *
+ * <p>The sequences are created with {@code INCREMENT BY} the block size (see
+ * {@code V26__number_sequences.sql}), so a single {@code nextval} reserves a whole block of
+ * numbers for this instance; the block is then handed out from memory.  Numbers are never handed
+ * out twice, across instances or restarts, but the unused rest of a block is skipped when the
+ * instance stops, so serials are unique and increasing per instance, not gapless.
+ */
+@Component
+public class NumberBlockAllocator {
+    private static final String BLOCK_SIZE = "SELECT increment_by FROM pg_sequences " +
+            "WHERE schemaname = current_schema() AND sequencename = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    public NumberBlockAllocator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long next(String sequence) {
+        Block block = blocks.computeIfAbsent(sequence, this::newBlock);
+        synchronized (block) {
+            if (block.next >= block.end) {
+                Long start = jdbcTemplate.queryForObject("SELECT nextval(?::regclass)", Long.class, sequence);
+                block.next = start;
+                block.end = start + block.size;
+            }
+            return block.next++;
+        }
+    }
+
+    private Block newBlock(String sequence) {
+        Long size = jdbcTemplate.queryForObject(BLOCK_SIZE, Long.class, sequence);
+        if (size == null || size < 1) {
+            throw new IllegalStateException("Sequence %s must have a positive increment".formatted(sequence));
+        }
+        return new Block(size);
+    }
+
+    private static final class Block {
+        private final long size;
+        private long next;
+        private long end;
+
+        private Block(long size) {
+            this.size = size;
+        }
+    }
+}
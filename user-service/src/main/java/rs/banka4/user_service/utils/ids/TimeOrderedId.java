@@ -0,0 +1,19 @@
+package rs.banka4.user_service.utils.ids;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates a UUIDv7 id for the annotated {@code @Id} field, in place of
+ * {@code @GeneratedValue}.  Use on tables that grow fast, where random UUIDs would scatter
+ * inserts across the primary key index.
+ */
+@IdGeneratorType(TimeOrderedIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface TimeOrderedId {
+}
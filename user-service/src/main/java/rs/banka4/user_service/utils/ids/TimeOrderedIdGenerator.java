@@ -0,0 +1,23 @@
+package rs.banka4.user_service.utils.ids;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+
+import java.util.EnumSet;
+
+/**
+ * Hibernate side of {@link TimeOrderedId}.  Ids are assigned in memory before the insert, so
+ * JDBC batching keeps working.
+ */
+public class TimeOrderedIdGenerator implements BeforeExecutionGenerator {
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return TimeOrderedIds.uuidV7();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EnumSet.of(EventType.INSERT);
+    }
+}
@@ -0,0 +1,68 @@
+package rs.banka4.user_service.utils.ids;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * Generates UUIDv7 identifiers (RFC 9562): a 48-bit millisecond timestamp followed by random
+ * bits.  Consecutive ids sort in creation order, so inserts land on the right-most leaf of a
+ * B-tree index instead of on a random page.
+ *
+ * <p>Within one millisecond, the 12-bit {@code rand_a} field is used as a counter (RFC 9562,
+ * method 1), so ids generated by this JVM are strictly increasing.  If the counter overflows, the
+ * timestamp is advanced by one millisecond.
+ */
+public final class TimeOrderedIds {
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final char[] CROCKFORD = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int COUNTER_BITS = 12;
+    private static final long MAX_COUNTER = (1L << COUNTER_BITS) - 1;
+
+    private static long lastMillis = -1;
+    private static long counter;
+
+    private TimeOrderedIds() {
+    }
+
+    public static UUID uuidV7() {
+        long millis;
+        long sequence;
+        synchronized (TimeOrderedIds.class) {
+            long now = System.currentTimeMillis();
+            if (now > lastMillis) {
+                lastMillis = now;
+                /* Start at a random point in the lower half, leaving room to count up.  */
+                counter = RANDOM.nextInt(1 << (COUNTER_BITS - 1));
+            } else if (++counter > MAX_COUNTER) {
+                lastMillis++;
+                counter = 0;
+            }
+            millis = lastMillis;
+            sequence = counter;
+        }
+
+        long mostSigBits = (millis << 16) | (0x7L << 12) | sequence;
+        long leastSigBits = (RANDOM.nextLong() & 0x3FFF_FFFF_FFFF_FFFFL) | 0x8000_0000_0000_0000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * A 26 character Crockford base32 rendering of a fresh UUIDv7.  Sorts the same way as the
+     * UUID, and is short enough to read out over the phone.
+     */
+    public static String compactNumber() {
+        UUID id = uuidV7();
+        return encode(id.getMostSignificantBits(), id.getLeastSignificantBits());
+    }
+
+    static String encode(long high, long low) {
+        /* 128 bits as 26 five-bit groups; the first group only carries the top 3 bits.  */
+        char[] chars = new char[26];
+        for (int i = 25; i >= 0; i--) {
+            chars[i] = CROCKFORD[(int) (low & 0x1F)];
+            low = (low >>> 5) | (high << 59);
+            high >>>= 5;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,39 @@
+package rs.banka4.user_service.utils.ledger;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import rs.banka4.user_service.service.abstraction.LedgerService;
+import rs.banka4.user_service.utils.scheduling.SchedulerLeases;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Service
+@RequiredArgsConstructor
+public class LedgerSnapshotScheduler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LedgerSnapshotScheduler.class);
+
+    private final LedgerService ledgerService;
+    private final SchedulerLeases schedulerLeases;
+
+    @Value("${ledger.snapshot.lag-minutes:5}")
+    private long lagMinutes;
+
+    /**
+     * Daily job at 2 AM: roll balance snapshots forward.  The cutoff trails the clock a little, and
+     * {@link LedgerService#takeSnapshots} moves it further back past any transaction that may
+     * still post entries stamped before it.
+     */
+    @Scheduled(cron = "${ledger.snapshot.cron:0 0 2 * * ?}")
+    public void takeSnapshots() {
+        schedulerLeases.runExclusively("ledger.snapshots", Duration.ofHours(1), () -> {
+            LocalDateTime cutoff = LocalDateTime.now().minusMinutes(lagMinutes);
+            int written = ledgerService.takeSnapshots(cutoff);
+            LOGGER.info("Wrote {} balance snapshots as of {} at the latest", written, cutoff);
+        });
+    }
+}
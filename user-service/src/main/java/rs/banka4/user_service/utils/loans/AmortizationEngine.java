@@ -0,0 +1,77 @@
+package rs.banka4.user_service.utils.loans;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Annuity loan math with bounded precision.
+ *
+ * <p>{@code (1 + r)^n} computed exactly has {@code n} times the digits of {@code r}, so a
+ * 360-month loan used to carry thousands of digits through every multiplication.  Here all
+ * intermediate results are rounded to {@link #MATH_CONTEXT} (34 significant digits), which is
+ * still far more than the cent amounts derived from them need.
+ */
+public final class AmortizationEngine {
+    public static final MathContext MATH_CONTEXT = MathContext.DECIMAL128;
+    public static final int MONEY_SCALE = 2;
+
+    private AmortizationEngine() {
+    }
+
+    /**
+     * The constant monthly payment that repays {@code principal} in {@code periods} months at
+     * {@code monthlyRate} (a fraction, not a percentage), unrounded.
+     */
+    public static BigDecimal monthlyPayment(BigDecimal principal, BigDecimal monthlyRate, int periods) {
+        if (periods <= 0) {
+            throw new IllegalArgumentException("Number of periods must be positive: " + periods);
+        }
+        if (monthlyRate.signum() == 0) {
+            return principal.divide(BigDecimal.valueOf(periods), MATH_CONTEXT);
+        }
+
+        BigDecimal growth = BigDecimal.ONE.add(monthlyRate, MATH_CONTEXT).pow(periods, MATH_CONTEXT);
+        BigDecimal numerator = principal.multiply(monthlyRate, MATH_CONTEXT).multiply(growth, MATH_CONTEXT);
+        return numerator.divide(growth.subtract(BigDecimal.ONE, MATH_CONTEXT), MATH_CONTEXT);
+    }
+
+    /**
+     * The full repayment plan, in cents.  Every installment is the rounded monthly payment except
+     * the last one, which absorbs the rounding so the balance ends at exactly zero.  Period
+     * {@code i} (1-based) is due {@code i} months after {@code startDate}.
+     */
+    public static List<AmortizationPeriod> schedule(BigDecimal principal, BigDecimal monthlyRate, int periods,
+                                                    LocalDate startDate) {
+        BigDecimal installment = monthlyPayment(principal, monthlyRate, periods)
+                .setScale(MONEY_SCALE, RoundingMode.HALF_UP);
+        BigDecimal balance = principal.setScale(MONEY_SCALE, RoundingMode.HALF_UP);
+
+        List<AmortizationPeriod> schedule = new ArrayList<>(periods);
+        for (int period = 1; period <= periods; period++) {
+            BigDecimal interest = balance.multiply(monthlyRate, MATH_CONTEXT).setScale(MONEY_SCALE, RoundingMode.HALF_UP);
+            BigDecimal principalPart = installment.subtract(interest);
+            if (period == periods || principalPart.compareTo(balance) > 0) {
+                principalPart = balance;
+            }
+            balance = balance.subtract(principalPart);
+
+            schedule.add(new AmortizationPeriod(period, startDate.plusMonths(period), principalPart.add(interest),
+                    principalPart, interest, balance));
+            if (balance.signum() == 0) {
+                break;
+            }
+        }
+        return schedule;
+    }
+
+    /**
+     * One month of a repayment plan; {@code balance} is what remains owed after the payment.
+     */
+    public record AmortizationPeriod(int period, LocalDate dueDate, BigDecimal installment, BigDecimal principal,
+                                     BigDecimal interest, BigDecimal balance) {
+    }
+}
@@ -3,13 +3,16 @@ package rs.banka4.user_service.utils.loans;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import rs.banka4.user_service.config.RabbitMqConfig;
 import rs.banka4.user_service.domain.auth.dtos.NotificationTransferDto;
 import rs.banka4.user_service.domain.loan.db.Loan;
 import rs.banka4.user_service.domain.loan.db.LoanInstallment;
@@ -19,37 +22,139 @@ import rs.banka4.user_service.domain.account.db.Account;
 import rs.banka4.user_service.repositories.AccountRepository;
 import rs.banka4.user_service.repositories.LoanInstallmentRepository;
 import rs.banka4.user_service.repositories.LoanRepository;
-import rs.banka4.user_service.runners.TestDataRunner;
+import rs.banka4.user_service.service.abstraction.LedgerService;
 import rs.banka4.user_service.utils.MessageHelper;
+import rs.banka4.user_service.utils.notifications.NotificationOutbox;
+import rs.banka4.user_service.utils.scheduling.SchedulerLeases;
+import rs.banka4.user_service.utils.transactions.AccountLockManager;
 
 import java.math.BigDecimal;
-import java.math.BigInteger;
+import java.sql.Date;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Collects loan installments and applies late payment penalties.  The installments themselves are
+ * all written at approval by {@link LoanScheduleGenerator}; this job only pays or delays them.
+ *
+ * <p>A daily run is split into {@code loans.installments.shards} shards by installment id, claimed
+ * through {@link SchedulerLeases}, so every instance works on the run but each shard is collected
+ * by exactly one of them.  The other jobs here run on one instance at a time.
+ *
+ * <p>Within a shard, installments are processed in chunks of
+ * {@code loans.installments.chunk-size}: the ids are paged by keyset, and each chunk is handed to a
+ * pool of {@code loans.installments.threads} workers.  A worker claims the chunk's rows with
+ * {@code SKIP LOCKED}, loads the whole installment &rarr; loan &rarr; account &rarr; client graph
+ * in one query, locks the accounts in id order, and pays or delays every installment in one
+ * transaction.  Notifications go to the outbox in that same transaction.
+ *
+ * <p>The installment status is the checkpoint: a committed chunk is no longer {@code UNPAID}, and
+ * a chunk that failed still is.  Each daily run is recorded in {@code loan_installment_runs} and
+ * picks up everything due on or before its date, so a run that did not finish is resumed on the
+ * next start without paying anything twice or missing a day.
+ */
 @Service
 @RequiredArgsConstructor
 public class LoanInstallmentScheduler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoanInstallmentScheduler.class);
+
     private final LoanInstallmentRepository loanInstallmentRepository;
     private final LoanRepository loanRepository;
     private final AccountRepository accountRepository;
-    private final RabbitTemplate rabbitTemplate;
-    private final LoanRateUtil loanRateUtil;
+    private final NotificationOutbox notificationOutbox;
+    private final LedgerService ledgerService;
+    private final AccountLockManager accountLockManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final SchedulerLeases schedulerLeases;
     private final ApplicationContext applicationContext;
 
+    @Value("${loans.installments.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${loans.installments.threads:4}")
+    private int threads;
+
+    @Value("${loans.installments.shards:16}")
+    private int shards;
+
+    @Value("${loans.installments.shard-lease-seconds:1800}")
+    private long shardLeaseSeconds;
+
     private static final BigDecimal LATE_PAYMENT_PENALTY = new BigDecimal("0.05");
     private static final BigDecimal LEGAL_THRESHOLD = new BigDecimal("1000");
 
+    private static final UUID FIRST_ID = new UUID(0, 0);
+
+    private static final String START_RUN = "INSERT INTO loan_installment_runs (run_date, status, started_at) " +
+            "VALUES (?, 'RUNNING', ?) ON CONFLICT (run_date) DO NOTHING";
+    private static final String RUN_STATUS = "SELECT status FROM loan_installment_runs WHERE run_date = ?";
+    private static final String UNFINISHED_RUNS = "SELECT run_date FROM loan_installment_runs WHERE status = 'RUNNING' ORDER BY run_date";
+    private static final String RECORD_CHUNK = "UPDATE loan_installment_runs SET paid = paid + ?, delayed = delayed + ? WHERE run_date = ?";
+    private static final String COMPLETE_RUN = "UPDATE loan_installment_runs SET status = 'COMPLETED', finished_at = ? WHERE run_date = ?";
+
+    /**
+     * What one chunk did.
+     */
+    protected record ChunkResult(int paid, int delayed) {
+        static final ChunkResult EMPTY = new ChunkResult(0, 0);
+    }
+
+    @FunctionalInterface
+    private interface IdPage {
+        List<UUID> after(UUID lastId, PageRequest page);
+    }
+
     /**
      * Daily job at 1 AM: Process due installments.
      */
-    @Scheduled(cron = "0 0 1 * * ?")
+    @Scheduled(cron = "${loans.installments.cron:0 0 1 * * ?}")
     public void processDueInstallments() {
-        LoanInstallmentScheduler self = applicationContext.getBean(LoanInstallmentScheduler.class);
-        List<LoanInstallment> dueInstallments = loanInstallmentRepository.findByExpectedDueDateAndPaymentStatus(LocalDate.now(), PaymentStatus.UNPAID);
+        processDueInstallments(LocalDate.now());
+    }
+
+    /**
+     * Collects every {@code UNPAID} installment due on or before {@code runDate}.  Does nothing if
+     * the run for that date already completed.
+     */
+    public void processDueInstallments(LocalDate runDate) {
+        jdbcTemplate.update(START_RUN, runDate, LocalDateTime.now());
+        List<String> status = jdbcTemplate.queryForList(RUN_STATUS, String.class, runDate);
+        if (!status.contains("RUNNING")) {
+            LOGGER.debug("Installments due by {} were already processed", runDate);
+            return;
+        }
+
+        long start = System.nanoTime();
+        int shardCount = Math.clamp(shards, 1, 256);
+        SchedulerLeases.ShardReport report = schedulerLeases.runShards("loan-installments:" + runDate, shardCount,
+                Duration.ofSeconds(shardLeaseSeconds),
+                shard -> processInChunks(
+                        (lastId, page) -> loanInstallmentRepository.findIdsDueBy(
+                                PaymentStatus.UNPAID.name(), runDate, lastId, shard, shardCount, page),
+                        PaymentStatus.UNPAID, runDate));
+
+        if (report.allCompleted()) {
+            jdbcTemplate.update(COMPLETE_RUN, LocalDateTime.now(), runDate);
+        }
+        LOGGER.info("Installment run for {}: {} of {} shards here, {} failed, run {} ({} ms)", runDate,
+                report.claimed(), shardCount, report.failed(), report.allCompleted() ? "completed" : "still open",
+                (System.nanoTime() - start) / 1_000_000);
+    }
 
-        for (LoanInstallment installment : dueInstallments) {
-            self.payInstallmentIfPossible(installment); // **Calls proxied method**
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedRuns() {
+        for (Date runDate : jdbcTemplate.queryForList(UNFINISHED_RUNS, Date.class)) {
+            LOGGER.info("Resuming installment run for {}", runDate);
+            processDueInstallments(runDate.toLocalDate());
         }
     }
 
@@ -58,13 +163,10 @@ public class LoanInstallmentScheduler {
      */
     @Scheduled(cron = "0 0 */6 * * ?")
     public void retryDelayedInstallments() {
-        LoanInstallmentScheduler self = applicationContext.getBean(LoanInstallmentScheduler.class);
         LocalDate overdueThreshold = LocalDate.now().minusDays(3);
-        List<LoanInstallment> delayedInstallments = loanInstallmentRepository.findRecentDelayedInstallments(PaymentStatus.DELAYED, overdueThreshold);
-
-        for (LoanInstallment installment : delayedInstallments) {
-            self.payInstallmentIfPossible(installment); // **Calls proxied method**
-        }
+        schedulerLeases.runExclusively("loans.retry-delayed-installments", Duration.ofHours(1), () -> processInChunks(
+                (lastId, page) -> loanInstallmentRepository.findIdsDueAfter(PaymentStatus.DELAYED, overdueThreshold, lastId, page),
+                PaymentStatus.DELAYED, null));
     }
 
     /**
@@ -72,15 +174,99 @@ public class LoanInstallmentScheduler {
      */
     @Scheduled(cron = "0 0 0 * * ?")
     public void applyLatePaymentPenalties() {
+        LocalDate today = LocalDate.now();
+        /* Not idempotent: a second run for the same day would charge every penalty twice.  */
+        schedulerLeases.runOnce("loans.late-payment-penalties:" + today, Duration.ofHours(1), () -> {
+            LoanInstallmentScheduler self = applicationContext.getBean(LoanInstallmentScheduler.class);
+            LocalDate threshold = today.minusDays(3);
+            List<LoanInstallment> delayedInstallments = loanInstallmentRepository.findByPaymentStatusAndExpectedDueDate(PaymentStatus.DELAYED, threshold);
+
+            for (LoanInstallment installment : delayedInstallments) {
+                /* Each penalty commits on its own, so one failure must not fail (and rerun) the day.  */
+                try {
+                    self.applyPenaltyToInstallment(installment); // **Calls proxied method**
+                } catch (RuntimeException e) {
+                    LOGGER.error("Could not apply the late payment penalty to installment {}", installment.getId(), e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Pages ids by keyset and hands each page to the worker pool.  The queue in front of the pool
+     * is bounded; when it is full, the paging thread runs the chunk itself, which throttles paging
+     * to the speed of the workers.  Returns whether every chunk succeeded.
+     */
+    private boolean processInChunks(IdPage ids, PaymentStatus expectedStatus, LocalDate runDate) {
         LoanInstallmentScheduler self = applicationContext.getBean(LoanInstallmentScheduler.class);
-        LocalDate threshold = LocalDate.now().minusDays(3);
-        List<LoanInstallment> delayedInstallments = loanInstallmentRepository.findByPaymentStatusAndExpectedDueDate(PaymentStatus.DELAYED, threshold);
+        int workers = Math.max(1, threads);
+        PageRequest page = PageRequest.of(0, Math.max(1, chunkSize));
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers), new ThreadPoolExecutor.CallerRunsPolicy());
+
+        List<Future<ChunkResult>> chunks = new ArrayList<>();
+        try {
+            UUID lastId = FIRST_ID;
+            List<UUID> chunk;
+            while (!(chunk = ids.after(lastId, page)).isEmpty()) {
+                List<UUID> claim = List.copyOf(chunk);
+                chunks.add(pool.submit(() -> self.processChunk(claim, expectedStatus, runDate)));
+                lastId = chunk.getLast();
+            }
 
-        for (LoanInstallment installment : delayedInstallments) {
-            self.applyPenaltyToInstallment(installment); // **Calls proxied method**
+            boolean succeeded = true;
+            int paid = 0;
+            int delayed = 0;
+            for (Future<ChunkResult> result : chunks) {
+                try {
+                    paid += result.get().paid();
+                    delayed += result.get().delayed();
+                } catch (ExecutionException e) {
+                    /* Rolled back, so still in its old status for the next attempt.  */
+                    succeeded = false;
+                    LOGGER.error("Installment chunk failed", e.getCause());
+                }
+            }
+            LOGGER.info("Processed {} {} installment chunks: {} paid, {} delayed",
+                    chunks.size(), expectedStatus, paid, delayed);
+            return succeeded;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            pool.shutdown();
         }
     }
 
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    protected ChunkResult processChunk(List<UUID> ids, PaymentStatus expectedStatus, LocalDate runDate) {
+        List<UUID> claimed = loanInstallmentRepository.lockWithStatus(ids, expectedStatus.name());
+        if (claimed.isEmpty()) {
+            return ChunkResult.EMPTY;
+        }
+
+        List<LoanInstallment> installments = loanInstallmentRepository.findAllWithLoanGraph(claimed);
+        accountLockManager.lockRows(installments.stream()
+                .map(installment -> installment.getLoan().getAccount())
+                .distinct()
+                .toArray(Account[]::new));
+
+        List<NotificationTransferDto> notifications = new ArrayList<>(installments.size());
+        int paid = 0;
+        for (LoanInstallment installment : installments) {
+            if (payInstallmentIfPossible(installment, notifications)) {
+                paid++;
+            }
+        }
+        int delayed = installments.size() - paid;
+
+        if (runDate != null) {
+            jdbcTemplate.update(RECORD_CHUNK, paid, delayed, runDate);
+        }
+        notificationOutbox.enqueueAll(notifications);
+        return new ChunkResult(paid, delayed);
+    }
+
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     protected void applyPenaltyToInstallment(LoanInstallment installment) {
         Loan loan = installment.getLoan();
@@ -100,11 +286,7 @@ public class LoanInstallmentScheduler {
                 LocalDate.now()
         );
 
-        rabbitTemplate.convertAndSend(
-                RabbitMqConfig.EXCHANGE_NAME,
-                RabbitMqConfig.ROUTING_KEY,
-                message
-        );
+        notificationOutbox.enqueue(message);
 
         // Check if total overdue exceeds legal threshold
         if (loan.getRemainingDebt().compareTo(LEGAL_THRESHOLD) > 0) {
@@ -112,9 +294,11 @@ public class LoanInstallmentScheduler {
         }
     }
 
-
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    protected void payInstallmentIfPossible(LoanInstallment installment){
+    /**
+     * Pays one installment inside the chunk's transaction, or marks it delayed.  The notification
+     * for the client is added to {@code notifications}.  Returns whether it was paid.
+     */
+    private boolean payInstallmentIfPossible(LoanInstallment installment, List<NotificationTransferDto> notifications) {
         Loan loan = installment.getLoan();
         Account account = loan.getAccount();
 
@@ -122,7 +306,7 @@ public class LoanInstallmentScheduler {
         if (account.getAvailableBalance().compareTo(installmentAmount) >= 0) {
 
             // Subtract from user account and paying installment
-            account.setBalance(account.getBalance().subtract(installmentAmount));
+            ledgerService.postLoanInstallment(installment);
             account.setAvailableBalance(account.getAvailableBalance().subtract(installmentAmount));
             accountRepository.save(account);
             loan.setRemainingDebt(loan.getRemainingDebt().subtract(installmentAmount));
@@ -133,37 +317,8 @@ public class LoanInstallmentScheduler {
                 loan.setNextInstallmentDate(null);
             }
             else {
-                // Creating next installment
-                LoanInstallment newInstallment = new LoanInstallment();
-                newInstallment.setLoan(loan);
-                newInstallment.setExpectedDueDate(installment.getExpectedDueDate().plusMonths(1));
-                newInstallment.setActualDueDate(null);
-                newInstallment.setPaymentStatus(PaymentStatus.UNPAID);
-
-                // Loan interest type is fixed
-                if (loan.getInterestType() == Loan.InterestType.FIXED) {
-                    newInstallment.setInstallmentAmount(loan.getMonthlyInstallment());
-                    newInstallment.setInterestRateAmount(loan.getBaseInterestRate());
-                }
-                else { // Loan interest type is variable, calculating in interest rate using base interest rate of loan and adding variance.
-                    BigDecimal interestRate = loanRateUtil.calculateInterestRate(
-                            loan.getBaseInterestRate().add(LoanRateScheduler.getInterestRateVariant()),
-                            loan.getType()
-                    );
-
-                    newInstallment.setInterestRateAmount(interestRate);
-                    newInstallment.setInstallmentAmount(
-                            loanRateUtil.calculateMonthly(
-                                    loan.getAmount(),
-                                    interestRate,
-                                    BigInteger.valueOf(loan.getRepaymentPeriod())
-                            )
-                    );
-
-                    loan.setNextInstallmentDate(newInstallment.getExpectedDueDate());
-                }
-
-                loanInstallmentRepository.save(newInstallment);
+                // The following installment was already generated at approval
+                loan.setNextInstallmentDate(installment.getExpectedDueDate().plusMonths(1));
             }
 
             installment.setPaymentStatus(PaymentStatus.PAID);
@@ -172,38 +327,30 @@ public class LoanInstallmentScheduler {
             loanRepository.save(loan);
 
             // Message for successful payment
-            NotificationTransferDto message = MessageHelper.createLoanInstallmentPaidMessage(
+            notifications.add(MessageHelper.createLoanInstallmentPaidMessage(
                     account.getClient().email,
                     account.getClient().firstName,
                     loan.getLoanNumber(),
                     installment.getInstallmentAmount(),
                     account.getCurrency().getCode(),
                     LocalDate.now()
-            );
-            rabbitTemplate.convertAndSend(
-                    RabbitMqConfig.EXCHANGE_NAME,
-                    RabbitMqConfig.ROUTING_KEY,
-                    message
-            );
+            ));
+            return true;
         } else {
             // Mark as delayed
             installment.setPaymentStatus(PaymentStatus.DELAYED);
             loanInstallmentRepository.save(installment);
 
             // Message for denied payment.
-            NotificationTransferDto message = MessageHelper.createLoanInstallmentPaymentDeniedMessage(
+            notifications.add(MessageHelper.createLoanInstallmentPaymentDeniedMessage(
                     account.getClient().email,
                     account.getClient().firstName,
                     loan.getLoanNumber(),
                     installment.getInstallmentAmount(),
                     account.getCurrency().getCode(),
                     LocalDate.now()
-            );
-            rabbitTemplate.convertAndSend(
-                    RabbitMqConfig.EXCHANGE_NAME,
-                    RabbitMqConfig.ROUTING_KEY,
-                    message
-            );
+            ));
+            return false;
         }
     }
-}
\ No newline at end of file
+}
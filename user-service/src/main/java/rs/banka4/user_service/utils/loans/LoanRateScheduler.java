@@ -1,35 +1,31 @@
 package rs.banka4.user_service.utils.loans;
 
-import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import rs.banka4.user_service.domain.loan.db.Loan;
-import rs.banka4.user_service.domain.loan.db.LoanStatus;
-import rs.banka4.user_service.repositories.LoanRepository;
+import rs.banka4.user_service.utils.scheduling.SchedulerLeases;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.List;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.Random;
 
 @Service
 @RequiredArgsConstructor
 public class LoanRateScheduler {
-    @Getter
-    private static BigDecimal interestRateVariant = generateRandomPercentage();
-    private final LoanRepository loanRepository;
+    private final LoanRepricingEngine loanRepricingEngine;
+    private final ReferenceRateRegistry referenceRateRegistry;
+    private final SchedulerLeases schedulerLeases;
 
     @Scheduled(cron = "0 5 0 1 * *")  // Cron expression for the first day of every month at midnight
     public void applyVariableRateToAllVariableLoans(){
-        var loans = loanRepository.findByInterestTypeAndStatus(Loan.InterestType.VARIABLE,LoanStatus.APPROVED);
-        if(loans.isEmpty()){
-            return;
-        }
-        loans.get().forEach(loan -> {
-            loan.getInterestRate().setFixedRate(loan.getBaseInterestRate().add(interestRateVariant));
+        schedulerLeases.runExclusively("loans.repricing", Duration.ofHours(2), () -> {
+            publishCurrentInterestRateVariant();
+            loanRepricingEngine.reprice(referenceRateRegistry.variantOn(LocalDate.now()));
         });
-        loanRepository.saveAll(loans.get());
     }
 
     private static BigDecimal generateRandomPercentage() {
@@ -38,8 +34,31 @@ public class LoanRateScheduler {
         return new BigDecimal(randomValue).setScale(2, RoundingMode.HALF_UP);
     }
 
-    @Scheduled(cron = "0 0 0 1 * ?")
-    public void updateInterestRateVariant() {
-        interestRateVariant = generateRandomPercentage();
+    /**
+     * Publishes next month's variant well before it applies.  Every instance runs this, but only
+     * the first one to get there publishes; the rest keep the variant it chose.
+     */
+    @Scheduled(cron = "${loans.reference-rate.publish-cron:0 0 0 20 * ?}")
+    public void publishNextInterestRateVariant() {
+        publishIfMissing(LocalDate.now().withDayOfMonth(1).plusMonths(1));
+    }
+
+    /**
+     * Makes sure the current month has a variant of its own, e.g. on the first start or after
+     * downtime across the publishing date.  Also run before repricing, so a month whose variant
+     * was never published is not repriced with the previous month's.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void publishCurrentInterestRateVariant() {
+        LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+        referenceRateRegistry.reload();
+        if (!referenceRateRegistry.hasPeriodStarting(currentMonth)) {
+            publishIfMissing(currentMonth);
+        }
+    }
+
+    private void publishIfMissing(LocalDate effectiveFrom) {
+        referenceRateRegistry.publish(effectiveFrom, generateRandomPercentage());
+        referenceRateRegistry.reload();
     }
 }
@@ -2,10 +2,8 @@ package rs.banka4.user_service.utils.loans;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
-import rs.banka4.user_service.domain.loan.db.BankMargin;
 import rs.banka4.user_service.domain.loan.db.LoanType;
 import rs.banka4.user_service.exceptions.loan.LoanTypeNotFound;
-import rs.banka4.user_service.repositories.BankMarginRepository;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -15,15 +13,23 @@ import java.math.RoundingMode;
 @RequiredArgsConstructor
 public class LoanRateUtil {
 
-    private final BankMarginRepository bankMarginRepository;
+    private final PricingReferenceCache pricingReferenceCache;
 
     /**
      * This is used for calculating new interest rates for variable rate loans
      *
      */
     public BigDecimal calculateInterestRate(BigDecimal referenceValue, LoanType loanType) {
-        BankMargin bankMargin = bankMarginRepository.findBankMarginByType(loanType).orElseThrow(LoanTypeNotFound::new);
-        return (referenceValue.add(bankMargin.getMargin())).divide(new BigDecimal(12),RoundingMode.HALF_UP);
+        BigDecimal bankMargin = pricingReferenceCache.bankMargin(loanType).orElseThrow(LoanTypeNotFound::new);
+        return calculateInterestRate(referenceValue, bankMargin);
+    }
+
+    /**
+     * Same as {@link #calculateInterestRate(BigDecimal, LoanType)}, for callers that already
+     * looked up the bank margin of the loan type.
+     */
+    public BigDecimal calculateInterestRate(BigDecimal referenceValue, BigDecimal bankMargin) {
+        return (referenceValue.add(bankMargin)).divide(new BigDecimal(12),RoundingMode.HALF_UP);
     }
 
 
@@ -31,19 +37,10 @@ public class LoanRateUtil {
      *This calculates the amount that needs to be paid per month
      * For fixed rate loans it stays the same barring any penalties for delayed payments, but for variable rate loans
      * it should be called in conjunction with calculateInterestRate monthly in order to calculate for the installment
+     * The result is rounded to 10 decimal places; see {@link AmortizationEngine} for the precision used on the way.
      */
     public BigDecimal calculateMonthly(BigDecimal loanAmount, BigDecimal monthlyInterestRate, BigInteger numberOfInstallments) {
-        if (monthlyInterestRate.compareTo(BigDecimal.ZERO) == 0) {
-            return loanAmount.divide(new BigDecimal(numberOfInstallments), 10, RoundingMode.HALF_UP);
-        }
-
-        BigDecimal one = BigDecimal.ONE;
-        BigDecimal ratePlusOne = one.add(monthlyInterestRate);
-        BigDecimal exponentiation = ratePlusOne.pow(numberOfInstallments.intValue());
-
-        BigDecimal numerator = monthlyInterestRate.multiply(exponentiation);
-        BigDecimal denominator = exponentiation.subtract(one);
-
-        return loanAmount.multiply(numerator).divide(denominator, 10, RoundingMode.HALF_UP);
+        return AmortizationEngine.monthlyPayment(loanAmount, monthlyInterestRate, numberOfInstallments.intValueExact())
+                .setScale(10, RoundingMode.HALF_UP);
     }
 }
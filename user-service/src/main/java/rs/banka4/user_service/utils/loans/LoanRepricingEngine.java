@@ -0,0 +1,197 @@
+package rs.banka4.user_service.utils.loans;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import rs.banka4.user_service.domain.loan.db.LoanType;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Reprices approved variable-rate loans after the reference rate variant changed.
+ *
+ * <p>Loans are read by keyset over their id in chunks of {@code loans.repricing.chunk-size}, and
+ * only the columns the installment formula needs are fetched, so memory use depends on the chunk
+ * size and not on the size of the portfolio.  The future {@code UNPAID} installments of the chunk
+ * are read with one range query over its loan ids.  For each loan, the principal those
+ * installments still repay is re-amortized with {@link AmortizationEngine#schedule} over their
+ * number at the loan's new monthly rate, so the last one again absorbs the rounding and the
+ * balance still ends at zero.  Installments already due keep the amount they fell due with.
+ *
+ * <p>Each chunk is written back in its own transaction: one JDBC batch rewrites the installments,
+ * and another updates the loans and recomputes their remaining debt from the installments not yet
+ * paid.  The shared {@code interest_rates} rows are never touched.
+ */
+@Component
+public class LoanRepricingEngine {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoanRepricingEngine.class);
+
+    private static final String NEXT_CHUNK = """
+            SELECT id, amount, base_interest_rate, repayment_period, type
+            FROM loans
+            WHERE interest_type = 'VARIABLE' AND status = 'APPROVED'
+              AND (?::UUID IS NULL OR id > ?::UUID)
+            ORDER BY id
+            LIMIT ?
+            """;
+    /* Rows created before plans were written at approval have no principal to re-amortize.  */
+    private static final String FUTURE_INSTALLMENTS = """
+            SELECT loan_id, id, principal_amount
+            FROM loan_installments
+            WHERE loan_id BETWEEN ?::UUID AND ?::UUID AND payment_status = 'UNPAID' AND expected_due_date > ?
+              AND principal_amount IS NOT NULL
+            ORDER BY loan_id, expected_due_date
+            """;
+    private static final String UPDATE_SCHEDULE = "UPDATE loan_installments SET installment_amount = ?, " +
+            "interest_rate_amount = ?, principal_amount = ?, interest_amount = ?, remaining_balance = ? " +
+            "WHERE id = ? AND payment_status = 'UNPAID'";
+    /* For a plan that the new rate pays off a period early.  */
+    private static final String DROP_INSTALLMENT = "DELETE FROM loan_installments WHERE id = ? AND payment_status = 'UNPAID'";
+    private static final String UPDATE_INSTALLMENT = """
+            UPDATE loans SET monthly_installment = ?,
+                remaining_debt = COALESCE((SELECT SUM(i.installment_amount) FROM loan_installments i
+                                           WHERE i.loan_id = loans.id AND i.payment_status <> 'PAID'), remaining_debt)
+            WHERE id = ? AND interest_type = 'VARIABLE' AND status = 'APPROVED'
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LoanRateUtil loanRateUtil;
+    private final PricingReferenceCache pricingReferenceCache;
+    private final int chunkSize;
+
+    public LoanRepricingEngine(JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               LoanRateUtil loanRateUtil,
+                               PricingReferenceCache pricingReferenceCache,
+                               @Value("${loans.repricing.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.loanRateUtil = loanRateUtil;
+        this.pricingReferenceCache = pricingReferenceCache;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Recomputes the monthly installment of every approved variable-rate loan for the given
+     * variant.  Returns the number of loans repriced.
+     */
+    public long reprice(BigDecimal interestRateVariant) {
+        Map<LoanType, BigDecimal> margins = pricingReferenceCache.bankMargins();
+
+        long repriced = 0;
+        long skipped = 0;
+        UUID after = null;
+        while (true) {
+            UUID lastId = after;
+            ChunkResult chunk = transactionTemplate.execute(status -> repriceChunk(lastId, interestRateVariant, margins));
+            if (chunk == null || chunk.lastId() == null) {
+                break;
+            }
+            repriced += chunk.repriced();
+            skipped += chunk.skipped();
+            after = chunk.lastId();
+        }
+
+        if (skipped > 0) {
+            LOGGER.warn("Skipped {} variable-rate loans with no bank margin for their type or incomplete terms", skipped);
+        }
+        LOGGER.info("Repriced {} variable-rate loans with variant {}", repriced, interestRateVariant);
+        return repriced;
+    }
+
+    private ChunkResult repriceChunk(UUID after, BigDecimal interestRateVariant, Map<LoanType, BigDecimal> margins) {
+        List<PricedLoan> loans = new ArrayList<>(chunkSize);
+        int[] skipped = {0};
+        UUID[] ids = {null, null};
+        jdbcTemplate.query(NEXT_CHUNK, (RowCallbackHandler) rs -> {
+            UUID id = rs.getObject("id", UUID.class);
+            if (ids[0] == null) {
+                ids[0] = id;
+            }
+            ids[1] = id;
+            String type = rs.getString("type");
+            BigDecimal margin = type == null ? null : margins.get(LoanType.valueOf(type));
+            BigDecimal amount = rs.getBigDecimal("amount");
+            BigDecimal baseInterestRate = rs.getBigDecimal("base_interest_rate");
+            int repaymentPeriod = rs.getInt("repayment_period");
+            if (margin == null || amount == null || baseInterestRate == null || repaymentPeriod <= 0) {
+                skipped[0]++;
+                return;
+            }
+
+            BigDecimal monthlyRate = loanRateUtil.calculateInterestRate(baseInterestRate.add(interestRateVariant), margin);
+            loans.add(new PricedLoan(id, amount, repaymentPeriod, monthlyRate));
+        }, after, after, chunkSize);
+
+        if (loans.isEmpty()) {
+            return new ChunkResult(ids[1], 0, skipped[0]);
+        }
+
+        LocalDate today = LocalDate.now();
+        Map<UUID, List<FutureInstallment>> future = new HashMap<>();
+        jdbcTemplate.query(FUTURE_INSTALLMENTS, (RowCallbackHandler) rs -> future
+                .computeIfAbsent(rs.getObject("loan_id", UUID.class), id -> new ArrayList<>())
+                .add(new FutureInstallment(rs.getObject("id", UUID.class), rs.getBigDecimal("principal_amount"))),
+                ids[0], ids[1], today);
+
+        List<Object[]> schedules = new ArrayList<>();
+        List<Object[]> dropped = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>(loans.size());
+        for (PricedLoan loan : loans) {
+            List<FutureInstallment> installments = future.getOrDefault(loan.id(), List.of());
+            if (installments.isEmpty()) {
+                updates.add(new Object[]{loanRateUtil.calculateMonthly(loan.amount(), loan.monthlyRate(),
+                        BigInteger.valueOf(loan.repaymentPeriod())), loan.id()});
+                continue;
+            }
+
+            BigDecimal outstanding = installments.stream()
+                    .map(FutureInstallment::principal)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            List<AmortizationEngine.AmortizationPeriod> schedule =
+                    AmortizationEngine.schedule(outstanding, loan.monthlyRate(), installments.size(), today);
+            for (int i = 0; i < installments.size(); i++) {
+                UUID installmentId = installments.get(i).id();
+                if (i >= schedule.size()) {
+                    dropped.add(new Object[]{installmentId});
+                    continue;
+                }
+                AmortizationEngine.AmortizationPeriod period = schedule.get(i);
+                schedules.add(new Object[]{period.installment(), loan.monthlyRate(), period.principal(),
+                        period.interest(), period.balance(), installmentId});
+            }
+            updates.add(new Object[]{loanRateUtil.calculateMonthly(outstanding, loan.monthlyRate(),
+                    BigInteger.valueOf(installments.size())), loan.id()});
+        }
+
+        if (!schedules.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SCHEDULE, schedules);
+        }
+        if (!dropped.isEmpty()) {
+            jdbcTemplate.batchUpdate(DROP_INSTALLMENT, dropped);
+        }
+        jdbcTemplate.batchUpdate(UPDATE_INSTALLMENT, updates);
+        return new ChunkResult(ids[1], updates.size(), skipped[0]);
+    }
+
+    private record PricedLoan(UUID id, BigDecimal amount, int repaymentPeriod, BigDecimal monthlyRate) {
+    }
+
+    private record FutureInstallment(UUID id, BigDecimal principal) {
+    }
+
+    private record ChunkResult(UUID lastId, int repriced, int skipped) {
+    }
+}
@@ -0,0 +1,145 @@
+package rs.banka4.user_service.utils.loans;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import rs.banka4.user_service.domain.loan.db.Loan;
+import rs.banka4.user_service.domain.loan.db.LoanStatus;
+import rs.banka4.user_service.repositories.LoanRepository;
+import rs.banka4.user_service.utils.scheduling.SchedulerLeases;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Writes the rest of the installment plan of loans approved before {@link LoanScheduleGenerator}
+ * wrote whole plans at approval.  Those loans were collected by the installment job creating each
+ * next installment as it paid the previous one, which it no longer does, so without this they
+ * would stop being collected.
+ *
+ * <p>Runs once on start, on one instance, over the approved loans that have no generated
+ * installment (one with a principal split).  Their existing rows are kept; the periods after
+ * them are generated, due monthly after the last existing row, or from the loan's next
+ * installment date if it has none.  The loan's remaining debt is then reset to what its unpaid
+ * installments add up to.  Each loan is done in its own transaction, with its row locked.
+ */
+@Component
+public class LoanScheduleBackfill {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoanScheduleBackfill.class);
+
+    private static final String CANDIDATES = """
+            SELECT l.id, l.loan_number
+            FROM loans l
+            WHERE l.status = 'APPROVED' AND (?::UUID IS NULL OR l.id > ?::UUID)
+              AND NOT EXISTS (SELECT 1 FROM loan_installments i
+                              WHERE i.loan_id = l.id AND i.principal_amount IS NOT NULL)
+            ORDER BY l.id
+            LIMIT ?
+            """;
+    private static final String WRITTEN = "SELECT count(*) AS written, count(principal_amount) AS generated, " +
+            "max(expected_due_date) AS last_due FROM loan_installments WHERE loan_id = ?";
+    private static final String RESET_DEBT = """
+            UPDATE loans SET
+                remaining_debt = (SELECT COALESCE(SUM(i.installment_amount), 0) FROM loan_installments i
+                                  WHERE i.loan_id = loans.id AND i.payment_status <> 'PAID'),
+                next_installment_date = (SELECT MIN(i.expected_due_date) FROM loan_installments i
+                                         WHERE i.loan_id = loans.id AND i.payment_status <> 'PAID')
+            WHERE id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LoanRepository loanRepository;
+    private final LoanScheduleGenerator loanScheduleGenerator;
+    private final SchedulerLeases schedulerLeases;
+    private final int chunkSize;
+
+    public LoanScheduleBackfill(JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                LoanRepository loanRepository,
+                                LoanScheduleGenerator loanScheduleGenerator,
+                                SchedulerLeases schedulerLeases,
+                                @Value("${loans.schedule-backfill.chunk-size:500}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.loanRepository = loanRepository;
+        this.loanScheduleGenerator = loanScheduleGenerator;
+        this.schedulerLeases = schedulerLeases;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStart() {
+        schedulerLeases.runExclusively("loans.schedule-backfill", Duration.ofHours(1), this::backfill);
+    }
+
+    /**
+     * Completes the plan of every approved loan that has none generated.  Returns the number of
+     * loans completed.
+     */
+    public long backfill() {
+        long completed = 0;
+        UUID after = null;
+        while (true) {
+            List<Map<String, Object>> candidates = jdbcTemplate.queryForList(CANDIDATES, after, after, chunkSize);
+            if (candidates.isEmpty()) {
+                break;
+            }
+            for (Map<String, Object> candidate : candidates) {
+                Long loanNumber = ((Number) candidate.get("loan_number")).longValue();
+                try {
+                    if (Boolean.TRUE.equals(transactionTemplate.execute(status -> complete(loanNumber)))) {
+                        completed++;
+                    }
+                } catch (RuntimeException e) {
+                    /* Left without a plan; the next start tries again.  */
+                    LOGGER.error("Could not write the remaining plan of loan {}", loanNumber, e);
+                }
+            }
+            after = (UUID) candidates.getLast().get("id");
+        }
+
+        if (completed > 0) {
+            LOGGER.info("Wrote the remaining installment plan of {} loans approved before plans were generated", completed);
+        }
+        return completed;
+    }
+
+    private boolean complete(Long loanNumber) {
+        Loan loan = loanRepository.findByLoanNumberForUpdate(loanNumber).orElse(null);
+        if (loan == null || loan.getStatus() != LoanStatus.APPROVED) {
+            return false;
+        }
+
+        Map<String, Object> written = jdbcTemplate.queryForMap(WRITTEN, loan.getId());
+        if (((Number) written.get("generated")).longValue() > 0) {
+            /* Completed in the meantime.  */
+            return false;
+        }
+
+        int writtenPeriods = ((Number) written.get("written")).intValue();
+        Date lastDue = (Date) written.get("last_due");
+        LocalDate firstDueDate = lastDue != null
+                ? lastDue.toLocalDate().plusMonths(1)
+                : loan.getNextInstallmentDate() != null
+                        ? loan.getNextInstallmentDate()
+                        : loan.getAgreementDate().plusMonths(1);
+
+        if (loanScheduleGenerator.generateRemaining(loan, writtenPeriods, firstDueDate).isEmpty()) {
+            LOGGER.warn("Loan {} has used up its term of {} months with {} installments written",
+                    loanNumber, loan.getRepaymentPeriod(), writtenPeriods);
+            return false;
+        }
+        jdbcTemplate.update(RESET_DEBT, loan.getId());
+        return true;
+    }
+}
@@ -0,0 +1,111 @@
+package rs.banka4.user_service.utils.loans;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import rs.banka4.user_service.domain.loan.db.Loan;
+import rs.banka4.user_service.domain.loan.db.PaymentStatus;
+import rs.banka4.user_service.utils.ids.TimeOrderedIds;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the installment plan of a loan into {@code loan_installments} when the loan is approved.
+ *
+ * <p>Every period of {@link AmortizationEngine#schedule} becomes one {@code UNPAID} row, with its
+ * split into principal and interest and the balance left after it, all of them inserted with a
+ * single JDBC batch in the caller's transaction.  From then on the installment job only has to
+ * collect rows as they fall due.  Variable-rate loans start from the reference rate variant in
+ * effect on the agreement date; {@link LoanRepricingEngine} rewrites their future rows when the
+ * variant changes.  Loans approved before plans were written get the rest of theirs from
+ * {@link LoanScheduleBackfill}.
+ */
+@Component
+@RequiredArgsConstructor
+public class LoanScheduleGenerator {
+    private static final String INSERT_INSTALLMENT = "INSERT INTO loan_installments " +
+            "(id, loan_id, installment_amount, interest_rate_amount, expected_due_date, payment_status, " +
+            "principal_amount, interest_amount, remaining_balance) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LoanRateUtil loanRateUtil;
+    private final ReferenceRateRegistry referenceRateRegistry;
+
+    /**
+     * Inserts the installments of {@code loan}, due monthly from its agreement date, and returns
+     * the plan they were generated from.  The loan must already have a row and agreed terms.
+     */
+    public List<AmortizationEngine.AmortizationPeriod> generate(Loan loan) {
+        LocalDate agreementDate = loan.getAgreementDate();
+        BigDecimal monthlyRate = monthlyRate(loan, agreementDate);
+
+        List<AmortizationEngine.AmortizationPeriod> schedule =
+                AmortizationEngine.schedule(loan.getAmount(), monthlyRate, loan.getRepaymentPeriod(), agreementDate);
+        insert(loan, schedule, monthlyRate);
+        return schedule;
+    }
+
+    /**
+     * Inserts the rest of the plan of a loan approved before plans were written at approval,
+     * whose first {@code writtenPeriods} installments already have rows.  The remaining periods
+     * repay the principal the loan's original plan still owes after those, at its current rate,
+     * and fall due monthly from {@code firstDueDate}.  Returns them, or nothing if the term is
+     * already used up.
+     */
+    public List<AmortizationEngine.AmortizationPeriod> generateRemaining(Loan loan, int writtenPeriods,
+                                                                         LocalDate firstDueDate) {
+        int remaining = loan.getRepaymentPeriod() - writtenPeriods;
+        if (remaining <= 0) {
+            return List.of();
+        }
+
+        BigDecimal monthlyRate = monthlyRate(loan, LocalDate.now());
+        BigDecimal principal = loan.getAmount();
+        if (writtenPeriods > 0) {
+            List<AmortizationEngine.AmortizationPeriod> original = AmortizationEngine.schedule(
+                    loan.getAmount(), monthlyRate, loan.getRepaymentPeriod(), loan.getAgreementDate());
+            if (writtenPeriods >= original.size()) {
+                return List.of();
+            }
+            principal = original.get(writtenPeriods - 1).balance();
+        }
+
+        /* Due dates counted from the first one, so a month-end date does not drift.  */
+        List<AmortizationEngine.AmortizationPeriod> schedule =
+                AmortizationEngine.schedule(principal, monthlyRate, remaining, firstDueDate).stream()
+                        .map(period -> new AmortizationEngine.AmortizationPeriod(period.period(),
+                                firstDueDate.plusMonths(period.period() - 1), period.installment(),
+                                period.principal(), period.interest(), period.balance()))
+                        .toList();
+        insert(loan, schedule, monthlyRate);
+        return schedule;
+    }
+
+    /**
+     * What the borrower owes over the whole plan, interest included.
+     */
+    public static BigDecimal totalRepayable(List<AmortizationEngine.AmortizationPeriod> schedule) {
+        return schedule.stream()
+                .map(AmortizationEngine.AmortizationPeriod::installment)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private BigDecimal monthlyRate(Loan loan, LocalDate on) {
+        BigDecimal referenceRate = loan.getInterestType() == Loan.InterestType.VARIABLE
+                ? loan.getBaseInterestRate().add(referenceRateRegistry.variantOn(on))
+                : loan.getBaseInterestRate();
+        return loanRateUtil.calculateInterestRate(referenceRate, loan.getType());
+    }
+
+    private void insert(Loan loan, List<AmortizationEngine.AmortizationPeriod> schedule, BigDecimal monthlyRate) {
+        List<Object[]> rows = new ArrayList<>(schedule.size());
+        for (AmortizationEngine.AmortizationPeriod period : schedule) {
+            rows.add(new Object[]{TimeOrderedIds.uuidV7(), loan.getId(), period.installment(), monthlyRate,
+                    period.dueDate(), PaymentStatus.UNPAID.name(), period.principal(), period.interest(), period.balance()});
+        }
+        jdbcTemplate.batchUpdate(INSERT_INSTALLMENT, rows);
+    }
+}
@@ -0,0 +1,185 @@
+package rs.banka4.user_service.utils.loans;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import rs.banka4.user_service.domain.loan.db.BankMargin;
+import rs.banka4.user_service.domain.loan.db.InterestRate;
+import rs.banka4.user_service.domain.loan.db.LoanType;
+import rs.banka4.user_service.repositories.BankMarginRepository;
+import rs.banka4.user_service.repositories.InterestRateRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory copy of the loan pricing reference data: the interest rate tiers
+ * ({@code interest_rates}) and the bank margin per loan type ({@code bank_margins}).
+ *
+ * <p>Both tables are small and change rarely, so they are loaded whole into an immutable
+ * snapshot: margins as an {@link EnumMap}, tiers as an interval index sorted by
+ * {@code min_amount}.  Changes made through JPA on this instance drop the snapshot right away
+ * and again after the transaction completes (see {@link PricingReferenceListener}); the next
+ * lookup reloads it.  Changes made elsewhere are picked up by the periodic refresh every
+ * {@code loans.pricing-cache.refresh-ms}.
+ */
+@Component
+public class PricingReferenceCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PricingReferenceCache.class);
+
+    private final InterestRateRepository interestRateRepository;
+    private final BankMarginRepository bankMarginRepository;
+
+    private volatile Snapshot snapshot;
+    /* Bumped on every invalidation; a load only installs its snapshot if this did not move.  */
+    private final AtomicLong generation = new AtomicLong();
+
+    public PricingReferenceCache(InterestRateRepository interestRateRepository,
+                                 BankMarginRepository bankMarginRepository) {
+        this.interestRateRepository = interestRateRepository;
+        this.bankMarginRepository = bankMarginRepository;
+    }
+
+    /**
+     * The fixed rate of the tier covering {@code amount} on {@code date}.  If tiers overlap, the
+     * one that became active last wins.
+     */
+    public Optional<BigDecimal> fixedRate(BigDecimal amount, LocalDate date) {
+        return snapshot().tiers().find(amount, date);
+    }
+
+    public Optional<BigDecimal> bankMargin(LoanType type) {
+        return Optional.ofNullable(snapshot().margins().get(type));
+    }
+
+    /**
+     * All bank margins, for batch jobs that price many loans at once.
+     */
+    public Map<LoanType, BigDecimal> bankMargins() {
+        return snapshot().margins();
+    }
+
+    /**
+     * Drops the snapshot now and again when the current transaction (if any) completes, so a
+     * lookup made before the commit cannot keep stale rows around.
+     */
+    public void invalidate() {
+        clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    clear();
+                }
+            });
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${loans.pricing-cache.refresh-ms:300000}",
+            initialDelayString = "${loans.pricing-cache.refresh-ms:300000}")
+    public void refresh() {
+        clear();
+        Snapshot loaded = snapshot();
+        LOGGER.debug("Loaded {} interest rate tiers and {} bank margins", loaded.tiers().size(), loaded.margins().size());
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        return current != null ? current : load();
+    }
+
+    private synchronized Snapshot load() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+
+        long expected = generation.get();
+        Map<LoanType, BigDecimal> margins = new EnumMap<>(LoanType.class);
+        for (BankMargin bankMargin : bankMarginRepository.findAll()) {
+            margins.put(bankMargin.getType(), bankMargin.getMargin());
+        }
+        Snapshot loaded = new Snapshot(TierIndex.of(interestRateRepository.findAll()),
+                Collections.unmodifiableMap(margins));
+        if (generation.get() == expected) {
+            snapshot = loaded;
+        }
+        return loaded;
+    }
+
+    private void clear() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    private record Snapshot(TierIndex tiers, Map<LoanType, BigDecimal> margins) {
+    }
+
+    private record Tier(BigDecimal minAmount, BigDecimal maxAmount, LocalDate activeFrom, LocalDate activeTo,
+                        BigDecimal fixedRate) {
+        boolean covers(BigDecimal amount, LocalDate date) {
+            return maxAmount.compareTo(amount) >= 0 && !date.isBefore(activeFrom) && !date.isAfter(activeTo);
+        }
+    }
+
+    /**
+     * Tiers sorted by {@code minAmount}, with the running maximum of {@code maxAmount}.  A lookup
+     * binary-searches the last tier starting at or below the amount and walks left only while
+     * some earlier tier can still reach that far.
+     */
+    private record TierIndex(Tier[] tiers, BigDecimal[] reach) {
+        static TierIndex of(List<InterestRate> rates) {
+            Tier[] tiers = rates.stream()
+                    .map(rate -> new Tier(rate.getMinAmount(), rate.getMaxAmount(), rate.getDateActiveFrom(),
+                            rate.getDateActiveTo(), rate.getFixedRate()))
+                    .sorted(Comparator.comparing(Tier::minAmount))
+                    .toArray(Tier[]::new);
+            BigDecimal[] reach = new BigDecimal[tiers.length];
+            for (int i = 0; i < tiers.length; i++) {
+                reach[i] = i == 0 ? tiers[i].maxAmount() : reach[i - 1].max(tiers[i].maxAmount());
+            }
+            return new TierIndex(tiers, reach);
+        }
+
+        int size() {
+            return tiers.length;
+        }
+
+        Optional<BigDecimal> find(BigDecimal amount, LocalDate date) {
+            int low = 0;
+            int high = tiers.length - 1;
+            int last = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (tiers[mid].minAmount().compareTo(amount) <= 0) {
+                    last = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+
+            Tier best = null;
+            for (int i = last; i >= 0 && reach[i].compareTo(amount) >= 0; i--) {
+                Tier tier = tiers[i];
+                if (tier.covers(amount, date) && (best == null || tier.activeFrom().isAfter(best.activeFrom()))) {
+                    best = tier;
+                }
+            }
+            return best == null ? Optional.empty() : Optional.of(best.fixedRate());
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package rs.banka4.user_service.utils.loans;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops the pricing reference snapshot whenever an interest rate tier or a bank margin is
+ * inserted, updated or deleted through the persistence context.
+ */
+@Component
+public class PricingReferenceListener {
+    private final PricingReferenceCache pricingReferenceCache;
+
+    public PricingReferenceListener(PricingReferenceCache pricingReferenceCache) {
+        this.pricingReferenceCache = pricingReferenceCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void referenceChanged(Object entity) {
+        pricingReferenceCache.invalidate();
+    }
+}
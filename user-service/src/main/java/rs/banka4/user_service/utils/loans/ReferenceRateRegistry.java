@@ -0,0 +1,107 @@
+package rs.banka4.user_service.utils.loans;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import rs.banka4.user_service.config.RabbitMqConfig;
+import rs.banka4.user_service.utils.notifications.NotificationOutbox;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * The history of reference rate variants ({@code reference_rate_periods}), shared by all
+ * instances.
+ *
+ * <p>Every instance keeps the whole history in memory, so {@link #variantOn(LocalDate)} never
+ * touches the database.  {@link #publish(LocalDate, BigDecimal)} inserts a period and, in the
+ * same transaction, queues a broadcast on {@link RabbitMqConfig#REFERENCE_RATE_EXCHANGE}; every
+ * instance reloads when it arrives.  Periods are published ahead of their effective date, so by
+ * the time one starts to apply all instances already hold it and switch over at the same moment.
+ * An hourly reload covers instances that missed a broadcast.
+ */
+@Component
+public class ReferenceRateRegistry {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReferenceRateRegistry.class);
+
+    private static final String LOAD = "SELECT effective_from, variant FROM reference_rate_periods";
+    private static final String INSERT = "INSERT INTO reference_rate_periods (effective_from, variant, published_at) " +
+            "VALUES (?, ?, ?) ON CONFLICT (effective_from) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NotificationOutbox notificationOutbox;
+
+    private volatile NavigableMap<LocalDate, BigDecimal> periods = Collections.emptyNavigableMap();
+
+    public ReferenceRateRegistry(JdbcTemplate jdbcTemplate, NotificationOutbox notificationOutbox) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.notificationOutbox = notificationOutbox;
+    }
+
+    /**
+     * The variant in effect on {@code date}, or zero if nothing was published before it.
+     */
+    public BigDecimal variantOn(LocalDate date) {
+        Map.Entry<LocalDate, BigDecimal> period = periods.floorEntry(date);
+        return period == null ? BigDecimal.ZERO : period.getValue();
+    }
+
+    /**
+     * Whether a period starting exactly on {@code effectiveFrom} was published.  An earlier period
+     * still in effect on that date does not count.
+     */
+    public boolean hasPeriodStarting(LocalDate effectiveFrom) {
+        return periods.containsKey(effectiveFrom);
+    }
+
+    /**
+     * Publishes a period starting on {@code effectiveFrom}, unless one was already published for
+     * that date (by this or another instance).  Returns whether this call published it.
+     */
+    @Transactional
+    public boolean publish(LocalDate effectiveFrom, BigDecimal variant) {
+        if (jdbcTemplate.update(INSERT, effectiveFrom, variant, LocalDateTime.now()) == 0) {
+            return false;
+        }
+
+        notificationOutbox.enqueue(RabbitMqConfig.REFERENCE_RATE_EXCHANGE, "",
+                new ReferenceRatePeriod(effectiveFrom, variant));
+        LOGGER.info("Published reference rate variant {} effective from {}", variant, effectiveFrom);
+        return true;
+    }
+
+    /* The payload is only informative; the table is the source of truth.  */
+    @RabbitListener(queues = "#{referenceRateQueue.name}")
+    public void onPublished(Message message) {
+        LOGGER.debug("Reference rate period published, reloading");
+        reload();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${loans.reference-rate.reload-cron:0 0 * * * ?}")
+    public void reload() {
+        NavigableMap<LocalDate, BigDecimal> loaded = new TreeMap<>();
+        jdbcTemplate.query(LOAD, (RowCallbackHandler) rs ->
+                loaded.put(rs.getDate("effective_from").toLocalDate(), rs.getBigDecimal("variant")));
+        periods = Collections.unmodifiableNavigableMap(loaded);
+    }
+
+    /**
+     * Payload of the broadcast sent when a period is published.
+     */
+    public record ReferenceRatePeriod(LocalDate effectiveFrom, BigDecimal variant) {
+    }
+}
@@ -0,0 +1,87 @@
+package rs.banka4.user_service.utils.notifications;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import rs.banka4.user_service.config.RabbitMqConfig;
+import rs.banka4.user_service.domain.auth.dtos.NotificationTransferDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Records notifications for {@link NotificationOutboxRelay} to publish.
+ *
+ * <p>The row is written through the current transaction, if any, so a notification is sent if
+ * and only if the change that caused it commits, and the caller never waits on the broker.
+ * Messages are converted here with the same converter {@code RabbitTemplate} uses, so consumers
+ * see exactly what a direct {@code convertAndSend} would have produced.
+ */
+@Component
+public class NotificationOutbox {
+    private static final String INSERT = "INSERT INTO notification_outbox " +
+            "(id, exchange, routing_key, content_type, headers, body, created_at, next_attempt_at) " +
+            "VALUES (uuid_generate_v7(), ?, ?, ?, ?::JSONB, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MessageConverter messageConverter;
+    private final ObjectMapper objectMapper;
+
+    public NotificationOutbox(JdbcTemplate jdbcTemplate, MessageConverter messageConverter, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.messageConverter = messageConverter;
+        this.objectMapper = objectMapper;
+    }
+
+    public void enqueue(NotificationTransferDto notification) {
+        enqueueAll(List.of(notification));
+    }
+
+    public void enqueueAll(Collection<NotificationTransferDto> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = new ArrayList<>(notifications.size());
+        for (NotificationTransferDto notification : notifications) {
+            rows.add(row(RabbitMqConfig.EXCHANGE_NAME, RabbitMqConfig.ROUTING_KEY, notification, now));
+        }
+        jdbcTemplate.batchUpdate(INSERT, rows);
+    }
+
+    /**
+     * Records an arbitrary message for another exchange, such as a broadcast to every instance.
+     */
+    public void enqueue(String exchange, String routingKey, Object payload) {
+        jdbcTemplate.update(INSERT, row(exchange, routingKey, payload, LocalDateTime.now()));
+    }
+
+    private Object[] row(String exchange, String routingKey, Object payload, LocalDateTime now) {
+        Message message = messageConverter.toMessage(payload, new MessageProperties());
+        MessageProperties properties = message.getMessageProperties();
+        return new Object[]{
+                exchange,
+                routingKey,
+                properties.getContentType(),
+                toJson(properties),
+                message.getBody(),
+                now,
+                now
+        };
+    }
+
+    private String toJson(MessageProperties properties) {
+        try {
+            return objectMapper.writeValueAsString(properties.getHeaders());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize notification headers", e);
+        }
+    }
+}
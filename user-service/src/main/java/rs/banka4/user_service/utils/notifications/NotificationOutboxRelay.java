@@ -0,0 +1,172 @@
+package rs.banka4.user_service.utils.notifications;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Publishes the rows of {@code notification_outbox}.
+ *
+ * <p>Each batch of up to {@code notifications.outbox.batch-size} rows is claimed with
+ * {@code SKIP LOCKED} (so several instances can relay side by side), published on one channel,
+ * and confirmed with a single wait for publisher confirms.  The rows are then marked delivered in
+ * the claiming transaction.  If the broker is unreachable or nacks the batch, the whole batch is
+ * retried later with exponential backoff, capped at {@code notifications.outbox.max-backoff-seconds}.
+ *
+ * <p>Delivery is at least once: a crash between the confirm and the commit publishes the batch
+ * again.  Every message carries its outbox id as {@code messageId} for consumers that care.
+ */
+@Component
+public class NotificationOutboxRelay {
+    private static final Logger LOGGER = LoggerFactory.getLogger(NotificationOutboxRelay.class);
+    private static final TypeReference<Map<String, Object>> HEADERS = new TypeReference<>() {
+    };
+
+    private static final String CLAIM_BATCH = """
+            SELECT id, exchange, routing_key, content_type, headers::TEXT AS headers, body
+            FROM notification_outbox
+            WHERE delivered_at IS NULL AND next_attempt_at <= ?
+            ORDER BY next_attempt_at, id
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+            """;
+    private static final String MARK_DELIVERED = "UPDATE notification_outbox SET delivered_at = ?, last_error = NULL " +
+            "WHERE id = ?";
+    private static final String MARK_FAILED = """
+            UPDATE notification_outbox
+            SET attempts = attempts + 1,
+                next_attempt_at = ?::TIMESTAMP + make_interval(secs => LEAST(power(2, attempts), ?)),
+                last_error = ?
+            WHERE id = ?
+            """;
+    private static final String PURGE_DELIVERED = "DELETE FROM notification_outbox WHERE delivered_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RabbitTemplate rabbitTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final long confirmTimeoutMs;
+    private final int maxBackoffSeconds;
+    private final int retentionHours;
+
+    public NotificationOutboxRelay(JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   RabbitTemplate rabbitTemplate,
+                                   ObjectMapper objectMapper,
+                                   @Value("${notifications.outbox.batch-size:200}") int batchSize,
+                                   @Value("${notifications.outbox.confirm-timeout-ms:5000}") long confirmTimeoutMs,
+                                   @Value("${notifications.outbox.max-backoff-seconds:300}") int maxBackoffSeconds,
+                                   @Value("${notifications.outbox.retention-hours:72}") int retentionHours) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.rabbitTemplate = rabbitTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = Math.max(1, batchSize);
+        this.confirmTimeoutMs = confirmTimeoutMs;
+        this.maxBackoffSeconds = Math.max(1, maxBackoffSeconds);
+        this.retentionHours = retentionHours;
+    }
+
+    /**
+     * Drains the outbox until it is empty or a batch fails.  Returns the number of messages
+     * delivered.
+     */
+    @Scheduled(fixedDelayString = "${notifications.outbox.poll-ms:1000}")
+    public int relay() {
+        int delivered = 0;
+        while (true) {
+            BatchResult result = transactionTemplate.execute(status -> relayBatch());
+            if (result == null) {
+                return delivered;
+            }
+            delivered += result.delivered();
+            if (result.failed() || result.claimed() < batchSize) {
+                return delivered;
+            }
+        }
+    }
+
+    @Scheduled(cron = "${notifications.outbox.purge-cron:0 15 * * * ?}")
+    public void purgeDelivered() {
+        int purged = jdbcTemplate.update(PURGE_DELIVERED, LocalDateTime.now().minusHours(retentionHours));
+        LOGGER.debug("Purged {} delivered notifications", purged);
+    }
+
+    private BatchResult relayBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxMessage> batch = jdbcTemplate.query(CLAIM_BATCH, outboxMessageMapper(), now, batchSize);
+        if (batch.isEmpty()) {
+            return new BatchResult(0, 0, false);
+        }
+
+        try {
+            rabbitTemplate.invoke(operations -> {
+                for (OutboxMessage message : batch) {
+                    operations.send(message.exchange(), message.routingKey(), message.message());
+                }
+                operations.waitForConfirmsOrDie(confirmTimeoutMs);
+                return null;
+            });
+        } catch (AmqpException e) {
+            /* Leave the rows for a later attempt; the business transactions are long committed.  */
+            LOGGER.warn("Publishing {} notifications failed, retrying later", batch.size(), e);
+            String error = String.valueOf(e.getMessage());
+            jdbcTemplate.batchUpdate(MARK_FAILED, batch.stream()
+                    .map(message -> new Object[]{now, maxBackoffSeconds, error, message.id()})
+                    .toList());
+            return new BatchResult(batch.size(), 0, true);
+        }
+
+        LocalDateTime deliveredAt = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(MARK_DELIVERED, batch.stream()
+                .map(message -> new Object[]{deliveredAt, message.id()})
+                .toList());
+        return new BatchResult(batch.size(), batch.size(), false);
+    }
+
+    private RowMapper<OutboxMessage> outboxMessageMapper() {
+        return (rs, rowNum) -> {
+            UUID id = rs.getObject("id", UUID.class);
+            MessageProperties properties = new MessageProperties();
+            properties.setMessageId(id.toString());
+            properties.setContentType(rs.getString("content_type"));
+            properties.setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+            readHeaders(rs.getString("headers")).forEach(properties::setHeader);
+            return new OutboxMessage(id, rs.getString("exchange"), rs.getString("routing_key"),
+                    new Message(rs.getBytes("body"), properties));
+        };
+    }
+
+    private Map<String, Object> readHeaders(String json) {
+        try {
+            return objectMapper.readValue(json, HEADERS);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt notification headers: " + json, e);
+        }
+    }
+
+    private record OutboxMessage(UUID id, String exchange, String routingKey, Message message) {
+    }
+
+    private record BatchResult(int claimed, int delivered, boolean failed) {
+    }
+}
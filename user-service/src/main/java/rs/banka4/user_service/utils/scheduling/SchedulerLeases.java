@@ -0,0 +1,183 @@
+package rs.banka4.user_service.utils.scheduling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntPredicate;
+
+/**
+ * Database-backed leases ({@code scheduler_leases}) for {@code @Scheduled} jobs, so that a job
+ * scheduled on every instance runs on only one of them.
+ *
+ * <p>{@link #runExclusively} wraps a whole job: the instance that takes the job's lease runs it,
+ * the others skip that run.  A lease lasts for the given time to live, measured on the database
+ * clock so that instances need not agree on the time, and is held for at least
+ * {@code scheduling.leases.min-hold-seconds} after it was taken.  That covers instances whose
+ * trigger fires a little later than the winner's, which would otherwise find the lease released
+ * and run the job a second time.
+ *
+ * <p>{@link #runOnce} is for jobs that must not run twice, such as charging penalties.  Its lease
+ * is named after the run (e.g. the job and its date) rather than the job, and is marked completed
+ * once the run is done, so no instance takes that run again, however late its trigger fires.
+ *
+ * <p>{@link #runShards} splits one run of a large job into shards with a lease each, so several
+ * instances can work on the run at once.  A shard that is done is marked completed and never
+ * claimed again; a shard that failed is released at once, and one whose instance died is claimed
+ * again once its lease expires.
+ */
+@Component
+public class SchedulerLeases {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SchedulerLeases.class);
+
+    /* Taken over only once expired, and never once completed.  */
+    private static final String ACQUIRE = """
+            INSERT INTO scheduler_leases (name, owner, acquired_at, expires_at)
+            VALUES (?, ?, now(), now() + make_interval(secs => ?))
+            ON CONFLICT (name) DO UPDATE
+            SET owner = EXCLUDED.owner, acquired_at = EXCLUDED.acquired_at, expires_at = EXCLUDED.expires_at
+            WHERE scheduler_leases.completed_at IS NULL AND scheduler_leases.expires_at <= now()
+            """;
+    private static final String RELEASE = "UPDATE scheduler_leases " +
+            "SET expires_at = GREATEST(now(), acquired_at + make_interval(secs => ?)) WHERE name = ? AND owner = ?";
+    private static final String ABANDON = "UPDATE scheduler_leases SET expires_at = now() WHERE name = ? AND owner = ?";
+    private static final String COMPLETE = "UPDATE scheduler_leases SET completed_at = now() WHERE name = ? AND owner = ?";
+    private static final String COUNT_COMPLETED = "SELECT count(*) FROM scheduler_leases " +
+            "WHERE starts_with(name, ?) AND completed_at IS NOT NULL";
+    private static final String PURGE_COMPLETED = "DELETE FROM scheduler_leases " +
+            "WHERE completed_at < now() - make_interval(days => ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String owner;
+    private final long minHoldSeconds;
+    private final int retentionDays;
+
+    public SchedulerLeases(JdbcTemplate jdbcTemplate,
+                           @Value("${scheduling.leases.owner:}") String owner,
+                           @Value("${scheduling.leases.min-hold-seconds:30}") long minHoldSeconds,
+                           @Value("${scheduling.leases.retention-days:7}") int retentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        /* pid@host, plus a random part in case two containers share both.  */
+        this.owner = owner.isEmpty()
+                ? ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8)
+                : owner;
+        this.minHoldSeconds = Math.max(0, minHoldSeconds);
+        this.retentionDays = Math.max(1, retentionDays);
+    }
+
+    /**
+     * Which instance this is in {@code scheduler_leases.owner}.
+     */
+    public String owner() {
+        return owner;
+    }
+
+    /**
+     * Runs {@code job} if no other instance holds the lease {@code name}, holding it for at most
+     * {@code ttl}.  {@code ttl} has to be longer than the job ever takes, or another instance may
+     * start it while it still runs.  Returns whether the job ran here.
+     */
+    public boolean runExclusively(String name, Duration ttl, Runnable job) {
+        if (!tryAcquire(name, ttl)) {
+            LOGGER.debug("{} is running on another instance, skipping", name);
+            return false;
+        }
+
+        try {
+            job.run();
+        } finally {
+            jdbcTemplate.update(RELEASE, minHoldSeconds, name, owner);
+        }
+        return true;
+    }
+
+    /**
+     * Runs {@code job} unless some instance has already run, or is running, {@code run}; the
+     * lease is held for at most {@code ttl}.  Once {@code job} returns, {@code run} is marked
+     * completed and never runs again.  If it throws, the lease is released so the run can be
+     * retried, so a job that may fail part way must be safe to run again.  Returns whether the
+     * job ran here.
+     */
+    public boolean runOnce(String run, Duration ttl, Runnable job) {
+        if (!tryAcquire(run, ttl)) {
+            LOGGER.debug("{} has run or is running on another instance, skipping", run);
+            return false;
+        }
+
+        try {
+            job.run();
+        } catch (RuntimeException e) {
+            jdbcTemplate.update(ABANDON, run, owner);
+            throw e;
+        }
+        jdbcTemplate.update(COMPLETE, run, owner);
+        return true;
+    }
+
+    /**
+     * Works through the shards {@code 0 .. shards - 1} of {@code run} that no other instance has
+     * claimed, calling {@code shardJob} for each and holding its lease for at most {@code ttl}.
+     * {@code shardJob} returns whether the shard is done; if it returns {@code false} or throws,
+     * the shard is left for another attempt.  Each call starts at a random shard, so instances
+     * that start together mostly claim different ones.
+     */
+    public ShardReport runShards(String run, int shards, Duration ttl, IntPredicate shardJob) {
+        int first = ThreadLocalRandom.current().nextInt(shards);
+        int claimed = 0;
+        int failed = 0;
+        for (int i = 0; i < shards; i++) {
+            int shard = (first + i) % shards;
+            String name = shardName(run, shard);
+            if (!tryAcquire(name, ttl)) {
+                continue;
+            }
+
+            claimed++;
+            boolean done = false;
+            try {
+                done = shardJob.test(shard);
+            } catch (RuntimeException e) {
+                LOGGER.error("Shard {} of {} failed", shard, run, e);
+            }
+            if (done) {
+                jdbcTemplate.update(COMPLETE, name, owner);
+            } else {
+                failed++;
+                jdbcTemplate.update(ABANDON, name, owner);
+            }
+        }
+
+        Long completed = jdbcTemplate.queryForObject(COUNT_COMPLETED, Long.class, run + "#");
+        return new ShardReport(claimed, failed, completed != null && completed >= shards);
+    }
+
+    @Scheduled(cron = "${scheduling.leases.purge-cron:0 45 4 * * ?}")
+    public void purgeCompleted() {
+        int purged = jdbcTemplate.update(PURGE_COMPLETED, retentionDays);
+        if (purged > 0) {
+            LOGGER.info("Purged {} completed leases", purged);
+        }
+    }
+
+    private boolean tryAcquire(String name, Duration ttl) {
+        return jdbcTemplate.update(ACQUIRE, name, owner, ttl.toSeconds()) == 1;
+    }
+
+    private static String shardName(String run, int shard) {
+        return run + "#" + shard;
+    }
+
+    /**
+     * What one {@link #runShards} call did.  {@code allCompleted} counts the shards completed by
+     * any instance, so it is true for the call that finished the last one.
+     */
+    public record ShardReport(int claimed, int failed, boolean allCompleted) {
+    }
+}
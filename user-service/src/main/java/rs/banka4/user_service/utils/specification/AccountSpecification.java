@@ -4,6 +4,7 @@ import jakarta.persistence.criteria.Join;
 
 
 import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Root;
 import org.springframework.data.jpa.domain.Specification;
 import rs.banka4.user_service.domain.account.db.Account;
 import rs.banka4.user_service.domain.user.client.db.Client;
@@ -11,38 +12,35 @@ import rs.banka4.user_service.domain.user.client.db.Client;
 public class AccountSpecification {
 
     public static Specification<Account> hasFirstName(String firstName) {
-        return (root, query, criteriaBuilder) -> {
-            Join<Account, Client> clientJoin = root.join("client", JoinType.INNER);
-
-            return criteriaBuilder.like(
-                    criteriaBuilder.lower(clientJoin.get("firstName")), "%" + firstName.toLowerCase() + "%"
-            );
-        };
+        return (root, query, criteriaBuilder) ->
+                SearchPredicates.containsIgnoreCase(criteriaBuilder, clientJoin(root).get("firstName"), firstName);
     }
 
     public static Specification<Account> hasLastName(String lastName) {
-        return (root, query, criteriaBuilder) -> {
-            Join<Account, Client> clientJoin = root.join("client", JoinType.INNER);
-
-            return criteriaBuilder.like(
-                    criteriaBuilder.lower(clientJoin.get("lastName")), "%" + lastName.toLowerCase() + "%"
-            );
-        };
+        return (root, query, criteriaBuilder) ->
+                SearchPredicates.containsIgnoreCase(criteriaBuilder, clientJoin(root).get("lastName"), lastName);
     }
 
     public static Specification<Account> hasEmail(String email) {
-        return (root, query, criteriaBuilder) -> {
-            Join<Account, Client> clientJoin = root.join("client", JoinType.INNER);
-
-            return criteriaBuilder.like(
-                    criteriaBuilder.lower(clientJoin.get("email")), "%" + email.toLowerCase() + "%"
-            );
-        };
+        return (root, query, criteriaBuilder) ->
+                SearchPredicates.containsIgnoreCase(criteriaBuilder, clientJoin(root).get("email"), email);
     }
 
     public static Specification<Account> hasAccountNumber(String accountNumber) {
-        return (root, query, criteriaBuilder) -> criteriaBuilder.like(
-                criteriaBuilder.lower(root.get("accountNumber")), "%" + accountNumber.toLowerCase() + "%"
-        );
+        return (root, query, criteriaBuilder) ->
+                SearchPredicates.contains(criteriaBuilder, root.get("accountNumber"), accountNumber);
+    }
+
+    /**
+     * Every client predicate of one query goes through the same join, instead of each adding its
+     * own copy of {@code accounts JOIN clients}.
+     */
+    @SuppressWarnings("unchecked")
+    private static Join<Account, Client> clientJoin(Root<Account> root) {
+        return root.getJoins().stream()
+                .filter(join -> join.getAttribute().getName().equals("client") && join.getJoinType() == JoinType.INNER)
+                .map(join -> (Join<Account, Client>) join)
+                .findFirst()
+                .orElseGet(() -> root.join("client", JoinType.INNER));
     }
-}
\ No newline at end of file
+}
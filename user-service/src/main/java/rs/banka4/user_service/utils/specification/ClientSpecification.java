@@ -5,27 +5,23 @@ import rs.banka4.user_service.domain.user.client.db.Client;
 
 public class ClientSpecification {
     public static Specification<Client> hasFirstName(String firstName) {
-        return (root, query, criteriaBuilder) -> criteriaBuilder.like(
-                criteriaBuilder.lower(root.get("firstName")), "%" + firstName.toLowerCase() + "%"
-        );
+        return (root, query, criteriaBuilder) ->
+                SearchPredicates.containsIgnoreCase(criteriaBuilder, root.get("firstName"), firstName);
     }
 
     public static Specification<Client> hasLastName(String lastName) {
-        return (root, query, criteriaBuilder) -> criteriaBuilder.like(
-                criteriaBuilder.lower(root.get("lastName")), "%" + lastName.toLowerCase() + "%"
-        );
+        return (root, query, criteriaBuilder) ->
+                SearchPredicates.containsIgnoreCase(criteriaBuilder, root.get("lastName"), lastName);
     }
 
     public static Specification<Client> hasEmail(String email) {
-        return (root, query, criteriaBuilder) -> criteriaBuilder.like(
-                criteriaBuilder.lower(root.get("email")), "%" + email.toLowerCase() + "%"
-        );
+        return (root, query, criteriaBuilder) ->
+                SearchPredicates.containsIgnoreCase(criteriaBuilder, root.get("email"), email);
     }
 
     public static Specification<Client> hasPhone(String phone) {
-        return (root, query, criteriaBuilder) -> criteriaBuilder.like(
-                criteriaBuilder.lower(root.get("phoneNumber")), "%" + phone.toLowerCase() + "%"
-        );
+        return (root, query, criteriaBuilder) ->
+                SearchPredicates.containsIgnoreCase(criteriaBuilder, root.get("phone"), phone);
     }
 
     public static Specification<Client> hasLinkedAccount(String linkedAccount) {
@@ -6,27 +6,23 @@ import rs.banka4.user_service.domain.user.employee.db.Employee;
 public class EmployeeSpecification {
 
     public static Specification<Employee> hasFirstName(String firstName) {
-        return (root, query, criteriaBuilder) -> criteriaBuilder.like(
-                criteriaBuilder.lower(root.get("firstName")), "%" + firstName.toLowerCase() + "%"
-        );
+        return (root, query, criteriaBuilder) ->
+                SearchPredicates.containsIgnoreCase(criteriaBuilder, root.get("firstName"), firstName);
     }
 
     public static Specification<Employee> hasLastName(String lastName) {
-        return (root, query, criteriaBuilder) -> criteriaBuilder.like(
-                criteriaBuilder.lower(root.get("lastName")), "%" + lastName.toLowerCase() + "%"
-        );
+        return (root, query, criteriaBuilder) ->
+                SearchPredicates.containsIgnoreCase(criteriaBuilder, root.get("lastName"), lastName);
     }
 
     public static Specification<Employee> hasEmail(String email) {
-        return (root, query, criteriaBuilder) -> criteriaBuilder.like(
-                criteriaBuilder.lower(root.get("email")), "%" + email.toLowerCase() + "%"
-        );
+        return (root, query, criteriaBuilder) ->
+                SearchPredicates.containsIgnoreCase(criteriaBuilder, root.get("email"), email);
     }
 
     public static Specification<Employee> hasPosition(String position) {
-        return (root, query, criteriaBuilder) -> criteriaBuilder.like(
-                criteriaBuilder.lower(root.get("position")), "%" + position.toLowerCase() + "%"
-        );
+        return (root, query, criteriaBuilder) ->
+                SearchPredicates.containsIgnoreCase(criteriaBuilder, root.get("position"), position);
     }
 
 }
\ No newline at end of file
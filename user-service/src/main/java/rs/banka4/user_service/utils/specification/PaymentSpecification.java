@@ -7,6 +7,8 @@ import rs.banka4.user_service.domain.transaction.db.Transaction;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
 
 public class PaymentSpecification {
 
@@ -24,9 +26,15 @@ public class PaymentSpecification {
         };
     }
 
+    /**
+     * A half-open range on the partition key, so PostgreSQL only scans that day's partition.
+     */
     public static Specification<Transaction> hasDate(LocalDate date) {
         return (root, query, criteriaBuilder) ->
-                date == null ? criteriaBuilder.conjunction() : criteriaBuilder.between(root.get("paymentDateTime"), date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+                date == null ? criteriaBuilder.conjunction() : criteriaBuilder.and(
+                        criteriaBuilder.greaterThanOrEqualTo(root.get("paymentDateTime"), date.atStartOfDay()),
+                        criteriaBuilder.lessThan(root.get("paymentDateTime"), date.plusDays(1).atStartOfDay())
+                );
     }
 
     public static Specification<Transaction> hasFromAccount(Account fromAccount) {
@@ -38,4 +46,21 @@ public class PaymentSpecification {
         return (root, query, criteriaBuilder) ->
                 toAccount == null ? criteriaBuilder.conjunction() : criteriaBuilder.equal(root.get("toAccount"), toAccount);
     }
-}
\ No newline at end of file
+
+    /**
+     * Rows strictly after {@code (paymentDateTime, id)} in descending {@code (paymentDateTime, id)} order.
+     * The redundant upper bound lets PostgreSQL skip partitions newer than the cursor.
+     */
+    public static Specification<Transaction> isBefore(LocalDateTime paymentDateTime, UUID id) {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.and(
+                criteriaBuilder.lessThanOrEqualTo(root.get("paymentDateTime"), paymentDateTime),
+                criteriaBuilder.or(
+                        criteriaBuilder.lessThan(root.get("paymentDateTime"), paymentDateTime),
+                        criteriaBuilder.and(
+                                criteriaBuilder.equal(root.get("paymentDateTime"), paymentDateTime),
+                                criteriaBuilder.lessThan(root.get("id"), id)
+                        )
+                )
+        );
+    }
+}
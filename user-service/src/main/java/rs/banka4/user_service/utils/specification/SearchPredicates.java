@@ -0,0 +1,31 @@
+package rs.banka4.user_service.utils.specification;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+
+/**
+ * Substring predicates shaped to match the trigram indexes of
+ * {@code V27__trigram_search_indexes.sql}: {@code lower(column) LIKE '%term%'} for text, plain
+ * {@code column LIKE '%term%'} for digit-only columns.  Wildcards in the search term are escaped,
+ * so they match literally.
+ */
+public final class SearchPredicates {
+    private static final char ESCAPE = '\\';
+
+    private SearchPredicates() {
+    }
+
+    public static Predicate containsIgnoreCase(CriteriaBuilder criteriaBuilder, Expression<String> column, String term) {
+        return criteriaBuilder.like(criteriaBuilder.lower(column), pattern(term.toLowerCase()), ESCAPE);
+    }
+
+    public static Predicate contains(CriteriaBuilder criteriaBuilder, Expression<String> column, String term) {
+        return criteriaBuilder.like(column, pattern(term), ESCAPE);
+    }
+
+    static String pattern(String term) {
+        String escaped = term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+}
@@ -0,0 +1,112 @@
+package rs.banka4.user_service.utils.transactions;
+
+import com.google.common.util.concurrent.Striped;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import rs.banka4.user_service.domain.account.db.Account;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes balance-changing work on accounts.
+ *
+ * <p>Work is first queued on an in-JVM lock stripe per account number, so a hot account makes
+ * requests wait in memory instead of holding pooled connections while blocked on a row lock.
+ * Inside the database transaction, {@link #lockRows(Account...)} then takes the row locks in
+ * ascending id order (pessimistic mode), or leaves conflict detection to the {@code @Version}
+ * column (optimistic mode).  Either way, an A&rarr;B transfer racing a B&rarr;A transfer cannot
+ * deadlock.
+ */
+@Component
+public class AccountLockManager {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AccountLockManager.class);
+
+    /*
+     * PostgreSQL orders uuids byte by byte, which is what ORDER BY id in set-based jobs (e.g.
+     * MaintenanceFeeJob) locks by.  UUID.compareTo compares signed halves and disagrees with it
+     * whenever a half has its top bit set.
+     */
+    private static final Comparator<UUID> DATABASE_ORDER = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    private final EntityManager entityManager;
+    private final AccountLockingMode mode;
+    private final int maxAttempts;
+    private final Striped<Lock> stripes;
+
+    public AccountLockManager(EntityManager entityManager,
+                              @Value("${transaction.locking.mode:PESSIMISTIC}") AccountLockingMode mode,
+                              @Value("${transaction.locking.stripes:1024}") int stripes,
+                              @Value("${transaction.locking.max-attempts:5}") int maxAttempts) {
+        this.entityManager = entityManager;
+        this.mode = mode;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.stripes = Striped.lock(stripes);
+    }
+
+    /**
+     * Runs {@code work} while holding the stripes of all given account numbers.  The work is
+     * expected to open (and commit) its own database transaction.
+     *
+     * <p>Stripes are acquired in Guava's canonical stripe order, which is the same for every
+     * caller regardless of argument order.  If the work fails with a concurrency failure
+     * (a version conflict or a lock timeout), it is retried up to
+     * {@code transaction.locking.max-attempts} times before the failure is rethrown.
+     */
+    public <T> T execute(Collection<String> accountNumbers, Supplier<T> work) {
+        List<Lock> acquired = new ArrayList<>();
+        try {
+            for (Lock lock : stripes.bulkGet(accountNumbers)) {
+                lock.lock();
+                acquired.add(lock);
+            }
+            return runWithRetry(work);
+        } finally {
+            Collections.reverse(acquired);
+            acquired.forEach(Lock::unlock);
+        }
+    }
+
+    /**
+     * Locks the rows of the given (managed) accounts for the rest of the current transaction and
+     * reloads their state, so balances read afterwards are current.  Rows are locked in ascending
+     * id order, as the database orders ids.  Does nothing in optimistic mode.
+     */
+    public void lockRows(Account... accounts) {
+        if (mode != AccountLockingMode.PESSIMISTIC) {
+            return;
+        }
+
+        Arrays.stream(accounts)
+                .distinct()
+                .sorted(Comparator.comparing(Account::getId, Comparator.nullsFirst(DATABASE_ORDER)))
+                .forEach(account -> entityManager.refresh(account, LockModeType.PESSIMISTIC_WRITE));
+    }
+
+    private <T> T runWithRetry(Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return work.get();
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                LOGGER.debug("Concurrent account update detected, retrying (attempt {} of {})", attempt + 1, maxAttempts);
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package rs.banka4.user_service.utils.transactions;
+
+/**
+ * How concurrent balance updates on the same account are kept apart.
+ */
+public enum AccountLockingMode {
+    /**
+     * Rows are locked with {@code SELECT ... FOR UPDATE}, always in ascending account id order.
+     */
+    PESSIMISTIC,
+
+    /**
+     * Rows are not locked; the {@code @Version} column rejects lost updates and the work is retried.
+     */
+    OPTIMISTIC
+}
@@ -0,0 +1,155 @@
+package rs.banka4.user_service.utils.transactions;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import rs.banka4.user_service.domain.account.db.Account;
+import rs.banka4.user_service.domain.transaction.db.Hold;
+import rs.banka4.user_service.domain.transaction.db.HoldStatus;
+import rs.banka4.user_service.domain.transaction.db.Transaction;
+import rs.banka4.user_service.domain.transaction.db.TransactionStatus;
+import rs.banka4.user_service.repositories.HoldRepository;
+import rs.banka4.user_service.repositories.TransactionRepository;
+import rs.banka4.user_service.service.abstraction.LedgerService;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Settles the holds placed by {@code HoldService} for payments accepted through the asynchronous
+ * payment endpoint.
+ *
+ * <p>Each run claims up to {@code transaction.settlement.batch-size} due holds, locks all accounts
+ * they touch in id order, and posts every settled payment to the ledger in one call, so each
+ * account's booked balance is written once per batch.  A hold whose payment cannot go through is
+ * released; one whose accounts are blocked is retried every {@code transaction.holds.retry-minutes}
+ * until it expires.  Expired holds are released in batches of the same size.
+ */
+@Service
+@RequiredArgsConstructor
+public class PaymentSettlementScheduler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PaymentSettlementScheduler.class);
+
+    private final HoldRepository holdRepository;
+    private final TransactionRepository transactionRepository;
+    private final LedgerService ledgerService;
+    private final AccountLockManager accountLockManager;
+    private final SpendTracker spendTracker;
+    private final ApplicationContext applicationContext;
+
+    @Value("${transaction.settlement.batch-size:200}")
+    private int batchSize;
+
+    @Value("${transaction.holds.retry-minutes:15}")
+    private long retryMinutes;
+
+    @Scheduled(fixedDelayString = "${transaction.settlement.interval-ms:1000}")
+    public void settlePendingPayments() {
+        PaymentSettlementScheduler self = applicationContext.getBean(PaymentSettlementScheduler.class);
+
+        int claimed;
+        do {
+            claimed = self.settleBatch();
+        } while (claimed == batchSize);
+
+        do {
+            claimed = self.releaseExpiredBatch();
+        } while (claimed == batchSize);
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    protected int settleBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Hold> holds = holdRepository.claimDue(now, batchSize);
+        if (holds.isEmpty()) {
+            return 0;
+        }
+        lockAccounts(holds);
+
+        /* Booked balance left after the holds settled so far in this batch.  */
+        Map<Account, BigDecimal> remaining = new HashMap<>();
+        List<Transaction> settled = new ArrayList<>();
+        int released = 0;
+        int deferred = 0;
+
+        for (Hold hold : holds) {
+            Transaction transaction = hold.getTransaction();
+            Account fromAccount = transaction.getFromAccount();
+            BigDecimal balance = remaining.computeIfAbsent(fromAccount, Account::getBalance);
+
+            if (!fromAccount.isActive() || !transaction.getToAccount().isActive()) {
+                hold.setNextAttemptAt(now.plusMinutes(retryMinutes));
+                deferred++;
+            } else if (balance.compareTo(hold.getAmount()) < 0) {
+                release(hold);
+                released++;
+            } else {
+                remaining.put(fromAccount, balance.subtract(hold.getAmount()));
+                hold.setStatus(HoldStatus.SETTLED);
+                transaction.setStatus(TransactionStatus.REALIZED);
+                settled.add(transaction);
+            }
+        }
+
+        if (!settled.isEmpty()) {
+            ledgerService.postTransactions(settled);
+            /* The sender's available balance was already reduced when the hold was placed.  */
+            for (Transaction transaction : settled) {
+                Account toAccount = transaction.getToAccount();
+                toAccount.setAvailableBalance(toAccount.getAvailableBalance().add(transaction.getTo().getAmount()));
+            }
+        }
+
+        holdRepository.saveAll(holds);
+        transactionRepository.saveAll(holds.stream().map(Hold::getTransaction).toList());
+        LOGGER.debug("Settled {} holds ({} released, {} deferred)", settled.size(), released, deferred);
+        return holds.size();
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    protected int releaseExpiredBatch() {
+        List<Hold> holds = holdRepository.claimExpired(LocalDateTime.now(), batchSize);
+        if (holds.isEmpty()) {
+            return 0;
+        }
+        lockAccounts(holds);
+
+        holds.forEach(this::release);
+
+        holdRepository.saveAll(holds);
+        transactionRepository.saveAll(holds.stream().map(Hold::getTransaction).toList());
+        LOGGER.debug("Released {} expired holds", holds.size());
+        return holds.size();
+    }
+
+    private void lockAccounts(List<Hold> holds) {
+        accountLockManager.lockRows(holds.stream()
+                .map(Hold::getTransaction)
+                .flatMap(transaction -> Stream.of(transaction.getFromAccount(), transaction.getToAccount()))
+                .toArray(Account[]::new));
+    }
+
+    private void release(Hold hold) {
+        Transaction transaction = hold.getTransaction();
+        Account fromAccount = transaction.getFromAccount();
+        fromAccount.setAvailableBalance(fromAccount.getAvailableBalance().add(hold.getAmount()));
+        if (!Objects.equals(fromAccount.getClient(), transaction.getToAccount().getClient())) {
+            spendTracker.releaseSpend(fromAccount, transaction.getFrom().getAmount(), transaction.getPaymentDateTime());
+        }
+
+        hold.setStatus(HoldStatus.RELEASED);
+        transaction.setStatus(TransactionStatus.REJECTED);
+    }
+}
@@ -0,0 +1,151 @@
+package rs.banka4.user_service.utils.transactions;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import rs.banka4.user_service.domain.account.db.Account;
+import rs.banka4.user_service.exceptions.transaction.SpendingLimitExceeded;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Enforces {@code Account.dailyLimit} (per calendar day) and {@code Account.monthlyLimit} (per
+ * calendar month).
+ *
+ * <p>What each account has spent is kept as running totals in {@code account_spend_buckets}, one
+ * row per account and day and one per account and month, so a check reads the two current rows
+ * by key no matter how many payments the account has made.  Totals live in the database, so every
+ * instance checks against the same numbers.  They are read and updated inside the paying
+ * transaction with the account row locked, so concurrent payments from one account, on any
+ * instance, are counted one after another, and a payment that rolls back takes its update with it.
+ *
+ * <p>A limit of zero or null means the account has no limit.
+ */
+@Component
+public class SpendTracker {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpendTracker.class);
+
+    private static final String CURRENT = "SELECT period, amount FROM account_spend_buckets " +
+            "WHERE account_id = ? AND ((period = 'DAY' AND period_start = ?) OR (period = 'MONTH' AND period_start = ?))";
+    private static final String ADD = """
+            INSERT INTO account_spend_buckets (account_id, period, period_start, amount)
+            VALUES (?, 'DAY', ?, ?), (?, 'MONTH', ?, ?)
+            ON CONFLICT (account_id, period, period_start)
+            DO UPDATE SET amount = account_spend_buckets.amount + EXCLUDED.amount
+            """;
+    private static final String PURGE = "DELETE FROM account_spend_buckets WHERE period_start < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    public SpendTracker(JdbcTemplate jdbcTemplate, EntityManager entityManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Throws {@link SpendingLimitExceeded} if paying {@code amount} now would take the account
+     * over its daily or monthly limit.  Must be called inside the paying transaction.
+     */
+    public void checkLimits(Account account, BigDecimal amount, LocalDateTime now) {
+        if (!isLimited(account.getDailyLimit()) && !isLimited(account.getMonthlyLimit())) {
+            return;
+        }
+
+        Spent spent = spentBy(account, now.toLocalDate());
+        if (isLimited(account.getDailyLimit())
+                && spent.daily.add(amount).compareTo(account.getDailyLimit()) > 0) {
+            throw new SpendingLimitExceeded("DAILY", account.getDailyLimit());
+        }
+        if (isLimited(account.getMonthlyLimit())
+                && spent.monthly.add(amount).compareTo(account.getMonthlyLimit()) > 0) {
+            throw new SpendingLimitExceeded("MONTHLY", account.getMonthlyLimit());
+        }
+    }
+
+    /**
+     * How much the account may still spend right now, or null if it has no limits.  Like
+     * {@link #checkLimits}, must be called inside the paying transaction.
+     */
+    public BigDecimal remainingAllowance(Account account, LocalDateTime now) {
+        if (!isLimited(account.getDailyLimit()) && !isLimited(account.getMonthlyLimit())) {
+            return null;
+        }
+
+        Spent spent = spentBy(account, now.toLocalDate());
+        BigDecimal remaining = null;
+        if (isLimited(account.getDailyLimit())) {
+            remaining = account.getDailyLimit().subtract(spent.daily);
+        }
+        if (isLimited(account.getMonthlyLimit())) {
+            BigDecimal monthly = account.getMonthlyLimit().subtract(spent.monthly);
+            remaining = remaining == null ? monthly : remaining.min(monthly);
+        }
+        return remaining.max(BigDecimal.ZERO);
+    }
+
+    /**
+     * Counts a payment made at {@code at}, in the paying transaction.
+     */
+    public void recordSpend(Account account, BigDecimal amount, LocalDateTime at) {
+        add(account, amount, at.toLocalDate());
+    }
+
+    /**
+     * Undoes {@link #recordSpend} for a payment that was rejected after it had been counted.
+     */
+    public void releaseSpend(Account account, BigDecimal amount, LocalDateTime at) {
+        add(account, amount.negate(), at.toLocalDate());
+    }
+
+    /**
+     * Daily: drops the totals of months before the previous one; only the current day and month
+     * are ever checked.
+     */
+    @Scheduled(cron = "${transaction.limits.purge-cron:0 20 4 * * ?}")
+    public void purgeOldBuckets() {
+        int deleted = jdbcTemplate.update(PURGE, LocalDate.now().withDayOfMonth(1).minusMonths(1));
+        LOGGER.debug("Purged {} old spend buckets", deleted);
+    }
+
+    private Spent spentBy(Account account, LocalDate day) {
+        lock(account);
+        Spent spent = new Spent();
+        jdbcTemplate.query(CURRENT, (RowCallbackHandler) rs -> {
+            if ("DAY".equals(rs.getString("period"))) {
+                spent.daily = rs.getBigDecimal("amount");
+            } else {
+                spent.monthly = rs.getBigDecimal("amount");
+            }
+        }, account.getId(), day, day.withDayOfMonth(1));
+        return spent;
+    }
+
+    private void add(Account account, BigDecimal amount, LocalDate day) {
+        lock(account);
+        jdbcTemplate.update(ADD, account.getId(), day, amount, account.getId(), day.withDayOfMonth(1), amount);
+    }
+
+    private void lock(Account account) {
+        /* Already locked in pessimistic mode; in optimistic mode this is the only lock taken.  */
+        if (entityManager.getLockMode(account) != LockModeType.PESSIMISTIC_WRITE) {
+            entityManager.refresh(account, LockModeType.PESSIMISTIC_WRITE);
+        }
+    }
+
+    private static boolean isLimited(BigDecimal limit) {
+        return limit != null && limit.signum() > 0;
+    }
+
+    private static final class Spent {
+        private BigDecimal daily = BigDecimal.ZERO;
+        private BigDecimal monthly = BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,43 @@
+package rs.banka4.user_service.utils.transactions;
+
+import rs.banka4.user_service.domain.transaction.db.Transaction;
+import rs.banka4.user_service.exceptions.transaction.InvalidCursor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in a transaction history ordered by {@code (paymentDateTime, id)} descending.  Handed
+ * to clients as an opaque, URL-safe token; the next page holds the rows strictly after it.
+ */
+public record TransactionCursor(LocalDateTime paymentDateTime, UUID id) {
+    private static final String SEPARATOR = "|";
+
+    public static TransactionCursor of(Transaction transaction) {
+        return new TransactionCursor(transaction.getPaymentDateTime(), transaction.getId());
+    }
+
+    public static TransactionCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new InvalidCursor(token);
+            }
+            return new TransactionCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursor(token);
+        }
+    }
+
+    public String encode() {
+        String raw = paymentDateTime + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
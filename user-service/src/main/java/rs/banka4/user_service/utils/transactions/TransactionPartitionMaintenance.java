@@ -0,0 +1,134 @@
+package rs.banka4.user_service.utils.transactions;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import rs.banka4.user_service.utils.scheduling.SchedulerLeases;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly partitions of {@code transactions} (see {@code V25__partition_transactions.sql})
+ * in shape.
+ *
+ * <p>Partitions are created {@code transaction.partitions.months-ahead} months in advance, so
+ * new payments never fall into the default partition.  Rows that did end up there are moved into
+ * their month's partition when it is created (see {@code V39}).  Partitions whose month ended more
+ * than {@code transaction.partitions.retention-months} ago are detached and moved to the
+ * {@code archive} schema: they no longer show up in (or slow down) queries on
+ * {@code transactions}, and are set up to be frozen by the next autovacuum, after which vacuum
+ * skips them.  If {@code transaction.partitions.archive-tablespace} is set, archived partitions are
+ * also moved there, e.g. to cheaper storage.
+ *
+ * <p>Only one instance runs this at a time (see {@link SchedulerLeases}).  Each month is created
+ * and each partition detached in a transaction of its own, so one that fails is logged and retried
+ * on the next run without holding up the rest.
+ */
+@Service
+public class TransactionPartitionMaintenance {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransactionPartitionMaintenance.class);
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("transactions_p(\\d{6})");
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Pattern IDENTIFIER = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    /*
+     * DETACH ... CONCURRENTLY is refused while transactions has a default partition, so a detach
+     * locks out all of transactions until it commits.  Waiting for that lock behind a long query
+     * would queue every payment behind the detach too, so give up quickly and try again next run.
+     */
+    private static final String DETACH_LOCK_TIMEOUT = "SET LOCAL lock_timeout = '5s'";
+
+    private static final String LIST_PARTITIONS = "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = 'transactions'::regclass";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SchedulerLeases schedulerLeases;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final String archiveTablespace;
+
+    public TransactionPartitionMaintenance(JdbcTemplate jdbcTemplate,
+                                           TransactionTemplate transactionTemplate,
+                                           SchedulerLeases schedulerLeases,
+                                           @Value("${transaction.partitions.months-ahead:3}") int monthsAhead,
+                                           @Value("${transaction.partitions.retention-months:24}") int retentionMonths,
+                                           @Value("${transaction.partitions.archive-tablespace:}") String archiveTablespace) {
+        if (!archiveTablespace.isEmpty() && !IDENTIFIER.matcher(archiveTablespace).matches()) {
+            throw new IllegalArgumentException("Invalid archive tablespace name: " + archiveTablespace);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.schedulerLeases = schedulerLeases;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.archiveTablespace = archiveTablespace;
+    }
+
+    @Scheduled(cron = "${transaction.partitions.cron:0 30 3 * * ?}")
+    public void maintainPartitions() {
+        maintainPartitions(YearMonth.now());
+    }
+
+    public void maintainPartitions(YearMonth currentMonth) {
+        schedulerLeases.runExclusively("transactions.partition-maintenance", Duration.ofHours(1), () -> {
+            for (int i = 0; i <= monthsAhead; i++) {
+                createPartition(currentMonth.plusMonths(i));
+            }
+
+            YearMonth oldestKept = currentMonth.minusMonths(retentionMonths);
+            List<String> partitions = jdbcTemplate.queryForList(LIST_PARTITIONS, String.class);
+            for (String partition : partitions) {
+                Matcher matcher = PARTITION_NAME.matcher(partition);
+                if (matcher.matches() && YearMonth.parse(matcher.group(1), PARTITION_MONTH).isBefore(oldestKept)) {
+                    archive(partition);
+                }
+            }
+        });
+    }
+
+    private void createPartition(YearMonth month) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.queryForObject("SELECT create_transactions_partition(?)", String.class, month.atDay(1)));
+        } catch (RuntimeException e) {
+            LOGGER.error("Could not create the transaction partition for {}", month, e);
+        }
+    }
+
+    private void archive(String partition) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute(DETACH_LOCK_TIMEOUT);
+                jdbcTemplate.execute("ALTER TABLE transactions DETACH PARTITION " + partition);
+                jdbcTemplate.execute("ALTER TABLE " + partition + " SET SCHEMA archive");
+                /* Archived rows never change again; freeze them on the next autovacuum and be done.  */
+                jdbcTemplate.execute("ALTER TABLE archive." + partition + " SET (autovacuum_freeze_min_age = 0)");
+            });
+        } catch (RuntimeException e) {
+            LOGGER.error("Could not archive transaction partition {}", partition, e);
+            return;
+        }
+        LOGGER.info("Archived transaction partition {}", partition);
+
+        if (!archiveTablespace.isEmpty()) {
+            /* Rewrites the whole table, so not while the detach still holds transactions locked.  */
+            try {
+                jdbcTemplate.execute("ALTER TABLE archive." + partition + " SET TABLESPACE " + archiveTablespace);
+            } catch (RuntimeException e) {
+                LOGGER.error("Could not move archived partition {} to tablespace {}", partition, archiveTablespace, e);
+            }
+        }
+    }
+}
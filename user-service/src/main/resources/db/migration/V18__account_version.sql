@@ -0,0 +1,3 @@
+-- Optimistic locking column for concurrent balance updates.
+ALTER TABLE accounts
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,33 @@
+-- Append-only double-entry ledger.  Rows are never updated or deleted; a
+-- balance is the latest snapshot plus the entries posted after it.
+CREATE TABLE ledger_entries
+(
+    id           UUID           NOT NULL,
+    account_id   UUID,
+    reference_id UUID,
+    kind         VARCHAR(32)    NOT NULL,
+    direction    VARCHAR(8)     NOT NULL,
+    amount       DECIMAL(19, 4) NOT NULL,
+    currency     VARCHAR(8)     NOT NULL,
+    posted_at    TIMESTAMP      NOT NULL,
+    CONSTRAINT pk_ledger_entries PRIMARY KEY (id)
+);
+
+ALTER TABLE ledger_entries
+    ADD CONSTRAINT fk_ledger_entries_on_account FOREIGN KEY (account_id) REFERENCES accounts (id);
+
+CREATE INDEX ix_ledger_entries_account_posted_at ON ledger_entries (account_id, posted_at);
+
+CREATE TABLE balance_snapshots
+(
+    id         UUID           NOT NULL,
+    account_id UUID           NOT NULL,
+    balance    DECIMAL(19, 4) NOT NULL,
+    taken_at   TIMESTAMP      NOT NULL,
+    CONSTRAINT pk_balance_snapshots PRIMARY KEY (id)
+);
+
+ALTER TABLE balance_snapshots
+    ADD CONSTRAINT fk_balance_snapshots_on_account FOREIGN KEY (account_id) REFERENCES accounts (id);
+
+CREATE INDEX ix_balance_snapshots_account_taken_at ON balance_snapshots (account_id, taken_at DESC);
@@ -0,0 +1,2 @@
+-- Settlement drains PENDING payments oldest first; keep that lookup off the full table.
+CREATE INDEX idx_transactions_pending ON transactions (payment_date_time) WHERE status = 'PENDING';
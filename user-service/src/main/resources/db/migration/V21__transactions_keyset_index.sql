@@ -0,0 +1,2 @@
+-- Supports keyset pagination of transaction history, newest first.
+CREATE INDEX idx_transactions_payment_date_time_id ON transactions (payment_date_time DESC, id DESC);
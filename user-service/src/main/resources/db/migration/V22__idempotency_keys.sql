@@ -0,0 +1,9 @@
+CREATE TABLE idempotency_keys
+(
+    id           VARCHAR(512) NOT NULL PRIMARY KEY,
+    request_hash VARCHAR(64)  NOT NULL,
+    response     TEXT,
+    created_at   TIMESTAMP    NOT NULL
+);
+
+CREATE INDEX idx_idempotency_keys_created_at ON idempotency_keys (created_at);
@@ -0,0 +1,21 @@
+-- UUIDv7 (RFC 9562): 48-bit millisecond timestamp, then random bits.  Mirrors TimeOrderedIds on
+-- the Java side, for rows inserted by plain SQL.
+CREATE FUNCTION uuid_generate_v7() RETURNS UUID AS
+$$
+SELECT encode(
+               set_bit(
+                       set_bit(
+                               overlay(uuid_send(gen_random_uuid())
+                                       PLACING substring(int8send(floor(extract(EPOCH FROM clock_timestamp()) * 1000)::BIGINT) FROM 3)
+                                       FROM 1 FOR 6),
+                               52, 1),
+                       53, 1),
+               'hex')::UUID;
+$$ LANGUAGE sql VOLATILE;
+
+ALTER TABLE transactions ALTER COLUMN id SET DEFAULT uuid_generate_v7();
+ALTER TABLE loans ALTER COLUMN id SET DEFAULT uuid_generate_v7();
+ALTER TABLE loan_installments ALTER COLUMN id SET DEFAULT uuid_generate_v7();
+
+-- New transaction numbers are 26 character base32 codes; older rows keep their 36 character UUIDs.
+ALTER TABLE transactions ALTER COLUMN transaction_number TYPE VARCHAR(36);
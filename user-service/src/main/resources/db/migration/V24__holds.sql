@@ -0,0 +1,40 @@
+-- Funds reserved on an account's available balance until the payment is settled
+-- (posted to the booked balance) or the hold is released.
+CREATE TABLE holds
+(
+    id              UUID           NOT NULL DEFAULT uuid_generate_v7(),
+    account_id      UUID           NOT NULL,
+    transaction_id  UUID           NOT NULL,
+    amount          DECIMAL(19, 4) NOT NULL,
+    status          VARCHAR(16)    NOT NULL,
+    created_at      TIMESTAMP      NOT NULL,
+    next_attempt_at TIMESTAMP      NOT NULL,
+    expires_at      TIMESTAMP      NOT NULL,
+    CONSTRAINT pk_holds PRIMARY KEY (id),
+    CONSTRAINT uc_holds_transaction UNIQUE (transaction_id)
+);
+
+ALTER TABLE holds
+    ADD CONSTRAINT fk_holds_on_account FOREIGN KEY (account_id) REFERENCES accounts (id);
+
+ALTER TABLE holds
+    ADD CONSTRAINT fk_holds_on_transaction FOREIGN KEY (transaction_id) REFERENCES transactions (id);
+
+-- Settlement and expiry only ever look at active holds.
+CREATE INDEX ix_holds_active_next_attempt ON holds (next_attempt_at) WHERE status = 'ACTIVE';
+CREATE INDEX ix_holds_active_expires ON holds (expires_at) WHERE status = 'ACTIVE';
+
+-- Payments accepted before holds existed already reduced the available balance.
+INSERT INTO holds (account_id, transaction_id, amount, status, created_at, next_attempt_at, expires_at)
+SELECT from_account_id,
+       id,
+       from_amount + COALESCE(fee_amount, 0),
+       'ACTIVE',
+       payment_date_time,
+       payment_date_time,
+       payment_date_time + INTERVAL '7 days'
+FROM transactions
+WHERE status = 'PENDING';
+
+-- Settlement now drains holds instead of pending transactions.
+DROP INDEX idx_transactions_pending;
@@ -0,0 +1,85 @@
+-- Range-partition transactions by month of payment_date_time.  Queries filtered on
+-- payment_date_time only scan the matching partitions, and vacuum and index maintenance work
+-- on one month at a time.  TransactionPartitionMaintenance creates partitions ahead of the
+-- clock and moves old ones to the archive schema.
+
+ALTER TABLE transactions RENAME TO transactions_unpartitioned;
+ALTER INDEX idx_transactions_payment_date_time_id RENAME TO idx_transactions_unpartitioned_payment_date_time_id;
+
+-- Unique constraints on a partitioned table must include the partition key.  Ids and
+-- transaction numbers are generated unique anyway (see TimeOrderedIds).
+CREATE TABLE transactions
+(
+    LIKE transactions_unpartitioned INCLUDING DEFAULTS,
+    CONSTRAINT pk_transactions PRIMARY KEY (id, payment_date_time),
+    CONSTRAINT uc_transactions_number UNIQUE (transaction_number, payment_date_time)
+) PARTITION BY RANGE (payment_date_time);
+
+ALTER TABLE transactions
+    ADD CONSTRAINT fk_from_account FOREIGN KEY (from_account_id) REFERENCES accounts (id);
+
+ALTER TABLE transactions
+    ADD CONSTRAINT fk_to_account FOREIGN KEY (to_account_id) REFERENCES accounts (id);
+
+ALTER TABLE transactions
+    ADD CONSTRAINT fk_from_currency FOREIGN KEY (from_currency_id) REFERENCES currencies (id);
+
+ALTER TABLE transactions
+    ADD CONSTRAINT fk_to_currency FOREIGN KEY (to_currency_id) REFERENCES currencies (id);
+
+ALTER TABLE transactions
+    ADD CONSTRAINT fk_fee_currency FOREIGN KEY (fee_currency_id) REFERENCES currencies (id);
+
+CREATE INDEX idx_transactions_payment_date_time_id ON transactions (payment_date_time DESC, id DESC);
+CREATE INDEX idx_transactions_from_account ON transactions (from_account_id, payment_date_time);
+CREATE INDEX idx_transactions_to_account ON transactions (to_account_id, payment_date_time);
+
+-- Creates the partition holding the month of the given date, unless it exists already.
+-- Returns the partition name.
+CREATE FUNCTION create_transactions_partition(month DATE) RETURNS TEXT AS
+$$
+DECLARE
+    start_date     DATE := date_trunc('month', month)::DATE;
+    partition_name TEXT := 'transactions_p' || to_char(start_date, 'YYYYMM');
+BEGIN
+    IF to_regclass(partition_name) IS NULL THEN
+        EXECUTE format('CREATE TABLE %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+                       partition_name, start_date, (start_date + INTERVAL '1 month')::DATE);
+    END IF;
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Existing history, plus three months ahead.
+DO
+$$
+    DECLARE
+        month DATE;
+    BEGIN
+        FOR month IN
+            SELECT generate_series(
+                           date_trunc('month', LEAST(COALESCE((SELECT min(payment_date_time) FROM transactions_unpartitioned), now()), now())),
+                           date_trunc('month', now()) + INTERVAL '3 months',
+                           INTERVAL '1 month')::DATE
+            LOOP
+                PERFORM create_transactions_partition(month);
+            END LOOP;
+    END
+$$;
+
+-- Catches rows outside every monthly partition, so an insert never fails for lack of one.
+-- Normally stays empty.
+CREATE TABLE transactions_default PARTITION OF transactions DEFAULT;
+
+INSERT INTO transactions
+SELECT *
+FROM transactions_unpartitioned;
+
+-- A foreign key into a partitioned table would have to include payment_date_time.
+ALTER TABLE holds
+    DROP CONSTRAINT fk_holds_on_transaction;
+
+DROP TABLE transactions_unpartitioned;
+
+-- Detached partitions older than transaction.partitions.retention-months end up here.
+CREATE SCHEMA IF NOT EXISTS archive;
@@ -0,0 +1,18 @@
+-- Account and loan numbers are allocated from these sequences in blocks of INCREMENT BY numbers
+-- (see NumberBlockAllocator), instead of guessing random numbers and retrying on collisions.
+
+-- Serial part of account numbers: 444 0001 <9 digit serial> <2 control digits>.
+CREATE SEQUENCE account_number_seq INCREMENT BY 50 MINVALUE 1;
+
+SELECT setval('account_number_seq',
+              COALESCE((SELECT MAX(CAST(SUBSTRING(account_number FROM 8 FOR 9) AS BIGINT))
+                        FROM accounts
+                        WHERE account_number ~ '^4440001[0-9]{11}$'), 0) + 1,
+              false);
+
+-- Loan numbers are <serial><2 control digits>, so start the serial above every existing number.
+CREATE SEQUENCE loan_number_seq INCREMENT BY 50 MINVALUE 1;
+
+SELECT setval('loan_number_seq',
+              COALESCE((SELECT MAX(loan_number) FROM loans), 0) / 100 + 1,
+              false);
@@ -0,0 +1,21 @@
+-- Substring search on the employee portal (AccountSpecification, ClientSpecification,
+-- EmployeeSpecification) filters with lower(column) LIKE '%term%'.  A B-tree index cannot serve
+-- a leading wildcard; a trigram GIN index on the same expression can, for terms of three or
+-- more characters.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX idx_clients_first_name_trgm ON clients USING gin (lower(first_name) gin_trgm_ops);
+CREATE INDEX idx_clients_last_name_trgm ON clients USING gin (lower(last_name) gin_trgm_ops);
+CREATE INDEX idx_clients_email_trgm ON clients USING gin (lower(email) gin_trgm_ops);
+CREATE INDEX idx_clients_phone_trgm ON clients USING gin (lower(phone) gin_trgm_ops);
+
+CREATE INDEX idx_employees_first_name_trgm ON employees USING gin (lower(first_name) gin_trgm_ops);
+CREATE INDEX idx_employees_last_name_trgm ON employees USING gin (lower(last_name) gin_trgm_ops);
+CREATE INDEX idx_employees_email_trgm ON employees USING gin (lower(email) gin_trgm_ops);
+CREATE INDEX idx_employees_position_trgm ON employees USING gin (lower(position) gin_trgm_ops);
+
+-- Account numbers are digits only and are matched without lower().
+CREATE INDEX idx_accounts_account_number_trgm ON accounts USING gin (account_number gin_trgm_ops);
+
+-- The account search joins accounts to clients.
+CREATE INDEX idx_accounts_client_id ON accounts (client_id);
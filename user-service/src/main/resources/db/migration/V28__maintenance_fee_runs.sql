@@ -0,0 +1,28 @@
+-- Checkpoints of the monthly account maintenance fee job (MaintenanceFeeJob).  A run splits the
+-- account id space into chunks when it starts; each chunk is charged and marked DONE in one
+-- transaction, so a restarted run only charges the chunks still PENDING.
+CREATE TABLE maintenance_fee_runs
+(
+    id               UUID        NOT NULL DEFAULT uuid_generate_v7(),
+    period           DATE        NOT NULL,
+    status           VARCHAR(16) NOT NULL,
+    started_at       TIMESTAMP   NOT NULL,
+    finished_at      TIMESTAMP,
+    accounts_charged BIGINT      NOT NULL DEFAULT 0,
+    CONSTRAINT pk_maintenance_fee_runs PRIMARY KEY (id),
+    CONSTRAINT uc_maintenance_fee_runs_period UNIQUE (period)
+);
+
+-- lower_id is inclusive, upper_id exclusive; NULL means unbounded.
+CREATE TABLE maintenance_fee_chunks
+(
+    run_id           UUID        NOT NULL,
+    chunk_no         INTEGER     NOT NULL,
+    lower_id         UUID,
+    upper_id         UUID,
+    status           VARCHAR(16) NOT NULL,
+    accounts_charged INTEGER     NOT NULL DEFAULT 0,
+    completed_at     TIMESTAMP,
+    CONSTRAINT pk_maintenance_fee_chunks PRIMARY KEY (run_id, chunk_no),
+    CONSTRAINT fk_maintenance_fee_chunks_on_run FOREIGN KEY (run_id) REFERENCES maintenance_fee_runs (id)
+);
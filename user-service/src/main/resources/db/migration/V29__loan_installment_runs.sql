@@ -0,0 +1,18 @@
+-- One row per daily installment run (LoanInstallmentScheduler).  A run stays RUNNING until all
+-- of its chunks committed and is resumed on the next start otherwise; the installments' own
+-- payment_status records which ones are done.
+CREATE TABLE loan_installment_runs
+(
+    id          UUID        NOT NULL DEFAULT uuid_generate_v7(),
+    run_date    DATE        NOT NULL,
+    status      VARCHAR(16) NOT NULL,
+    started_at  TIMESTAMP   NOT NULL,
+    finished_at TIMESTAMP,
+    paid        INTEGER     NOT NULL DEFAULT 0,
+    delayed     INTEGER     NOT NULL DEFAULT 0,
+    CONSTRAINT pk_loan_installment_runs PRIMARY KEY (id),
+    CONSTRAINT uc_loan_installment_runs_run_date UNIQUE (run_date)
+);
+
+-- Keyset paging over the installments of one status.
+CREATE INDEX idx_loan_installments_status_id ON loan_installments (payment_status, id) INCLUDE (expected_due_date);
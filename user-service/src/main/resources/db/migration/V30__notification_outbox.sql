@@ -0,0 +1,22 @@
+-- Notifications waiting to be published to RabbitMQ.  Rows are inserted in the same transaction
+-- as the business change that caused them and published by NotificationOutboxRelay, which sets
+-- delivered_at once the broker confirmed them.  body is the message as converted by the AMQP
+-- message converter, so the wire format is the same as for a direct send.
+CREATE TABLE notification_outbox
+(
+    id              UUID         NOT NULL DEFAULT uuid_generate_v7(),
+    exchange        VARCHAR(255) NOT NULL,
+    routing_key     VARCHAR(255) NOT NULL,
+    content_type    VARCHAR(255),
+    headers         JSONB        NOT NULL DEFAULT '{}',
+    body            BYTEA        NOT NULL,
+    created_at      TIMESTAMP    NOT NULL,
+    attempts        INTEGER      NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP    NOT NULL,
+    delivered_at    TIMESTAMP,
+    last_error      TEXT,
+    CONSTRAINT pk_notification_outbox PRIMARY KEY (id)
+);
+
+-- The relay only ever scans undelivered rows, oldest first.
+CREATE INDEX idx_notification_outbox_pending ON notification_outbox (next_attempt_at, id) WHERE delivered_at IS NULL;
@@ -0,0 +1,2 @@
+-- Keyset scan over the loans repriced by LoanRepricingEngine.
+CREATE INDEX idx_loans_variable_approved ON loans (id) WHERE interest_type = 'VARIABLE' AND status = 'APPROVED';
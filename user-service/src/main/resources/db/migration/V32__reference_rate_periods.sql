@@ -0,0 +1,12 @@
+-- Reference rate variant added to the base rate of variable-rate loans.  A period applies from
+-- effective_from until the next period starts.  Periods are published once for the whole cluster
+-- (the unique date lets the first instance win) and every instance keeps a copy in memory.
+CREATE TABLE reference_rate_periods
+(
+    id             UUID          NOT NULL DEFAULT uuid_generate_v7(),
+    effective_from DATE          NOT NULL,
+    variant        NUMERIC(6, 2) NOT NULL,
+    published_at   TIMESTAMP     NOT NULL,
+    CONSTRAINT pk_reference_rate_periods PRIMARY KEY (id),
+    CONSTRAINT uc_reference_rate_periods_effective_from UNIQUE (effective_from)
+);
@@ -0,0 +1,3 @@
+-- A client's loans are listed through their accounts (idx_accounts_client_id), largest first.
+-- loans.account_id had no index, so every listing scanned the whole table.
+CREATE INDEX idx_loans_account_status_amount ON loans (account_id, status, amount DESC);
@@ -0,0 +1,15 @@
+-- Leases that keep scheduled jobs from running on more than one instance at a time (see
+-- SchedulerLeases).  A lease is held by owner until expires_at, in database time.  Shard leases
+-- of a sharded run are kept with completed_at set once their shard is done, so that no other
+-- instance picks the shard up again; they are purged after a while.
+CREATE TABLE scheduler_leases
+(
+    name         VARCHAR(255) NOT NULL,
+    owner        VARCHAR(255) NOT NULL,
+    acquired_at  TIMESTAMP    NOT NULL,
+    expires_at   TIMESTAMP    NOT NULL,
+    completed_at TIMESTAMP,
+    CONSTRAINT pk_scheduler_leases PRIMARY KEY (name)
+);
+
+CREATE INDEX idx_scheduler_leases_completed_at ON scheduler_leases (completed_at) WHERE completed_at IS NOT NULL;
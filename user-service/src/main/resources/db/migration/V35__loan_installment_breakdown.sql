@@ -0,0 +1,10 @@
+-- The plan written at approval keeps each installment's split into principal and interest and
+-- the principal owed after it, so a loan's schedule is read as stored instead of recomputed.
+-- Rows created one at a time by the installment job before that have no split.
+ALTER TABLE loan_installments
+    ADD COLUMN principal_amount  DECIMAL,
+    ADD COLUMN interest_amount   DECIMAL,
+    ADD COLUMN remaining_balance DECIMAL;
+
+-- A loan's installments in due date order, for its schedule and for repricing.
+CREATE INDEX idx_loan_installments_loan_due ON loan_installments (loan_id, expected_due_date);
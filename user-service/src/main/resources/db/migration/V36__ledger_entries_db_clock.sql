@@ -0,0 +1,4 @@
+-- Ledger entries are stamped by the database clock as they are inserted, so an entry whose
+-- transaction has not committed yet is never stamped before that transaction started.  Balance
+-- snapshots rely on that to roll forward only over entries that are certainly committed.
+ALTER TABLE ledger_entries ALTER COLUMN posted_at SET DEFAULT clock_timestamp();
@@ -0,0 +1,33 @@
+-- Running totals of what each account has spent towards its limits, one row per account and
+-- calendar day and one per account and calendar month.  Updated in the paying transaction,
+-- under the account row lock, so a limit check reads two rows instead of summing payments.
+CREATE TABLE account_spend_buckets
+(
+    account_id   UUID           NOT NULL,
+    period       VARCHAR(5)     NOT NULL,
+    period_start DATE           NOT NULL,
+    amount       DECIMAL(19, 4) NOT NULL,
+    PRIMARY KEY (account_id, period, period_start)
+);
+
+CREATE INDEX idx_account_spend_buckets_period_start ON account_spend_buckets (period_start);
+
+-- Seed the current month from the payments already made, counted the way SpendTracker counts
+-- them: realized and pending payments, except transfers between accounts of the same client.
+WITH spent AS (
+    SELECT t.from_account_id AS account_id, t.payment_date_time, t.from_amount
+    FROM transactions t
+    JOIN accounts f ON f.id = t.from_account_id
+    JOIN accounts r ON r.id = t.to_account_id
+    WHERE t.status IN ('REALIZED', 'PENDING')
+      AND t.payment_date_time >= date_trunc('month', localtimestamp)
+      AND f.client_id IS DISTINCT FROM r.client_id
+)
+INSERT INTO account_spend_buckets (account_id, period, period_start, amount)
+SELECT account_id, 'DAY', CAST(payment_date_time AS DATE), SUM(from_amount)
+FROM spent
+GROUP BY account_id, CAST(payment_date_time AS DATE)
+UNION ALL
+SELECT account_id, 'MONTH', CAST(date_trunc('month', payment_date_time) AS DATE), SUM(from_amount)
+FROM spent
+GROUP BY account_id, CAST(date_trunc('month', payment_date_time) AS DATE);
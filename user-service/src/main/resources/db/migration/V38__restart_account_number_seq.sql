@@ -0,0 +1,4 @@
+-- V26 started account_number_seq above the highest serial in use, but serials used to be picked
+-- at random, so that left almost nothing of the 9 digit range.  Start from the bottom instead;
+-- AccountNumberAllocator skips the serials that existing accounts already use.
+SELECT setval('account_number_seq', 1, false);
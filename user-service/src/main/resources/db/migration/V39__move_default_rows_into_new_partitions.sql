@@ -0,0 +1,43 @@
+-- A month without a partition of its own goes to transactions_default, and once the default
+-- partition holds rows for a month, the partition for that month can no longer be created.
+-- create_transactions_partition now takes those rows out of the default partition first and
+-- puts them back once the month's partition exists, all in the caller's transaction.
+CREATE OR REPLACE FUNCTION create_transactions_partition(month DATE) RETURNS TEXT AS
+$$
+DECLARE
+    start_date     DATE := date_trunc('month', month)::DATE;
+    end_date       DATE := (start_date + INTERVAL '1 month')::DATE;
+    partition_name TEXT := 'transactions_p' || to_char(start_date, 'YYYYMM');
+    moved          BIGINT := 0;
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN partition_name;
+    END IF;
+
+    IF EXISTS (SELECT 1
+               FROM transactions_default
+               WHERE payment_date_time >= start_date
+                 AND payment_date_time < end_date) THEN
+        CREATE TEMPORARY TABLE transactions_moving (LIKE transactions) ON COMMIT DROP;
+
+        WITH moving AS (
+            DELETE FROM transactions_default
+                WHERE payment_date_time >= start_date
+                    AND payment_date_time < end_date
+                RETURNING *)
+        INSERT INTO transactions_moving
+        SELECT * FROM moving;
+        GET DIAGNOSTICS moved = ROW_COUNT;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, start_date, end_date);
+
+    IF moved > 0 THEN
+        INSERT INTO transactions SELECT * FROM transactions_moving;
+        DROP TABLE transactions_moving;
+        RAISE NOTICE 'Moved % rows from transactions_default to %', moved, partition_name;
+    END IF;
+    RETURN partition_name;
+END;
+$$ LANGUAGE plpgsql;
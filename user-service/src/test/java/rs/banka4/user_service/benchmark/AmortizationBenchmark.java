@@ -0,0 +1,155 @@
+package rs.banka4.user_service.benchmark;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import rs.banka4.user_service.utils.loans.AmortizationEngine;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * JMH benchmark of {@link AmortizationEngine} against the unbounded {@code BigDecimal.pow} formula
+ * that {@code LoanRateUtil.calculateMonthly} used before.
+ *
+ * <p>{@link #paymentsMatchUnboundedFormula()} first checks that the bounded result agrees with the
+ * exact one to the cent (and to 10 decimal places, the scale {@code calculateMonthly} returns)
+ * over a grid of principals, rates and terms.  {@link #runBenchmarks()} then reports the time per
+ * monthly payment and per full schedule for each term.
+ *
+ * <p>Run with {@code ./gradlew benchmark}; not part of the regular test run.
+ */
+@Tag("benchmark")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AmortizationBenchmark {
+    private static final List<String> PRINCIPALS = List.of("1000", "250000.55", "12500000");
+    private static final List<String> MONTHLY_RATES = List.of("0.0001", "0.0041666667", "0.0125", "0.6");
+    private static final List<Integer> TERMS = List.of(12, 60, 120, 240, 360);
+
+    @Param({"12", "120", "360"})
+    public int periods;
+
+    private BigDecimal principal;
+    private BigDecimal monthlyRate;
+    private LocalDate startDate;
+
+    @Setup
+    public void setUp() {
+        principal = new BigDecimal("250000.55");
+        monthlyRate = new BigDecimal("0.0041666667");
+        startDate = LocalDate.of(2025, 1, 1);
+    }
+
+    @Benchmark
+    public BigDecimal unboundedPayment() {
+        return unboundedMonthly(principal, monthlyRate, periods);
+    }
+
+    @Benchmark
+    public BigDecimal boundedPayment() {
+        return AmortizationEngine.monthlyPayment(principal, monthlyRate, periods);
+    }
+
+    @Benchmark
+    public List<AmortizationEngine.AmortizationPeriod> boundedSchedule() {
+        return AmortizationEngine.schedule(principal, monthlyRate, periods, startDate);
+    }
+
+    @Test
+    void paymentsMatchUnboundedFormula() {
+        for (String principal : PRINCIPALS) {
+            for (String rate : MONTHLY_RATES) {
+                for (int term : TERMS) {
+                    BigDecimal amount = new BigDecimal(principal);
+                    BigDecimal monthlyRate = new BigDecimal(rate);
+                    BigDecimal exact = unboundedMonthly(amount, monthlyRate, term);
+                    BigDecimal bounded = AmortizationEngine.monthlyPayment(amount, monthlyRate, term);
+
+                    String label = "%s at %s for %d months".formatted(principal, rate, term);
+                    assertEquals(exact.setScale(10, RoundingMode.HALF_UP), bounded.setScale(10, RoundingMode.HALF_UP), label);
+
+                    List<AmortizationEngine.AmortizationPeriod> schedule =
+                            AmortizationEngine.schedule(amount, monthlyRate, term, LocalDate.of(2025, 1, 1));
+                    BigDecimal repaid = schedule.stream()
+                            .map(AmortizationEngine.AmortizationPeriod::principal)
+                            .reduce(BigDecimal.ZERO, BigDecimal::add);
+                    assertEquals(0, repaid.compareTo(amount.setScale(2, RoundingMode.HALF_UP)), label);
+                }
+            }
+        }
+    }
+
+    @Test
+    void runBenchmarks() throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(AmortizationBenchmark.class.getName() + "\\.")
+                .forks(Integer.getInteger("benchmark.forks", 1))
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .build();
+
+        Collection<RunResult> results = new Runner(options).run();
+
+        for (RunResult result : results) {
+            System.out.printf("%-20s %4s months  %,12.2f us/op%n",
+                    result.getParams().getBenchmark().replaceAll(".*\\.", ""),
+                    result.getParams().getParam("periods"),
+                    result.getPrimaryResult().getScore());
+        }
+        double unbounded360 = score(results, "unboundedPayment", "360");
+        double bounded360 = score(results, "boundedPayment", "360");
+        assertTrue(bounded360 < unbounded360,
+                "Bounded precision should be faster for 360 months (bounded: %.2f us, unbounded: %.2f us)"
+                        .formatted(bounded360, unbounded360));
+    }
+
+    private static double score(Collection<RunResult> results, String benchmark, String periods) {
+        return results.stream()
+                .filter(result -> result.getParams().getBenchmark().endsWith("." + benchmark))
+                .filter(result -> periods.equals(result.getParams().getParam("periods")))
+                .findFirst()
+                .orElseThrow()
+                .getPrimaryResult()
+                .getScore();
+    }
+
+    /* The formula calculateMonthly used before, kept here as the exact reference.  */
+    private static BigDecimal unboundedMonthly(BigDecimal loanAmount, BigDecimal monthlyInterestRate, int periods) {
+        if (monthlyInterestRate.compareTo(BigDecimal.ZERO) == 0) {
+            return loanAmount.divide(new BigDecimal(BigInteger.valueOf(periods)), 10, RoundingMode.HALF_UP);
+        }
+
+        BigDecimal ratePlusOne = BigDecimal.ONE.add(monthlyInterestRate);
+        BigDecimal exponentiation = ratePlusOne.pow(periods);
+
+        BigDecimal numerator = monthlyInterestRate.multiply(exponentiation);
+        BigDecimal denominator = exponentiation.subtract(BigDecimal.ONE);
+
+        return loanAmount.multiply(numerator).divide(denominator, 10, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,159 @@
+package rs.banka4.user_service.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Times the employee portal searches against {@code benchmark.clients} clients (one account each),
+ * once with the trigram indexes of {@code V27__trigram_search_indexes.sql} and once with index
+ * scans disabled, i.e. the sequential scans the searches used to do.
+ *
+ * <p>The statements have the shape Hibernate generates for {@code ClientSpecification} and
+ * {@code AccountSpecification}; the count query is what a {@code Page} request runs on top of the
+ * page itself, and has to look at every match.
+ *
+ * <p>Run with {@code ./gradlew benchmark}; not part of the regular test run.
+ */
+@Tag("benchmark")
+public class ClientSearchBenchmark {
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 1_000_000);
+    private static final int RUNS = Integer.getInteger("benchmark.runs", 20);
+
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17");
+    private static Connection connection;
+
+    private record Search(String name, String sql, String... terms) {
+    }
+
+    private record Result(String name, double indexedMillis, double sequentialMillis) {
+        @Override
+        public String toString() {
+            return "%-24s trigram %,9.2f ms   seq scan %,9.2f ms".formatted(name, indexedMillis, sequentialMillis);
+        }
+    }
+
+    @BeforeAll
+    static void startDatabase() throws SQLException {
+        postgres.start();
+        Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .load()
+                .migrate();
+        connection = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    INSERT INTO clients (id, first_name, last_name, date_of_birth, gender, email, phone, address,
+                                         enabled, permission_bits)
+                    SELECT gen_random_uuid(),
+                           (ARRAY['Marko', 'Jelena', 'Nikola', 'Milica', 'Stefan', 'Ana', 'Luka', 'Jovana'])[i % 8 + 1],
+                           (ARRAY['Petrovic', 'Jovanovic', 'Nikolic', 'Markovic', 'Djordjevic', 'Ilic'])[i % 6 + 1] || i,
+                           DATE '1970-01-01' + i % 15000, 'MALE',
+                           'client' || i || '@example.com', '+3816' || lpad(i::TEXT, 8, '0'), 'Benchmark 1',
+                           true, 0
+                    FROM generate_series(1, %d) i
+                    """.formatted(CLIENTS));
+            statement.execute("""
+                    INSERT INTO accounts (id, account_number, active, client_id)
+                    SELECT gen_random_uuid(), '4440001' || lpad(row_number() OVER ()::TEXT, 9, '0') || '00', true, id
+                    FROM clients
+                    """);
+            statement.execute("ANALYZE clients");
+            statement.execute("ANALYZE accounts");
+        }
+    }
+
+    @AfterAll
+    static void stopDatabase() throws SQLException {
+        connection.close();
+        postgres.stop();
+    }
+
+    @Test
+    void compareTrigramIndexesWithSequentialScans() throws SQLException {
+        List<Search> searches = List.of(
+                new Search("client last name", """
+                        SELECT count(*) FROM clients c
+                        WHERE lower(c.last_name) LIKE ? ESCAPE '\\'
+                        """, "%nikolic4242%"),
+                new Search("client email", """
+                        SELECT count(*) FROM clients c
+                        WHERE lower(c.email) LIKE ? ESCAPE '\\'
+                        """, "%client77777@%"),
+                new Search("client phone", """
+                        SELECT count(*) FROM clients c
+                        WHERE lower(c.phone) LIKE ? ESCAPE '\\'
+                        """, "%0031337%"),
+                new Search("account by owner name", """
+                        SELECT count(*) FROM accounts a JOIN clients c ON c.id = a.client_id
+                        WHERE lower(c.first_name) LIKE ? ESCAPE '\\' AND lower(c.last_name) LIKE ? ESCAPE '\\'
+                        """, "%luka%", "%ilic9999%"),
+                new Search("account number", """
+                        SELECT count(*) FROM accounts a
+                        WHERE a.account_number LIKE ? ESCAPE '\\'
+                        """, "%00424242%")
+        );
+
+        List<Result> results = new ArrayList<>();
+        for (Search search : searches) {
+            double indexed = time(search, true);
+            double sequential = time(search, false);
+            results.add(new Result(search.name(), indexed, sequential));
+        }
+
+        System.out.printf("%,d clients, %,d accounts, mean of %d runs%n", CLIENTS, CLIENTS, RUNS);
+        results.forEach(System.out::println);
+
+        for (Result result : results) {
+            assertTrue(result.indexedMillis() < result.sequentialMillis(),
+                    "Trigram index should beat the sequential scan for " + result.name());
+        }
+    }
+
+    private double time(Search search, boolean useIndexes) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET enable_bitmapscan = " + useIndexes);
+            statement.execute("SET enable_indexscan = " + useIndexes);
+        }
+
+        try (PreparedStatement query = connection.prepareStatement(search.sql())) {
+            for (int i = 0; i < search.terms().length; i++) {
+                query.setString(i + 1, search.terms()[i]);
+            }
+            /* Warm up the buffer cache, so both variants read from memory.  */
+            run(query);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < RUNS; i++) {
+                run(query);
+            }
+            return (System.nanoTime() - start) / 1e6 / RUNS;
+        } finally {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("RESET enable_bitmapscan");
+                statement.execute("RESET enable_indexscan");
+            }
+        }
+    }
+
+    private static void run(PreparedStatement query) throws SQLException {
+        try (ResultSet result = query.executeQuery()) {
+            result.next();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package rs.banka4.user_service.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.containers.PostgreSQLContainer;
+import rs.banka4.user_service.utils.ids.TimeOrderedIds;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares random UUIDs with UUIDv7 ids on a copy of the {@code transactions} table.
+ *
+ * <p>Each table is preloaded with {@code benchmark.rows} rows (server side, in one statement),
+ * then {@code benchmark.inserts} more rows are inserted through JDBC batches the way Hibernate
+ * does, with ids and transaction numbers generated in Java.  Reports insert throughput and the
+ * size of the primary key and transaction number indexes, i.e. the unique indexes on
+ * {@code (id, payment_date_time)} and {@code (transaction_number, payment_date_time)}.
+ *
+ * <p>Run with {@code ./gradlew benchmark}; not part of the regular test run.
+ */
+@Tag("benchmark")
+public class TransactionIdBenchmark {
+    private static final int PRELOAD_ROWS = Integer.getInteger("benchmark.rows", 2_000_000);
+    private static final int INSERT_ROWS = Integer.getInteger("benchmark.inserts", 200_000);
+    private static final int BATCH_SIZE = 50;
+
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17");
+    private static Connection connection;
+
+    private record Result(String name, double rowsPerSecond, long pkeyBytes, long numberIndexBytes) {
+        @Override
+        public String toString() {
+            return "%-8s %,12.0f rows/s   pkey %,8d kB   transaction_number index %,8d kB"
+                    .formatted(name, rowsPerSecond, pkeyBytes / 1024, numberIndexBytes / 1024);
+        }
+    }
+
+    @BeforeAll
+    static void startDatabase() throws SQLException {
+        postgres.start();
+        Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .load()
+                .migrate();
+        connection = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+    }
+
+    @AfterAll
+    static void stopDatabase() throws SQLException {
+        connection.close();
+        postgres.stop();
+    }
+
+    @Test
+    void compareRandomAndTimeOrderedIds() throws SQLException {
+        Result random = run("random", "gen_random_uuid()", "gen_random_uuid()::TEXT",
+                UUID::randomUUID, () -> UUID.randomUUID().toString());
+        Result ordered = run("uuidv7", "uuid_generate_v7()", "uuid_generate_v7()::TEXT",
+                TimeOrderedIds::uuidV7, TimeOrderedIds::compactNumber);
+
+        System.out.printf("transactions: %,d preloaded rows, %,d inserted in batches of %d%n",
+                PRELOAD_ROWS, INSERT_ROWS, BATCH_SIZE);
+        System.out.println(random);
+        System.out.println(ordered);
+
+        assertTrue(ordered.pkeyBytes() < random.pkeyBytes(),
+                "UUIDv7 primary key index should be smaller than the random one");
+    }
+
+    private Result run(String name, String sqlId, String sqlNumber, Supplier<UUID> id, Supplier<String> number) throws SQLException {
+        String table = "transactions_bench_" + name;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + table);
+            /* Same columns and indexes as transactions, but without the foreign keys.  */
+            statement.execute("CREATE TABLE " + table + " (LIKE transactions INCLUDING DEFAULTS INCLUDING INDEXES INCLUDING CONSTRAINTS)");
+            statement.execute("""
+                    INSERT INTO %s (id, transaction_number, from_account_id, to_account_id, from_amount, from_currency_id,
+                                    to_amount, to_currency_id, recipient, payment_purpose, payment_date_time, status)
+                    SELECT %s, %s, gen_random_uuid(), gen_random_uuid(), 100, gen_random_uuid(),
+                           100, gen_random_uuid(), 'Benchmark', 'Benchmark', now(), 'REALIZED'
+                    FROM generate_series(1, %d)
+                    """.formatted(table, sqlId, sqlNumber, PRELOAD_ROWS));
+        }
+
+        connection.setAutoCommit(false);
+        long start = System.nanoTime();
+        try (PreparedStatement insert = connection.prepareStatement("""
+                INSERT INTO %s (id, transaction_number, from_account_id, to_account_id, from_amount, from_currency_id,
+                                to_amount, to_currency_id, recipient, payment_purpose, payment_date_time, status)
+                VALUES (?, ?, ?, ?, 100, ?, 100, ?, 'Benchmark', 'Benchmark', ?, 'REALIZED')
+                """.formatted(table))) {
+            UUID account = UUID.randomUUID();
+            UUID currency = UUID.randomUUID();
+            for (int i = 1; i <= INSERT_ROWS; i++) {
+                insert.setObject(1, id.get());
+                insert.setString(2, number.get());
+                insert.setObject(3, account);
+                insert.setObject(4, account);
+                insert.setObject(5, currency);
+                insert.setObject(6, currency);
+                insert.setTimestamp(7, Timestamp.valueOf(LocalDateTime.now()));
+                insert.addBatch();
+                if (i % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        return new Result(name, INSERT_ROWS / seconds,
+                indexSize(table, "id"), indexSize(table, "transaction_number"));
+    }
+
+    /**
+     * Size of the unique index leading with {@code column}.  Since transactions is partitioned,
+     * both unique indexes also carry payment_date_time as their second column.
+     */
+    private long indexSize(String table, String column) throws SQLException {
+        try (PreparedStatement query = connection.prepareStatement("""
+                SELECT pg_relation_size(i.indexrelid)
+                FROM pg_index i
+                JOIN pg_attribute a ON a.attrelid = i.indrelid AND a.attnum = i.indkey[0]
+                WHERE i.indrelid = ?::regclass AND i.indisunique AND a.attname = ?
+                """)) {
+            query.setString(1, table);
+            query.setString(2, column);
+            try (ResultSet result = query.executeQuery()) {
+                if (!result.next()) {
+                    throw new IllegalStateException("No unique index on " + table + " leads with " + column);
+                }
+                return result.getLong(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package rs.banka4.user_service.integration;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import rs.banka4.user_service.integration.utils.DbEnabledTest;
+import rs.banka4.user_service.repositories.AccountRepository;
+import rs.banka4.user_service.utils.ids.AccountNumberAllocator;
+import rs.banka4.user_service.utils.ids.Mod97;
+import rs.banka4.user_service.utils.ids.NumberBlockAllocator;
+
+/** Upgrades a database whose accounts got random serials before account
+ *  numbers came from a sequence, and allocates new numbers on it.  New
+ *  serials must start at the bottom of the range and step over the ones
+ *  the old accounts use.
+ */
+@SpringBootTest
+@DbEnabledTest
+public class AccountNumberSequenceTest {
+    /** Random serials with the old fixed suffixes, one at the very top.  */
+    private static final List<String> LEGACY_NUMBERS = List.of(
+        "444000100000000210",
+        "444000100000000320",
+        "444000100000005710",
+        "444000198765432110",
+        "444000199999999920"
+    );
+    private static final Set<Long> LEGACY_SERIALS = Set.of(2L, 3L, 57L, 987_654_321L, 999_999_999L);
+    private static final int ALLOCATED = 120;
+
+    @Autowired
+    private Flyway flyway;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @BeforeEach
+    void upgradeLegacyAccounts() {
+        flyway.clean();
+        /* The last schema before account_number_seq existed.  */
+        Flyway.configure()
+            .configuration(flyway.getConfiguration())
+            .target("25")
+            .load()
+            .migrate();
+        for (String number : LEGACY_NUMBERS) {
+            jdbcTemplate.update(
+                "INSERT INTO accounts (id, account_number, active) VALUES (gen_random_uuid(), ?, true)",
+                number
+            );
+        }
+        flyway.migrate();
+    }
+
+    @Test
+    void newSerialsStartLowAndSkipLegacyOnes() {
+        /* A fresh allocator, so no block cached from an earlier database is reused.  */
+        AccountNumberAllocator allocator = new AccountNumberAllocator(
+            new NumberBlockAllocator(jdbcTemplate), accountRepository);
+
+        List<Long> serials = new ArrayList<>();
+        for (int i = 0; i < ALLOCATED; i++) {
+            String number = allocator.next();
+            assertThat(number).hasSize(18).startsWith("4440001");
+            assertThat(Mod97.isValid(number)).isTrue();
+            serials.add(Long.parseLong(number.substring(7, 16)));
+        }
+
+        assertThat(serials).first().isEqualTo(1L);
+        assertThat(serials).doesNotContainAnyElementsOf(LEGACY_SERIALS);
+        assertThat(serials).isSorted().doesNotHaveDuplicates();
+        /* Every serial below the last one handed out is either new or legacy.  */
+        assertThat(serials.getLast()).isEqualTo(ALLOCATED + 3L);
+    }
+}
@@ -0,0 +1,107 @@
+package rs.banka4.user_service.integration;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import rs.banka4.user_service.exceptions.transaction.InsufficientFunds;
+import rs.banka4.user_service.integration.utils.DbEnabledTest;
+import rs.banka4.user_service.repositories.IdempotencyRecordRepository;
+import rs.banka4.user_service.service.impl.IdempotencyServiceImpl;
+import rs.banka4.user_service.utils.JwtUtil;
+
+/** Retries a request against a real idempotency_keys table after the
+ *  instance that first ran it lost its in-memory state, as after a crash.
+ *  Work that committed must be replayed, never run again; work that rolled
+ *  back must leave the key free.
+ */
+@SpringBootTest
+@DbEnabledTest
+public class IdempotencyRecoveryTest {
+    private static final String KEY = "7d2e4c1a-retry";
+    private static final String RECORD_ID = "client@example.com:" + KEY;
+    private static final String REQUEST = "pay 100 EUR";
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Authentication authentication;
+    private JwtUtil jwtUtil;
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        authentication = mock(Authentication.class);
+        when(authentication.getCredentials()).thenReturn("token");
+        jwtUtil = mock(JwtUtil.class);
+        when(jwtUtil.extractUsername("token")).thenReturn("client@example.com");
+    }
+
+    @Test
+    void committedWorkIsReplayedAfterTheLeaseWouldHaveExpired() {
+        assertThat(pay(newInstance(), false)).isEqualTo(1);
+
+        /* The first instance is gone, and its reservation is long past any lease.  */
+        jdbcTemplate.update("UPDATE idempotency_keys SET created_at = ? WHERE id = ?",
+            LocalDateTime.now().minusHours(1), RECORD_ID);
+
+        assertThat(pay(newInstance(), false)).isEqualTo(1);
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void rolledBackWorkLeavesTheKeyFree() {
+        IdempotencyServiceImpl instance = newInstance();
+        assertThatThrownBy(() -> pay(instance, true)).isInstanceOf(InsufficientFunds.class);
+
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM idempotency_keys WHERE id = ?", Integer.class, RECORD_ID
+        )).isZero();
+        assertThat(pay(newInstance(), false)).isEqualTo(2);
+    }
+
+    @Test
+    void rowWithoutResponseIsTakenOver() {
+        /* Left behind by a version that reserved keys outside the work's transaction.  */
+        jdbcTemplate.update("INSERT INTO idempotency_keys (id, request_hash, created_at) VALUES (?, 'stale', ?)",
+            RECORD_ID, LocalDateTime.now());
+
+        assertThat(pay(newInstance(), false)).isEqualTo(1);
+        assertThat(idempotencyRecordRepository.findById(RECORD_ID).orElseThrow().getResponse()).isEqualTo("1");
+    }
+
+    private IdempotencyServiceImpl newInstance() {
+        return new IdempotencyServiceImpl(idempotencyRecordRepository, objectMapper, jwtUtil, 24, 100);
+    }
+
+    /** Runs the "payment" the way the transaction service does, returning which run answered.  */
+    private Integer pay(IdempotencyServiceImpl instance, boolean fail) {
+        return instance.execute(authentication, KEY, REQUEST, Integer.class, () ->
+            transactionTemplate.execute(status -> instance.recordInTransaction(Integer.class, () -> {
+                int run = runs.incrementAndGet();
+                if (fail) {
+                    throw new InsufficientFunds();
+                }
+                return run;
+            }))
+        );
+    }
+}
@@ -0,0 +1,186 @@
+package rs.banka4.user_service.integration;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import rs.banka4.user_service.domain.account.db.Account;
+import rs.banka4.user_service.domain.account.db.AccountType;
+import rs.banka4.user_service.domain.currency.db.Currency;
+import rs.banka4.user_service.domain.loan.db.BankMargin;
+import rs.banka4.user_service.domain.loan.db.InterestRate;
+import rs.banka4.user_service.domain.loan.db.Loan;
+import rs.banka4.user_service.domain.loan.db.LoanStatus;
+import rs.banka4.user_service.domain.loan.db.LoanType;
+import rs.banka4.user_service.domain.user.Gender;
+import rs.banka4.user_service.domain.user.client.db.Client;
+import rs.banka4.user_service.exceptions.loan.InvalidLoanStatus;
+import rs.banka4.user_service.integration.generator.UserGenerator;
+import rs.banka4.user_service.integration.utils.DbEnabledTest;
+import rs.banka4.user_service.repositories.AccountRepository;
+import rs.banka4.user_service.repositories.BankMarginRepository;
+import rs.banka4.user_service.repositories.ClientRepository;
+import rs.banka4.user_service.repositories.CurrencyRepository;
+import rs.banka4.user_service.repositories.EmployeeRepository;
+import rs.banka4.user_service.repositories.InterestRateRepository;
+import rs.banka4.user_service.repositories.LoanRepository;
+import rs.banka4.user_service.service.abstraction.LoanService;
+import rs.banka4.user_service.utils.JwtUtil;
+
+/** Approves one loan from two threads at once: only one approval may go
+ *  through, and the loan must end up with a single installment plan.
+ */
+@SpringBootTest
+@DbEnabledTest
+public class LoanApprovalTest {
+    private static final int REPAYMENT_PERIOD = 12;
+    private static final long LOAN_NUMBER = 1000001L;
+
+    @Autowired
+    private LoanService loanService;
+    @Autowired
+    private JwtUtil jwtUtil;
+    @Autowired
+    private UserGenerator userGen;
+    @Autowired
+    private EmployeeRepository employeeRepo;
+    @Autowired
+    private ClientRepository clientRepo;
+    @Autowired
+    private AccountRepository accountRepo;
+    @Autowired
+    private CurrencyRepository currencyRepo;
+    @Autowired
+    private InterestRateRepository interestRateRepo;
+    @Autowired
+    private BankMarginRepository bankMarginRepo;
+    @Autowired
+    private LoanRepository loanRepo;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Loan loan;
+
+    @BeforeEach
+    void populate() {
+        Currency eur = currencyRepo.save(
+            Currency.builder()
+                .name("Euro")
+                .symbol("€")
+                .description("Official currency of the eurozone")
+                .active(true)
+                .code(Currency.Code.EUR)
+                .build()
+        );
+        InterestRate rate = interestRateRepo.save(
+            InterestRate.builder()
+                .minAmount(BigDecimal.ZERO)
+                .maxAmount(new BigDecimal("100000000"))
+                .fixedRate(new BigDecimal("6.25"))
+                .dateActiveFrom(LocalDate.of(2020, 1, 1))
+                .dateActiveTo(LocalDate.of(2100, 1, 1))
+                .build()
+        );
+        bankMarginRepo.save(
+            BankMargin.builder()
+                .type(LoanType.CASH)
+                .margin(new BigDecimal("1.75"))
+                .build()
+        );
+
+        Client client = clientRepo.save(
+            Client.builder()
+                .firstName("John")
+                .lastName("Doe")
+                .dateOfBirth(LocalDate.of(1990, 1, 1))
+                .gender(Gender.MALE)
+                .email("client@example.com")
+                .phone("123-456-7890")
+                .address("123 Main St")
+                .password(UserGenerator.TEST_PASSWORD_HASH)
+                .enabled(true)
+                .permissionBits(1L)
+                .accounts(new HashSet<>())
+                .build()
+        );
+        Account account = accountRepo.save(
+            Account.builder()
+                .accountNumber("444000100000000001")
+                .active(true)
+                .accountType(AccountType.STANDARD)
+                .client(client)
+                .currency(eur)
+                .build()
+        );
+        loan = loanRepo.saveAndFlush(
+            Loan.builder()
+                .loanNumber(LOAN_NUMBER)
+                .amount(new BigDecimal("12000"))
+                .repaymentPeriod(REPAYMENT_PERIOD)
+                .monthlyInstallment(new BigDecimal("1000"))
+                .remainingDebt(new BigDecimal("12000"))
+                .baseInterestRate(rate.getFixedRate())
+                .interestRate(rate)
+                .account(account)
+                .status(LoanStatus.PROCESSING)
+                .type(LoanType.CASH)
+                .interestType(Loan.InterestType.FIXED)
+                .build()
+        );
+    }
+
+    @Test
+    void concurrentApprovalsWriteOnePlan() throws Exception {
+        userGen.createEmployee(x -> x);
+        String token = jwtUtil.generateToken(employeeRepo.findByEmail("john.doe@example.com").orElseThrow());
+
+        CountDownLatch start = new CountDownLatch(1);
+        Callable<Void> approve = () -> {
+            start.await();
+            loanService.approveLoan(LOAN_NUMBER, token);
+            return null;
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        List<Future<Void>> approvals;
+        try {
+            approvals = List.of(pool.submit(approve), pool.submit(approve));
+            start.countDown();
+        } finally {
+            pool.shutdown();
+        }
+        assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        int succeeded = 0;
+        for (Future<Void> approval : approvals) {
+            try {
+                approval.get();
+                succeeded++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(InvalidLoanStatus.class);
+            }
+        }
+
+        assertThat(succeeded).isEqualTo(1);
+        assertThat(loanRepo.findById(loan.getId()).orElseThrow().getStatus()).isEqualTo(LoanStatus.APPROVED);
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT count(*) FROM loan_installments WHERE loan_id = ?", Integer.class, loan.getId()
+        )).isEqualTo(REPAYMENT_PERIOD);
+    }
+}
@@ -0,0 +1,212 @@
+package rs.banka4.user_service.integration;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import rs.banka4.user_service.domain.account.db.Account;
+import rs.banka4.user_service.domain.account.db.AccountType;
+import rs.banka4.user_service.domain.currency.db.Currency;
+import rs.banka4.user_service.domain.loan.db.InterestRate;
+import rs.banka4.user_service.domain.loan.db.Loan;
+import rs.banka4.user_service.domain.loan.db.LoanStatus;
+import rs.banka4.user_service.domain.loan.db.LoanType;
+import rs.banka4.user_service.domain.loan.dtos.LoanInformationDto;
+import rs.banka4.user_service.domain.user.Gender;
+import rs.banka4.user_service.domain.user.client.db.Client;
+import rs.banka4.user_service.integration.generator.UserGenerator;
+import rs.banka4.user_service.integration.utils.DbEnabledTest;
+import rs.banka4.user_service.repositories.AccountRepository;
+import rs.banka4.user_service.repositories.ClientRepository;
+import rs.banka4.user_service.repositories.CurrencyRepository;
+import rs.banka4.user_service.repositories.InterestRateRepository;
+import rs.banka4.user_service.repositories.LoanRepository;
+import rs.banka4.user_service.service.abstraction.LoanService;
+import rs.banka4.user_service.utils.JwtUtil;
+
+/** Lists a client's loans against a populated loans table: a few thousand
+ *  loans spread over other clients, and one client with loans on several
+ *  accounts, some of them still being processed.
+ */
+@SpringBootTest
+@DbEnabledTest
+public class LoanListingTest {
+    private static final int OTHER_CLIENTS = 500;
+    private static final int LOANS_PER_OTHER_ACCOUNT = 4;
+    private static final int CLIENT_ACCOUNTS = 3;
+    private static final int LOANS_PER_CLIENT_ACCOUNT = 20;
+    private static final int PAGE_SIZE = 10;
+
+    @Autowired
+    private LoanService loanService;
+    @Autowired
+    private JwtUtil jwtUtil;
+    @Autowired
+    private ClientRepository clientRepo;
+    @Autowired
+    private AccountRepository accountRepo;
+    @Autowired
+    private CurrencyRepository currencyRepo;
+    @Autowired
+    private InterestRateRepository interestRateRepo;
+    @Autowired
+    private LoanRepository loanRepo;
+
+    private Client client;
+    private long listedLoans;
+    private long loanNumber;
+    private long accountNumber;
+
+    @BeforeEach
+    void populate() {
+        Currency eur = currencyRepo.save(
+            Currency.builder()
+                .name("Euro")
+                .symbol("€")
+                .description("Official currency of the eurozone")
+                .active(true)
+                .code(Currency.Code.EUR)
+                .build()
+        );
+        InterestRate rate = interestRateRepo.save(
+            InterestRate.builder()
+                .minAmount(BigDecimal.ZERO)
+                .maxAmount(new BigDecimal("100000000"))
+                .fixedRate(new BigDecimal("6.25"))
+                .dateActiveFrom(LocalDate.of(2020, 1, 1))
+                .dateActiveTo(LocalDate.of(2100, 1, 1))
+                .build()
+        );
+
+        List<Client> clients = new ArrayList<>(OTHER_CLIENTS + 1);
+        for (int i = 0; i <= OTHER_CLIENTS; i++) {
+            clients.add(client("client" + i + "@example.com"));
+        }
+        clients = clientRepo.saveAll(clients);
+        client = clients.getFirst();
+
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < CLIENT_ACCOUNTS; i++) {
+            accounts.add(account(client, eur));
+        }
+        for (Client other : clients.subList(1, clients.size())) {
+            accounts.add(account(other, eur));
+            accounts.add(account(other, eur));
+        }
+        accounts = accountRepo.saveAll(accounts);
+
+        List<Loan> loans = new ArrayList<>();
+        for (int a = 0; a < accounts.size(); a++) {
+            Account account = accounts.get(a);
+            boolean ours = a < CLIENT_ACCOUNTS;
+            int count = ours ? LOANS_PER_CLIENT_ACCOUNT : LOANS_PER_OTHER_ACCOUNT;
+            for (int i = 0; i < count; i++) {
+                /* Every fourth loan is still an application; amounts repeat so ties must be broken.  */
+                LoanStatus status = i % 4 == 3 ? LoanStatus.PROCESSING : LoanStatus.APPROVED;
+                if (ours && status != LoanStatus.PROCESSING) {
+                    listedLoans++;
+                }
+                loans.add(loan(account, rate, status, BigDecimal.valueOf(1000L * (i % 7 + 1))));
+            }
+        }
+        loanRepo.saveAll(loans);
+        loanRepo.flush();
+    }
+
+    @Test
+    void pagesAreFullAndCountOnlyListedLoans() {
+        String token = jwtUtil.generateToken(client);
+        int pages = (int) ((listedLoans + PAGE_SIZE - 1) / PAGE_SIZE);
+
+        List<LoanInformationDto> seen = new ArrayList<>();
+        Set<Long> loanNumbers = new HashSet<>();
+        for (int p = 0; p < pages; p++) {
+            Page<LoanInformationDto> page = loanService.getMyLoans(token, PageRequest.of(p, PAGE_SIZE)).getBody();
+
+            assertThat(page).isNotNull();
+            assertThat(page.getTotalElements()).isEqualTo(listedLoans);
+            assertThat(page.getTotalPages()).isEqualTo(pages);
+            assertThat(page.getContent())
+                .hasSize((int) Math.min(PAGE_SIZE, listedLoans - (long) p * PAGE_SIZE))
+                .allSatisfy(loan -> {
+                    assertThat(loan.status()).isNotEqualTo(LoanStatus.PROCESSING);
+                    assertThat(loan.currency()).isNotNull();
+                    assertThat(loanNumbers.add(loan.loanNumber())).isTrue();
+                });
+            seen.addAll(page.getContent());
+        }
+
+        assertThat(seen).hasSize((int) listedLoans);
+        assertThat(seen).isSortedAccordingTo(
+            Comparator.comparing(LoanInformationDto::amount).reversed());
+    }
+
+    @Test
+    void pagePastTheEndIsEmpty() {
+        Page<LoanInformationDto> page = loanService.getMyLoans(
+            jwtUtil.generateToken(client),
+            PageRequest.of((int) (listedLoans / PAGE_SIZE) + 1, PAGE_SIZE)
+        ).getBody();
+
+        assertThat(page).isNotNull();
+        assertThat(page.getContent()).isEmpty();
+        assertThat(page.getTotalElements()).isEqualTo(listedLoans);
+    }
+
+    private Client client(String email) {
+        return Client.builder()
+            .firstName("John")
+            .lastName("Doe")
+            .dateOfBirth(LocalDate.of(1990, 1, 1))
+            .gender(Gender.MALE)
+            .email(email)
+            .phone("123-456-7890")
+            .address("123 Main St")
+            .password(UserGenerator.TEST_PASSWORD_HASH)
+            .enabled(true)
+            .permissionBits(1L)
+            .accounts(new HashSet<>())
+            .build();
+    }
+
+    private Account account(Client owner, Currency currency) {
+        return Account.builder()
+            .accountNumber("4440001%011d".formatted(++accountNumber))
+            .active(true)
+            .accountType(AccountType.STANDARD)
+            .client(owner)
+            .currency(currency)
+            .build();
+    }
+
+    private Loan loan(Account account, InterestRate rate, LoanStatus status, BigDecimal amount) {
+        return Loan.builder()
+            .loanNumber(++loanNumber)
+            .amount(amount)
+            .repaymentPeriod(60)
+            .agreementDate(LocalDate.of(2025, 1, 15))
+            .dueDate(LocalDate.of(2030, 1, 15))
+            .monthlyInstallment(amount.divide(BigDecimal.valueOf(50)))
+            .remainingDebt(amount)
+            .baseInterestRate(rate.getFixedRate())
+            .interestRate(rate)
+            .account(account)
+            .status(status)
+            .type(LoanType.CASH)
+            .interestType(Loan.InterestType.FIXED)
+            .build();
+    }
+}
@@ -0,0 +1,171 @@
+package rs.banka4.user_service.integration;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import rs.banka4.user_service.integration.utils.DbEnabledTest;
+import rs.banka4.user_service.utils.scheduling.SchedulerLeases;
+
+/** Two instances sharing a real scheduler_leases table, as two replicas
+ *  whose triggers fire at (nearly) the same time.
+ */
+@SpringBootTest
+@DbEnabledTest
+public class SchedulerLeasesTest {
+    private static final Duration TTL = Duration.ofMinutes(10);
+    private static final long MIN_HOLD_SECONDS = 30;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private SchedulerLeases first;
+    private SchedulerLeases second;
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        first = new SchedulerLeases(jdbcTemplate, "first", MIN_HOLD_SECONDS, 7);
+        second = new SchedulerLeases(jdbcTemplate, "second", MIN_HOLD_SECONDS, 7);
+    }
+
+    @Test
+    void exclusiveJobRunsOnceWhileTheOtherInstanceHoldsIt() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> running = executor.submit(() -> first.runExclusively("job", TTL, () -> {
+                runs.incrementAndGet();
+                started.countDown();
+                await(finish);
+            }));
+            await(started);
+
+            assertThat(second.runExclusively("job", TTL, runs::incrementAndGet)).isFalse();
+            finish.countDown();
+            assertThat(running.get(10, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        /* A trigger firing just after the job finished still finds the lease held.  */
+        assertThat(second.runExclusively("job", TTL, runs::incrementAndGet)).isFalse();
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void leaseOfADeadInstanceIsTakenOverOnceExpired() {
+        jdbcTemplate.update("""
+            INSERT INTO scheduler_leases (name, owner, acquired_at, expires_at)
+            VALUES ('job', 'dead', now() - INTERVAL '2 hours', now() - INTERVAL '1 hour')
+            """);
+
+        assertThat(second.runExclusively("job", TTL, runs::incrementAndGet)).isTrue();
+        assertThat(owner("job")).isEqualTo("second");
+    }
+
+    @Test
+    void completedRunNeverRunsAgain() {
+        assertThat(first.runOnce("penalties:2025-03-01", TTL, runs::incrementAndGet)).isTrue();
+
+        /* Long after the lease and any minimum hold would have run out.  */
+        jdbcTemplate.update("UPDATE scheduler_leases SET acquired_at = now() - INTERVAL '1 day', " +
+            "expires_at = now() - INTERVAL '1 day'");
+
+        assertThat(second.runOnce("penalties:2025-03-01", TTL, runs::incrementAndGet)).isFalse();
+        assertThat(first.runOnce("penalties:2025-03-01", TTL, runs::incrementAndGet)).isFalse();
+        assertThat(runs).hasValue(1);
+
+        assertThat(second.runOnce("penalties:2025-03-02", TTL, runs::incrementAndGet)).isTrue();
+        assertThat(runs).hasValue(2);
+    }
+
+    @Test
+    void failedRunIsLeftForAnotherInstance() {
+        assertThatThrownBy(() -> first.runOnce("penalties:2025-03-01", TTL, () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(second.runOnce("penalties:2025-03-01", TTL, runs::incrementAndGet)).isTrue();
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void concurrentInstancesRunEachRunOnce() throws Exception {
+        int instances = 4;
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(instances);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < instances; i++) {
+                SchedulerLeases instance = new SchedulerLeases(jdbcTemplate, "instance-" + i, MIN_HOLD_SECONDS, 7);
+                results.add(executor.submit(() -> {
+                    await(go);
+                    return instance.runOnce("penalties:2025-03-01", TTL, runs::incrementAndGet);
+                }));
+            }
+            go.countDown();
+
+            int ran = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(10, TimeUnit.SECONDS)) {
+                    ran++;
+                }
+            }
+            assertThat(ran).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void shardsAreSplitBetweenInstancesAndEachDoneOnce() {
+        ConcurrentHashMap<Integer, AtomicInteger> done = new ConcurrentHashMap<>();
+
+        SchedulerLeases.ShardReport failedOne = first.runShards("run", 4, TTL, shard -> {
+            done.computeIfAbsent(shard, s -> new AtomicInteger()).incrementAndGet();
+            return shard != 2;
+        });
+        SchedulerLeases.ShardReport rest = second.runShards("run", 4, TTL, shard -> {
+            done.computeIfAbsent(shard, s -> new AtomicInteger()).incrementAndGet();
+            return true;
+        });
+
+        assertThat(failedOne.claimed()).isEqualTo(4);
+        assertThat(failedOne.allCompleted()).isFalse();
+        assertThat(rest.claimed()).isEqualTo(1);
+        assertThat(rest.allCompleted()).isTrue();
+        assertThat(done.get(2)).hasValue(2);
+        assertThat(done.values()).filteredOn(count -> count.get() == 1).hasSize(3);
+    }
+
+    private String owner(String name) {
+        return jdbcTemplate.queryForObject("SELECT owner FROM scheduler_leases WHERE name = ?", String.class, name);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
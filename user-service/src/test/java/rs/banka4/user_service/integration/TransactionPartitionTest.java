@@ -0,0 +1,83 @@
+package rs.banka4.user_service.integration;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import rs.banka4.user_service.integration.utils.DbEnabledTest;
+
+/** Creates a monthly partition of transactions while the default partition
+ *  already holds rows for that month, as it does after maintenance has not
+ *  run for a while.
+ */
+@SpringBootTest
+@DbEnabledTest
+public class TransactionPartitionTest {
+    private static final LocalDateTime FAR_AHEAD = LocalDateTime.of(2099, 1, 15, 10, 0);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID account;
+    private UUID currency;
+
+    @BeforeEach
+    void setUp() {
+        account = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO accounts (id, account_number, active) VALUES (?, '444000100000000142', true)",
+            account);
+        currency = jdbcTemplate.queryForObject("SELECT id FROM currencies LIMIT 1", UUID.class);
+    }
+
+    @Test
+    void defaultRowsMoveIntoTheNewPartition() {
+        UUID first = insertPayment(FAR_AHEAD);
+        UUID second = insertPayment(FAR_AHEAD.plusDays(10));
+        UUID nextMonth = insertPayment(FAR_AHEAD.plusMonths(1));
+        assertThat(count("transactions_default")).isEqualTo(3);
+
+        String partition = jdbcTemplate.queryForObject(
+            "SELECT create_transactions_partition(?)", String.class, FAR_AHEAD.toLocalDate());
+
+        assertThat(partition).isEqualTo("transactions_p209901");
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM transactions_p209901", UUID.class))
+            .containsExactlyInAnyOrder(first, second);
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM transactions_default", UUID.class))
+            .containsExactly(nextMonth);
+        assertThat(count("transactions")).isEqualTo(3);
+    }
+
+    @Test
+    void existingPartitionIsLeftAlone() {
+        jdbcTemplate.queryForObject("SELECT create_transactions_partition(?)", String.class, FAR_AHEAD.toLocalDate());
+        UUID payment = insertPayment(FAR_AHEAD);
+
+        jdbcTemplate.queryForObject("SELECT create_transactions_partition(?)", String.class, FAR_AHEAD.toLocalDate());
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM transactions_p209901", UUID.class))
+            .containsExactly(payment);
+        assertThat(count("transactions_default")).isZero();
+    }
+
+    private UUID insertPayment(LocalDateTime at) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("""
+            INSERT INTO transactions (id, transaction_number, from_account_id, to_account_id, from_amount,
+                                      from_currency_id, to_amount, to_currency_id, recipient, payment_purpose,
+                                      payment_date_time, status)
+            VALUES (?, ?, ?, ?, 100, ?, 100, ?, 'Partition test', 'Partition test', ?, 'REALIZED')
+            """, id, id.toString(), account, account, currency, currency, at);
+        return id;
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Long.class);
+    }
+}
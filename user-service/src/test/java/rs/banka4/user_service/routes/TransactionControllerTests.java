@@ -12,23 +12,38 @@ import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import rs.banka4.user_service.controller.TransactionController;
 import rs.banka4.user_service.domain.transaction.dtos.CreatePaymentDto;
 import rs.banka4.user_service.domain.transaction.dtos.TransactionDto;
+import rs.banka4.user_service.domain.transaction.dtos.TransactionExportFormat;
+import rs.banka4.user_service.domain.transaction.dtos.TransactionSliceDto;
 import rs.banka4.user_service.generator.TransactionObjectMother;
+import rs.banka4.user_service.service.abstraction.IdempotencyService;
+import rs.banka4.user_service.service.abstraction.TransactionExportService;
 import rs.banka4.user_service.service.abstraction.TransactionService;
 import rs.banka4.user_service.service.impl.CustomUserDetailsService;
 import rs.banka4.user_service.utils.JwtUtil;
 import rs.banka4.user_service.util.MockMvcUtil;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(TransactionController.class)
 @Import(TransactionControllerTests.MockBeansConfig.class)
@@ -40,12 +55,18 @@ public class TransactionControllerTests {
     private ObjectMapper objectMapper;
     @Autowired
     private TransactionService transactionService;
+    @Autowired
+    private TransactionExportService transactionExportService;
+    @Autowired
+    private IdempotencyService idempotencyService;
 
     private MockMvcUtil mockMvcUtil;
 
     @BeforeEach
     void setUp() {
         mockMvcUtil = new MockMvcUtil(mockMvc, objectMapper);
+        Mockito.when(idempotencyService.execute(any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(4).get());
     }
 
     @Test
@@ -57,6 +78,16 @@ public class TransactionControllerTests {
         mockMvcUtil.performRequest(get("/transaction/search"), page);
     }
 
+    @Test
+    @WithMockUser(username = "user")
+    void testGetTransactionsByCursor() throws Exception {
+        TransactionSliceDto slice = new TransactionSliceDto(
+                List.of(TransactionObjectMother.generateBasicTransactionDto()), "bmV4dA");
+        Mockito.when(transactionService.getTransactionsForClientByCursor(any(), any(), any(), any(), any(), eq("Y3Vyc29y"), eq(10)))
+                .thenReturn(slice);
+        mockMvcUtil.performRequest(get("/transaction/search/cursor").param("cursor", "Y3Vyc29y"), slice);
+    }
+
     @Test
     @WithMockUser(username = "user")
     void testGetTransaction() throws Exception {
@@ -75,6 +106,42 @@ public class TransactionControllerTests {
         mockMvcUtil.performPostRequest(post("/transaction/payment"), createPaymentDto);
     }
 
+    @Test
+    @WithMockUser(username = "user")
+    void testCreateTransactionAsync() throws Exception {
+        CreatePaymentDto createPaymentDto = TransactionObjectMother.generateBasicCreatePaymentDto();
+        TransactionDto transactionDto = TransactionObjectMother.generateBasicTransactionDto();
+        Mockito.when(transactionService.createTransactionAsync(any(), any(CreatePaymentDto.class))).thenReturn(transactionDto);
+        mockMvc.perform(post("/transaction/payment/async")
+                        .with(SecurityMockMvcRequestPostProcessors.csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Authorization", "Bearer dummyToken")
+                        .content(objectMapper.writeValueAsString(createPaymentDto)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/transaction/" + transactionDto.id()));
+    }
+
+    @Test
+    @WithMockUser(username = "user")
+    void testExportTransactions() throws Exception {
+        StreamingResponseBody body = outputStream -> outputStream.write("id\n".getBytes(StandardCharsets.UTF_8));
+        Mockito.when(transactionExportService.exportTransactions(any(), eq("444394438340549"), any(), any(), eq(TransactionExportFormat.CSV)))
+                .thenReturn(body);
+
+        MvcResult result = mockMvc.perform(get("/transaction/export")
+                        .param("accountNumber", "444394438340549")
+                        .param("from", "2025-01-01")
+                        .param("to", "2025-12-31")
+                        .header("Authorization", "Bearer dummyToken"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/csv"))
+                .andExpect(content().string("id\n"));
+    }
+
     @TestConfiguration
     static class MockBeansConfig {
         @Bean
@@ -82,6 +149,16 @@ public class TransactionControllerTests {
             return Mockito.mock(TransactionService.class);
         }
 
+        @Bean
+        public IdempotencyService idempotencyService() {
+            return Mockito.mock(IdempotencyService.class);
+        }
+
+        @Bean
+        public TransactionExportService transactionExportService() {
+            return Mockito.mock(TransactionExportService.class);
+        }
+
         @Bean
         public JwtUtil jwtUtil() {
             return Mockito.mock(JwtUtil.class);
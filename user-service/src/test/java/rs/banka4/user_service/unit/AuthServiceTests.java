@@ -5,7 +5,6 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import rs.banka4.user_service.domain.auth.dtos.LogoutDto;
 import rs.banka4.user_service.domain.auth.dtos.RefreshTokenResponseDto;
 import rs.banka4.user_service.domain.auth.dtos.UserVerificationRequestDto;
@@ -21,6 +20,7 @@ import rs.banka4.user_service.service.abstraction.EmployeeService;
 import rs.banka4.user_service.service.impl.AuthServiceImpl;
 import rs.banka4.user_service.service.impl.VerificationCodeService;
 import rs.banka4.user_service.utils.JwtUtil;
+import rs.banka4.user_service.utils.notifications.NotificationOutbox;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -38,7 +38,7 @@ public class AuthServiceTests {
     @Mock
     private VerificationCodeService verificationCodeService;
     @Mock
-    private RabbitTemplate rabbitTemplate;
+    private NotificationOutbox notificationOutbox;
     @Mock
     private EmployeeService employeeService;
     @Mock
@@ -189,7 +189,7 @@ public class AuthServiceTests {
         authService.forgotPassword(email);
 
         // Assert
-        verify(rabbitTemplate, times(1)).convertAndSend(anyString(), anyString(), Optional.ofNullable(any()));
+        verify(notificationOutbox, times(1)).enqueue(any());
     }
 
     @Test
@@ -213,7 +213,7 @@ public class AuthServiceTests {
 
         when(verificationCodeService.createVerificationCode(email)).thenReturn(verificationCode);
         when(employeeService.findEmployeeByEmail(email)).thenReturn(Optional.of(employee));
-        doThrow(new RuntimeException("Message send failure")).when(rabbitTemplate).convertAndSend(anyString(), anyString(), Optional.ofNullable(any()));
+        doThrow(new RuntimeException("Outbox write failure")).when(notificationOutbox).enqueue(any());
 
         // Act & Assert
         assertThrows(RuntimeException.class, () -> authService.forgotPassword(email));
@@ -0,0 +1,88 @@
+package rs.banka4.user_service.unit.account;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import rs.banka4.user_service.domain.account.dtos.AccountDto;
+import rs.banka4.user_service.generator.AccountObjectMother;
+import rs.banka4.user_service.utils.accounts.AccountOverviewCache;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountOverviewCacheTests {
+
+    private AccountOverviewCache cache;
+    private UUID clientId;
+    private AtomicInteger loads;
+    private Set<AccountDto> overview;
+
+    @BeforeEach
+    void setUp() {
+        cache = new AccountOverviewCache(100, 300);
+        clientId = UUID.randomUUID();
+        loads = new AtomicInteger();
+        overview = Set.of(AccountObjectMother.generateBasicAccountDto());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testOverviewIsLoadedOnce() {
+        assertEquals(overview, cache.get(clientId, this::load));
+        assertEquals(overview, cache.get(clientId, this::load));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testEvictionForcesReload() {
+        cache.get(clientId, this::load);
+
+        cache.evict(clientId);
+        cache.get(clientId, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testLoadRacingAnEvictionIsNotCached() {
+        cache.get(clientId, () -> {
+            cache.evict(clientId);
+            return load();
+        });
+        cache.get(clientId, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testEvictionIsRepeatedAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        cache.evict(clientId);
+        /* A reader between the write and the commit still sees the old state...  */
+        cache.get(clientId, this::load);
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        cache.get(clientId, this::load);
+
+        /* ...which must not survive the commit.  */
+        assertEquals(2, loads.get());
+    }
+
+    private Set<AccountDto> load() {
+        loads.incrementAndGet();
+        return overview;
+    }
+}
@@ -0,0 +1,206 @@
+package rs.banka4.user_service.unit.account;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import rs.banka4.user_service.utils.accounts.AccountOverviewCache;
+import rs.banka4.user_service.utils.accounts.MaintenanceFeeJob;
+import rs.banka4.user_service.utils.accounts.MaintenanceFeeReport;
+import rs.banka4.user_service.utils.scheduling.SchedulerLeases;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class MaintenanceFeeJobTests {
+
+    private static final YearMonth PERIOD = YearMonth.of(2025, 3);
+
+    private JdbcTemplate jdbcTemplate;
+    private AccountOverviewCache accountOverviewCache;
+    private SchedulerLeases schedulerLeases;
+    private MaintenanceFeeJob job;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        accountOverviewCache = mock(AccountOverviewCache.class);
+        schedulerLeases = mock(SchedulerLeases.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        job = new MaintenanceFeeJob(jdbcTemplate, transactionTemplate, accountOverviewCache, schedulerLeases, 1000, 2);
+    }
+
+    @Test
+    void testNewRunIsSplitIntoChunksAndCharged() {
+        UUID first = UUID.fromString("40000000-0000-0000-0000-000000000000");
+        UUID second = UUID.fromString("80000000-0000-0000-0000-000000000000");
+        when(jdbcTemplate.update(startsWith("INSERT INTO maintenance_fee_runs"), any(), eq(LocalDate.of(2025, 3, 1)), any()))
+                .thenReturn(1);
+        when(jdbcTemplate.queryForList(contains("row_number()"), eq(UUID.class), eq(1000))).thenReturn(List.of(first, second));
+        when(jdbcTemplate.queryForList(contains("status = 'PENDING' ORDER BY chunk_no"), eq(Integer.class), any(UUID.class)))
+                .thenReturn(List.of(0, 1, 2));
+        when(jdbcTemplate.queryForList(contains("FOR UPDATE SKIP LOCKED"), any(UUID.class), anyInt()))
+                .thenReturn(List.of(Map.of()));
+        when(jdbcTemplate.queryForObject(contains("UPDATE accounts a"), eq(Long.class), any(Object[].class))).thenReturn(1000L, 1000L, 400L);
+        when(jdbcTemplate.update(contains("SET status = 'COMPLETED'"), any(), any(UUID.class))).thenReturn(1);
+        List<Object[]> rows = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(startsWith("INSERT INTO maintenance_fee_chunks"), anyList())).thenAnswer(invocation -> {
+            rows.addAll(invocation.getArgument(1));
+            return new int[0];
+        });
+
+        MaintenanceFeeReport report = job.charge(PERIOD);
+
+        assertEquals(3, rows.size());
+        assertNull(rows.get(0)[2]);
+        assertEquals(first, rows.get(0)[3]);
+        assertEquals(first, rows.get(1)[2]);
+        assertEquals(second, rows.get(1)[3]);
+        assertEquals(second, rows.get(2)[2]);
+        assertNull(rows.get(2)[3]);
+
+        verify(jdbcTemplate, times(3)).update(startsWith("UPDATE maintenance_fee_chunks SET status = 'DONE'"), any(), any(), any(), any());
+        assertEquals(2400, report.accountsCharged());
+        assertEquals(3, report.chunks());
+        assertTrue(report.completed());
+        verify(accountOverviewCache).evictAll();
+    }
+
+    @Test
+    void testResumedRunIsNotReplannedAndSkipsClaimedChunks() {
+        UUID runId = UUID.randomUUID();
+        when(jdbcTemplate.update(startsWith("INSERT INTO maintenance_fee_runs"), any(), any(), any())).thenReturn(0);
+        when(jdbcTemplate.queryForList(contains("status = 'RUNNING'"), eq(UUID.class), any(LocalDate.class))).thenReturn(List.of(runId));
+        when(jdbcTemplate.queryForList(contains("status = 'PENDING' ORDER BY chunk_no"), eq(Integer.class), eq(runId)))
+                .thenReturn(List.of(4, 5));
+        /* Chunk 4 is being charged by another instance.  */
+        when(jdbcTemplate.queryForList(contains("FOR UPDATE SKIP LOCKED"), eq(runId), eq(4))).thenReturn(List.of());
+        when(jdbcTemplate.queryForList(contains("FOR UPDATE SKIP LOCKED"), eq(runId), eq(5))).thenReturn(List.of(Map.of()));
+        when(jdbcTemplate.queryForObject(contains("UPDATE accounts a"), eq(Long.class), any(Object[].class))).thenReturn(700L);
+
+        MaintenanceFeeReport report = job.charge(PERIOD);
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        verify(jdbcTemplate, times(1)).queryForObject(contains("UPDATE accounts a"), eq(Long.class), any(Object[].class));
+        assertEquals(700, report.accountsCharged());
+    }
+
+    @Test
+    void testFinishedMonthIsNotChargedAgain() {
+        when(jdbcTemplate.update(startsWith("INSERT INTO maintenance_fee_runs"), any(), any(), any())).thenReturn(0);
+        when(jdbcTemplate.queryForList(contains("status = 'RUNNING'"), eq(UUID.class), any(LocalDate.class))).thenReturn(List.of());
+
+        MaintenanceFeeReport report = job.charge(PERIOD);
+
+        assertTrue(report.completed());
+        assertEquals(0, report.accountsCharged());
+        verify(jdbcTemplate, never()).queryForObject(contains("UPDATE accounts a"), eq(Long.class), any(Object[].class));
+    }
+
+    @Test
+    void testFailedChunkLeavesRunOpen() {
+        when(jdbcTemplate.update(startsWith("INSERT INTO maintenance_fee_runs"), any(), any(), any())).thenReturn(1);
+        when(jdbcTemplate.queryForList(contains("row_number()"), eq(UUID.class), anyInt())).thenReturn(List.of());
+        when(jdbcTemplate.queryForList(contains("status = 'PENDING' ORDER BY chunk_no"), eq(Integer.class), any(UUID.class)))
+                .thenReturn(List.of(0));
+        when(jdbcTemplate.queryForList(contains("FOR UPDATE SKIP LOCKED"), any(UUID.class), anyInt())).thenReturn(List.of(Map.of()));
+        when(jdbcTemplate.queryForObject(contains("UPDATE accounts a"), eq(Long.class), any(Object[].class)))
+                .thenThrow(new IllegalStateException("connection reset"));
+
+        MaintenanceFeeReport report = job.charge(PERIOD);
+
+        assertFalse(report.completed());
+        verify(jdbcTemplate, never()).update(contains("SET status = 'COMPLETED'"), any(), any());
+    }
+
+    @Test
+    void testFeeEntriesAreStampedWhenTheirChunkInsertsThem() {
+        UUID runId = UUID.randomUUID();
+        when(jdbcTemplate.update(startsWith("INSERT INTO maintenance_fee_runs"), any(), any(), any())).thenReturn(0);
+        when(jdbcTemplate.queryForList(contains("status = 'RUNNING'"), eq(UUID.class), any(LocalDate.class))).thenReturn(List.of(runId));
+        when(jdbcTemplate.queryForList(contains("status = 'PENDING' ORDER BY chunk_no"), eq(Integer.class), eq(runId)))
+                .thenReturn(List.of(0));
+        when(jdbcTemplate.queryForList(contains("FOR UPDATE SKIP LOCKED"), eq(runId), eq(0))).thenReturn(List.of(Map.of()));
+        List<Object> arguments = new ArrayList<>();
+        when(jdbcTemplate.queryForObject(contains("UPDATE accounts a"), eq(Long.class), any(Object[].class))).thenAnswer(invocation -> {
+            arguments.addAll(Arrays.asList(invocation.getArguments()));
+            return 10L;
+        });
+
+        job.charge(PERIOD);
+
+        /* No timestamp from the start of the run: the database stamps each entry on insert.  */
+        assertFalse(((String) arguments.getFirst()).contains("posted_at"));
+        assertTrue(arguments.stream().noneMatch(LocalDateTime.class::isInstance));
+    }
+
+    @Test
+    void testSweepRetriesRunsLeftOpenByAFailedChunk() {
+        UUID runId = UUID.randomUUID();
+        when(schedulerLeases.runExclusively(eq("accounts.maintenance-fee.retry"), any(), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(2).run();
+            return true;
+        });
+        when(jdbcTemplate.queryForList(contains("WHERE status = 'RUNNING' ORDER BY period"), eq(Date.class)))
+                .thenReturn(List.of(Date.valueOf(LocalDate.of(2025, 3, 1))));
+        when(jdbcTemplate.update(startsWith("INSERT INTO maintenance_fee_runs"), any(), any(), any())).thenReturn(0);
+        when(jdbcTemplate.queryForList(contains("status = 'RUNNING'"), eq(UUID.class), eq(LocalDate.of(2025, 3, 1))))
+                .thenReturn(List.of(runId));
+        when(jdbcTemplate.queryForList(contains("status = 'PENDING' ORDER BY chunk_no"), eq(Integer.class), eq(runId)))
+                .thenReturn(List.of(2));
+        when(jdbcTemplate.queryForList(contains("FOR UPDATE SKIP LOCKED"), eq(runId), eq(2))).thenReturn(List.of(Map.of()));
+        when(jdbcTemplate.queryForObject(contains("UPDATE accounts a"), eq(Long.class), any(Object[].class))).thenReturn(300L);
+        when(jdbcTemplate.update(contains("SET status = 'COMPLETED'"), any(), eq(runId))).thenReturn(1);
+
+        job.retryUnfinishedRuns();
+
+        verify(jdbcTemplate).update(startsWith("UPDATE maintenance_fee_chunks SET status = 'DONE'"), eq(300L), any(), eq(runId), eq(2));
+        verify(jdbcTemplate).update(contains("SET status = 'COMPLETED'"), any(), eq(runId));
+    }
+
+    @Test
+    void testSweepSkipsWhenAnotherInstanceHoldsTheLease() {
+        when(schedulerLeases.runExclusively(eq("accounts.maintenance-fee.retry"), any(), any())).thenReturn(false);
+
+        job.retryUnfinishedRuns();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testChunkRowsAreLockedInIdOrderBeforeTheyAreCharged() {
+        UUID runId = UUID.randomUUID();
+        when(jdbcTemplate.update(startsWith("INSERT INTO maintenance_fee_runs"), any(), any(), any())).thenReturn(0);
+        when(jdbcTemplate.queryForList(contains("status = 'RUNNING'"), eq(UUID.class), any(LocalDate.class))).thenReturn(List.of(runId));
+        when(jdbcTemplate.queryForList(contains("status = 'PENDING' ORDER BY chunk_no"), eq(Integer.class), eq(runId)))
+                .thenReturn(List.of(0));
+        when(jdbcTemplate.queryForList(contains("FOR UPDATE SKIP LOCKED"), eq(runId), eq(0))).thenReturn(List.of(Map.of()));
+        List<String> statements = new ArrayList<>();
+        when(jdbcTemplate.queryForObject(contains("UPDATE accounts a"), eq(Long.class), any(Object[].class))).thenAnswer(invocation -> {
+            statements.add(invocation.getArgument(0));
+            return 10L;
+        });
+
+        job.charge(PERIOD);
+
+        assertEquals(1, statements.size());
+        String charge = statements.getFirst();
+        assertTrue(charge.indexOf("ORDER BY a.id") < charge.indexOf("FOR UPDATE"));
+        assertTrue(charge.indexOf("FOR UPDATE") < charge.indexOf("UPDATE accounts a"));
+        assertTrue(charge.contains("WHERE a.id = l.id"));
+    }
+}
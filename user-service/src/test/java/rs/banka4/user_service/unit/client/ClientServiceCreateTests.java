@@ -5,7 +5,6 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import rs.banka4.user_service.domain.auth.dtos.NotificationTransferDto;
 import rs.banka4.user_service.domain.user.client.dtos.CreateClientDto;
 import rs.banka4.user_service.domain.user.client.db.Client;
@@ -17,6 +16,7 @@ import rs.banka4.user_service.service.impl.ClientServiceImpl;
 import rs.banka4.user_service.service.impl.UserService;
 import rs.banka4.user_service.service.impl.VerificationCodeService;
 import rs.banka4.user_service.generator.ClientObjectMother;
+import rs.banka4.user_service.utils.notifications.NotificationOutbox;
 
 import java.util.Optional;
 
@@ -28,7 +28,7 @@ public class ClientServiceCreateTests {
     @Mock
     private ClientRepository clientRepository;
     @Mock
-    private RabbitTemplate rabbitTemplate;
+    private NotificationOutbox notificationOutbox;
     @Mock
     private UserService userService;
     @Mock
@@ -45,7 +45,7 @@ public class ClientServiceCreateTests {
     @Test
     void testCreateClientSuccess() {
         // Arrange
-        userService = new UserService(employeeRepository, clientRepository, verificationCodeService, rabbitTemplate);
+        userService = new UserService(employeeRepository, clientRepository, verificationCodeService, notificationOutbox);
         clientService = new ClientServiceImpl(userService, clientRepository, null, null, null, null, null);
 
         CreateClientDto createClientDto = ClientObjectMother.generateBasicCreateClientDto();
@@ -61,7 +61,7 @@ public class ClientServiceCreateTests {
 
         // Assert
         verify(clientRepository, times(1)).save(any(Client.class));
-        verify(rabbitTemplate, times(1)).convertAndSend(anyString(), anyString(), any(NotificationTransferDto.class));
+        verify(notificationOutbox, times(1)).enqueue(any(NotificationTransferDto.class));
     }
 
     @Test
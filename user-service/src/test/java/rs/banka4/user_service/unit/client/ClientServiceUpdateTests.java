@@ -14,6 +14,7 @@ import rs.banka4.user_service.exceptions.user.DuplicateEmail;
 import rs.banka4.user_service.repositories.ClientRepository;
 import rs.banka4.user_service.service.impl.ClientServiceImpl;
 import rs.banka4.user_service.service.impl.UserService;
+import rs.banka4.user_service.utils.accounts.AccountOverviewCache;
 
 import java.time.LocalDate;
 import java.util.Optional;
@@ -30,6 +31,8 @@ public class ClientServiceUpdateTests {
     private ClientRepository clientRepository;
     @Mock
     private UserService userService;
+    @Mock
+    private AccountOverviewCache accountOverviewCache;
     @InjectMocks
     private ClientServiceImpl clientService;
 
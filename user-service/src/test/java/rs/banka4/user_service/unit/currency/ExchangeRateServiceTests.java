@@ -0,0 +1,124 @@
+package rs.banka4.user_service.unit.currency;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.TaskScheduler;
+import rs.banka4.user_service.domain.currency.db.Currency;
+import rs.banka4.user_service.exceptions.transaction.ExchangeRatesUnavailable;
+import rs.banka4.user_service.service.impl.ExchangeRateServiceImpl;
+import rs.banka4.user_service.utils.exchange.ExchangeRateClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ExchangeRateServiceTests {
+
+    private static final long NEXT_UPDATE = Instant.now().plusSeconds(3600).getEpochSecond();
+    private static final String RATES = """
+            {
+              "lastUpdatedUnix": 1741478401,
+              "nextUpdateUnix": %d,
+              "exchanges": {
+                "EUR": {"Base": "EUR", "Quote": "RSD", "Buy": 116, "Neutral": 117, "Sell": 118},
+                "USD": {"Base": "USD", "Quote": "RSD", "Buy": 106, "Neutral": 107, "Sell": 108},
+                "GBP": {"Base": "GBP", "Quote": "RSD", "Buy": 137, "Neutral": 139, "Sell": 140}
+              }
+            }
+            """.formatted(NEXT_UPDATE);
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int status = 200;
+
+    private TaskScheduler taskScheduler;
+    private ExchangeRateServiceImpl exchangeRateService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/exchange-rate", exchange -> {
+            requests.incrementAndGet();
+            byte[] body = (status == 200 ? RATES : "{\"failed\":true,\"code\":\"ExchangeRateFetchFailed\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        ExchangeRateClient client = new ExchangeRateClient("http://127.0.0.1:" + server.getAddress().getPort(), 2000);
+        taskScheduler = mock(TaskScheduler.class);
+        exchangeRateService = new ExchangeRateServiceImpl(client, taskScheduler, 330, 30);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testConvertsWithBuyAndSellRates() {
+        exchangeRateService.refresh();
+
+        /* The bank buys EUR at 116 and sells USD at 108.  */
+        assertEquals(new BigDecimal("1160.00"), exchangeRateService.convert(BigDecimal.TEN, Currency.Code.EUR, Currency.Code.RSD));
+        assertEquals(new BigDecimal("1.00"), exchangeRateService.convert(new BigDecimal("118"), Currency.Code.RSD, Currency.Code.EUR));
+        assertEquals(new BigDecimal("10.74"), exchangeRateService.convert(BigDecimal.TEN, Currency.Code.EUR, Currency.Code.USD));
+        assertEquals(BigDecimal.TEN, exchangeRateService.convert(BigDecimal.TEN, Currency.Code.EUR, Currency.Code.EUR));
+    }
+
+    @Test
+    void testConversionsDoNotCallExchangeOffice() {
+        exchangeRateService.refresh();
+
+        for (int i = 0; i < 100; i++) {
+            exchangeRateService.convert(BigDecimal.ONE, Currency.Code.EUR, Currency.Code.USD);
+        }
+
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void testNextRefreshFollowsAnnouncedUpdate() {
+        exchangeRateService.refresh();
+
+        verify(taskScheduler).schedule(any(Runnable.class), eq(Instant.ofEpochSecond(NEXT_UPDATE).plusSeconds(330)));
+    }
+
+    @Test
+    void testStaleRatesAreServedWhileExchangeOfficeIsDown() {
+        exchangeRateService.refresh();
+        status = 503;
+
+        exchangeRateService.refresh();
+
+        assertEquals(2, requests.get());
+        assertEquals(new BigDecimal("1160.00"), exchangeRateService.convert(BigDecimal.TEN, Currency.Code.EUR, Currency.Code.RSD));
+        /* The failed refresh is retried after retry-seconds instead of waiting for the next update.  */
+        verify(taskScheduler, times(2)).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void testNoRatesBeforeFirstSuccessfulFetch() {
+        status = 503;
+        exchangeRateService.refresh();
+
+        assertThrows(ExchangeRatesUnavailable.class,
+                () -> exchangeRateService.convert(BigDecimal.TEN, Currency.Code.EUR, Currency.Code.RSD));
+        assertEquals(BigDecimal.TEN, exchangeRateService.convert(BigDecimal.TEN, Currency.Code.RSD, Currency.Code.RSD));
+    }
+}
@@ -0,0 +1,54 @@
+package rs.banka4.user_service.unit.ids;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rs.banka4.user_service.repositories.AccountRepository;
+import rs.banka4.user_service.utils.ids.AccountNumberAllocator;
+import rs.banka4.user_service.utils.ids.Mod97;
+import rs.banka4.user_service.utils.ids.NumberBlockAllocator;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class AccountNumberAllocatorTests {
+
+    private NumberBlockAllocator numberBlockAllocator;
+    private AccountRepository accountRepository;
+    private AccountNumberAllocator allocator;
+
+    @BeforeEach
+    void setUp() {
+        numberBlockAllocator = mock(NumberBlockAllocator.class);
+        accountRepository = mock(AccountRepository.class);
+        allocator = new AccountNumberAllocator(numberBlockAllocator, accountRepository);
+    }
+
+    @Test
+    void testNumberIsSerialWithControlDigits() {
+        when(numberBlockAllocator.next("account_number_seq")).thenReturn(42L);
+
+        String number = allocator.next();
+
+        assertEquals("4440001000000042" + Mod97.checkDigits("4440001000000042"), number);
+        assertTrue(Mod97.isValid(number));
+        verify(accountRepository).existsByAccountNumberLike("4440001000000042__");
+    }
+
+    @Test
+    void testSerialsOfExistingAccountsAreSkipped() {
+        when(numberBlockAllocator.next("account_number_seq")).thenReturn(7L, 8L, 9L);
+        when(accountRepository.existsByAccountNumberLike("4440001000000007__")).thenReturn(true);
+        when(accountRepository.existsByAccountNumberLike("4440001000000008__")).thenReturn(true);
+
+        assertTrue(allocator.next().startsWith("4440001000000009"));
+    }
+
+    @Test
+    void testExhaustedSpaceIsReported() {
+        when(numberBlockAllocator.next("account_number_seq")).thenReturn(1_000_000_000L);
+
+        assertThrows(IllegalStateException.class, () -> allocator.next());
+        verify(accountRepository, never()).existsByAccountNumberLike(anyString());
+    }
+}
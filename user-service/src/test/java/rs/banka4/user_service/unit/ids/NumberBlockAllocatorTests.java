@@ -0,0 +1,83 @@
+package rs.banka4.user_service.unit.ids;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import rs.banka4.user_service.utils.ids.Mod97;
+import rs.banka4.user_service.utils.ids.NumberBlockAllocator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class NumberBlockAllocatorTests {
+    private static final long BLOCK_SIZE = 50;
+
+    private JdbcTemplate jdbcTemplate;
+    private NumberBlockAllocator allocator;
+    private final AtomicLong sequence = new AtomicLong(1);
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject(contains("pg_sequences"), eq(Long.class), anyString())).thenReturn(BLOCK_SIZE);
+        when(jdbcTemplate.queryForObject(contains("nextval"), eq(Long.class), anyString()))
+                .thenAnswer(invocation -> sequence.getAndAdd(BLOCK_SIZE));
+        allocator = new NumberBlockAllocator(jdbcTemplate);
+    }
+
+    @Test
+    void testOneRoundTripPerBlock() {
+        for (int i = 0; i < 120; i++) {
+            assertEquals(i + 1, allocator.next("account_number_seq"));
+        }
+
+        verify(jdbcTemplate, times(3)).queryForObject(contains("nextval"), eq(Long.class), eq("account_number_seq"));
+    }
+
+    @Test
+    void testConcurrentCallersNeverShareANumber() throws Exception {
+        int threads = 8;
+        int perThread = 1000;
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        assertTrue(seen.add(allocator.next("loan_number_seq")));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * perThread, seen.size());
+    }
+
+    @Test
+    void testControlNumber() {
+        String base = "4440001000000042";
+        String number = base + Mod97.checkDigits(base);
+
+        assertEquals(18, number.length());
+        assertTrue(Mod97.isValid(number));
+        assertFalse(Mod97.isValid("4440001000000043" + Mod97.checkDigits(base)));
+        assertFalse(Mod97.isValid(base.substring(0, 7) + "000000024" + Mod97.checkDigits(base)));
+    }
+}
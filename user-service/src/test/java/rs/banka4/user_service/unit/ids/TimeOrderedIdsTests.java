@@ -0,0 +1,50 @@
+package rs.banka4.user_service.unit.ids;
+
+import org.junit.jupiter.api.Test;
+import rs.banka4.user_service.utils.ids.TimeOrderedIds;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimeOrderedIdsTests {
+
+    @Test
+    void testUuidsAreVersion7AndIncreasing() {
+        UUID previous = TimeOrderedIds.uuidV7();
+        for (int i = 0; i < 100_000; i++) {
+            UUID next = TimeOrderedIds.uuidV7();
+
+            assertEquals(7, next.version());
+            assertEquals(2, next.variant());
+            /* UUID.compareTo compares signed halves; the timestamp is far from the sign bit.  */
+            assertTrue(next.compareTo(previous) > 0, "%s should sort after %s".formatted(next, previous));
+            previous = next;
+        }
+    }
+
+    @Test
+    void testTimestampIsCurrentTime() {
+        long before = System.currentTimeMillis();
+        UUID id = TimeOrderedIds.uuidV7();
+        long after = System.currentTimeMillis();
+
+        long millis = id.getMostSignificantBits() >>> 16;
+        /* Counter overflow may push the timestamp slightly ahead of the clock.  */
+        assertTrue(millis >= before && millis <= after + 1000);
+    }
+
+    @Test
+    void testCompactNumbersSortInCreationOrder() {
+        List<String> numbers = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            numbers.add(TimeOrderedIds.compactNumber());
+        }
+
+        numbers.forEach(number -> assertTrue(number.matches("[0-9A-HJKMNP-TV-Z]{26}"), number));
+        assertEquals(numbers, numbers.stream().sorted().toList());
+        assertEquals(numbers.size(), numbers.stream().distinct().count());
+    }
+}
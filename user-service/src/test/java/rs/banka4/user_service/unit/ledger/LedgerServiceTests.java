@@ -0,0 +1,146 @@
+package rs.banka4.user_service.unit.ledger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import rs.banka4.user_service.domain.account.db.Account;
+import rs.banka4.user_service.domain.ledger.db.BalanceSnapshot;
+import rs.banka4.user_service.domain.ledger.db.LedgerEntry;
+import rs.banka4.user_service.domain.ledger.db.LedgerEntryDirection;
+import rs.banka4.user_service.domain.transaction.db.MonetaryAmount;
+import rs.banka4.user_service.domain.transaction.db.Transaction;
+import rs.banka4.user_service.domain.transaction.db.TransactionStatus;
+import rs.banka4.user_service.generator.AccountObjectMother;
+import rs.banka4.user_service.repositories.AccountRepository;
+import rs.banka4.user_service.repositories.BalanceSnapshotRepository;
+import rs.banka4.user_service.repositories.LedgerEntryRepository;
+import rs.banka4.user_service.service.impl.LedgerServiceImpl;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class LedgerServiceTests {
+
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+    @Mock
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+    @Mock
+    private AccountRepository accountRepository;
+    @InjectMocks
+    private LedgerServiceImpl ledgerService;
+
+    private Account fromAccount;
+    private Account toAccount;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        fromAccount = AccountObjectMother.generateBasicFromAccount();
+        fromAccount.setId(UUID.randomUUID());
+        toAccount = AccountObjectMother.generateBasicToAccount();
+        toAccount.setId(UUID.randomUUID());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPostTransactionWritesBalancedEntries() {
+        // Arrange
+        Transaction transaction = Transaction.builder()
+                .id(UUID.randomUUID())
+                .fromAccount(fromAccount)
+                .toAccount(toAccount)
+                .from(new MonetaryAmount(new BigDecimal("100"), fromAccount.getCurrency()))
+                .to(new MonetaryAmount(new BigDecimal("100"), toAccount.getCurrency()))
+                .fee(new MonetaryAmount(BigDecimal.ONE, fromAccount.getCurrency()))
+                .status(TransactionStatus.REALIZED)
+                .build();
+        BigDecimal fromBalance = fromAccount.getBalance();
+        BigDecimal toBalance = toAccount.getBalance();
+
+        // Act
+        ledgerService.postTransaction(transaction);
+
+        // Assert
+        ArgumentCaptor<List<LedgerEntry>> captor = ArgumentCaptor.forClass(List.class);
+        verify(ledgerEntryRepository).saveAll(captor.capture());
+        List<LedgerEntry> entries = captor.getValue();
+        assertEquals(4, entries.size());
+
+        BigDecimal net = entries.stream()
+                .map(e -> e.getDirection() == LedgerEntryDirection.CREDIT ? e.getAmount() : e.getAmount().negate())
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, net.signum());
+        /* Stamped by the database on insert.  */
+        assertTrue(entries.stream().allMatch(e -> e.getPostedAt() == null));
+
+        assertEquals(0, fromBalance.subtract(new BigDecimal("101")).compareTo(fromAccount.getBalance()));
+        assertEquals(0, toBalance.add(new BigDecimal("100")).compareTo(toAccount.getBalance()));
+    }
+
+    @Test
+    void testBalanceAsOfStartsFromLatestSnapshot() {
+        // Arrange
+        LocalDateTime takenAt = LocalDateTime.now().minusDays(1);
+        LocalDateTime asOf = LocalDateTime.now();
+        BalanceSnapshot snapshot = BalanceSnapshot.builder()
+                .accountId(fromAccount.getId())
+                .balance(new BigDecimal("500"))
+                .takenAt(takenAt)
+                .build();
+        when(balanceSnapshotRepository.findFirstByAccountIdAndTakenAtLessThanEqualOrderByTakenAtDesc(fromAccount.getId(), asOf))
+                .thenReturn(Optional.of(snapshot));
+        when(ledgerEntryRepository.sumBetween(fromAccount.getId(), takenAt, asOf)).thenReturn(new BigDecimal("-20"));
+
+        // Act
+        BigDecimal balance = ledgerService.getBalanceAsOf(fromAccount, asOf);
+
+        // Assert
+        assertEquals(new BigDecimal("480"), balance);
+        verify(ledgerEntryRepository, never()).sumBefore(any(), any());
+    }
+
+    @Test
+    void testBalanceAsOfWithoutSnapshotSumsAllEntries() {
+        // Arrange
+        LocalDateTime asOf = LocalDateTime.now();
+        when(balanceSnapshotRepository.findFirstByAccountIdAndTakenAtLessThanEqualOrderByTakenAtDesc(fromAccount.getId(), asOf))
+                .thenReturn(Optional.empty());
+        when(ledgerEntryRepository.sumBefore(fromAccount.getId(), asOf)).thenReturn(new BigDecimal("1234"));
+
+        // Act
+        BigDecimal balance = ledgerService.getBalanceAsOf(fromAccount, asOf);
+
+        // Assert
+        assertEquals(new BigDecimal("1234"), balance);
+    }
+
+    @Test
+    void testSnapshotsStopBeforeTransactionsStillWriting() {
+        // Arrange
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(5);
+        LocalDateTime oldestWriter = cutoff.minusMinutes(20);
+        when(balanceSnapshotRepository.commitSafeCutoff(cutoff)).thenReturn(oldestWriter);
+        when(balanceSnapshotRepository.snapshotAll(oldestWriter)).thenReturn(3);
+
+        // Act
+        int written = ledgerService.takeSnapshots(cutoff);
+
+        // Assert
+        assertEquals(3, written);
+        InOrder order = inOrder(balanceSnapshotRepository);
+        order.verify(balanceSnapshotRepository).commitSafeCutoff(cutoff);
+        order.verify(balanceSnapshotRepository).snapshotAll(oldestWriter);
+        verify(balanceSnapshotRepository, never()).snapshotAll(cutoff);
+    }
+}
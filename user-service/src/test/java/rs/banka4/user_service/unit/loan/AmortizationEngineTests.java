@@ -0,0 +1,74 @@
+package rs.banka4.user_service.unit.loan;
+
+import org.junit.jupiter.api.Test;
+import rs.banka4.user_service.utils.loans.AmortizationEngine;
+import rs.banka4.user_service.utils.loans.AmortizationEngine.AmortizationPeriod;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AmortizationEngineTests {
+
+    private static final LocalDate START = LocalDate.of(2025, 1, 31);
+
+    @Test
+    void testMonthlyPaymentOfThirtyYearMortgage() {
+        BigDecimal payment = AmortizationEngine.monthlyPayment(new BigDecimal("300000"), new BigDecimal("0.005"), 360);
+
+        assertEquals(new BigDecimal("1798.65"), payment.setScale(2, RoundingMode.HALF_UP));
+        assertTrue(payment.precision() <= AmortizationEngine.MATH_CONTEXT.getPrecision());
+    }
+
+    @Test
+    void testScheduleRepaysPrincipalExactly() {
+        BigDecimal principal = new BigDecimal("250000.55");
+
+        List<AmortizationPeriod> schedule = AmortizationEngine.schedule(principal, new BigDecimal("0.0041666667"), 360, START);
+
+        assertEquals(360, schedule.size());
+        assertEquals(0, schedule.getLast().balance().signum());
+        assertEquals(principal, schedule.stream().map(AmortizationPeriod::principal).reduce(BigDecimal.ZERO, BigDecimal::add));
+        BigDecimal installment = schedule.getFirst().installment();
+        for (AmortizationPeriod period : schedule.subList(0, schedule.size() - 1)) {
+            assertEquals(installment, period.installment());
+            assertEquals(period.installment(), period.principal().add(period.interest()));
+        }
+    }
+
+    @Test
+    void testInterestIsChargedOnRemainingBalance() {
+        List<AmortizationPeriod> schedule = AmortizationEngine.schedule(new BigDecimal("10000"), new BigDecimal("0.01"), 12, START);
+
+        assertEquals(new BigDecimal("100.00"), schedule.get(0).interest());
+        assertEquals(new BigDecimal("788.49"), schedule.get(0).principal());
+        assertEquals(new BigDecimal("9211.51"), schedule.get(0).balance());
+        assertEquals(new BigDecimal("92.12"), schedule.get(1).interest());
+    }
+
+    @Test
+    void testDueDatesFollowStartDate() {
+        List<AmortizationPeriod> schedule = AmortizationEngine.schedule(new BigDecimal("1200"), new BigDecimal("0.01"), 3, START);
+
+        assertEquals(List.of(LocalDate.of(2025, 2, 28), LocalDate.of(2025, 3, 31), LocalDate.of(2025, 4, 30)),
+                schedule.stream().map(AmortizationPeriod::dueDate).toList());
+    }
+
+    @Test
+    void testZeroInterest() {
+        List<AmortizationPeriod> schedule = AmortizationEngine.schedule(new BigDecimal("1000"), BigDecimal.ZERO, 3, START);
+
+        assertEquals(List.of(new BigDecimal("333.33"), new BigDecimal("333.33"), new BigDecimal("333.34")),
+                schedule.stream().map(AmortizationPeriod::installment).toList());
+        assertTrue(schedule.stream().allMatch(period -> period.interest().signum() == 0));
+    }
+
+    @Test
+    void testNonPositiveTermIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> AmortizationEngine.monthlyPayment(BigDecimal.TEN, new BigDecimal("0.01"), 0));
+    }
+}
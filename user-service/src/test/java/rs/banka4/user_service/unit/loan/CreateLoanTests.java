@@ -4,12 +4,11 @@ package rs.banka4.user_service.unit.loan;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.dao.DataIntegrityViolationException;
 import rs.banka4.user_service.domain.account.db.Account;
-import rs.banka4.user_service.domain.loan.db.InterestRate;
 import rs.banka4.user_service.domain.loan.db.Loan;
 import rs.banka4.user_service.domain.loan.dtos.LoanApplicationDto;
 import rs.banka4.user_service.domain.user.client.db.Client;
@@ -19,14 +18,16 @@ import rs.banka4.user_service.exceptions.account.NotAccountOwner;
 import rs.banka4.user_service.exceptions.user.NotFound;
 import rs.banka4.user_service.exceptions.user.client.ClientNotFound;
 import rs.banka4.user_service.generator.LoanObjectMother;
-import rs.banka4.user_service.repositories.InterestRateRepository;
 import rs.banka4.user_service.repositories.LoanRepository;
 import rs.banka4.user_service.repositories.LoanRequestRepository;
 import rs.banka4.user_service.service.abstraction.AccountService;
 import rs.banka4.user_service.service.abstraction.ClientService;
 import rs.banka4.user_service.service.impl.LoanServiceImpl;
 import rs.banka4.user_service.utils.JwtUtil;
+import rs.banka4.user_service.utils.ids.Mod97;
+import rs.banka4.user_service.utils.ids.NumberBlockAllocator;
 import rs.banka4.user_service.utils.loans.LoanRateUtil;
+import rs.banka4.user_service.utils.loans.PricingReferenceCache;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -45,7 +46,7 @@ public class CreateLoanTests {
     private LoanRateUtil loanRateUtil;
 
     @Mock
-    private InterestRateRepository interestRateRepository;
+    private PricingReferenceCache pricingReferenceCache;
 
     @Mock
     private LoanRequestRepository loanRequestRepository;
@@ -59,6 +60,9 @@ public class CreateLoanTests {
     @Mock
     private LoanRepository loanRepository;
 
+    @Mock
+    private NumberBlockAllocator numberBlockAllocator;
+
     @InjectMocks
     private LoanServiceImpl loanService;
 
@@ -91,7 +95,7 @@ public class CreateLoanTests {
         when(clientService.getClientByEmail("test@example.com")).thenReturn(Optional.of(client));
         when(accountService.getAccountByAccountNumber("444394438340549")).thenReturn(account);
         when(loanRepository.save(any(Loan.class))).thenReturn(new Loan());
-        when(interestRateRepository.findByAmountAndDate(BigDecimal.valueOf(1000.0), LocalDate.now())).thenReturn(Optional.of(new InterestRate()));
+        when(pricingReferenceCache.fixedRate(BigDecimal.valueOf(1000.0), LocalDate.now())).thenReturn(Optional.of(new BigDecimal("5.75")));
 
 
         assertDoesNotThrow(() -> loanService.createLoanApplication(loanApplicationDto, anyString()));
@@ -133,7 +137,7 @@ public class CreateLoanTests {
 
         when(accountService.getAccountByAccountNumber("444394438340549")).thenReturn(account);
 
-        when(interestRateRepository.findByAmountAndDate(BigDecimal.valueOf(1000.0), LocalDate.now())).thenReturn(Optional.of(new InterestRate()));
+        when(pricingReferenceCache.fixedRate(BigDecimal.valueOf(1000.0), LocalDate.now())).thenReturn(Optional.of(new BigDecimal("5.75")));
 
         assertDoesNotThrow(() -> loanService.createLoanApplication(loanApplicationDto, anyString()));
 
@@ -166,7 +170,7 @@ public class CreateLoanTests {
 
         when(accountService.getAccountByAccountNumber("444394438340549")).thenReturn(account);
 
-        when(interestRateRepository.findByAmountAndDate(BigDecimal.valueOf(1000.0),LocalDate.now())).thenReturn(Optional.of(new InterestRate()));
+        when(pricingReferenceCache.fixedRate(BigDecimal.valueOf(1000.0), LocalDate.now())).thenReturn(Optional.of(new BigDecimal("5.75")));
 
         Loan loan = new Loan();
         when(loanRepository.save(any(Loan.class))).thenReturn(loan);
@@ -180,27 +184,20 @@ public class CreateLoanTests {
     }
 
     @Test
-    void generateLoanNumber_DuplicateHandling() {
+    void generateLoanNumber_FromSequenceWithControlNumber() {
         when(jwtUtil.extractUsername(anyString())).thenReturn("test@example.com");
         when(clientService.getClientByEmail("test@example.com")).thenReturn(Optional.of(client));
-
         when(accountService.getAccountByAccountNumber("444394438340549")).thenReturn(account);
+        when(pricingReferenceCache.fixedRate(BigDecimal.valueOf(1000.0), LocalDate.now())).thenReturn(Optional.of(new BigDecimal("5.75")));
+        when(numberBlockAllocator.next("loan_number_seq")).thenReturn(4321L);
 
+        loanService.createLoanApplication(loanApplicationDto, "jwt");
 
-        Loan loan = new Loan();
-        when(loanRepository.save(any(Loan.class)))
-                .thenThrow(new DataIntegrityViolationException("Duplicate"))
-                .thenReturn(loan);
-
-        when(interestRateRepository.findByAmountAndDate(BigDecimal.valueOf(1000.0), LocalDate.now())).thenReturn(Optional.of(new InterestRate()));
-
-        loan.setLoanNumber(321432L);
-
-        assertDoesNotThrow(() -> loanService.createLoanApplication(loanApplicationDto,anyString()));
-
-        assertNotNull(loan.getLoanNumber());
-
-        verify(loanRepository,atLeast(2)).save(any(Loan.class));
+        ArgumentCaptor<Loan> captor = ArgumentCaptor.forClass(Loan.class);
+        verify(loanRepository, times(1)).save(captor.capture());
+        String loanNumber = captor.getValue().getLoanNumber().toString();
+        assertTrue(loanNumber.startsWith("4321"));
+        assertTrue(Mod97.isValid(loanNumber));
     }
 
 }
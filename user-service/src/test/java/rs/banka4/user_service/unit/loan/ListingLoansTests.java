@@ -3,6 +3,7 @@ package rs.banka4.user_service.unit.loan;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -10,17 +11,16 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.ResponseEntity;
 import rs.banka4.user_service.domain.account.db.Account;
 import rs.banka4.user_service.domain.account.dtos.AccountDto;
 import rs.banka4.user_service.domain.loan.db.Loan;
+import rs.banka4.user_service.domain.loan.db.LoanStatus;
 import rs.banka4.user_service.domain.loan.dtos.LoanApplicationDto;
 import rs.banka4.user_service.domain.loan.dtos.LoanInformationDto;
 import rs.banka4.user_service.domain.loan.mapper.LoanMapper;
 import rs.banka4.user_service.domain.user.client.db.Client;
 import rs.banka4.user_service.exceptions.NullPageRequest;
-import rs.banka4.user_service.exceptions.loan.NoLoansOnAccount;
 import rs.banka4.user_service.exceptions.user.client.ClientNotFound;
 import rs.banka4.user_service.generator.AccountObjectMother;
 import rs.banka4.user_service.generator.LoanObjectMother;
@@ -29,7 +29,6 @@ import rs.banka4.user_service.service.abstraction.AccountService;
 import rs.banka4.user_service.service.abstraction.ClientService;
 import rs.banka4.user_service.service.impl.LoanServiceImpl;
 import rs.banka4.user_service.utils.JwtUtil;
-import rs.banka4.user_service.utils.specification.SpecificationCombinator;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -89,9 +88,6 @@ public class ListingLoansTests {
         PageRequest pageRequest = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "amount"));
         when(jwtUtil.extractUsername(anyString())).thenReturn("test@example.com");
         when(clientService.getClientByEmail("test@example.com")).thenReturn(Optional.of(client));
-        when(accountService.getAccountsForClient(anyString()))
-                .thenReturn(Set.of(accountDto));
-
         Loan loan = new Loan();
         loan.setAccount(account);
 
@@ -99,7 +95,7 @@ public class ListingLoansTests {
 
         Page<Loan> loanPage = new PageImpl<>(loans, pageRequest, loans.size());
 
-        when(loanRepository.findAll(any(Specification.class),any(PageRequest.class)))
+        when(loanRepository.findByClientAndStatusIn(eq(client.getId()), anyCollection(), any(PageRequest.class)))
                 .thenReturn(loanPage);
 
         ResponseEntity<Page<LoanInformationDto>> response = loanService.getMyLoans(anyString(), pageRequest);
@@ -109,6 +105,26 @@ public class ListingLoansTests {
         assertEquals(1, response.getBody().getTotalElements());
     }
 
+    @Test
+    void getMyLoans_FiltersAndPagesInTheQuery() {
+        when(jwtUtil.extractUsername(anyString())).thenReturn("test@example.com");
+        when(clientService.getClientByEmail("test@example.com")).thenReturn(Optional.of(client));
+        when(loanRepository.findByClientAndStatusIn(any(), anyCollection(), any(PageRequest.class)))
+                .thenReturn(Page.empty());
+
+        loanService.getMyLoans("jwt", PageRequest.of(3, 20));
+
+        ArgumentCaptor<Collection<LoanStatus>> statuses = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<PageRequest> page = ArgumentCaptor.forClass(PageRequest.class);
+        verify(loanRepository).findByClientAndStatusIn(eq(client.getId()), statuses.capture(), page.capture());
+        assertFalse(statuses.getValue().contains(LoanStatus.PROCESSING));
+        assertTrue(statuses.getValue().contains(LoanStatus.APPROVED));
+        assertEquals(3, page.getValue().getPageNumber());
+        assertEquals(20, page.getValue().getPageSize());
+        assertEquals(Sort.by(Sort.Direction.DESC, "amount").and(Sort.by(Sort.Direction.ASC, "id")), page.getValue().getSort());
+        verifyNoInteractions(accountService);
+    }
+
     @Test
     void getMyLoans_ClientNotFound() {
         when(jwtUtil.extractUsername(anyString())).thenReturn("test@example.com");
@@ -123,12 +139,15 @@ public class ListingLoansTests {
     }
 
     @Test
-    void getMyLoans_NoLoansOnAccount() {
+    void getMyLoans_NoLoansReturnsEmptyPage() {
         when(jwtUtil.extractUsername(anyString())).thenReturn("test@example.com");
         when(clientService.getClientByEmail("test@example.com")).thenReturn(Optional.of(client));
-        when(accountService.getAccountsForClient(anyString())).thenReturn(Set.of());
+        when(loanRepository.findByClientAndStatusIn(any(), anyCollection(), any(PageRequest.class)))
+                .thenReturn(Page.empty());
+
+        ResponseEntity<Page<LoanInformationDto>> response = loanService.getMyLoans("jwt", PageRequest.of(0, 10));
 
-        assertThrows(NoLoansOnAccount.class, () -> loanService.getMyLoans(anyString(), PageRequest.of(0, 10)));
+        assertEquals(0, response.getBody().getTotalElements());
     }
 
 }
@@ -7,8 +7,9 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
 import rs.banka4.user_service.domain.account.db.Account;
 import rs.banka4.user_service.domain.auth.dtos.NotificationTransferDto;
 import rs.banka4.user_service.domain.currency.db.Currency;
@@ -17,14 +18,20 @@ import rs.banka4.user_service.domain.user.client.db.Client;
 import rs.banka4.user_service.repositories.AccountRepository;
 import rs.banka4.user_service.repositories.LoanInstallmentRepository;
 import rs.banka4.user_service.repositories.LoanRepository;
+import rs.banka4.user_service.service.abstraction.LedgerService;
 import rs.banka4.user_service.utils.loans.LoanInstallmentScheduler;
-import rs.banka4.user_service.utils.loans.LoanRateUtil;
+import rs.banka4.user_service.utils.notifications.NotificationOutbox;
+import rs.banka4.user_service.utils.scheduling.SchedulerLeases;
+import rs.banka4.user_service.utils.transactions.AccountLockManager;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.IntPredicate;
 
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -41,13 +48,22 @@ class LoanInstallmentSchedulerTest {
     private AccountRepository accountRepository;
 
     @Mock
-    private RabbitTemplate rabbitTemplate;
+    private NotificationOutbox notificationOutbox;
 
     @Mock
     private LoanInstallmentScheduler loanInstallmentSchedulerService;
 
     @Mock
-    private LoanRateUtil loanRateUtil;
+    private LedgerService ledgerService;
+
+    @Mock
+    private AccountLockManager accountLockManager;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private SchedulerLeases schedulerLeases;
 
     @Mock
     private ApplicationContext applicationContext;
@@ -94,15 +110,48 @@ class LoanInstallmentSchedulerTest {
         installment.setPaymentStatus(PaymentStatus.DELAYED);
         installment.setExpectedDueDate(LocalDate.now().minusDays(3));
         installment.setInterestRateAmount(loan.getBaseInterestRate());
-        when(applicationContext.getBean(LoanInstallmentScheduler.class)).thenReturn(loanInstallmentScheduler);
+        ReflectionTestUtils.setField(loanInstallmentScheduler, "chunkSize", 10);
+        ReflectionTestUtils.setField(loanInstallmentScheduler, "threads", 2);
+        ReflectionTestUtils.setField(loanInstallmentScheduler, "shards", 1);
+        ReflectionTestUtils.setField(loanInstallmentScheduler, "shardLeaseSeconds", 60L);
+        lenient().when(applicationContext.getBean(LoanInstallmentScheduler.class)).thenReturn(loanInstallmentScheduler);
+
+        /* This instance gets every lease.  */
+        lenient().when(schedulerLeases.runExclusively(anyString(), any(), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(2).run();
+            return true;
+        });
+        lenient().when(schedulerLeases.runOnce(anyString(), any(), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(2).run();
+            return true;
+        });
+        lenient().when(schedulerLeases.runShards(anyString(), anyInt(), any(), any())).thenAnswer(invocation -> {
+            boolean done = invocation.<IntPredicate>getArgument(3).test(0);
+            return new SchedulerLeases.ShardReport(1, done ? 0 : 1, done);
+        });
+    }
+
+    private void givenChunk(PaymentStatus status) {
+        when(loanInstallmentRepository.lockWithStatus(List.of(installment.getId()), status.name()))
+                .thenReturn(List.of(installment.getId()));
+        when(loanInstallmentRepository.findAllWithLoanGraph(List.of(installment.getId())))
+                .thenReturn(List.of(installment));
+    }
+
+    private void givenRunning(LocalDate runDate) {
+        when(jdbcTemplate.queryForList(startsWith("SELECT status"), eq(String.class), eq(runDate)))
+                .thenReturn(List.of("RUNNING"));
     }
 
 
 
     @Test
     void testProcessDueInstallments_ShouldPayInstallmentIfPossible() {
-        when(loanInstallmentRepository.findByExpectedDueDateAndPaymentStatus(LocalDate.now(), PaymentStatus.UNPAID))
-                .thenReturn(List.of(installment));
+        installment.setPaymentStatus(PaymentStatus.UNPAID);
+        givenRunning(LocalDate.now());
+        when(loanInstallmentRepository.findIdsDueBy(eq("UNPAID"), eq(LocalDate.now()), any(UUID.class), eq(0), eq(1), any()))
+                .thenReturn(List.of(installment.getId()), List.of());
+        givenChunk(PaymentStatus.UNPAID);
 
         loanInstallmentScheduler.processDueInstallments();
 
@@ -110,9 +159,76 @@ class LoanInstallmentSchedulerTest {
         assertEquals(PaymentStatus.PAID, installment.getPaymentStatus());
         assertEquals(LoanStatus.PAID_OFF, loan.getStatus());
         verify(accountRepository).save(account);
+        verify(accountLockManager).lockRows(account);
+        verify(ledgerService).postLoanInstallment(installment);
         verify(loanRepository).save(loan);
         verify(loanInstallmentRepository).save(installment);
-        verify(rabbitTemplate).convertAndSend(anyString(), anyString(), any(NotificationTransferDto.class));
+        verify(notificationOutbox).enqueueAll(argThat(notifications -> notifications.size() == 1));
+        verify(jdbcTemplate).update(startsWith("UPDATE loan_installment_runs SET paid"), eq(1), eq(0), eq(LocalDate.now()));
+        verify(jdbcTemplate).update(contains("SET status = 'COMPLETED'"), any(), eq(LocalDate.now()));
+    }
+
+    @Test
+    void testProcessDueInstallments_ShouldOnlyAdvanceToTheGeneratedNextInstallment() {
+        installment.setPaymentStatus(PaymentStatus.UNPAID);
+        loan.setRemainingDebt(new BigDecimal("3000"));
+        givenRunning(LocalDate.now());
+        when(loanInstallmentRepository.findIdsDueBy(eq("UNPAID"), eq(LocalDate.now()), any(UUID.class), eq(0), eq(1), any()))
+                .thenReturn(List.of(installment.getId()), List.of());
+        givenChunk(PaymentStatus.UNPAID);
+
+        loanInstallmentScheduler.processDueInstallments();
+
+        assertEquals(new BigDecimal("2000"), loan.getRemainingDebt());
+        assertEquals(LoanStatus.APPROVED, loan.getStatus());
+        assertEquals(installment.getExpectedDueDate().plusMonths(1), loan.getNextInstallmentDate());
+        /* Only the paid installment is written; the next one exists since approval.  */
+        verify(loanInstallmentRepository, times(1)).save(any(LoanInstallment.class));
+        verify(loanInstallmentRepository).save(installment);
+    }
+
+    @Test
+    void testProcessDueInstallments_ShouldDelayIfFundsAreMissing() {
+        installment.setPaymentStatus(PaymentStatus.UNPAID);
+        account.setAvailableBalance(new BigDecimal("999"));
+        givenRunning(LocalDate.now());
+        when(loanInstallmentRepository.findIdsDueBy(eq("UNPAID"), eq(LocalDate.now()), any(UUID.class), eq(0), eq(1), any()))
+                .thenReturn(List.of(installment.getId()), List.of());
+        givenChunk(PaymentStatus.UNPAID);
+
+        loanInstallmentScheduler.processDueInstallments();
+
+        assertEquals(PaymentStatus.DELAYED, installment.getPaymentStatus());
+        assertEquals(new BigDecimal("1000"), loan.getRemainingDebt());
+        verify(ledgerService, never()).postLoanInstallment(any());
+        verify(jdbcTemplate).update(startsWith("UPDATE loan_installment_runs SET paid"), eq(0), eq(1), eq(LocalDate.now()));
+    }
+
+    @Test
+    void testProcessDueInstallments_ShouldPageByKeyset() {
+        UUID second = UUID.randomUUID();
+        givenRunning(LocalDate.now());
+        when(loanInstallmentRepository.findIdsDueBy(eq("UNPAID"), eq(LocalDate.now()), any(UUID.class), eq(0), eq(1), any()))
+                .thenReturn(List.of(installment.getId()), List.of(second), List.of());
+
+        loanInstallmentScheduler.processDueInstallments();
+
+        ArgumentCaptor<UUID> lastIds = ArgumentCaptor.forClass(UUID.class);
+        verify(loanInstallmentRepository, times(3)).findIdsDueBy(eq("UNPAID"), eq(LocalDate.now()), lastIds.capture(), eq(0), eq(1), any());
+        assertEquals(List.of(new UUID(0, 0), installment.getId(), second), lastIds.getAllValues());
+        /* Neither id could be claimed, e.g. because another instance holds them.  */
+        verify(loanInstallmentRepository, never()).findAllWithLoanGraph(any());
+    }
+
+    @Test
+    void testProcessDueInstallments_ShouldSkipCompletedRun() {
+        when(jdbcTemplate.queryForList(startsWith("SELECT status"), eq(String.class), eq(LocalDate.now())))
+                .thenReturn(List.of("COMPLETED"));
+
+        loanInstallmentScheduler.processDueInstallments();
+
+        verify(loanInstallmentRepository, never()).findIdsDueBy(any(), any(), any(), anyInt(), anyInt(), any());
+        verify(schedulerLeases, never()).runShards(any(), anyInt(), any(), any());
     }
 
     @Test
@@ -121,15 +237,15 @@ class LoanInstallmentSchedulerTest {
         installment.setPaymentStatus(PaymentStatus.DELAYED);
         installment.setExpectedDueDate(LocalDate.now().minusDays(2));
 
-        when(loanInstallmentRepository.findRecentDelayedInstallments(
-                PaymentStatus.DELAYED, LocalDate.now().minusDays(3)))
-                .thenReturn(List.of(installment));
+        when(loanInstallmentRepository.findIdsDueAfter(eq(PaymentStatus.DELAYED), eq(LocalDate.now().minusDays(3)), any(UUID.class), any()))
+                .thenReturn(List.of(installment.getId()), List.of());
+        givenChunk(PaymentStatus.DELAYED);
 
         // When: Retrying delayed installment payments
         loanInstallmentScheduler.retryDelayedInstallments();
 
         // Verify that payInstallmentIfPossible() was actually called
-        verify(loanInstallmentRepository, times(1)).findRecentDelayedInstallments(PaymentStatus.DELAYED, LocalDate.now().minusDays(3));
+        verify(loanInstallmentRepository, times(2)).findIdsDueAfter(eq(PaymentStatus.DELAYED), eq(LocalDate.now().minusDays(3)), any(UUID.class), any());
         verify(loanInstallmentRepository, times(1)).save(installment);
         verify(loanRepository, times(1)).save(loan);
         verify(accountRepository, times(1)).save(account);
@@ -145,6 +261,29 @@ class LoanInstallmentSchedulerTest {
     }
 
 
+    @Test
+    void testProcessDueInstallments_ShouldLeaveRunOpenWhileShardsRemain() {
+        givenRunning(LocalDate.now());
+        /* Every shard is held by other instances.  */
+        doReturn(new SchedulerLeases.ShardReport(0, 0, false))
+                .when(schedulerLeases).runShards(anyString(), anyInt(), any(), any());
+
+        loanInstallmentScheduler.processDueInstallments();
+
+        verify(schedulerLeases).runShards(eq("loan-installments:" + LocalDate.now()), eq(1), eq(Duration.ofSeconds(60)), any());
+        verify(jdbcTemplate, never()).update(contains("SET status = 'COMPLETED'"), any(), any());
+        verify(loanInstallmentRepository, never()).findIdsDueBy(any(), any(), any(), anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void testApplyLatePaymentPenalties_ShouldSkipWhenLeaseIsHeldElsewhere() {
+        doReturn(false).when(schedulerLeases).runOnce(eq("loans.late-payment-penalties:" + LocalDate.now()), any(), any());
+
+        loanInstallmentScheduler.applyLatePaymentPenalties();
+
+        verifyNoInteractions(loanInstallmentRepository, loanRepository, notificationOutbox);
+    }
+
     @Test
     void testApplyLatePaymentPenalties_ShouldApplyPenalty() {
         when(loanInstallmentRepository.findByPaymentStatusAndExpectedDueDate(PaymentStatus.DELAYED, LocalDate.now().minusDays(3)))
@@ -164,7 +303,7 @@ class LoanInstallmentSchedulerTest {
                 "Base interest rate should increase due to penalty");
 
         verify(loanRepository).save(savedInstallment.getLoan());
-        verify(rabbitTemplate).convertAndSend(anyString(), anyString(), any(NotificationTransferDto.class));
+        verify(notificationOutbox).enqueue(any(NotificationTransferDto.class));
     }
 
 }
\ No newline at end of file
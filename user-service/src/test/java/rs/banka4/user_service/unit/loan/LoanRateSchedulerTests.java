@@ -0,0 +1,67 @@
+package rs.banka4.user_service.unit.loan;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import rs.banka4.user_service.utils.loans.LoanRateScheduler;
+import rs.banka4.user_service.utils.loans.LoanRepricingEngine;
+import rs.banka4.user_service.utils.loans.ReferenceRateRegistry;
+import rs.banka4.user_service.utils.scheduling.SchedulerLeases;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class LoanRateSchedulerTests {
+
+    private LoanRepricingEngine loanRepricingEngine;
+    private ReferenceRateRegistry referenceRateRegistry;
+    private SchedulerLeases schedulerLeases;
+    private LoanRateScheduler loanRateScheduler;
+    private LocalDate currentMonth;
+
+    @BeforeEach
+    void setUp() {
+        loanRepricingEngine = mock(LoanRepricingEngine.class);
+        referenceRateRegistry = mock(ReferenceRateRegistry.class);
+        schedulerLeases = mock(SchedulerLeases.class);
+        loanRateScheduler = new LoanRateScheduler(loanRepricingEngine, referenceRateRegistry, schedulerLeases);
+        currentMonth = LocalDate.now().withDayOfMonth(1);
+    }
+
+    @Test
+    void testMonthWithoutItsOwnPeriodIsPublishedOnStart() {
+        when(referenceRateRegistry.hasPeriodStarting(currentMonth)).thenReturn(false);
+
+        loanRateScheduler.publishCurrentInterestRateVariant();
+
+        verify(referenceRateRegistry).publish(eq(currentMonth), any(BigDecimal.class));
+    }
+
+    @Test
+    void testMonthAlreadyPublishedIsLeftAlone() {
+        when(referenceRateRegistry.hasPeriodStarting(currentMonth)).thenReturn(true);
+
+        loanRateScheduler.publishCurrentInterestRateVariant();
+
+        verify(referenceRateRegistry, never()).publish(any(), any());
+    }
+
+    @Test
+    void testRepricingPublishesAMissingMonthFirst() {
+        when(schedulerLeases.runExclusively(eq("loans.repricing"), any(), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(2).run();
+            return true;
+        });
+        when(referenceRateRegistry.hasPeriodStarting(currentMonth)).thenReturn(false);
+        when(referenceRateRegistry.variantOn(any())).thenReturn(new BigDecimal("0.40"));
+
+        loanRateScheduler.applyVariableRateToAllVariableLoans();
+
+        InOrder inOrder = inOrder(referenceRateRegistry, loanRepricingEngine);
+        inOrder.verify(referenceRateRegistry).publish(eq(currentMonth), any(BigDecimal.class));
+        inOrder.verify(loanRepricingEngine).reprice(new BigDecimal("0.40"));
+    }
+}
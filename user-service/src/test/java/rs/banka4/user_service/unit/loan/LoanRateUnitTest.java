@@ -6,11 +6,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import rs.banka4.user_service.domain.loan.db.BankMargin;
 import rs.banka4.user_service.domain.loan.db.LoanType;
 import rs.banka4.user_service.exceptions.loan.LoanTypeNotFound;
-import rs.banka4.user_service.repositories.BankMarginRepository;
 import rs.banka4.user_service.utils.loans.LoanRateUtil;
+import rs.banka4.user_service.utils.loans.PricingReferenceCache;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -23,17 +22,16 @@ import static org.mockito.Mockito.*;
 class LoanRateUtilTest {
 
     @Mock
-    private BankMarginRepository bankMarginRepository;
+    private PricingReferenceCache pricingReferenceCache;
 
     @InjectMocks
     private LoanRateUtil loanRateUtil;
 
-    private BankMargin fixedLoanMargin;
+    private BigDecimal fixedLoanMargin;
 
     @BeforeEach
     void setUp() {
-        fixedLoanMargin = new BankMargin();
-        fixedLoanMargin.setMargin(new BigDecimal("2.5"));
+        fixedLoanMargin = new BigDecimal("2.5");
     }
 
     @Test
@@ -41,7 +39,7 @@ class LoanRateUtilTest {
         BigDecimal referenceValue = new BigDecimal("5.0");
         LoanType loanType = LoanType.AUTO_LOAN;
 
-        when(bankMarginRepository.findBankMarginByType(loanType)).thenReturn(Optional.of(fixedLoanMargin));
+        when(pricingReferenceCache.bankMargin(loanType)).thenReturn(Optional.of(fixedLoanMargin));
 
         BigDecimal result = loanRateUtil.calculateInterestRate(referenceValue, loanType);
         assertNotNull(result);
@@ -51,7 +49,7 @@ class LoanRateUtilTest {
     @Test
     void testCalculateInterestRate_ThrowsException_WhenLoanTypeNotFound() {
         LoanType loanType = LoanType.CASH;
-        when(bankMarginRepository.findBankMarginByType(loanType)).thenReturn(Optional.empty());
+        when(pricingReferenceCache.bankMargin(loanType)).thenReturn(Optional.empty());
 
         assertThrows(LoanTypeNotFound.class, () -> loanRateUtil.calculateInterestRate(BigDecimal.TEN, loanType));
     }
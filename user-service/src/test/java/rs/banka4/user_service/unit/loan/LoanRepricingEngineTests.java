@@ -0,0 +1,228 @@
+package rs.banka4.user_service.unit.loan;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import rs.banka4.user_service.domain.loan.db.LoanType;
+import rs.banka4.user_service.utils.loans.AmortizationEngine;
+import rs.banka4.user_service.utils.loans.LoanRateUtil;
+import rs.banka4.user_service.utils.loans.LoanRepricingEngine;
+import rs.banka4.user_service.utils.loans.PricingReferenceCache;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class LoanRepricingEngineTests {
+
+    private static final int CHUNK_SIZE = 2;
+    private static final BigDecimal VARIANT = new BigDecimal("0.50");
+
+    private JdbcTemplate jdbcTemplate;
+    private PricingReferenceCache pricingReferenceCache;
+    private LoanRateUtil loanRateUtil;
+    private LoanRepricingEngine engine;
+    private List<Object[]> updates;
+    private List<Object> keysets;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        pricingReferenceCache = mock(PricingReferenceCache.class);
+        loanRateUtil = new LoanRateUtil(pricingReferenceCache);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(pricingReferenceCache.bankMargins()).thenReturn(Map.of(LoanType.CASH, new BigDecimal("1.75")));
+
+        updates = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE loans SET monthly_installment"), anyList())).thenAnswer(invocation -> {
+            updates.addAll(invocation.getArgument(1));
+            return new int[0];
+        });
+        engine = new LoanRepricingEngine(jdbcTemplate, transactionTemplate, loanRateUtil, pricingReferenceCache, CHUNK_SIZE);
+    }
+
+    @Test
+    void testLoansAreRepricedChunkByChunk() throws Exception {
+        UUID first = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        UUID second = UUID.fromString("00000000-0000-0000-0000-000000000002");
+        UUID third = UUID.fromString("00000000-0000-0000-0000-000000000003");
+        givenChunks(
+                List.of(row(first, "100000", "5.00", 60, "CASH"), row(second, "20000", "4.00", 12, "CASH")),
+                List.of(row(third, "5000", "3.00", 24, "CASH")));
+
+        long repriced = engine.reprice(VARIANT);
+
+        assertEquals(3, repriced);
+        assertEquals(List.of(first, second, third), updates.stream().map(update -> update[1]).toList());
+        BigDecimal expected = loanRateUtil.calculateMonthly(new BigDecimal("100000"),
+                loanRateUtil.calculateInterestRate(new BigDecimal("5.50"), new BigDecimal("1.75")), BigInteger.valueOf(60));
+        assertEquals(expected, updates.getFirst()[0]);
+
+        /* Every chunk resumes after the last id of the previous one.  */
+        assertEquals(List.of("start", second.toString(), third.toString()), keysets);
+        verify(pricingReferenceCache, times(1)).bankMargins();
+        verify(pricingReferenceCache, never()).bankMargin(any());
+    }
+
+    @Test
+    void testOutstandingPrincipalIsReamortizedOverRemainingInstallments() throws Exception {
+        UUID loan = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        List<UUID> installments = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        List<Object[]> schedules = captureSchedules();
+        givenChunks(List.of(row(loan, "100000", "5.00", 60, "CASH")));
+        givenFutureInstallments(
+                installment(loan, installments.get(0), "1000.00"),
+                installment(loan, installments.get(1), "1005.00"),
+                installment(loan, installments.get(2), "1010.03"));
+
+        engine.reprice(VARIANT);
+
+        BigDecimal monthlyRate = loanRateUtil.calculateInterestRate(new BigDecimal("5.50"), new BigDecimal("1.75"));
+        BigDecimal outstanding = new BigDecimal("3015.03");
+        List<AmortizationEngine.AmortizationPeriod> expected =
+                AmortizationEngine.schedule(outstanding, monthlyRate, 3, LocalDate.now());
+        assertEquals(3, schedules.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(expected.get(i).installment(), schedules.get(i)[0]);
+            assertEquals(monthlyRate, schedules.get(i)[1]);
+            assertEquals(expected.get(i).principal(), schedules.get(i)[2]);
+            assertEquals(expected.get(i).interest(), schedules.get(i)[3]);
+            assertEquals(installments.get(i), schedules.get(i)[5]);
+        }
+        /* The last installment keeps absorbing the rounding, so the plan still repays exactly what is owed.  */
+        assertEquals(0, ((BigDecimal) schedules.getLast()[4]).signum());
+        assertEquals(0, outstanding.compareTo(schedules.stream()
+                .map(schedule -> (BigDecimal) schedule[2])
+                .reduce(BigDecimal.ZERO, BigDecimal::add)));
+        assertEquals(loanRateUtil.calculateMonthly(outstanding, monthlyRate, BigInteger.valueOf(3)), updates.getFirst()[0]);
+
+        /* The schedule is rewritten first, so the loan's remaining debt is summed from the new amounts.  */
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).batchUpdate(startsWith("UPDATE loan_installments"), anyList());
+        order.verify(jdbcTemplate).batchUpdate(startsWith("UPDATE loans SET monthly_installment"), anyList());
+    }
+
+    @Test
+    void testInstallmentsAreReadOnceForTheWholeChunk() throws Exception {
+        UUID first = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        UUID second = UUID.fromString("00000000-0000-0000-0000-000000000002");
+        List<Object[]> schedules = captureSchedules();
+        givenChunks(List.of(row(first, "100000", "5.00", 60, "CASH"), row(second, "20000", "4.00", 12, "CASH")));
+        givenFutureInstallments(
+                installment(first, UUID.randomUUID(), "1500.00"),
+                installment(second, UUID.randomUUID(), "1600.00"),
+                installment(second, UUID.randomUUID(), "1610.00"));
+
+        engine.reprice(VARIANT);
+
+        verify(jdbcTemplate, times(1)).query(contains("FROM loan_installments"), any(RowCallbackHandler.class),
+                eq(first), eq(second), eq(LocalDate.now()));
+        assertEquals(3, schedules.size());
+        /* One installment left: it repays the rest of the principal plus a month of interest.  */
+        assertEquals(new BigDecimal("1500.00"), schedules.getFirst()[2]);
+        assertEquals(0, ((BigDecimal) schedules.getFirst()[4]).signum());
+        assertEquals(List.of(first, second), updates.stream().map(update -> update[1]).toList());
+    }
+
+    @Test
+    void testLoansWithoutGeneratedInstallmentsKeepTheFullTermAmount() throws Exception {
+        UUID loan = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        givenChunks(List.of(row(loan, "100000", "5.00", 60, "CASH")));
+
+        engine.reprice(VARIANT);
+
+        BigDecimal expected = loanRateUtil.calculateMonthly(new BigDecimal("100000"),
+                loanRateUtil.calculateInterestRate(new BigDecimal("5.50"), new BigDecimal("1.75")), BigInteger.valueOf(60));
+        assertEquals(expected, updates.getFirst()[0]);
+        verify(jdbcTemplate, never()).batchUpdate(startsWith("UPDATE loan_installments"), anyList());
+    }
+
+    @Test
+    void testLoansWithoutMarginAreSkippedButPagedPast() throws Exception {
+        UUID mortgage = UUID.fromString("00000000-0000-0000-0000-000000000001");
+        UUID cash = UUID.fromString("00000000-0000-0000-0000-000000000002");
+        givenChunks(List.of(row(mortgage, "300000", "4.00", 240, "MORTGAGE"), row(cash, "10000", "5.00", 12, "CASH")));
+
+        long repriced = engine.reprice(VARIANT);
+
+        assertEquals(1, repriced);
+        assertEquals(1, updates.size());
+        assertEquals(cash, updates.getFirst()[1]);
+    }
+
+    @Test
+    void testNoVariableLoansWritesNothing() {
+        givenChunks();
+
+        assertEquals(0, engine.reprice(VARIANT));
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    private List<Object[]> captureSchedules() {
+        List<Object[]> schedules = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE loan_installments"), anyList())).thenAnswer(invocation -> {
+            schedules.addAll(invocation.getArgument(1));
+            return new int[0];
+        });
+        return schedules;
+    }
+
+    private void givenFutureInstallments(ResultSet... rows) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (ResultSet rs : rows) {
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(contains("FROM loan_installments"), any(RowCallbackHandler.class), any(), any(), any());
+    }
+
+    private static ResultSet installment(UUID loanId, UUID id, String principal) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getObject("loan_id", UUID.class)).thenReturn(loanId);
+        when(rs.getObject("id", UUID.class)).thenReturn(id);
+        when(rs.getBigDecimal("principal_amount")).thenReturn(new BigDecimal(principal));
+        return rs;
+    }
+
+    @SafeVarargs
+    private void givenChunks(List<ResultSet>... chunks) {
+        List<List<ResultSet>> remaining = new ArrayList<>(List.of(chunks));
+        keysets = new ArrayList<>();
+        doAnswer(invocation -> {
+            Object after = invocation.getArgument(2);
+            keysets.add(after == null ? "start" : after.toString());
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (ResultSet rs : remaining.isEmpty() ? List.<ResultSet>of() : remaining.removeFirst()) {
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(contains("FROM loans"), any(RowCallbackHandler.class), any(), any(), eq(CHUNK_SIZE));
+    }
+
+    private static ResultSet row(UUID id, String amount, String baseInterestRate, int repaymentPeriod, String type) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getObject("id", UUID.class)).thenReturn(id);
+        when(rs.getBigDecimal("amount")).thenReturn(new BigDecimal(amount));
+        when(rs.getBigDecimal("base_interest_rate")).thenReturn(new BigDecimal(baseInterestRate));
+        when(rs.getInt("repayment_period")).thenReturn(repaymentPeriod);
+        when(rs.getString("type")).thenReturn(type);
+        return rs;
+    }
+}
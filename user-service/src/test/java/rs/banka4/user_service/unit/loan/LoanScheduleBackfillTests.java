@@ -0,0 +1,133 @@
+package rs.banka4.user_service.unit.loan;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import rs.banka4.user_service.domain.loan.db.Loan;
+import rs.banka4.user_service.domain.loan.db.LoanStatus;
+import rs.banka4.user_service.repositories.LoanRepository;
+import rs.banka4.user_service.utils.loans.AmortizationEngine;
+import rs.banka4.user_service.utils.loans.LoanScheduleBackfill;
+import rs.banka4.user_service.utils.loans.LoanScheduleGenerator;
+import rs.banka4.user_service.utils.scheduling.SchedulerLeases;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class LoanScheduleBackfillTests {
+    private static final int CHUNK_SIZE = 2;
+    private static final List<AmortizationEngine.AmortizationPeriod> REMAINING = List.of(
+            new AmortizationEngine.AmortizationPeriod(1, LocalDate.of(2025, 6, 15), new BigDecimal("500.00"),
+                    new BigDecimal("490.00"), new BigDecimal("10.00"), BigDecimal.ZERO));
+
+    private JdbcTemplate jdbcTemplate;
+    private LoanRepository loanRepository;
+    private LoanScheduleGenerator loanScheduleGenerator;
+    private SchedulerLeases schedulerLeases;
+    private LoanScheduleBackfill backfill;
+    private Loan loan;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        loanRepository = mock(LoanRepository.class);
+        loanScheduleGenerator = mock(LoanScheduleGenerator.class);
+        schedulerLeases = mock(SchedulerLeases.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        backfill = new LoanScheduleBackfill(jdbcTemplate, transactionTemplate, loanRepository,
+                loanScheduleGenerator, schedulerLeases, CHUNK_SIZE);
+
+        loan = new Loan();
+        loan.setId(UUID.fromString("00000000-0000-0000-0000-000000000001"));
+        loan.setLoanNumber(101L);
+        loan.setStatus(LoanStatus.APPROVED);
+        loan.setRepaymentPeriod(12);
+        loan.setAgreementDate(LocalDate.of(2025, 1, 15));
+        loan.setNextInstallmentDate(LocalDate.of(2025, 3, 15));
+        when(loanRepository.findByLoanNumberForUpdate(101L)).thenReturn(Optional.of(loan));
+    }
+
+    @Test
+    void testPlanContinuesAfterTheLastExistingInstallment() {
+        givenCandidates(loan);
+        givenWritten(2, 0, LocalDate.of(2025, 3, 15));
+        when(loanScheduleGenerator.generateRemaining(loan, 2, LocalDate.of(2025, 4, 15))).thenReturn(REMAINING);
+
+        assertEquals(1, backfill.backfill());
+
+        verify(loanScheduleGenerator).generateRemaining(loan, 2, LocalDate.of(2025, 4, 15));
+        verify(jdbcTemplate).update(contains("remaining_debt"), eq(loan.getId()));
+    }
+
+    @Test
+    void testLoanWithoutInstallmentsStartsAtItsNextInstallmentDate() {
+        givenCandidates(loan);
+        givenWritten(0, 0, null);
+        when(loanScheduleGenerator.generateRemaining(loan, 0, LocalDate.of(2025, 3, 15))).thenReturn(REMAINING);
+
+        assertEquals(1, backfill.backfill());
+
+        verify(loanScheduleGenerator).generateRemaining(loan, 0, LocalDate.of(2025, 3, 15));
+    }
+
+    @Test
+    void testLoanCompletedInTheMeantimeIsLeftAlone() {
+        givenCandidates(loan);
+        givenWritten(12, 12, LocalDate.of(2026, 1, 15));
+
+        assertEquals(0, backfill.backfill());
+
+        verifyNoInteractions(loanScheduleGenerator);
+        verify(jdbcTemplate, never()).update(contains("remaining_debt"), any());
+    }
+
+    @Test
+    void testNothingToBackfillOnlyQueriesOnce() {
+        givenCandidates();
+
+        assertEquals(0, backfill.backfill());
+
+        verify(jdbcTemplate, times(1)).queryForList(contains("FROM loans"), any(), any(), eq(CHUNK_SIZE));
+        verifyNoInteractions(loanRepository, loanScheduleGenerator);
+    }
+
+    @Test
+    void testRunsOnlyWhereTheLeaseIsTaken() {
+        backfill.backfillOnStart();
+
+        verify(schedulerLeases).runExclusively(eq("loans.schedule-backfill"), any(), any());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private void givenCandidates(Loan... loans) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Loan candidate : loans) {
+            rows.add(Map.of("id", candidate.getId(), "loan_number", candidate.getLoanNumber()));
+        }
+        when(jdbcTemplate.queryForList(contains("FROM loans"), any(), any(), eq(CHUNK_SIZE)))
+                .thenReturn(rows, List.of());
+    }
+
+    private void givenWritten(long written, long generated, LocalDate lastDue) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("written", written);
+        row.put("generated", generated);
+        row.put("last_due", lastDue == null ? null : Date.valueOf(lastDue));
+        when(jdbcTemplate.queryForMap(contains("FROM loan_installments"), eq(loan.getId()))).thenReturn(row);
+    }
+}
@@ -0,0 +1,146 @@
+package rs.banka4.user_service.unit.loan;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import rs.banka4.user_service.domain.loan.db.Loan;
+import rs.banka4.user_service.domain.loan.db.LoanType;
+import rs.banka4.user_service.utils.loans.AmortizationEngine;
+import rs.banka4.user_service.utils.loans.LoanRateUtil;
+import rs.banka4.user_service.utils.loans.LoanScheduleGenerator;
+import rs.banka4.user_service.utils.loans.ReferenceRateRegistry;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class LoanScheduleGeneratorTests {
+
+    private static final LocalDate AGREEMENT_DATE = LocalDate.of(2025, 1, 31);
+    private static final BigDecimal MONTHLY_RATE = new BigDecimal("0.005");
+
+    private JdbcTemplate jdbcTemplate;
+    private LoanRateUtil loanRateUtil;
+    private ReferenceRateRegistry referenceRateRegistry;
+    private LoanScheduleGenerator generator;
+    private Loan loan;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        loanRateUtil = mock(LoanRateUtil.class);
+        referenceRateRegistry = mock(ReferenceRateRegistry.class);
+        generator = new LoanScheduleGenerator(jdbcTemplate, loanRateUtil, referenceRateRegistry);
+
+        loan = new Loan();
+        loan.setId(UUID.randomUUID());
+        loan.setAmount(new BigDecimal("10000"));
+        loan.setRepaymentPeriod(24);
+        loan.setBaseInterestRate(new BigDecimal("6.00"));
+        loan.setType(LoanType.CASH);
+        loan.setInterestType(Loan.InterestType.FIXED);
+        loan.setAgreementDate(AGREEMENT_DATE);
+    }
+
+    @Test
+    void testWholeScheduleIsInsertedInOneBatch() {
+        when(loanRateUtil.calculateInterestRate(new BigDecimal("6.00"), LoanType.CASH)).thenReturn(MONTHLY_RATE);
+
+        List<AmortizationEngine.AmortizationPeriod> schedule = generator.generate(loan);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(startsWith("INSERT INTO loan_installments"), rows.capture());
+        assertEquals(24, rows.getValue().size());
+        assertEquals(24, schedule.size());
+
+        for (int i = 0; i < schedule.size(); i++) {
+            Object[] row = rows.getValue().get(i);
+            assertEquals(loan.getId(), row[1]);
+            assertEquals(schedule.get(i).installment(), row[2]);
+            assertEquals(MONTHLY_RATE, row[3]);
+            assertEquals(AGREEMENT_DATE.plusMonths(i + 1), row[4]);
+            assertEquals("UNPAID", row[5]);
+            assertEquals(schedule.get(i).principal(), row[6]);
+            assertEquals(schedule.get(i).interest(), row[7]);
+            assertEquals(schedule.get(i).balance(), row[8]);
+        }
+        assertEquals(24, rows.getValue().stream().map(row -> row[0]).distinct().count());
+        assertEquals(LocalDate.of(2025, 2, 28), rows.getValue().getFirst()[4]);
+        assertEquals(0, ((BigDecimal) rows.getValue().getLast()[8]).signum());
+    }
+
+    @Test
+    void testTotalRepayableCoversPrincipalAndInterest() {
+        when(loanRateUtil.calculateInterestRate(new BigDecimal("6.00"), LoanType.CASH)).thenReturn(MONTHLY_RATE);
+
+        List<AmortizationEngine.AmortizationPeriod> schedule = generator.generate(loan);
+
+        BigDecimal interest = schedule.stream()
+                .map(AmortizationEngine.AmortizationPeriod::interest)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(new BigDecimal("10000.00").add(interest), LoanScheduleGenerator.totalRepayable(schedule));
+    }
+
+    @Test
+    void testVariableLoansUseTheVariantOnTheAgreementDate() {
+        loan.setInterestType(Loan.InterestType.VARIABLE);
+        when(referenceRateRegistry.variantOn(AGREEMENT_DATE)).thenReturn(new BigDecimal("0.75"));
+        when(loanRateUtil.calculateInterestRate(new BigDecimal("6.75"), LoanType.CASH)).thenReturn(MONTHLY_RATE);
+
+        generator.generate(loan);
+
+        verify(referenceRateRegistry).variantOn(AGREEMENT_DATE);
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void testRemainingPlanRepaysWhatTheOriginalPlanStillOwes() {
+        when(loanRateUtil.calculateInterestRate(new BigDecimal("6.00"), LoanType.CASH)).thenReturn(MONTHLY_RATE);
+        List<AmortizationEngine.AmortizationPeriod> original =
+                AmortizationEngine.schedule(loan.getAmount(), MONTHLY_RATE, 24, AGREEMENT_DATE);
+        LocalDate firstDueDate = LocalDate.of(2025, 8, 31);
+
+        List<AmortizationEngine.AmortizationPeriod> remaining = generator.generateRemaining(loan, 6, firstDueDate);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO loan_installments"), rows.capture());
+        assertEquals(18, remaining.size());
+        assertEquals(18, rows.getValue().size());
+        assertEquals(original.get(5).balance(), remaining.stream()
+                .map(AmortizationEngine.AmortizationPeriod::principal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add));
+        assertEquals(0, remaining.getLast().balance().signum());
+        /* Counted from the first due date, so the end of the month is kept.  */
+        assertEquals(firstDueDate, rows.getValue().getFirst()[4]);
+        assertEquals(LocalDate.of(2025, 10, 31), rows.getValue().get(2)[4]);
+    }
+
+    @Test
+    void testRemainingPlanOfLoanWithoutRowsStartsFromTheFullAmount() {
+        when(loanRateUtil.calculateInterestRate(new BigDecimal("6.00"), LoanType.CASH)).thenReturn(MONTHLY_RATE);
+
+        List<AmortizationEngine.AmortizationPeriod> remaining =
+                generator.generateRemaining(loan, 0, AGREEMENT_DATE.plusMonths(1));
+
+        assertEquals(24, remaining.size());
+        assertEquals(generator.generate(loan).stream().map(AmortizationEngine.AmortizationPeriod::installment).toList(),
+                remaining.stream().map(AmortizationEngine.AmortizationPeriod::installment).toList());
+    }
+
+    @Test
+    void testNothingIsWrittenOnceTheTermIsUsedUp() {
+        List<AmortizationEngine.AmortizationPeriod> remaining =
+                generator.generateRemaining(loan, 24, AGREEMENT_DATE.plusMonths(25));
+
+        assertTrue(remaining.isEmpty());
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -2,10 +2,17 @@ package rs.banka4.user_service.unit.loan;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import rs.banka4.user_service.domain.loan.db.Loan;
+import rs.banka4.user_service.domain.loan.db.LoanInstallment;
+import rs.banka4.user_service.domain.loan.db.LoanType;
+import rs.banka4.user_service.domain.loan.db.PaymentStatus;
+import rs.banka4.user_service.domain.loan.dtos.LoanScheduleDto;
+import rs.banka4.user_service.exceptions.account.NotAccountOwner;
+import rs.banka4.user_service.generator.AccountObjectMother;
 import rs.banka4.user_service.domain.loan.db.LoanStatus;
 import rs.banka4.user_service.exceptions.jwt.Unauthorized;
 import rs.banka4.user_service.exceptions.loan.InvalidLoanStatus;
@@ -14,11 +21,19 @@ import rs.banka4.user_service.repositories.LoanInstallmentRepository;
 import rs.banka4.user_service.repositories.LoanRepository;
 import rs.banka4.user_service.service.impl.LoanServiceImpl;
 import rs.banka4.user_service.utils.JwtUtil;
+import rs.banka4.user_service.utils.loans.AmortizationEngine;
+import rs.banka4.user_service.utils.loans.LoanRateUtil;
+import rs.banka4.user_service.utils.loans.LoanScheduleGenerator;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -33,6 +48,10 @@ public class ManageLoansTests {
     private JwtUtil jwtUtil;
     @Mock
     private LoanInstallmentRepository loanInstallmentRepository;
+    @Mock
+    private LoanRateUtil loanRateUtil;
+    @Mock
+    private LoanScheduleGenerator loanScheduleGenerator;
     @InjectMocks
     private LoanServiceImpl loanService;
 
@@ -60,13 +79,14 @@ public class ManageLoansTests {
 
         when(jwtUtil.extractRole("jwt")).thenReturn("employee");
 
-        when(loanRepository.findByLoanNumber(loanNumber))
+        when(loanRepository.findByLoanNumberForUpdate(loanNumber))
                 .thenReturn(Optional.of(loan));
         when(loanRepository.save(loan)).thenReturn(loan);
 
 
         assertThrows(InvalidLoanStatus.class,() -> loanService.approveLoan(loanNumber,"jwt"));
         verify(loanRepository,never()).save(loan);
+        verify(loanScheduleGenerator, never()).generate(any());
     }
     @Test
     void rejectLoan_loanStatusBad() {
@@ -78,7 +98,7 @@ public class ManageLoansTests {
 
         when(jwtUtil.extractRole("jwt")).thenReturn("employee");
 
-        when(loanRepository.findByLoanNumber(loanNumber))
+        when(loanRepository.findByLoanNumberForUpdate(loanNumber))
                 .thenReturn(Optional.of(loan));
         when(loanRepository.save(loan)).thenReturn(loan);
 
@@ -97,9 +117,16 @@ public class ManageLoansTests {
 
         when(jwtUtil.extractRole("jwt")).thenReturn("employee");
 
-        when(loanRepository.findByLoanNumber(loanNumber))
+        when(loanRepository.findByLoanNumberForUpdate(loanNumber))
                 .thenReturn(Optional.of(loan));
         when(loanRepository.save(loan)).thenReturn(loan);
+        when(loanScheduleGenerator.generate(loan)).thenReturn(List.of(
+                new AmortizationEngine.AmortizationPeriod(1, LocalDate.now().plusMonths(1), new BigDecimal("340.02"),
+                        new BigDecimal("330.02"), new BigDecimal("10.00"), new BigDecimal("669.98")),
+                new AmortizationEngine.AmortizationPeriod(2, LocalDate.now().plusMonths(2), new BigDecimal("340.02"),
+                        new BigDecimal("333.32"), new BigDecimal("6.70"), new BigDecimal("336.66")),
+                new AmortizationEngine.AmortizationPeriod(3, LocalDate.now().plusMonths(3), new BigDecimal("340.03"),
+                        new BigDecimal("336.66"), new BigDecimal("3.37"), new BigDecimal("0.00"))));
 
         loanService.approveLoan(loanNumber,"jwt");
 
@@ -107,13 +134,59 @@ public class ManageLoansTests {
         assertEquals(loan.getNextInstallmentDate(), LocalDate.now().plusMonths(1));
         assertEquals(loan.getDueDate(), LocalDate.now().plusMonths(3));
         assertEquals(LoanStatus.APPROVED, loan.getStatus());
+        assertEquals(new BigDecimal("1020.07"), loan.getRemainingDebt());
+        verify(loanScheduleGenerator).generate(loan);
         verify(loanRepository).save(loan);
     }
 
+    @Test
+    void approveLoan_locksLoanBeforeGeneratingSchedule() {
+        Long loanNumber = 123L;
+        Loan loan = new Loan();
+        loan.setRepaymentPeriod(1);
+        loan.setLoanNumber(loanNumber);
+        loan.setStatus(LoanStatus.PROCESSING);
+
+        when(jwtUtil.extractRole("jwt")).thenReturn("employee");
+        when(loanRepository.findByLoanNumberForUpdate(loanNumber)).thenReturn(Optional.of(loan));
+        when(loanScheduleGenerator.generate(loan)).thenReturn(List.of(
+                new AmortizationEngine.AmortizationPeriod(1, LocalDate.now().plusMonths(1), new BigDecimal("1005.00"),
+                        new BigDecimal("1000.00"), new BigDecimal("5.00"), new BigDecimal("0.00"))));
+
+        loanService.approveLoan(loanNumber, "jwt");
+
+        InOrder inOrder = inOrder(loanRepository, loanScheduleGenerator);
+        inOrder.verify(loanRepository).findByLoanNumberForUpdate(loanNumber);
+        inOrder.verify(loanScheduleGenerator).generate(loan);
+        verify(loanRepository, never()).findByLoanNumber(any());
+    }
+
+    @Test
+    void approveLoan_secondApprovalDoesNotWriteScheduleAgain() {
+        Long loanNumber = 123L;
+        Loan loan = new Loan();
+        loan.setRepaymentPeriod(1);
+        loan.setLoanNumber(loanNumber);
+        loan.setStatus(LoanStatus.PROCESSING);
+
+        when(jwtUtil.extractRole("jwt")).thenReturn("employee");
+        /* The second call sees the loan as the first one left it, as it would after waiting for its lock.  */
+        when(loanRepository.findByLoanNumberForUpdate(loanNumber)).thenReturn(Optional.of(loan));
+        when(loanScheduleGenerator.generate(loan)).thenReturn(List.of(
+                new AmortizationEngine.AmortizationPeriod(1, LocalDate.now().plusMonths(1), new BigDecimal("1005.00"),
+                        new BigDecimal("1000.00"), new BigDecimal("5.00"), new BigDecimal("0.00"))));
+
+        loanService.approveLoan(loanNumber, "jwt");
+
+        assertThrows(InvalidLoanStatus.class, () -> loanService.approveLoan(loanNumber, "jwt"));
+        verify(loanScheduleGenerator, times(1)).generate(loan);
+        verify(loanRepository, times(1)).save(loan);
+    }
+
     @Test
     void approveLoan_notFound() {
         Long loanNumber = 123L;
-        when(loanRepository.findByLoanNumber(loanNumber))
+        when(loanRepository.findByLoanNumberForUpdate(loanNumber))
                 .thenReturn(Optional.empty());
         when(jwtUtil.extractRole("jwt")).thenReturn("employee");
 
@@ -130,7 +203,7 @@ public class ManageLoansTests {
         loan.setStatus(LoanStatus.PROCESSING);
 
         when(jwtUtil.extractRole("jwt")).thenReturn("employee");
-        when(loanRepository.findByLoanNumber(loanNumber))
+        when(loanRepository.findByLoanNumberForUpdate(loanNumber))
                 .thenReturn(Optional.of(loan));
         when(loanRepository.save(loan)).thenReturn(loan);
 
@@ -145,10 +218,93 @@ public class ManageLoansTests {
         Long loanNumber = 456L;
 
         when(jwtUtil.extractRole("jwt")).thenReturn("employee");
-        when(loanRepository.findByLoanNumber(loanNumber))
+        when(loanRepository.findByLoanNumberForUpdate(loanNumber))
                 .thenReturn(Optional.empty());
 
         assertThrows(LoanNotFound.class, () -> loanService.rejectLoan(loanNumber,"jwt"));
         verify(loanRepository, never()).save(any(Loan.class));
     }
+
+    @Test
+    void getLoanSchedule_ownerSeesStoredInstallments() {
+        Long loanNumber = 789L;
+        Loan loan = scheduledLoan(loanNumber);
+        List<AmortizationEngine.AmortizationPeriod> plan =
+                AmortizationEngine.schedule(loan.getAmount(), new BigDecimal("0.005"), 12, loan.getAgreementDate());
+        List<LoanInstallment> installments = plan.stream()
+                .map(period -> LoanInstallment.builder()
+                        .loan(loan)
+                        .installmentAmount(period.installment())
+                        .interestRateAmount(new BigDecimal("0.005"))
+                        .principalAmount(period.principal())
+                        .interestAmount(period.interest())
+                        .remainingBalance(period.balance())
+                        .expectedDueDate(period.dueDate())
+                        .paymentStatus(PaymentStatus.UNPAID)
+                        .build())
+                .toList();
+        installments.getFirst().setPaymentStatus(PaymentStatus.PAID);
+        /* Repriced after the first payment; the schedule shows the stored amount, not a recomputed one.  */
+        installments.get(1).setInstallmentAmount(new BigDecimal("870.00"));
+        installments.get(1).setInterestRateAmount(new BigDecimal("0.006"));
+
+        when(jwtUtil.extractRole("jwt")).thenReturn("client");
+        when(jwtUtil.extractUsername("jwt")).thenReturn("markezaa@example.com");
+        when(loanRepository.findByLoanNumber(loanNumber)).thenReturn(Optional.of(loan));
+        when(loanInstallmentRepository.findByLoanIdOrderByExpectedDueDateAsc(loan.getId())).thenReturn(installments);
+
+        LoanScheduleDto schedule = loanService.getLoanSchedule(loanNumber, "jwt").getBody();
+
+        assertEquals(12, schedule.periods().size());
+        assertEquals(LocalDate.of(2025, 2, 1), schedule.periods().getFirst().dueDate());
+        assertEquals(PaymentStatus.PAID, schedule.periods().getFirst().paymentStatus());
+        assertEquals(new BigDecimal("870.00"), schedule.periods().get(1).installment());
+        assertEquals(new BigDecimal("870.00"), schedule.monthlyInstallment());
+        assertEquals(new BigDecimal("0.006"), schedule.monthlyInterestRate());
+        assertEquals(0, schedule.periods().getLast().remainingBalance().signum());
+        assertNotNull(schedule.currency());
+    }
+
+    @Test
+    void getLoanSchedule_loanWithoutInstallmentsHasEmptySchedule() {
+        Long loanNumber = 789L;
+        Loan loan = scheduledLoan(loanNumber);
+        loan.setStatus(LoanStatus.PROCESSING);
+
+        when(jwtUtil.extractRole("jwt")).thenReturn("employee");
+        when(loanRepository.findByLoanNumber(loanNumber)).thenReturn(Optional.of(loan));
+        when(loanInstallmentRepository.findByLoanIdOrderByExpectedDueDateAsc(loan.getId())).thenReturn(List.of());
+
+        LoanScheduleDto schedule = loanService.getLoanSchedule(loanNumber, "jwt").getBody();
+
+        assertEquals(0, schedule.periods().size());
+        assertEquals(BigDecimal.ZERO, schedule.totalInterest());
+        assertNull(schedule.monthlyInstallment());
+    }
+
+    @Test
+    void getLoanSchedule_otherClientIsForbidden() {
+        Long loanNumber = 789L;
+
+        when(jwtUtil.extractRole("jwt")).thenReturn("client");
+        when(jwtUtil.extractUsername("jwt")).thenReturn("someone.else@example.com");
+        when(loanRepository.findByLoanNumber(loanNumber)).thenReturn(Optional.of(scheduledLoan(loanNumber)));
+
+        assertThrows(NotAccountOwner.class, () -> loanService.getLoanSchedule(loanNumber, "jwt"));
+    }
+
+    private static Loan scheduledLoan(Long loanNumber) {
+        Loan loan = new Loan();
+        loan.setId(UUID.randomUUID());
+        loan.setLoanNumber(loanNumber);
+        loan.setAmount(new BigDecimal("10000"));
+        loan.setRepaymentPeriod(12);
+        loan.setBaseInterestRate(new BigDecimal("6.00"));
+        loan.setInterestType(Loan.InterestType.FIXED);
+        loan.setType(LoanType.CASH);
+        loan.setStatus(LoanStatus.APPROVED);
+        loan.setAgreementDate(LocalDate.of(2025, 1, 1));
+        loan.setAccount(AccountObjectMother.generateBasicFromAccount());
+        return loan;
+    }
 }
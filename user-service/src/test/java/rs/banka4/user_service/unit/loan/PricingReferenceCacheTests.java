@@ -0,0 +1,105 @@
+package rs.banka4.user_service.unit.loan;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rs.banka4.user_service.domain.loan.db.BankMargin;
+import rs.banka4.user_service.domain.loan.db.InterestRate;
+import rs.banka4.user_service.domain.loan.db.LoanType;
+import rs.banka4.user_service.repositories.BankMarginRepository;
+import rs.banka4.user_service.repositories.InterestRateRepository;
+import rs.banka4.user_service.utils.loans.PricingReferenceCache;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PricingReferenceCacheTests {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 4, 15);
+
+    private InterestRateRepository interestRateRepository;
+    private BankMarginRepository bankMarginRepository;
+    private PricingReferenceCache cache;
+
+    @BeforeEach
+    void setUp() {
+        interestRateRepository = mock(InterestRateRepository.class);
+        bankMarginRepository = mock(BankMarginRepository.class);
+        when(interestRateRepository.findAll()).thenReturn(List.of(
+                tier("500001", "1000000", "5.75", "2025-01-01", "2025-12-31"),
+                tier("0", "500000", "6.25", "2025-01-01", "2025-12-31"),
+                tier("1000001", "999999999", "5.25", "2025-01-01", "2025-12-31"),
+                /* A newer tier for small loans that starts mid-year and overlaps the first one.  */
+                tier("0", "500000", "6.00", "2025-04-01", "2025-12-31"),
+                tier("0", "999999999", "9.99", "2024-01-01", "2024-12-31")));
+        when(bankMarginRepository.findAll()).thenReturn(List.of(
+                BankMargin.builder().type(LoanType.CASH).margin(new BigDecimal("1.75")).build(),
+                BankMargin.builder().type(LoanType.MORTGAGE).margin(new BigDecimal("1.50")).build()));
+        cache = new PricingReferenceCache(interestRateRepository, bankMarginRepository);
+    }
+
+    @Test
+    void testTierIsFoundByAmountAndDate() {
+        assertEquals(Optional.of(new BigDecimal("5.75")), cache.fixedRate(new BigDecimal("750000"), TODAY));
+        assertEquals(Optional.of(new BigDecimal("5.25")), cache.fixedRate(new BigDecimal("2000000"), TODAY));
+        assertEquals(Optional.of(new BigDecimal("5.75")), cache.fixedRate(new BigDecimal("1000000"), TODAY));
+        assertEquals(Optional.of(new BigDecimal("9.99")), cache.fixedRate(new BigDecimal("750000"), LocalDate.of(2024, 6, 1)));
+    }
+
+    @Test
+    void testLatestOverlappingTierWins() {
+        assertEquals(Optional.of(new BigDecimal("6.00")), cache.fixedRate(new BigDecimal("1000"), TODAY));
+        assertEquals(Optional.of(new BigDecimal("6.25")), cache.fixedRate(new BigDecimal("1000"), LocalDate.of(2025, 3, 31)));
+    }
+
+    @Test
+    void testNoTierOutsideRanges() {
+        assertEquals(Optional.empty(), cache.fixedRate(new BigDecimal("500000.50"), TODAY));
+        assertEquals(Optional.empty(), cache.fixedRate(new BigDecimal("1000"), LocalDate.of(2026, 1, 1)));
+        assertEquals(Optional.empty(), cache.fixedRate(new BigDecimal("-1"), TODAY));
+    }
+
+    @Test
+    void testBankMargins() {
+        assertEquals(Optional.of(new BigDecimal("1.75")), cache.bankMargin(LoanType.CASH));
+        assertEquals(Optional.empty(), cache.bankMargin(LoanType.STUDENT_LOAN));
+        assertEquals(2, cache.bankMargins().size());
+    }
+
+    @Test
+    void testLookupsDoNotHitTheDatabaseAgain() {
+        for (int i = 0; i < 100; i++) {
+            cache.fixedRate(new BigDecimal("1000"), TODAY);
+            cache.bankMargin(LoanType.CASH);
+        }
+
+        verify(interestRateRepository, times(1)).findAll();
+        verify(bankMarginRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testInvalidationReloads() {
+        cache.bankMargin(LoanType.CASH);
+        when(bankMarginRepository.findAll()).thenReturn(List.of(
+                BankMargin.builder().type(LoanType.CASH).margin(new BigDecimal("2.00")).build()));
+
+        cache.invalidate();
+
+        assertEquals(Optional.of(new BigDecimal("2.00")), cache.bankMargin(LoanType.CASH));
+        verify(bankMarginRepository, times(2)).findAll();
+    }
+
+    private static InterestRate tier(String min, String max, String rate, String from, String to) {
+        return InterestRate.builder()
+                .minAmount(new BigDecimal(min))
+                .maxAmount(new BigDecimal(max))
+                .fixedRate(new BigDecimal(rate))
+                .dateActiveFrom(LocalDate.parse(from))
+                .dateActiveTo(LocalDate.parse(to))
+                .build();
+    }
+}
@@ -0,0 +1,114 @@
+package rs.banka4.user_service.unit.loan;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import rs.banka4.user_service.config.RabbitMqConfig;
+import rs.banka4.user_service.utils.loans.ReferenceRateRegistry;
+import rs.banka4.user_service.utils.notifications.NotificationOutbox;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class ReferenceRateRegistryTests {
+
+    private JdbcTemplate jdbcTemplate;
+    private NotificationOutbox notificationOutbox;
+    private ReferenceRateRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        notificationOutbox = mock(NotificationOutbox.class);
+        registry = new ReferenceRateRegistry(jdbcTemplate, notificationOutbox);
+    }
+
+    @Test
+    void testVariantIsTakenFromThePeriodInEffect() throws Exception {
+        givenPeriods(List.of(
+                row(LocalDate.of(2025, 3, 1), "0.75"),
+                row(LocalDate.of(2025, 4, 1), "-1.20"),
+                row(LocalDate.of(2025, 5, 1), "0.10")));
+
+        registry.reload();
+
+        assertEquals(BigDecimal.ZERO, registry.variantOn(LocalDate.of(2025, 2, 28)));
+        assertEquals(new BigDecimal("0.75"), registry.variantOn(LocalDate.of(2025, 3, 31)));
+        assertEquals(new BigDecimal("-1.20"), registry.variantOn(LocalDate.of(2025, 4, 1)));
+        assertEquals(new BigDecimal("0.10"), registry.variantOn(LocalDate.of(2026, 1, 1)));
+        assertFalse(registry.hasPeriodStarting(LocalDate.of(2025, 2, 1)));
+        assertTrue(registry.hasPeriodStarting(LocalDate.of(2025, 3, 1)));
+    }
+
+    @Test
+    void testMonthCoveredOnlyByAnEarlierPeriodHasNoPeriodOfItsOwn() throws Exception {
+        /* The 20th of May passed while no instance was up, so June was never published.  */
+        givenPeriods(List.of(
+                row(LocalDate.of(2025, 4, 1), "-1.20"),
+                row(LocalDate.of(2025, 5, 1), "0.10")));
+
+        registry.reload();
+
+        assertEquals(new BigDecimal("0.10"), registry.variantOn(LocalDate.of(2025, 6, 1)));
+        assertFalse(registry.hasPeriodStarting(LocalDate.of(2025, 6, 1)));
+    }
+
+    @Test
+    void testReadsAfterLoadDoNotQueryTheDatabase() throws Exception {
+        givenPeriods(List.of(row(LocalDate.of(2025, 3, 1), "0.75")));
+        registry.reload();
+
+        for (int i = 0; i < 100; i++) {
+            registry.variantOn(LocalDate.of(2025, 3, 15));
+        }
+
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void testPublishingBroadcastsOnlyWhenThePeriodIsNew() {
+        LocalDate april = LocalDate.of(2025, 4, 1);
+        when(jdbcTemplate.update(startsWith("INSERT INTO reference_rate_periods"), eq(april), eq(new BigDecimal("0.50")), any()))
+                .thenReturn(1, 0);
+
+        assertTrue(registry.publish(april, new BigDecimal("0.50")));
+        assertFalse(registry.publish(april, new BigDecimal("0.50")));
+
+        verify(notificationOutbox, times(1)).enqueue(eq(RabbitMqConfig.REFERENCE_RATE_EXCHANGE), eq(""),
+                eq(new ReferenceRateRegistry.ReferenceRatePeriod(april, new BigDecimal("0.50"))));
+    }
+
+    @Test
+    void testBroadcastReloads() throws Exception {
+        givenPeriods(List.of(row(LocalDate.of(2025, 3, 1), "0.75")));
+
+        registry.onPublished(null);
+
+        assertEquals(new BigDecimal("0.75"), registry.variantOn(LocalDate.of(2025, 3, 2)));
+    }
+
+    private void givenPeriods(List<ResultSet> rows) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (ResultSet rs : rows) {
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT effective_from"), any(RowCallbackHandler.class));
+    }
+
+    private static ResultSet row(LocalDate effectiveFrom, String variant) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getDate("effective_from")).thenReturn(Date.valueOf(effectiveFrom));
+        when(rs.getBigDecimal("variant")).thenReturn(new BigDecimal(variant));
+        return rs;
+    }
+}
@@ -0,0 +1,137 @@
+package rs.banka4.user_service.unit.notifications;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpTimeoutException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import rs.banka4.user_service.utils.notifications.NotificationOutboxRelay;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class NotificationOutboxRelayTests {
+
+    private static final int BATCH_SIZE = 2;
+
+    private JdbcTemplate jdbcTemplate;
+    private RabbitTemplate rabbitTemplate;
+    private RabbitOperations operations;
+    private NotificationOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        rabbitTemplate = mock(RabbitTemplate.class);
+        operations = mock(RabbitOperations.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(rabbitTemplate.invoke(any())).thenAnswer(invocation ->
+                invocation.<RabbitOperations.OperationsCallback<?>>getArgument(0).doInRabbit(operations));
+        relay = new NotificationOutboxRelay(jdbcTemplate, transactionTemplate, rabbitTemplate, new ObjectMapper(),
+                BATCH_SIZE, 1000, 300, 72);
+    }
+
+    @Test
+    void testBatchesAreConfirmedOnceAndMarkedDelivered() {
+        givenOutbox(List.of(UUID.randomUUID(), UUID.randomUUID()), List.of(UUID.randomUUID()));
+        List<Object[]> delivered = captureBatch("UPDATE notification_outbox SET delivered_at");
+
+        int count = relay.relay();
+
+        assertEquals(3, count);
+        assertEquals(3, delivered.size());
+        verify(operations, times(3)).send(eq("notification-queue"), eq("notification-queue"), any(Message.class));
+        verify(operations, times(2)).waitForConfirmsOrDie(1000);
+        verify(jdbcTemplate, never()).batchUpdate(contains("attempts = attempts + 1"), anyList());
+    }
+
+    @Test
+    void testMessageIsRebuiltFromTheOutboxRow() {
+        UUID id = UUID.randomUUID();
+        givenOutbox(List.of(id));
+
+        relay.relay();
+
+        verify(operations).send(anyString(), anyString(), argThat(message ->
+                id.toString().equals(message.getMessageProperties().getMessageId())
+                        && "application/json".equals(message.getMessageProperties().getContentType())
+                        && "rs.banka4.user_service.domain.auth.dtos.NotificationTransferDto"
+                        .equals(message.getMessageProperties().getHeader("__TypeId__"))
+                        && "{\"topic\":\"x\"}".equals(new String(message.getBody(), StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    void testUnconfirmedBatchIsRescheduledAndRelayStops() {
+        givenOutbox(List.of(UUID.randomUUID(), UUID.randomUUID()), List.of(UUID.randomUUID()));
+        doThrow(new AmqpTimeoutException("no confirm")).when(operations).waitForConfirmsOrDie(anyLong());
+        List<Object[]> failed = captureBatch("UPDATE notification_outbox\nSET attempts");
+
+        int count = relay.relay();
+
+        assertEquals(0, count);
+        assertEquals(2, failed.size());
+        assertEquals("no confirm", failed.getFirst()[2]);
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowMapper.class), any(), any());
+        verify(jdbcTemplate, never()).batchUpdate(startsWith("UPDATE notification_outbox SET delivered_at"), anyList());
+    }
+
+    @Test
+    void testEmptyOutboxPublishesNothing() {
+        givenOutbox();
+
+        assertEquals(0, relay.relay());
+
+        verifyNoInteractions(rabbitTemplate);
+    }
+
+    /* Each list is one claimed batch; the mapper runs against a mocked row so it is covered too.  */
+    @SafeVarargs
+    private void givenOutbox(List<UUID>... batches) {
+        List<List<UUID>> remaining = new ArrayList<>(List.of(batches));
+        when(jdbcTemplate.query(contains("FOR UPDATE SKIP LOCKED"), any(RowMapper.class), any(), eq(BATCH_SIZE)))
+                .thenAnswer(invocation -> {
+                    RowMapper<?> mapper = invocation.getArgument(1);
+                    List<Object> rows = new ArrayList<>();
+                    for (UUID id : remaining.isEmpty() ? List.<UUID>of() : remaining.removeFirst()) {
+                        rows.add(mapper.mapRow(row(id), rows.size()));
+                    }
+                    return rows;
+                });
+    }
+
+    private List<Object[]> captureBatch(String sqlPrefix) {
+        List<Object[]> rows = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(startsWith(sqlPrefix), anyList())).thenAnswer(invocation -> {
+            rows.addAll(invocation.getArgument(1));
+            return new int[0];
+        });
+        return rows;
+    }
+
+    private static ResultSet row(UUID id) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getObject("id", UUID.class)).thenReturn(id);
+        when(rs.getString("exchange")).thenReturn("notification-queue");
+        when(rs.getString("routing_key")).thenReturn("notification-queue");
+        when(rs.getString("content_type")).thenReturn("application/json");
+        when(rs.getString("headers"))
+                .thenReturn("{\"__TypeId__\":\"rs.banka4.user_service.domain.auth.dtos.NotificationTransferDto\"}");
+        when(rs.getBytes("body")).thenReturn("{\"topic\":\"x\"}".getBytes(StandardCharsets.UTF_8));
+        return rs;
+    }
+}
@@ -0,0 +1,128 @@
+package rs.banka4.user_service.unit.scheduling;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import rs.banka4.user_service.utils.scheduling.SchedulerLeases;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class SchedulerLeasesTests {
+    private static final String OWNER = "test-instance";
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    private JdbcTemplate jdbcTemplate;
+    private SchedulerLeases schedulerLeases;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        schedulerLeases = new SchedulerLeases(jdbcTemplate, OWNER, 30, 7);
+    }
+
+    @Test
+    void testRunExclusivelyRunsAndReleasesWhenLeaseIsTaken() {
+        when(jdbcTemplate.update(startsWith("INSERT INTO scheduler_leases"), eq("job"), eq(OWNER), eq(600L)))
+                .thenReturn(1);
+        Runnable job = mock(Runnable.class);
+
+        assertTrue(schedulerLeases.runExclusively("job", TTL, job));
+
+        verify(job).run();
+        verify(jdbcTemplate).update(contains("GREATEST"), eq(30L), eq("job"), eq(OWNER));
+    }
+
+    @Test
+    void testRunExclusivelySkipsWhenLeaseIsHeldElsewhere() {
+        when(jdbcTemplate.update(startsWith("INSERT INTO scheduler_leases"), any(), any(), any())).thenReturn(0);
+        Runnable job = mock(Runnable.class);
+
+        assertFalse(schedulerLeases.runExclusively("job", TTL, job));
+
+        verifyNoInteractions(job);
+        verify(jdbcTemplate, never()).update(contains("GREATEST"), any(), any(), any());
+    }
+
+    @Test
+    void testRunExclusivelyReleasesWhenJobThrows() {
+        when(jdbcTemplate.update(startsWith("INSERT INTO scheduler_leases"), any(), any(), any())).thenReturn(1);
+
+        assertThrows(IllegalStateException.class, () -> schedulerLeases.runExclusively("job", TTL, () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        verify(jdbcTemplate).update(contains("GREATEST"), eq(30L), eq("job"), eq(OWNER));
+    }
+
+    @Test
+    void testRunOnceCompletesTheRun() {
+        when(jdbcTemplate.update(startsWith("INSERT INTO scheduler_leases"), eq("job:2025-03-01"), eq(OWNER), eq(600L)))
+                .thenReturn(1);
+        Runnable job = mock(Runnable.class);
+
+        assertTrue(schedulerLeases.runOnce("job:2025-03-01", TTL, job));
+
+        verify(job).run();
+        verify(jdbcTemplate).update(contains("completed_at = now()"), eq("job:2025-03-01"), eq(OWNER));
+        verify(jdbcTemplate, never()).update(contains("GREATEST"), any(), any(), any());
+    }
+
+    @Test
+    void testRunOnceReleasesAFailedRunAtOnce() {
+        when(jdbcTemplate.update(startsWith("INSERT INTO scheduler_leases"), any(), any(), any())).thenReturn(1);
+
+        assertThrows(IllegalStateException.class, () -> schedulerLeases.runOnce("job:2025-03-01", TTL, () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        verify(jdbcTemplate).update(contains("expires_at = now()"), eq("job:2025-03-01"), eq(OWNER));
+        verify(jdbcTemplate, never()).update(contains("completed_at = now()"), any(), any());
+    }
+
+    @Test
+    void testRunShardsCompletesDoneShardsAndAbandonsFailedOnes() {
+        when(jdbcTemplate.update(startsWith("INSERT INTO scheduler_leases"), anyString(), eq(OWNER), eq(600L)))
+                .thenReturn(1);
+        when(jdbcTemplate.queryForObject(contains("count(*)"), eq(Long.class), eq("run#"))).thenReturn(2L);
+        Set<Integer> seen = new HashSet<>();
+
+        SchedulerLeases.ShardReport report = schedulerLeases.runShards("run", 4, TTL, shard -> {
+            seen.add(shard);
+            if (shard == 3) {
+                throw new IllegalStateException("boom");
+            }
+            return shard % 2 == 0;
+        });
+
+        assertEquals(Set.of(0, 1, 2, 3), seen);
+        assertEquals(4, report.claimed());
+        assertEquals(2, report.failed());
+        assertFalse(report.allCompleted());
+        verify(jdbcTemplate).update(contains("completed_at = now()"), eq("run#0"), eq(OWNER));
+        verify(jdbcTemplate).update(contains("completed_at = now()"), eq("run#2"), eq(OWNER));
+        verify(jdbcTemplate).update(contains("expires_at = now()"), eq("run#1"), eq(OWNER));
+        verify(jdbcTemplate).update(contains("expires_at = now()"), eq("run#3"), eq(OWNER));
+    }
+
+    @Test
+    void testRunShardsSkipsClaimedShardsAndReportsRunCompleted() {
+        when(jdbcTemplate.update(startsWith("INSERT INTO scheduler_leases"), anyString(), eq(OWNER), eq(600L)))
+                .thenAnswer(invocation -> invocation.getArgument(1).equals("run#1") ? 1 : 0);
+        when(jdbcTemplate.queryForObject(contains("count(*)"), eq(Long.class), eq("run#"))).thenReturn(3L);
+        Set<Integer> seen = new HashSet<>();
+
+        SchedulerLeases.ShardReport report = schedulerLeases.runShards("run", 3, TTL, seen::add);
+
+        assertEquals(Set.of(1), seen);
+        assertEquals(1, report.claimed());
+        assertEquals(0, report.failed());
+        assertTrue(report.allCompleted());
+        verify(jdbcTemplate).update(contains("completed_at = now()"), eq("run#1"), eq(OWNER));
+    }
+}
@@ -0,0 +1,245 @@
+package rs.banka4.user_service.unit.transaction;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import rs.banka4.user_service.domain.account.db.Account;
+import rs.banka4.user_service.utils.transactions.AccountLockManager;
+import rs.banka4.user_service.utils.transactions.AccountLockingMode;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class AccountLockManagerTests {
+
+    private static final int THREADS = 8;
+    private static final long INITIAL_BALANCE = 1_000_000L;
+
+    private EntityManager entityManager;
+    private AccountLockManager accountLockManager;
+
+    @BeforeEach
+    void setUp() {
+        entityManager = mock(EntityManager.class);
+        accountLockManager = new AccountLockManager(entityManager, AccountLockingMode.PESSIMISTIC, 1024, 3);
+    }
+
+    @Test
+    void testOpposingTransfersConserveMoney() {
+        List<String> accounts = List.of("444000100000000111", "444000100000000211", "444000100000000311", "444000100000000411");
+        /* Plain longs behind a map: without the lock manager, the read-modify-write below loses updates.  */
+        Map<String, long[]> balances = new ConcurrentHashMap<>();
+        accounts.forEach(accountNumber -> balances.put(accountNumber, new long[]{INITIAL_BALANCE}));
+
+        int transfersPerThread = 1000;
+        assertTimeoutPreemptively(Duration.ofSeconds(60), () -> runConcurrently(transfersPerThread, (thread, i) -> {
+            /* Even threads go A->B, odd threads go B->A, so every pair is contended in both directions.  */
+            int a = i % accounts.size();
+            int b = (a + 1) % accounts.size();
+            String from = accounts.get(thread % 2 == 0 ? a : b);
+            String to = accounts.get(thread % 2 == 0 ? b : a);
+            long amount = ThreadLocalRandom.current().nextLong(1, 100);
+
+            accountLockManager.execute(List.of(from, to), () -> {
+                long fromBalance = balances.get(from)[0];
+                long toBalance = balances.get(to)[0];
+                Thread.yield();
+                balances.get(from)[0] = fromBalance - amount;
+                balances.get(to)[0] = toBalance + amount;
+                return null;
+            });
+        }));
+
+        long total = balances.values().stream().mapToLong(balance -> balance[0]).sum();
+        assertEquals(INITIAL_BALANCE * accounts.size(), total);
+    }
+
+    @Test
+    void testDisjointAccountsProceedConcurrently() throws Exception {
+        /* These four land on different stripes, so the two transfers share no lock.  */
+        CountDownLatch firstInside = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        CountDownLatch secondInside = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = executor.submit(() -> accountLockManager.execute(
+                    List.of("444000100000000111", "444000100000000211"), () -> {
+                        firstInside.countDown();
+                        return awaitQuietly(releaseFirst);
+                    }));
+            assertTrue(firstInside.await(5, TimeUnit.SECONDS));
+
+            Future<?> second = executor.submit(() -> accountLockManager.execute(
+                    List.of("444000100000000311", "444000100000000411"), () -> {
+                        secondInside.countDown();
+                        return null;
+                    }));
+
+            assertTrue(secondInside.await(5, TimeUnit.SECONDS),
+                    "A transfer on unrelated accounts should not wait for one in progress");
+            releaseFirst.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+        } finally {
+            releaseFirst.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testTransfersSharingAnAccountAreSerialized() throws Exception {
+        CountDownLatch firstInside = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        CountDownLatch secondInside = new CountDownLatch(1);
+        AtomicBoolean firstDone = new AtomicBoolean();
+        AtomicBoolean secondSawFirstDone = new AtomicBoolean();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = executor.submit(() -> accountLockManager.execute(
+                    List.of("444000100000000111", "444000100000000211"), () -> {
+                        firstInside.countDown();
+                        awaitQuietly(releaseFirst);
+                        firstDone.set(true);
+                        return null;
+                    }));
+            assertTrue(firstInside.await(5, TimeUnit.SECONDS));
+
+            /* Shares 444000100000000211 with the first, in the opposite direction.  */
+            Future<?> second = executor.submit(() -> accountLockManager.execute(
+                    List.of("444000100000000211", "444000100000000311"), () -> {
+                        secondSawFirstDone.set(firstDone.get());
+                        secondInside.countDown();
+                        return null;
+                    }));
+
+            assertFalse(secondInside.await(200, TimeUnit.MILLISECONDS),
+                    "A transfer sharing an account must wait for the one in progress");
+            releaseFirst.countDown();
+            assertTrue(secondInside.await(5, TimeUnit.SECONDS));
+            assertTrue(secondSawFirstDone.get());
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+        } finally {
+            releaseFirst.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testConcurrencyFailuresAreRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = accountLockManager.execute(List.of("A", "B"), () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException(Account.class, "A");
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void testRetriesAreBounded() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> accountLockManager.execute(List.of("A", "B"), () -> {
+            attempts.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException(Account.class, "A");
+        }));
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void testRowsAreLockedInIdOrder() {
+        Account first = new Account();
+        first.setId(UUID.fromString("00000000-0000-0000-0000-000000000001"));
+        Account second = new Account();
+        second.setId(UUID.fromString("00000000-0000-0000-0000-000000000002"));
+
+        accountLockManager.lockRows(second, first);
+
+        InOrder inOrder = inOrder(entityManager);
+        inOrder.verify(entityManager).refresh(first, LockModeType.PESSIMISTIC_WRITE);
+        inOrder.verify(entityManager).refresh(second, LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    @Test
+    void testRowsAreLockedInTheDatabaseOrderOfIds() {
+        /* Negative as a Java long, so UUID.compareTo would put it first.  */
+        Account high = new Account();
+        high.setId(UUID.fromString("80000000-0000-0000-0000-000000000000"));
+        Account low = new Account();
+        low.setId(UUID.fromString("10000000-0000-0000-0000-000000000000"));
+
+        accountLockManager.lockRows(high, low);
+
+        InOrder inOrder = inOrder(entityManager);
+        inOrder.verify(entityManager).refresh(low, LockModeType.PESSIMISTIC_WRITE);
+        inOrder.verify(entityManager).refresh(high, LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    @Test
+    void testOptimisticModeTakesNoRowLocks() {
+        AccountLockManager optimistic = new AccountLockManager(entityManager, AccountLockingMode.OPTIMISTIC, 1024, 3);
+
+        optimistic.lockRows(new Account(), new Account());
+
+        verifyNoInteractions(entityManager);
+    }
+
+    private static Void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    @FunctionalInterface
+    private interface Transfer {
+        void run(int thread, int iteration);
+    }
+
+    private void runConcurrently(int iterations, Transfer transfer) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < iterations; i++) {
+                        transfer.run(thread, i);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
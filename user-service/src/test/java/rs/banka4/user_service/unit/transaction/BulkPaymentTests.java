@@ -0,0 +1,163 @@
+package rs.banka4.user_service.unit.transaction;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.core.Authentication;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import rs.banka4.user_service.domain.account.db.Account;
+import rs.banka4.user_service.domain.account.db.AccountType;
+import rs.banka4.user_service.domain.transaction.db.TransactionStatus;
+import rs.banka4.user_service.domain.transaction.dtos.BulkPaymentItemDto;
+import rs.banka4.user_service.domain.transaction.dtos.BulkPaymentRejectionReason;
+import rs.banka4.user_service.domain.transaction.dtos.BulkPaymentResultDto;
+import rs.banka4.user_service.domain.transaction.dtos.CreateBulkPaymentDto;
+import rs.banka4.user_service.domain.user.client.db.Client;
+import rs.banka4.user_service.exceptions.account.NotBusinessAccount;
+import rs.banka4.user_service.generator.AccountObjectMother;
+import rs.banka4.user_service.generator.ClientObjectMother;
+import rs.banka4.user_service.repositories.AccountRepository;
+import rs.banka4.user_service.repositories.ClientContactRepository;
+import rs.banka4.user_service.repositories.ClientRepository;
+import rs.banka4.user_service.repositories.TransactionRepository;
+import rs.banka4.user_service.service.abstraction.ExchangeRateService;
+import rs.banka4.user_service.service.abstraction.HoldService;
+import rs.banka4.user_service.service.abstraction.IdempotencyService;
+import rs.banka4.user_service.service.abstraction.LedgerService;
+import rs.banka4.user_service.service.impl.TotpService;
+import rs.banka4.user_service.service.impl.TransactionServiceImpl;
+import rs.banka4.user_service.utils.JwtUtil;
+import rs.banka4.user_service.utils.transactions.AccountLockManager;
+import rs.banka4.user_service.utils.transactions.SpendTracker;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class BulkPaymentTests {
+
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private ClientRepository clientRepository;
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private ClientContactRepository clientContactRepository;
+    @Mock
+    private TotpService totpService;
+    @Mock
+    private JwtUtil jwtUtil;
+    @Mock
+    private AccountLockManager accountLockManager;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private LedgerService ledgerService;
+    @Mock
+    private SpendTracker spendTracker;
+    @Mock
+    private ExchangeRateService exchangeRateService;
+    @Mock
+    private HoldService holdService;
+    @Mock
+    private IdempotencyService idempotencyService;
+    @Mock
+    private Authentication authentication;
+    @InjectMocks
+    private TransactionServiceImpl transactionService;
+
+    private Account fromAccount;
+    private Account toAccount;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(authentication.getCredentials()).thenReturn("mocked-token");
+        when(totpService.validate(anyString(), eq("123123"))).thenReturn(true);
+        when(accountLockManager.execute(anyCollection(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(idempotencyService.recordInTransaction(any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+
+        fromAccount = AccountObjectMother.generateBasicFromAccount();
+        fromAccount.setAccountType(AccountType.DOO);
+        toAccount = AccountObjectMother.generateBasicToAccount();
+
+        Client client = ClientObjectMother.generateClient(UUID.fromString("9df5e618-f21d-48a7-a7a4-ac55ea8bec97"), "markezaa@example.com");
+        client.setAccounts(Set.of(fromAccount));
+        when(jwtUtil.extractUsername(anyString())).thenReturn("markezaa@example.com");
+        when(clientRepository.findByEmail(anyString())).thenReturn(Optional.of(client));
+    }
+
+    @Test
+    void testBulkPaymentReportsPerItemResults() {
+        when(accountRepository.findAllByAccountNumberIn(anyCollection())).thenReturn(List.of(fromAccount, toAccount));
+        CreateBulkPaymentDto dto = new CreateBulkPaymentDto(fromAccount.getAccountNumber(), List.of(
+                item(toAccount.getAccountNumber(), "1000"),
+                item("444000199999999910", "1000"),
+                item(toAccount.getAccountNumber(), "9000"),
+                item(toAccount.getAccountNumber(), "2000")
+        ), "123123");
+
+        BulkPaymentResultDto result = transactionService.createBulkPayment(authentication, dto);
+
+        assertEquals(2, result.realized());
+        assertEquals(2, result.rejected());
+        assertEquals(0, new BigDecimal("3002").compareTo(result.totalDebited()));
+        assertEquals(TransactionStatus.REALIZED, result.items().get(0).status());
+        assertEquals(BulkPaymentRejectionReason.ACCOUNT_NOT_FOUND, result.items().get(1).reason());
+        assertEquals(BulkPaymentRejectionReason.INSUFFICIENT_FUNDS, result.items().get(2).reason());
+        assertEquals(TransactionStatus.REALIZED, result.items().get(3).status());
+    }
+
+    @Test
+    void testBulkPaymentUsesOneLookupAndOneDebit() {
+        List<Account> accounts = new ArrayList<>(List.of(fromAccount));
+        List<BulkPaymentItemDto> items = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Account target = AccountObjectMother.generateBasicToAccount();
+            target.setAccountNumber("4440001%09d10".formatted(i));
+            accounts.add(target);
+            items.add(item(target.getAccountNumber(), "5"));
+        }
+        when(accountRepository.findAllByAccountNumberIn(anyCollection())).thenReturn(accounts);
+
+        BulkPaymentResultDto result = transactionService.createBulkPayment(authentication,
+                new CreateBulkPaymentDto(fromAccount.getAccountNumber(), items, "123123"));
+
+        assertEquals(1000, result.realized());
+        verify(totpService, times(1)).validate(anyString(), anyString());
+        verify(accountRepository, times(1)).findAllByAccountNumberIn(anyCollection());
+        verify(accountRepository, never()).findAccountByAccountNumber(anyString());
+        verify(transactionRepository, times(1)).saveAll(anyList());
+        verify(ledgerService, times(1)).postTransactions(argThat(transactions -> transactions.size() == 1000));
+    }
+
+    @Test
+    void testBulkPaymentRequiresBusinessAccount() {
+        fromAccount.setAccountType(AccountType.STANDARD);
+        when(accountRepository.findAllByAccountNumberIn(anyCollection())).thenReturn(List.of(fromAccount, toAccount));
+        CreateBulkPaymentDto dto = new CreateBulkPaymentDto(fromAccount.getAccountNumber(),
+                List.of(item(toAccount.getAccountNumber(), "10")), "123123");
+
+        assertThrows(NotBusinessAccount.class, () -> transactionService.createBulkPayment(authentication, dto));
+        verifyNoInteractions(transactionRepository, ledgerService);
+    }
+
+    private BulkPaymentItemDto item(String toAccount, String amount) {
+        return new BulkPaymentItemDto(toAccount, new BigDecimal(amount), "Zaposleni", "240", "2025-03", "Zarada");
+    }
+}
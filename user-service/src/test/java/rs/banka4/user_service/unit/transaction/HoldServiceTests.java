@@ -0,0 +1,64 @@
+package rs.banka4.user_service.unit.transaction;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import rs.banka4.user_service.domain.account.db.Account;
+import rs.banka4.user_service.domain.transaction.db.Hold;
+import rs.banka4.user_service.domain.transaction.db.HoldStatus;
+import rs.banka4.user_service.domain.transaction.db.Transaction;
+import rs.banka4.user_service.exceptions.transaction.InsufficientFunds;
+import rs.banka4.user_service.generator.AccountObjectMother;
+import rs.banka4.user_service.repositories.AccountRepository;
+import rs.banka4.user_service.repositories.HoldRepository;
+import rs.banka4.user_service.service.impl.HoldServiceImpl;
+import rs.banka4.user_service.utils.accounts.AccountOverviewCache;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class HoldServiceTests {
+
+    private AccountRepository accountRepository;
+    private HoldRepository holdRepository;
+    private HoldServiceImpl holdService;
+    private Account account;
+    private Transaction transaction;
+
+    @BeforeEach
+    void setUp() {
+        accountRepository = mock(AccountRepository.class);
+        holdRepository = mock(HoldRepository.class);
+        when(holdRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        holdService = new HoldServiceImpl(accountRepository, holdRepository, mock(AccountOverviewCache.class), 48);
+
+        account = AccountObjectMother.generateBasicFromAccount();
+        account.setId(UUID.randomUUID());
+        transaction = Transaction.builder().id(UUID.randomUUID()).build();
+    }
+
+    @Test
+    void testHoldIsPlacedWhenFundsAreAvailable() {
+        when(accountRepository.reserveAvailableBalance(account.getId(), new BigDecimal("101"))).thenReturn(1);
+
+        Hold hold = holdService.place(account, transaction, new BigDecimal("101"));
+
+        assertEquals(HoldStatus.ACTIVE, hold.getStatus());
+        assertEquals(new BigDecimal("101"), hold.getAmount());
+        assertSame(transaction, hold.getTransaction());
+        assertEquals(Duration.ofHours(48), Duration.between(hold.getCreatedAt(), hold.getExpiresAt()));
+        assertEquals(hold.getCreatedAt(), hold.getNextAttemptAt());
+    }
+
+    @Test
+    void testNoHoldWhenConditionalUpdateFails() {
+        when(accountRepository.reserveAvailableBalance(account.getId(), new BigDecimal("101"))).thenReturn(0);
+
+        assertThrows(InsufficientFunds.class, () -> holdService.place(account, transaction, new BigDecimal("101")));
+        verify(holdRepository, never()).save(any());
+    }
+}
@@ -0,0 +1,177 @@
+package rs.banka4.user_service.unit.transaction;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.google.common.hash.Hashing;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.security.core.Authentication;
+import rs.banka4.user_service.domain.idempotency.db.IdempotencyRecord;
+import rs.banka4.user_service.domain.transaction.dtos.CreatePaymentDto;
+import rs.banka4.user_service.domain.transaction.dtos.TransactionDto;
+import rs.banka4.user_service.exceptions.transaction.IdempotencyKeyInProgress;
+import rs.banka4.user_service.exceptions.transaction.IdempotencyKeyReused;
+import rs.banka4.user_service.exceptions.transaction.InsufficientFunds;
+import rs.banka4.user_service.generator.TransactionObjectMother;
+import rs.banka4.user_service.repositories.IdempotencyRecordRepository;
+import rs.banka4.user_service.service.impl.IdempotencyServiceImpl;
+import rs.banka4.user_service.utils.JwtUtil;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class IdempotencyServiceTests {
+
+    private static final String KEY = "3f1c9a2e-retry";
+    private static final String RECORD_ID = "markezaa@example.com:" + KEY;
+
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    private Authentication authentication;
+    private ObjectMapper objectMapper;
+    private IdempotencyServiceImpl idempotencyService;
+
+    private CreatePaymentDto request;
+    private TransactionDto response;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyRecordRepository = mock(IdempotencyRecordRepository.class);
+        authentication = mock(Authentication.class);
+        JwtUtil jwtUtil = mock(JwtUtil.class);
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        idempotencyService = new IdempotencyServiceImpl(idempotencyRecordRepository, objectMapper, jwtUtil, 24, 100);
+
+        when(authentication.getCredentials()).thenReturn("token");
+        when(jwtUtil.extractUsername("token")).thenReturn("markezaa@example.com");
+        when(idempotencyRecordRepository.findById(RECORD_ID)).thenReturn(Optional.empty());
+        when(idempotencyRecordRepository.reserve(eq(RECORD_ID), anyString(), any())).thenReturn(1);
+
+        request = TransactionObjectMother.generateBasicCreatePaymentDto();
+        response = TransactionObjectMother.generateBasicTransactionDto();
+    }
+
+    @Test
+    void testRetryReturnsStoredResponseWithoutRunningWork() {
+        AtomicInteger runs = new AtomicInteger();
+        Supplier<TransactionDto> work = () -> {
+            runs.incrementAndGet();
+            return response;
+        };
+
+        TransactionDto first = execute(request, work);
+        TransactionDto second = execute(request, work);
+
+        assertEquals(1, runs.get());
+        assertEquals(first, second);
+        verify(idempotencyRecordRepository).complete(eq(RECORD_ID), anyString());
+        verify(idempotencyRecordRepository, times(1)).reserve(any(), any(), any());
+    }
+
+    @Test
+    void testResponseIsStoredInsideTheWorkTransaction() {
+        idempotencyService.execute(authentication, KEY, request, TransactionDto.class, () -> {
+            TransactionDto result = idempotencyService.recordInTransaction(TransactionDto.class, () -> response);
+            /* Still inside the work's transaction: the response must already be written.  */
+            verify(idempotencyRecordRepository).complete(eq(RECORD_ID), anyString());
+            return result;
+        });
+
+        InOrder inOrder = inOrder(idempotencyRecordRepository);
+        inOrder.verify(idempotencyRecordRepository).reserve(eq(RECORD_ID), anyString(), any());
+        inOrder.verify(idempotencyRecordRepository).complete(eq(RECORD_ID), anyString());
+    }
+
+    @Test
+    void testStoredResponseIsReplayedFromDatabase() throws Exception {
+        IdempotencyRecord stored = storedRecord(request);
+        when(idempotencyRecordRepository.findById(RECORD_ID)).thenReturn(Optional.of(stored));
+
+        TransactionDto replayed = execute(request, () -> fail("Work must not run for a replayed request"));
+
+        assertEquals(response, replayed);
+        verify(idempotencyRecordRepository, never()).reserve(any(), any(), any());
+    }
+
+    @Test
+    void testKeyReusedForDifferentRequestIsRejected() throws Exception {
+        IdempotencyRecord stored = storedRecord(request);
+        when(idempotencyRecordRepository.findById(RECORD_ID)).thenReturn(Optional.of(stored));
+        CreatePaymentDto other = new CreatePaymentDto(request.fromAccount(), request.toAccount(), BigDecimal.TEN,
+                request.recipient(), request.saveRecipient(), request.paymentCode(), request.referenceNumber(),
+                request.paymentPurpose(), request.otpCode());
+
+        assertThrows(IdempotencyKeyReused.class, () -> execute(other, () -> response));
+    }
+
+    @Test
+    void testRequestCommittedMeanwhileIsReplayedWithoutRunningWork() throws Exception {
+        /* Not there when checked, but a request with the same key committed before our claim.  */
+        when(idempotencyRecordRepository.reserve(eq(RECORD_ID), anyString(), any())).thenReturn(0);
+        when(idempotencyRecordRepository.findById(RECORD_ID)).thenReturn(Optional.empty(), Optional.of(storedRecord(request)));
+
+        TransactionDto replayed = execute(request, () -> fail("Work must not run for a replayed request"));
+
+        assertEquals(response, replayed);
+        verify(idempotencyRecordRepository, never()).complete(any(), any());
+    }
+
+    @Test
+    void testKeyHeldWithoutResponseIsInProgress() {
+        when(idempotencyRecordRepository.reserve(eq(RECORD_ID), anyString(), any())).thenReturn(0);
+        when(idempotencyRecordRepository.findById(RECORD_ID)).thenReturn(
+                Optional.empty(),
+                Optional.of(IdempotencyRecord.builder().id(RECORD_ID).requestHash("x").createdAt(LocalDateTime.now()).build()));
+
+        assertThrows(IdempotencyKeyInProgress.class, () -> execute(request, () -> response));
+    }
+
+    @Test
+    void testFailedRequestStoresNothingAndCanBeRetried() {
+        assertThrows(InsufficientFunds.class, () -> execute(request, () -> {
+            throw new InsufficientFunds();
+        }));
+        verify(idempotencyRecordRepository, never()).complete(any(), any());
+
+        TransactionDto retried = execute(request, () -> response);
+
+        assertSame(response, retried);
+        verify(idempotencyRecordRepository, times(2)).reserve(eq(RECORD_ID), anyString(), any());
+    }
+
+    @Test
+    void testNoKeyRunsWorkDirectly() {
+        TransactionDto result = idempotencyService.execute(authentication, null, request, TransactionDto.class,
+                () -> idempotencyService.recordInTransaction(TransactionDto.class, () -> response));
+
+        assertSame(response, result);
+        verifyNoInteractions(idempotencyRecordRepository);
+    }
+
+    /** Runs {@code work} the way the transaction service does: its transactional part recorded.  */
+    private TransactionDto execute(CreatePaymentDto paymentDto, Supplier<TransactionDto> work) {
+        return idempotencyService.execute(authentication, KEY, paymentDto, TransactionDto.class,
+                () -> idempotencyService.recordInTransaction(TransactionDto.class, work));
+    }
+
+    private IdempotencyRecord storedRecord(CreatePaymentDto storedRequest) throws Exception {
+        /* Same request hash the service computes: SHA-256 over the request JSON.  */
+        String hash = Hashing.sha256()
+                .hashBytes(objectMapper.writeValueAsString(storedRequest).getBytes(StandardCharsets.UTF_8))
+                .toString();
+        return IdempotencyRecord.builder()
+                .id(RECORD_ID)
+                .requestHash(hash)
+                .response(objectMapper.writeValueAsString(response))
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
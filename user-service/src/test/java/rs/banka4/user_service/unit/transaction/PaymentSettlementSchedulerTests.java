@@ -0,0 +1,183 @@
+package rs.banka4.user_service.unit.transaction;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import rs.banka4.user_service.domain.account.db.Account;
+import rs.banka4.user_service.domain.transaction.db.Hold;
+import rs.banka4.user_service.domain.transaction.db.HoldStatus;
+import rs.banka4.user_service.domain.transaction.db.MonetaryAmount;
+import rs.banka4.user_service.domain.transaction.db.Transaction;
+import rs.banka4.user_service.domain.transaction.db.TransactionStatus;
+import rs.banka4.user_service.generator.AccountObjectMother;
+import rs.banka4.user_service.repositories.HoldRepository;
+import rs.banka4.user_service.repositories.TransactionRepository;
+import rs.banka4.user_service.service.abstraction.LedgerService;
+import rs.banka4.user_service.utils.transactions.AccountLockManager;
+import rs.banka4.user_service.utils.transactions.SpendTracker;
+import rs.banka4.user_service.utils.transactions.PaymentSettlementScheduler;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentSettlementSchedulerTests {
+
+    @Mock
+    private HoldRepository holdRepository;
+    @Mock
+    private TransactionRepository transactionRepository;
+    @Mock
+    private LedgerService ledgerService;
+    @Mock
+    private AccountLockManager accountLockManager;
+    @Mock
+    private SpendTracker spendTracker;
+    @Mock
+    private ApplicationContext applicationContext;
+    @InjectMocks
+    private PaymentSettlementScheduler paymentSettlementScheduler;
+
+    private Account fromAccount;
+    private Account toAccount;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(paymentSettlementScheduler, "batchSize", 10);
+        ReflectionTestUtils.setField(paymentSettlementScheduler, "retryMinutes", 15L);
+        when(applicationContext.getBean(PaymentSettlementScheduler.class)).thenReturn(paymentSettlementScheduler);
+
+        fromAccount = AccountObjectMother.generateBasicFromAccount();
+        fromAccount.setId(UUID.randomUUID());
+        toAccount = AccountObjectMother.generateBasicToAccount();
+        toAccount.setId(UUID.randomUUID());
+    }
+
+    @Test
+    void testHoldIsSettled() {
+        Hold hold = hold(new BigDecimal("100"));
+        BigDecimal fromAvailable = fromAccount.getAvailableBalance();
+        BigDecimal toAvailable = toAccount.getAvailableBalance();
+        when(holdRepository.claimDue(any(), eq(10))).thenReturn(List.of(hold));
+
+        paymentSettlementScheduler.settlePendingPayments();
+
+        assertEquals(HoldStatus.SETTLED, hold.getStatus());
+        assertEquals(TransactionStatus.REALIZED, hold.getTransaction().getStatus());
+        assertEquals(fromAvailable, fromAccount.getAvailableBalance());
+        assertEquals(toAvailable.add(new BigDecimal("100")), toAccount.getAvailableBalance());
+        verify(ledgerService).postTransactions(List.of(hold.getTransaction()));
+        verify(accountLockManager).lockRows(fromAccount, toAccount);
+        verify(holdRepository).saveAll(List.of(hold));
+    }
+
+    @Test
+    void testBatchIsPostedToLedgerOnce() {
+        List<Hold> holds = IntStream.range(0, 5)
+                .mapToObj(i -> hold(new BigDecimal("100")))
+                .toList();
+        when(holdRepository.claimDue(any(), eq(10))).thenReturn(holds);
+
+        paymentSettlementScheduler.settlePendingPayments();
+
+        verify(ledgerService, times(1)).postTransactions(holds.stream().map(Hold::getTransaction).toList());
+    }
+
+    @Test
+    void testHoldsBeyondBalanceAreReleased() {
+        /* Each fits on its own, but the booked balance (10000) only covers the first.  */
+        Hold first = hold(new BigDecimal("6000"));
+        Hold second = hold(new BigDecimal("6000"));
+        BigDecimal fromAvailable = fromAccount.getAvailableBalance();
+        when(holdRepository.claimDue(any(), eq(10))).thenReturn(List.of(first, second));
+
+        paymentSettlementScheduler.settlePendingPayments();
+
+        assertEquals(HoldStatus.SETTLED, first.getStatus());
+        assertEquals(HoldStatus.RELEASED, second.getStatus());
+        assertEquals(TransactionStatus.REJECTED, second.getTransaction().getStatus());
+        assertEquals(fromAvailable.add(new BigDecimal("6001")), fromAccount.getAvailableBalance());
+        verify(ledgerService).postTransactions(List.of(first.getTransaction()));
+        verify(spendTracker).releaseSpend(fromAccount, new BigDecimal("6000"), second.getTransaction().getPaymentDateTime());
+    }
+
+    @Test
+    void testHoldOnBlockedAccountIsDeferred() {
+        toAccount.setActive(false);
+        Hold hold = hold(new BigDecimal("100"));
+        LocalDateTime before = LocalDateTime.now();
+        when(holdRepository.claimDue(any(), eq(10))).thenReturn(List.of(hold));
+
+        paymentSettlementScheduler.settlePendingPayments();
+
+        assertEquals(HoldStatus.ACTIVE, hold.getStatus());
+        assertEquals(TransactionStatus.PENDING, hold.getTransaction().getStatus());
+        assertFalse(hold.getNextAttemptAt().isBefore(before.plusMinutes(15)));
+        verifyNoInteractions(ledgerService);
+    }
+
+    @Test
+    void testExpiredHoldsAreReleased() {
+        Hold hold = hold(new BigDecimal("100"));
+        BigDecimal fromAvailable = fromAccount.getAvailableBalance();
+        when(holdRepository.claimDue(any(), eq(10))).thenReturn(List.of());
+        when(holdRepository.claimExpired(any(), eq(10))).thenReturn(List.of(hold));
+
+        paymentSettlementScheduler.settlePendingPayments();
+
+        assertEquals(HoldStatus.RELEASED, hold.getStatus());
+        assertEquals(TransactionStatus.REJECTED, hold.getTransaction().getStatus());
+        assertEquals(fromAvailable.add(new BigDecimal("101")), fromAccount.getAvailableBalance());
+        verifyNoInteractions(ledgerService);
+    }
+
+    @Test
+    void testFullBatchesAreDrainedUntilEmpty() {
+        List<Hold> fullBatch = IntStream.range(0, 10)
+                .mapToObj(i -> hold(BigDecimal.ONE))
+                .toList();
+        when(holdRepository.claimDue(any(), eq(10))).thenReturn(fullBatch, List.of());
+
+        paymentSettlementScheduler.settlePendingPayments();
+
+        verify(holdRepository, times(2)).claimDue(any(), eq(10));
+        verify(ledgerService, times(1)).postTransactions(any());
+    }
+
+    private Hold hold(BigDecimal amount) {
+        Transaction transaction = Transaction.builder()
+                .id(UUID.randomUUID())
+                .fromAccount(fromAccount)
+                .toAccount(toAccount)
+                .from(new MonetaryAmount(amount, fromAccount.getCurrency()))
+                .to(new MonetaryAmount(amount, toAccount.getCurrency()))
+                .fee(new MonetaryAmount(BigDecimal.ONE, fromAccount.getCurrency()))
+                .paymentDateTime(LocalDateTime.now())
+                .status(TransactionStatus.PENDING)
+                .build();
+
+        return Hold.builder()
+                .id(UUID.randomUUID())
+                .account(fromAccount)
+                .transaction(transaction)
+                .amount(amount.add(BigDecimal.ONE))
+                .status(HoldStatus.ACTIVE)
+                .createdAt(LocalDateTime.now())
+                .nextAttemptAt(LocalDateTime.now())
+                .expiresAt(LocalDateTime.now().plusDays(7))
+                .build();
+    }
+}
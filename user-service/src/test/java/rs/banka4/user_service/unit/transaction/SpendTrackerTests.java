@@ -0,0 +1,154 @@
+package rs.banka4.user_service.unit.transaction;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import rs.banka4.user_service.domain.account.db.Account;
+import rs.banka4.user_service.exceptions.transaction.SpendingLimitExceeded;
+import rs.banka4.user_service.generator.AccountObjectMother;
+import rs.banka4.user_service.utils.transactions.SpendTracker;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class SpendTrackerTests {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 15, 12, 30);
+
+    private JdbcTemplate jdbcTemplate;
+    private EntityManager entityManager;
+    private SpendTracker spendTracker;
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        entityManager = mock(EntityManager.class);
+        spendTracker = new SpendTracker(jdbcTemplate, entityManager);
+
+        account = AccountObjectMother.generateBasicFromAccount();
+        account.setId(UUID.randomUUID());
+        account.setDailyLimit(new BigDecimal("1000"));
+        account.setMonthlyLimit(new BigDecimal("5000"));
+    }
+
+    @Test
+    void testLimitsAreCheckedAgainstTheCurrentDayAndMonth() throws Exception {
+        givenSpent("700", "3700");
+
+        assertEquals(new BigDecimal("300"), spendTracker.remainingAllowance(account, NOW));
+        assertThrows(SpendingLimitExceeded.class, () -> spendTracker.checkLimits(account, new BigDecimal("301"), NOW));
+        assertDoesNotThrow(() -> spendTracker.checkLimits(account, new BigDecimal("300"), NOW));
+        verify(jdbcTemplate, atLeastOnce()).query(contains("FROM account_spend_buckets"), any(RowCallbackHandler.class),
+                eq(account.getId()), eq(LocalDate.of(2025, 3, 15)), eq(LocalDate.of(2025, 3, 1)));
+    }
+
+    @Test
+    void testMonthlyLimitApplies() throws Exception {
+        givenSpent(null, "5000");
+
+        SpendingLimitExceeded exceeded = assertThrows(SpendingLimitExceeded.class,
+                () -> spendTracker.checkLimits(account, BigDecimal.ONE, NOW));
+        assertEquals("MONTHLY", exceeded.getExtra().get("window"));
+        assertEquals(BigDecimal.ZERO, spendTracker.remainingAllowance(account, NOW));
+    }
+
+    @Test
+    void testAccountWithoutBucketsHasSpentNothing() throws Exception {
+        givenSpent(null, null);
+
+        assertEquals(new BigDecimal("1000"), spendTracker.remainingAllowance(account, NOW));
+    }
+
+    @Test
+    void testRecordedSpendIsAddedToTheDayAndMonthOfThePayment() {
+        spendTracker.recordSpend(account, new BigDecimal("250"), NOW);
+
+        verify(jdbcTemplate).update(contains("ON CONFLICT"), eq(account.getId()), eq(LocalDate.of(2025, 3, 15)),
+                eq(new BigDecimal("250")), eq(account.getId()), eq(LocalDate.of(2025, 3, 1)), eq(new BigDecimal("250")));
+    }
+
+    @Test
+    void testReleasedSpendIsTakenOffTheDayAndMonthOfThePayment() {
+        spendTracker.releaseSpend(account, new BigDecimal("400"), NOW.minusDays(20));
+
+        verify(jdbcTemplate).update(contains("ON CONFLICT"), eq(account.getId()), eq(LocalDate.of(2025, 2, 23)),
+                eq(new BigDecimal("-400")), eq(account.getId()), eq(LocalDate.of(2025, 2, 1)), eq(new BigDecimal("-400")));
+    }
+
+    @Test
+    void testAccountRowIsLockedBeforeReadingTotals() throws Exception {
+        givenSpent(null, null);
+
+        spendTracker.checkLimits(account, BigDecimal.ONE, NOW);
+
+        InOrder inOrder = inOrder(entityManager, jdbcTemplate);
+        inOrder.verify(entityManager).refresh(account, LockModeType.PESSIMISTIC_WRITE);
+        inOrder.verify(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(), any(), any());
+    }
+
+    @Test
+    void testRowAlreadyLockedIsNotRefreshed() {
+        when(entityManager.getLockMode(account)).thenReturn(LockModeType.PESSIMISTIC_WRITE);
+
+        spendTracker.recordSpend(account, BigDecimal.ONE, NOW);
+
+        verify(entityManager, never()).refresh(any(), any(LockModeType.class));
+    }
+
+    @Test
+    void testZeroLimitMeansUnlimited() {
+        account.setDailyLimit(BigDecimal.ZERO);
+        account.setMonthlyLimit(null);
+
+        assertNull(spendTracker.remainingAllowance(account, NOW));
+        assertDoesNotThrow(() -> spendTracker.checkLimits(account, new BigDecimal("1000000"), NOW));
+        verifyNoInteractions(jdbcTemplate, entityManager);
+    }
+
+    @Test
+    void testOldBucketsArePurged() {
+        spendTracker.purgeOldBuckets();
+
+        verify(jdbcTemplate).update(startsWith("DELETE FROM account_spend_buckets"),
+                eq(LocalDate.now().withDayOfMonth(1).minusMonths(1)));
+    }
+
+    /** Null means the account has no row for that period.  */
+    private void givenSpent(String daily, String monthly) throws Exception {
+        List<ResultSet> rows = new ArrayList<>();
+        if (daily != null) {
+            rows.add(bucket("DAY", daily));
+        }
+        if (monthly != null) {
+            rows.add(bucket("MONTH", monthly));
+        }
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (ResultSet rs : rows) {
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(contains("FROM account_spend_buckets"), any(RowCallbackHandler.class), any(), any(), any());
+    }
+
+    private static ResultSet bucket(String period, String amount) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString("period")).thenReturn(period);
+        when(rs.getBigDecimal("amount")).thenReturn(new BigDecimal(amount));
+        return rs;
+    }
+}
@@ -0,0 +1,29 @@
+package rs.banka4.user_service.unit.transaction;
+
+import org.junit.jupiter.api.Test;
+import rs.banka4.user_service.exceptions.transaction.InvalidCursor;
+import rs.banka4.user_service.utils.transactions.TransactionCursor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionCursorTests {
+
+    @Test
+    void testCursorRoundTrip() {
+        TransactionCursor cursor = new TransactionCursor(LocalDateTime.of(2025, 3, 15, 12, 30, 0, 123456000), UUID.randomUUID());
+
+        String token = cursor.encode();
+
+        assertFalse(token.contains("/") || token.contains("+") || token.contains("="), "Token should be URL-safe");
+        assertEquals(cursor, TransactionCursor.decode(token));
+    }
+
+    @Test
+    void testMalformedCursorIsRejected() {
+        assertThrows(InvalidCursor.class, () -> TransactionCursor.decode("not a cursor"));
+        assertThrows(InvalidCursor.class, () -> TransactionCursor.decode("Zm9vYmFy")); // "foobar"
+    }
+}
@@ -0,0 +1,129 @@
+package rs.banka4.user_service.unit.transaction;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import rs.banka4.user_service.domain.account.db.Account;
+import rs.banka4.user_service.domain.transaction.db.MonetaryAmount;
+import rs.banka4.user_service.domain.transaction.db.Transaction;
+import rs.banka4.user_service.domain.transaction.db.TransactionStatus;
+import rs.banka4.user_service.domain.transaction.dtos.TransactionExportFormat;
+import rs.banka4.user_service.exceptions.account.NotAccountOwner;
+import rs.banka4.user_service.generator.AccountObjectMother;
+import rs.banka4.user_service.repositories.AccountRepository;
+import rs.banka4.user_service.repositories.TransactionRepository;
+import rs.banka4.user_service.service.impl.TransactionExportServiceImpl;
+import rs.banka4.user_service.utils.JwtUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class TransactionExportServiceTests {
+
+    private static final String TOKEN = "token";
+
+    private AccountRepository accountRepository;
+    private TransactionRepository transactionRepository;
+    private JwtUtil jwtUtil;
+    private TransactionExportServiceImpl transactionExportService;
+
+    private Account fromAccount;
+    private Account toAccount;
+
+    @BeforeEach
+    void setUp() {
+        accountRepository = mock(AccountRepository.class);
+        transactionRepository = mock(TransactionRepository.class);
+        jwtUtil = mock(JwtUtil.class);
+        transactionExportService = new TransactionExportServiceImpl(
+                accountRepository,
+                transactionRepository,
+                mock(PlatformTransactionManager.class),
+                mock(EntityManager.class),
+                new ObjectMapper().registerModule(new JavaTimeModule()),
+                jwtUtil
+        );
+
+        fromAccount = AccountObjectMother.generateBasicFromAccount();
+        toAccount = AccountObjectMother.generateBasicToAccount();
+        when(accountRepository.findAccountByAccountNumber(fromAccount.getAccountNumber())).thenReturn(Optional.of(fromAccount));
+        when(jwtUtil.extractRole(TOKEN)).thenReturn("client");
+        when(jwtUtil.extractUsername(TOKEN)).thenReturn(fromAccount.getClient().getEmail());
+    }
+
+    @Test
+    void testCsvExportEscapesFields() throws Exception {
+        when(transactionRepository.streamHistory(eq(fromAccount), any(), any()))
+                .thenReturn(Stream.of(transaction("Rent, \"March\""), transaction("Groceries")));
+
+        String csv = export(TransactionExportFormat.CSV);
+
+        String[] lines = csv.split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("id,transactionNumber,"));
+        assertTrue(lines[1].contains("\"Rent, \"\"March\"\"\""));
+        assertTrue(lines[2].endsWith(",REALIZED"));
+    }
+
+    @Test
+    void testNdjsonExportWritesOneObjectPerLine() throws Exception {
+        when(transactionRepository.streamHistory(eq(fromAccount), any(), any()))
+                .thenReturn(Stream.of(transaction("A"), transaction("B"), transaction("C")));
+
+        String ndjson = export(TransactionExportFormat.NDJSON);
+
+        String[] lines = ndjson.split("\n");
+        assertEquals(3, lines.length);
+        for (String line : lines) {
+            assertTrue(line.startsWith("{") && line.endsWith("}"));
+        }
+    }
+
+    @Test
+    void testClientCannotExportForeignAccount() {
+        when(jwtUtil.extractUsername(TOKEN)).thenReturn("someone.else@example.com");
+
+        assertThrows(NotAccountOwner.class, () -> transactionExportService.exportTransactions(TOKEN,
+                fromAccount.getAccountNumber(), LocalDate.now().minusDays(1), LocalDate.now(), TransactionExportFormat.CSV));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    private String export(TransactionExportFormat format) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        transactionExportService.exportTransactions(TOKEN, fromAccount.getAccountNumber(),
+                LocalDate.now().minusDays(30), LocalDate.now(), format).writeTo(output);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private Transaction transaction(String purpose) {
+        return Transaction.builder()
+                .id(UUID.randomUUID())
+                .transactionNumber(UUID.randomUUID().toString())
+                .fromAccount(fromAccount)
+                .toAccount(toAccount)
+                .from(new MonetaryAmount(BigDecimal.TEN, fromAccount.getCurrency()))
+                .to(new MonetaryAmount(BigDecimal.TEN, toAccount.getCurrency()))
+                .fee(new MonetaryAmount(BigDecimal.ONE, fromAccount.getCurrency()))
+                .recipient("Recipient")
+                .paymentCode("289")
+                .referenceNumber("1176926")
+                .paymentPurpose(purpose)
+                .paymentDateTime(LocalDateTime.now())
+                .status(TransactionStatus.REALIZED)
+                .build();
+    }
+}
@@ -0,0 +1,130 @@
+package rs.banka4.user_service.unit.transaction;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import rs.banka4.user_service.utils.scheduling.SchedulerLeases;
+import rs.banka4.user_service.utils.transactions.TransactionPartitionMaintenance;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class TransactionPartitionMaintenanceTests {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private SchedulerLeases schedulerLeases;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        schedulerLeases = mock(SchedulerLeases.class);
+        when(schedulerLeases.runExclusively(eq("transactions.partition-maintenance"), any(), any())).thenAnswer(invocation -> {
+            invocation.<Runnable>getArgument(2).run();
+            return true;
+        });
+    }
+
+    @Test
+    void testFuturePartitionsAreCreated() {
+        TransactionPartitionMaintenance maintenance = new TransactionPartitionMaintenance(jdbcTemplate, transactionTemplate, schedulerLeases, 2, 24, "");
+
+        maintenance.maintainPartitions(YearMonth.of(2025, 11));
+
+        verify(jdbcTemplate).queryForObject("SELECT create_transactions_partition(?)", String.class, LocalDate.of(2025, 11, 1));
+        verify(jdbcTemplate).queryForObject("SELECT create_transactions_partition(?)", String.class, LocalDate.of(2025, 12, 1));
+        verify(jdbcTemplate).queryForObject("SELECT create_transactions_partition(?)", String.class, LocalDate.of(2026, 1, 1));
+        verify(jdbcTemplate, times(3)).queryForObject(eq("SELECT create_transactions_partition(?)"), eq(String.class), any(LocalDate.class));
+    }
+
+    @Test
+    void testOnlyPartitionsPastRetentionAreArchived() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class)))
+                .thenReturn(List.of("transactions_p202301", "transactions_p202302", "transactions_p202303", "transactions_default"));
+        TransactionPartitionMaintenance maintenance = new TransactionPartitionMaintenance(jdbcTemplate, transactionTemplate, schedulerLeases, 3, 24, "");
+
+        maintenance.maintainPartitions(YearMonth.of(2025, 3));
+
+        verify(jdbcTemplate).execute("ALTER TABLE transactions DETACH PARTITION transactions_p202301");
+        verify(jdbcTemplate).execute("ALTER TABLE transactions DETACH PARTITION transactions_p202302");
+        verify(jdbcTemplate).execute("ALTER TABLE transactions_p202301 SET SCHEMA archive");
+        verify(jdbcTemplate, never()).execute("ALTER TABLE transactions DETACH PARTITION transactions_p202303");
+        verify(jdbcTemplate, never()).execute(contains("transactions_default"));
+        verify(jdbcTemplate, never()).execute(contains("TABLESPACE"));
+    }
+
+    @Test
+    void testArchivedPartitionsMoveToArchiveTablespace() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of("transactions_p202001"));
+        TransactionPartitionMaintenance maintenance = new TransactionPartitionMaintenance(jdbcTemplate, transactionTemplate, schedulerLeases, 3, 24, "cold_storage");
+
+        maintenance.maintainPartitions(YearMonth.of(2025, 3));
+
+        verify(jdbcTemplate).execute("ALTER TABLE archive.transactions_p202001 SET TABLESPACE cold_storage");
+    }
+
+    @Test
+    void testEachMonthIsCreatedInItsOwnTransaction() {
+        when(jdbcTemplate.queryForObject("SELECT create_transactions_partition(?)", String.class, LocalDate.of(2025, 11, 1)))
+                .thenThrow(new DataIntegrityViolationException("updated partition constraint for default partition would be violated"));
+        TransactionPartitionMaintenance maintenance = new TransactionPartitionMaintenance(jdbcTemplate, transactionTemplate, schedulerLeases, 2, 24, "");
+
+        maintenance.maintainPartitions(YearMonth.of(2025, 11));
+
+        verify(transactionTemplate, times(3)).executeWithoutResult(any());
+        verify(jdbcTemplate).queryForObject("SELECT create_transactions_partition(?)", String.class, LocalDate.of(2025, 12, 1));
+        verify(jdbcTemplate).queryForObject("SELECT create_transactions_partition(?)", String.class, LocalDate.of(2026, 1, 1));
+    }
+
+    @Test
+    void testDetachGivesUpOnALongWaitAndOthersGoOn() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class)))
+                .thenReturn(List.of("transactions_p202301", "transactions_p202302"));
+        doThrow(new CannotAcquireLockException("canceling statement due to lock timeout"))
+                .when(jdbcTemplate).execute("ALTER TABLE transactions DETACH PARTITION transactions_p202301");
+        TransactionPartitionMaintenance maintenance = new TransactionPartitionMaintenance(jdbcTemplate, transactionTemplate, schedulerLeases, 3, 24, "cold_storage");
+
+        maintenance.maintainPartitions(YearMonth.of(2025, 3));
+
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute(startsWith("SET LOCAL lock_timeout"));
+        inOrder.verify(jdbcTemplate).execute("ALTER TABLE transactions DETACH PARTITION transactions_p202301");
+        verify(jdbcTemplate, never()).execute("ALTER TABLE transactions_p202301 SET SCHEMA archive");
+        verify(jdbcTemplate, never()).execute(contains("archive.transactions_p202301"));
+        verify(jdbcTemplate).execute("ALTER TABLE transactions_p202302 SET SCHEMA archive");
+        verify(jdbcTemplate).execute("ALTER TABLE archive.transactions_p202302 SET TABLESPACE cold_storage");
+    }
+
+    @Test
+    void testNothingHappensWithoutTheLease() {
+        when(schedulerLeases.runExclusively(eq("transactions.partition-maintenance"), any(), any())).thenReturn(false);
+        TransactionPartitionMaintenance maintenance = new TransactionPartitionMaintenance(jdbcTemplate, transactionTemplate, schedulerLeases, 3, 24, "");
+
+        maintenance.maintainPartitions(YearMonth.of(2025, 3));
+
+        verify(jdbcTemplate, never()).queryForObject(eq("SELECT create_transactions_partition(?)"), eq(String.class), any(LocalDate.class));
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void testTablespaceNameIsValidated() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TransactionPartitionMaintenance(jdbcTemplate, transactionTemplate, schedulerLeases, 3, 24, "cold; DROP TABLE accounts"));
+    }
+}
@@ -2,10 +2,16 @@ package rs.banka4.user_service.unit.transaction;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.security.core.Authentication;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import rs.banka4.user_service.domain.currency.db.Currency;
+import rs.banka4.user_service.domain.transaction.db.Transaction;
+import rs.banka4.user_service.domain.transaction.db.TransactionStatus;
 import rs.banka4.user_service.domain.transaction.dtos.CreatePaymentDto;
 import rs.banka4.user_service.domain.transaction.dtos.CreateTransferDto;
 import rs.banka4.user_service.domain.transaction.dtos.TransactionDto;
@@ -22,14 +28,21 @@ import rs.banka4.user_service.repositories.AccountRepository;
 import rs.banka4.user_service.repositories.ClientContactRepository;
 import rs.banka4.user_service.repositories.ClientRepository;
 import rs.banka4.user_service.repositories.TransactionRepository;
+import rs.banka4.user_service.service.abstraction.ExchangeRateService;
+import rs.banka4.user_service.service.abstraction.HoldService;
+import rs.banka4.user_service.service.abstraction.IdempotencyService;
+import rs.banka4.user_service.service.abstraction.LedgerService;
 import rs.banka4.user_service.service.impl.TotpService;
 import rs.banka4.user_service.service.impl.TransactionServiceImpl;
 import rs.banka4.user_service.utils.JwtUtil;
+import rs.banka4.user_service.utils.transactions.AccountLockManager;
+import rs.banka4.user_service.utils.transactions.SpendTracker;
 
 import java.math.BigDecimal;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -54,6 +67,20 @@ public class TransactionServiceCreateTests {
     private TransactionServiceImpl transactionService;
     @Mock
     private ClientContactRepository clientContactRepository;
+    @Mock
+    private AccountLockManager accountLockManager;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private LedgerService ledgerService;
+    @Mock
+    private SpendTracker spendTracker;
+    @Mock
+    private ExchangeRateService exchangeRateService;
+    @Mock
+    private HoldService holdService;
+    @Mock
+    private IdempotencyService idempotencyService;
 
     @BeforeEach
     void setUp() {
@@ -61,6 +88,12 @@ public class TransactionServiceCreateTests {
         when(authentication.getCredentials()).thenReturn("mocked-token");
         when(totpService.validate(anyString(), eq("123123")))
                 .thenReturn(true);
+        when(accountLockManager.execute(anyCollection(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(idempotencyService.recordInTransaction(any(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
     }
 
     @Test
@@ -93,6 +126,62 @@ public class TransactionServiceCreateTests {
         assertEquals(createPaymentDto.referenceNumber(), result.referenceNumber());
         assertEquals(createPaymentDto.paymentPurpose(), result.paymentPurpose());
         verify(transactionRepository, times(1)).save(any());
+        verify(ledgerService, times(1)).postTransaction(any());
+    }
+
+    @Test
+    void testCreateTransactionMovesAvailableBalances() {
+        // Arrange
+        CreatePaymentDto createPaymentDto = TransactionObjectMother.generateBasicCreatePaymentDto();
+        Client client = ClientObjectMother.generateClient(UUID.fromString("9df5e618-f21d-48a7-a7a4-ac55ea8bec97"), "markezaa@example.com");
+        Account fromAccount = AccountObjectMother.generateBasicFromAccount();
+        Account toAccount = AccountObjectMother.generateBasicToAccount();
+        BigDecimal fromAvailable = fromAccount.getAvailableBalance();
+        BigDecimal toAvailable = toAccount.getAvailableBalance();
+
+        client.setAccounts(Set.of(fromAccount));
+
+        when(jwtUtil.extractUsername(anyString())).thenReturn("markezaa@example.com");
+        when(clientRepository.findByEmail(anyString())).thenReturn(Optional.of(client));
+        when(accountRepository.findAccountByAccountNumber(createPaymentDto.fromAccount())).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findAccountByAccountNumber(createPaymentDto.toAccount())).thenReturn(Optional.of(toAccount));
+
+        // Act
+        transactionService.createTransaction(authentication, createPaymentDto);
+
+        // Assert
+        assertEquals(fromAvailable.subtract(createPaymentDto.fromAmount()).subtract(BigDecimal.ONE), fromAccount.getAvailableBalance());
+        assertEquals(toAvailable.add(createPaymentDto.fromAmount()), toAccount.getAvailableBalance());
+        verifyNoInteractions(holdService);
+    }
+
+    @Test
+    void testCreateTransactionConvertsBetweenCurrencies() {
+        // Arrange
+        CreatePaymentDto createPaymentDto = TransactionObjectMother.generateBasicCreatePaymentDto();
+        Client client = ClientObjectMother.generateClient(UUID.fromString("9df5e618-f21d-48a7-a7a4-ac55ea8bec97"), "markezaa@example.com");
+        Account fromAccount = AccountObjectMother.generateBasicFromAccount();
+        Account toAccount = AccountObjectMother.generateBasicToAccount();
+        toAccount.getCurrency().setCode(Currency.Code.EUR);
+
+        client.setAccounts(Set.of(fromAccount));
+
+        when(jwtUtil.extractUsername(anyString())).thenReturn("markezaa@example.com");
+        when(clientRepository.findByEmail(anyString())).thenReturn(Optional.of(client));
+        when(accountRepository.findAccountByAccountNumber(createPaymentDto.fromAccount())).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findAccountByAccountNumber(createPaymentDto.toAccount())).thenReturn(Optional.of(toAccount));
+        when(exchangeRateService.convert(createPaymentDto.fromAmount(), Currency.Code.RSD, Currency.Code.EUR))
+                .thenReturn(new BigDecimal("0.01"));
+
+        // Act
+        transactionService.createTransaction(authentication, createPaymentDto);
+
+        // Assert
+        ArgumentCaptor<Transaction> saved = ArgumentCaptor.forClass(Transaction.class);
+        verify(transactionRepository).save(saved.capture());
+        assertEquals(createPaymentDto.fromAmount(), saved.getValue().getFrom().getAmount());
+        assertEquals(new BigDecimal("0.01"), saved.getValue().getTo().getAmount());
+        assertEquals(Currency.Code.EUR, saved.getValue().getTo().getCurrency().getCode());
     }
 
     @Test
@@ -193,6 +282,54 @@ public class TransactionServiceCreateTests {
         assertEquals(createTransferDto.toAccount(), result.toAccount());
         assertEquals(createTransferDto.fromAmount(), result.fromAmount());
         verify(transactionRepository, times(1)).save(any());
+        verify(ledgerService, times(1)).postTransaction(any());
+    }
+
+    @Test
+    void testCreateTransactionAsyncReservesFunds() {
+        // Arrange
+        CreatePaymentDto createPaymentDto = TransactionObjectMother.generateBasicCreatePaymentDto();
+        Client client = ClientObjectMother.generateClient(UUID.fromString("9df5e618-f21d-48a7-a7a4-ac55ea8bec97"), "markezaa@example.com");
+        Account fromAccount = AccountObjectMother.generateBasicFromAccount();
+        Account toAccount = AccountObjectMother.generateBasicToAccount();
+        BigDecimal balance = fromAccount.getBalance();
+
+        client.setAccounts(Set.of(fromAccount));
+
+        when(jwtUtil.extractUsername(anyString())).thenReturn("markezaa@example.com");
+        when(clientRepository.findByEmail(anyString())).thenReturn(Optional.of(client));
+        when(accountRepository.findAccountByAccountNumber(createPaymentDto.fromAccount())).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findAccountByAccountNumber(createPaymentDto.toAccount())).thenReturn(Optional.of(toAccount));
+
+        // Act
+        TransactionDto result = transactionService.createTransactionAsync(authentication, createPaymentDto);
+
+        // Assert
+        assertEquals(TransactionStatus.PENDING, result.status());
+        assertEquals(balance, fromAccount.getBalance());
+        verify(holdService).place(eq(fromAccount), any(), eq(createPaymentDto.fromAmount().add(BigDecimal.ONE)));
+        verify(transactionRepository, times(1)).save(any());
+        verifyNoInteractions(ledgerService);
     }
 
-}
\ No newline at end of file
+    @Test
+    void testCreateTransactionAsyncInsufficientAvailableBalance() {
+        // Arrange
+        CreatePaymentDto createPaymentDto = TransactionObjectMother.generateBasicCreatePaymentDto();
+        Client client = ClientObjectMother.generateClient(UUID.fromString("9df5e618-f21d-48a7-a7a4-ac55ea8bec97"), "markezaa@example.com");
+        Account fromAccount = AccountObjectMother.generateBasicFromAccount();
+        Account toAccount = AccountObjectMother.generateBasicToAccount();
+
+        fromAccount.setAvailableBalance(createPaymentDto.fromAmount()); // Not enough left for the fee
+        client.setAccounts(Set.of(fromAccount));
+
+        when(jwtUtil.extractUsername(anyString())).thenReturn("markezaa@example.com");
+        when(clientRepository.findByEmail(anyString())).thenReturn(Optional.of(client));
+        when(accountRepository.findAccountByAccountNumber(createPaymentDto.fromAccount())).thenReturn(Optional.of(fromAccount));
+        when(accountRepository.findAccountByAccountNumber(createPaymentDto.toAccount())).thenReturn(Optional.of(toAccount));
+
+        // Act & Assert
+        assertThrows(InsufficientFunds.class, () -> transactionService.createTransactionAsync(authentication, createPaymentDto));
+        verify(transactionRepository, never()).save(any());
+    }
+}